@@ -28,6 +28,8 @@ import java.util.Optional;
 
 import ch.qos.logback.classic.Level;
 
+import lombok.extern.slf4j.Slf4j;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.lang.String.format;
 import static java.util.stream.Collectors.toList;
@@ -53,6 +55,7 @@ import static java.util.stream.Collectors.toList;
  * @see #Config(String...)
  * @see #Config(String, File, String...)
  */
+@Slf4j
 public class Config {
 
     // Option name constants
@@ -95,7 +98,15 @@ public class Config {
     public static final String TOR_STREAM_ISOLATION = "torStreamIsolation";
     public static final String MSG_THROTTLE_PER_SEC = "msgThrottlePerSec";
     public static final String MSG_THROTTLE_PER_10_SEC = "msgThrottlePer10Sec";
+    public static final String SEND_MSG_RATE_PER_SEC = "sendMsgRatePerSec";
+    public static final String SEND_MSG_BURST = "sendMsgBurst";
+    public static final String GLOBAL_SEND_MSG_RATE_PER_SEC = "globalSendMsgRatePerSec";
+    public static final String RECEIVE_MSG_RATE_PER_SEC = "receiveMsgRatePerSec";
+    public static final String RECEIVE_MSG_BURST = "receiveMsgBurst";
+    // Replaced by SEND_MSG_RATE_PER_SEC and SEND_MSG_BURST. Still accepted so existing start scripts do not fail.
+    @Deprecated
     public static final String SEND_MSG_THROTTLE_TRIGGER = "sendMsgThrottleTrigger";
+    @Deprecated
     public static final String SEND_MSG_THROTTLE_SLEEP = "sendMsgThrottleSleep";
     public static final String IGNORE_LOCAL_BTC_NODE = "ignoreLocalBtcNode";
     public static final String BITCOIN_REGTEST_HOST = "bitcoinRegtestHost";
@@ -110,6 +121,7 @@ public class Config {
     public static final String RPC_PORT = "rpcPort";
     public static final String RPC_BLOCK_NOTIFICATION_PORT = "rpcBlockNotificationPort";
     public static final String RPC_BLOCK_NOTIFICATION_HOST = "rpcBlockNotificationHost";
+    public static final String RPC_BLOCK_PREFETCH_WINDOW = "rpcBlockPrefetchWindow";
     public static final String DUMP_BLOCKCHAIN_DATA = "dumpBlockchainData";
     public static final String FULL_DAO_NODE = "fullDaoNode";
     public static final String GENESIS_TX_ID = "genesisTxId";
@@ -133,6 +145,9 @@ public class Config {
     public static final String BM_ORACLE_NODE_PUB_KEY = "bmOracleNodePubKey";
     public static final String BM_ORACLE_NODE_PRIV_KEY = "bmOracleNodePrivKey";
     public static final String SEED_NODE_REPORTING_SERVER_URL = "seedNodeReportingServerUrl";
+    public static final String PARALLEL_MESSAGE_DISPATCH = "parallelMessageDispatch";
+    public static final String USE_INCREMENTAL_DAO_STATE_HASH = "useIncrementalDaoStateHash";
+    public static final String P2P_DATA_NOTIFICATION_DELAY = "p2pDataNotificationDelay";
 
     // Default values for certain options
     public static final int UNSPECIFIED_PORT = -1;
@@ -194,8 +209,11 @@ public class Config {
     public final boolean torStreamIsolation;
     public final int msgThrottlePerSec;
     public final int msgThrottlePer10Sec;
-    public final int sendMsgThrottleTrigger;
-    public final int sendMsgThrottleSleep;
+    public final int sendMsgRatePerSec;
+    public final int sendMsgBurst;
+    public final int globalSendMsgRatePerSec;
+    public final int receiveMsgRatePerSec;
+    public final int receiveMsgBurst;
     public final String btcNodes;
     public final boolean useTorForBtc;
     public final boolean useTorForBtcOptionSetExplicitly;
@@ -209,6 +227,7 @@ public class Config {
     public final int rpcPort;
     public final int rpcBlockNotificationPort;
     public final String rpcBlockNotificationHost;
+    public final int rpcBlockPrefetchWindow;
     public final boolean dumpBlockchainData;
     public final boolean fullDaoNode;
     public final boolean fullDaoNodeOptionSetExplicitly;
@@ -228,6 +247,9 @@ public class Config {
     public final String bmOracleNodePubKey;
     public final String bmOracleNodePrivKey;
     public final String seedNodeReportingServerUrl;
+    public final boolean parallelMessageDispatch;
+    public final boolean useIncrementalDaoStateHash;
+    public final int p2pDataNotificationDelay;
 
     // Properties derived from options but not exposed as options themselves
     public final File torDir;
@@ -516,17 +538,52 @@ public class Config {
                         // With PERMITTED_MESSAGE_SIZE of 200kb results in bandwidth of 20MB/sec or 2.5 mbit/sec
                         .defaultsTo(1000);
 
-        ArgumentAcceptingOptionSpec<Integer> sendMsgThrottleTriggerOpt =
-                parser.accepts(SEND_MSG_THROTTLE_TRIGGER, "Time in ms when we trigger a sleep if 2 messages are sent")
+        ArgumentAcceptingOptionSpec<Integer> sendMsgRatePerSecOpt =
+                parser.accepts(SEND_MSG_RATE_PER_SEC, "Max. number of messages per sec we send to a peer. " +
+                                "0 disables the limit per peer, the limit over all peers still applies.")
                         .withRequiredArg()
                         .ofType(int.class)
-                        .defaultsTo(20); // Time in ms when we trigger a sleep if 2 messages are sent
+                        .defaultsTo(0);
 
-        ArgumentAcceptingOptionSpec<Integer> sendMsgThrottleSleepOpt =
-                parser.accepts(SEND_MSG_THROTTLE_SLEEP, "Pause in ms to sleep if we get too many messages to send")
+        ArgumentAcceptingOptionSpec<Integer> sendMsgBurstOpt =
+                parser.accepts(SEND_MSG_BURST, "Number of messages we send to a peer without delay before the " +
+                                "send rate limit applies")
+                        .withRequiredArg()
+                        .ofType(int.class)
+                        .defaultsTo(20);
+
+        ArgumentAcceptingOptionSpec<Integer> globalSendMsgRatePerSecOpt =
+                parser.accepts(GLOBAL_SEND_MSG_RATE_PER_SEC, "Max. number of messages per sec we send to all peers")
+                        .withRequiredArg()
+                        .ofType(int.class)
+                        .defaultsTo(1000);
+
+        ArgumentAcceptingOptionSpec<Integer> receiveMsgRatePerSecOpt =
+                parser.accepts(RECEIVE_MSG_RATE_PER_SEC, format("Max. number of messages per sec we read from a " +
+                                "peer. Values below --%s are raised to it, so a flooding peer still exceeds the " +
+                                "throttle limits", MSG_THROTTLE_PER_SEC))
+                        .withRequiredArg()
+                        .ofType(int.class)
+                        .defaultsTo(200);
+
+        ArgumentAcceptingOptionSpec<Integer> receiveMsgBurstOpt =
+                parser.accepts(RECEIVE_MSG_BURST, "Number of messages we read from a peer without delay before the " +
+                                "receive rate limit applies")
                         .withRequiredArg()
                         .ofType(int.class)
-                        .defaultsTo(50); // Pause in ms to sleep if we get too many messages to send
+                        .defaultsTo(50);
+
+        ArgumentAcceptingOptionSpec<Integer> sendMsgThrottleTriggerOpt =
+                parser.accepts(SEND_MSG_THROTTLE_TRIGGER, format("Deprecated and ignored. Use --%s and --%s instead",
+                                SEND_MSG_RATE_PER_SEC, SEND_MSG_BURST))
+                        .withRequiredArg()
+                        .ofType(int.class);
+
+        ArgumentAcceptingOptionSpec<Integer> sendMsgThrottleSleepOpt =
+                parser.accepts(SEND_MSG_THROTTLE_SLEEP, format("Deprecated and ignored. Use --%s and --%s instead",
+                                SEND_MSG_RATE_PER_SEC, SEND_MSG_BURST))
+                        .withRequiredArg()
+                        .ofType(int.class);
 
         ArgumentAcceptingOptionSpec<String> btcNodesOpt =
                 parser.accepts(BTC_NODES, "Custom nodes used for BitcoinJ as comma separated IP addresses.")
@@ -599,6 +656,14 @@ public class Config {
                         .withRequiredArg()
                         .defaultsTo("");
 
+        ArgumentAcceptingOptionSpec<Integer> rpcBlockPrefetchWindowOpt =
+                parser.accepts(RPC_BLOCK_PREFETCH_WINDOW,
+                                "Max. number of blocks requested ahead from Bitcoind while parsing the blockchain. " +
+                                        "A value of 1 requests the blocks one by one")
+                        .withRequiredArg()
+                        .ofType(int.class)
+                        .defaultsTo(8);
+
         ArgumentAcceptingOptionSpec<Boolean> dumpBlockchainDataOpt =
                 parser.accepts(DUMP_BLOCKCHAIN_DATA, "If set to true the blockchain data " +
                                 "from RPC requests to Bitcoin Core are stored as json file in the data dir.")
@@ -710,6 +775,30 @@ public class Config {
                         .ofType(String.class)
                         .defaultsTo("");
 
+        ArgumentAcceptingOptionSpec<Boolean> parallelMessageDispatchOpt =
+                parser.accepts(PARALLEL_MESSAGE_DISPATCH,
+                                "Validate received network messages on a worker pool before handling them on the " +
+                                        "user thread")
+                        .withRequiredArg()
+                        .ofType(boolean.class)
+                        .defaultsTo(false);
+
+        ArgumentAcceptingOptionSpec<Boolean> useIncrementalDaoStateHashOpt =
+                parser.accepts(USE_INCREMENTAL_DAO_STATE_HASH,
+                                "Create the DAO state hashes from incremental digests of the DAO state (version 2). " +
+                                        "Those hashes can only be compared with peers using that option as well")
+                        .withRequiredArg()
+                        .ofType(boolean.class)
+                        .defaultsTo(false);
+
+        ArgumentAcceptingOptionSpec<Integer> p2pDataNotificationDelayOpt =
+                parser.accepts(P2P_DATA_NOTIFICATION_DELAY,
+                                "Time in ms we collect added and removed network data before we notify the " +
+                                        "listeners in one batch. 0 notifies them immediately")
+                        .withRequiredArg()
+                        .ofType(int.class)
+                        .defaultsTo(0);
+
         try {
             CompositeOptionSet options = new CompositeOptionSet();
 
@@ -799,8 +888,15 @@ public class Config {
             this.socks5ProxyHttpAddress = options.valueOf(socks5ProxyHttpAddressOpt);
             this.msgThrottlePerSec = options.valueOf(msgThrottlePerSecOpt);
             this.msgThrottlePer10Sec = options.valueOf(msgThrottlePer10SecOpt);
-            this.sendMsgThrottleTrigger = options.valueOf(sendMsgThrottleTriggerOpt);
-            this.sendMsgThrottleSleep = options.valueOf(sendMsgThrottleSleepOpt);
+            this.sendMsgRatePerSec = options.valueOf(sendMsgRatePerSecOpt);
+            this.sendMsgBurst = options.valueOf(sendMsgBurstOpt);
+            this.globalSendMsgRatePerSec = options.valueOf(globalSendMsgRatePerSecOpt);
+            this.receiveMsgRatePerSec = options.valueOf(receiveMsgRatePerSecOpt);
+            this.receiveMsgBurst = options.valueOf(receiveMsgBurstOpt);
+            if (options.has(sendMsgThrottleTriggerOpt) || options.has(sendMsgThrottleSleepOpt)) {
+                log.warn("The options --{} and --{} are deprecated and have no effect. Use --{} and --{} instead.",
+                        SEND_MSG_THROTTLE_TRIGGER, SEND_MSG_THROTTLE_SLEEP, SEND_MSG_RATE_PER_SEC, SEND_MSG_BURST);
+            }
             this.btcNodes = options.valueOf(btcNodesOpt);
             this.useTorForBtc = options.valueOf(useTorForBtcOpt);
             this.useTorForBtcOptionSetExplicitly = options.has(useTorForBtcOpt);
@@ -814,6 +910,7 @@ public class Config {
             this.rpcPort = options.valueOf(rpcPortOpt);
             this.rpcBlockNotificationPort = options.valueOf(rpcBlockNotificationPortOpt);
             this.rpcBlockNotificationHost = options.valueOf(rpcBlockNotificationHostOpt);
+            this.rpcBlockPrefetchWindow = options.valueOf(rpcBlockPrefetchWindowOpt);
             this.dumpBlockchainData = options.valueOf(dumpBlockchainDataOpt);
             this.fullDaoNode = options.valueOf(fullDaoNodeOpt);
             this.fullDaoNodeOptionSetExplicitly = options.has(fullDaoNodeOpt);
@@ -833,6 +930,9 @@ public class Config {
             this.bmOracleNodePubKey = options.valueOf(bmOracleNodePubKey);
             this.bmOracleNodePrivKey = options.valueOf(bmOracleNodePrivKey);
             this.seedNodeReportingServerUrl = options.valueOf(seedNodeReportingServerUrlOpt);
+            this.parallelMessageDispatch = options.valueOf(parallelMessageDispatchOpt);
+            this.useIncrementalDaoStateHash = options.valueOf(useIncrementalDaoStateHashOpt);
+            this.p2pDataNotificationDelay = options.valueOf(p2pDataNotificationDelayOpt);
         } catch (OptionException ex) {
             throw new ConfigException("problem parsing option '%s': %s",
                     ex.options().get(0),
@@ -0,0 +1,149 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common.persistence;
+
+import bisq.common.UserThread;
+import bisq.common.proto.persistable.PersistedDataHost;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Reads the persisted data of all added {@link PersistedDataHost}s at startup. Hosts without pending dependencies are
+ * read at the same time, so the file reading and decoding of independent stores happens in parallel on the read
+ * threads of the {@link PersistenceManager}. A host is only read once all the hosts it depends on have completed.
+ *
+ * We log the time each host needed until it completed, so slow stores are visible at startup.
+ */
+@Slf4j
+public class PersistedDataLoader {
+    private final Map<PersistedDataHost, Set<PersistedDataHost>> dependenciesByHost = new LinkedHashMap<>();
+    private final Map<PersistedDataHost, Long> startTimeByHost = new HashMap<>();
+    private final Map<PersistedDataHost, Long> durationByHost = new HashMap<>();
+    private Runnable completeHandler;
+    private long startTime;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public PersistedDataLoader add(PersistedDataHost host) {
+        dependenciesByHost.putIfAbsent(host, new HashSet<>());
+        return this;
+    }
+
+    public PersistedDataLoader addAll(List<PersistedDataHost> hosts) {
+        hosts.forEach(this::add);
+        return this;
+    }
+
+    /**
+     * The host will only be read after the dependency has completed reading. Both need to be added to the loader.
+     */
+    public PersistedDataLoader addDependency(PersistedDataHost host, PersistedDataHost dependency) {
+        checkArgument(dependenciesByHost.containsKey(host), "Host %s was not added", getName(host));
+        checkArgument(dependenciesByHost.containsKey(dependency), "Dependency %s was not added", getName(dependency));
+        checkArgument(host != dependency, "Host %s cannot depend on itself", getName(host));
+        dependenciesByHost.get(host).add(dependency);
+        return this;
+    }
+
+    // Needs to be called on the user thread.
+    public void readAll(Runnable completeHandler) {
+        checkState(this.completeHandler == null, "readAll must be called only once");
+        checkNoCycles();
+        this.completeHandler = completeHandler;
+        startTime = System.currentTimeMillis();
+        if (dependenciesByHost.isEmpty()) {
+            UserThread.execute(completeHandler);
+            return;
+        }
+        startReadyHosts();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void startReadyHosts() {
+        List<PersistedDataHost> readyHosts = dependenciesByHost.entrySet().stream()
+                .filter(entry -> !startTimeByHost.containsKey(entry.getKey()))
+                .filter(entry -> durationByHost.keySet().containsAll(entry.getValue()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        // We mark all as started before we call the hosts, as a host might call its completeHandler synchronously.
+        readyHosts.forEach(host -> startTimeByHost.put(host, System.currentTimeMillis()));
+        readyHosts.forEach(host -> host.readPersisted(() -> UserThread.execute(() -> onHostCompleted(host))));
+    }
+
+    private void onHostCompleted(PersistedDataHost host) {
+        if (durationByHost.containsKey(host)) {
+            log.warn("{} called the completeHandler more than once", getName(host));
+            return;
+        }
+
+        long duration = System.currentTimeMillis() - startTimeByHost.get(host);
+        durationByHost.put(host, duration);
+        log.info("Reading persisted data of {} completed in {} ms", getName(host), duration);
+
+        if (durationByHost.size() == dependenciesByHost.size()) {
+            String durations = durationByHost.entrySet().stream()
+                    .sorted(Map.Entry.<PersistedDataHost, Long>comparingByValue(Comparator.reverseOrder()))
+                    .map(entry -> getName(entry.getKey()) + ": " + entry.getValue() + " ms")
+                    .collect(Collectors.joining(", "));
+            log.info("Reading persisted data of {} hosts completed in {} ms. Durations: {}",
+                    dependenciesByHost.size(), System.currentTimeMillis() - startTime, durations);
+            completeHandler.run();
+        } else {
+            startReadyHosts();
+        }
+    }
+
+    private void checkNoCycles() {
+        // We remove hosts without unresolved dependencies until no host is left. If we get stuck we have a cycle.
+        Set<PersistedDataHost> resolved = new HashSet<>();
+        List<PersistedDataHost> unresolved = new ArrayList<>(dependenciesByHost.keySet());
+        while (!unresolved.isEmpty()) {
+            List<PersistedDataHost> ready = unresolved.stream()
+                    .filter(host -> resolved.containsAll(dependenciesByHost.get(host)))
+                    .collect(Collectors.toList());
+            checkArgument(!ready.isEmpty(), "Cyclic dependencies between %s",
+                    unresolved.stream().map(this::getName).collect(Collectors.toList()));
+            resolved.addAll(ready);
+            unresolved.removeAll(ready);
+        }
+    }
+
+    private String getName(PersistedDataHost host) {
+        return host.getClass().getSimpleName();
+    }
+}
@@ -24,15 +24,21 @@ import bisq.common.config.Config;
 import bisq.common.file.CorruptedStorageFileHandler;
 import bisq.common.file.FileUtil;
 import bisq.common.handlers.ResultHandler;
+import bisq.common.proto.persistable.AppendLogPersistableEnvelope;
 import bisq.common.proto.persistable.PersistableEnvelope;
 import bisq.common.proto.persistable.PersistenceProtoResolver;
 import bisq.common.util.GcUtil;
 import bisq.common.util.Utilities;
 
+import com.google.protobuf.ByteString;
+
 import com.google.inject.Inject;
 
+import com.google.common.annotations.VisibleForTesting;
+
 import javax.inject.Named;
 
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 
 import java.io.File;
@@ -40,14 +46,24 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -71,6 +87,16 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * the write operations got triggered way too often specially for the very frequent changes at SequenceNumberMap and
  * the very large DaoState (at dao blockchain sync that slowed down sync).
  *
+ * For large map like stores implementing {@link AppendLogPersistableEnvelope} we support an append log mode. If only
+ * the changed keys are reported by {@link #requestPersistence(byte[])} we append a record with the changed entries to
+ * a log file instead of writing the whole store. Once the log gets too large compared to the snapshot we write a new
+ * snapshot and delete the log. At reading we replay the log on top of the snapshot. The first record of a log carries
+ * the checksum of the snapshot it was started on, so an outdated log (e.g. after a crash before it got deleted) is
+ * never replayed on a newer snapshot.
+ *
+ * Serialization is done on the user thread unless the persistable provides a snapshot by
+ * {@link PersistableEnvelope#toPersistableSnapshot()}. In that case we only capture the snapshot on the user thread
+ * and serialize it at the write thread.
  *
  * @param <T>   The type of the {@link PersistableEnvelope} to be written or read from disk
  */
@@ -85,6 +111,24 @@ public class PersistenceManager<T extends PersistableEnvelope> {
     private static boolean flushAtShutdownCalled;
     private static final AtomicBoolean allServicesInitialized = new AtomicBoolean(false);
 
+    public static final String LOG_FILE_POSTFIX = ".log";
+    // We write a new snapshot if the log exceeds that size and the size of the snapshot multiplied by
+    // LOG_COMPACTION_RATIO.
+    private static final long MIN_LOG_SIZE_FOR_COMPACTION = 256 * 1024;
+    private static final double LOG_COMPACTION_RATIO = 0.25;
+
+    // Reading and decoding the persisted data at startup is CPU bound, so we use at most one thread per core.
+    private static final int NUM_READ_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final ExecutorService READ_EXECUTOR = Utilities.getListeningExecutorService("PersistenceManager-read",
+            NUM_READ_THREADS, NUM_READ_THREADS, 30, new LinkedBlockingQueue<>());
+
+    /**
+     * The bounded executor used for reading persisted data. Tasks must not block on other tasks of that executor.
+     */
+    public static Executor getReadExecutor() {
+        return READ_EXECUTOR;
+    }
+
     public static void onAllServicesInitialized() {
         allServicesInitialized.set(true);
 
@@ -97,6 +141,13 @@ public class PersistenceManager<T extends PersistableEnvelope> {
         });
     }
 
+    // Tests which call onAllServicesInitialized must reset the flag, otherwise all later tests in the same JVM
+    // persist to disk. Public as those tests are in other modules.
+    @VisibleForTesting
+    public static void resetAllServicesInitialized() {
+        allServicesInitialized.set(false);
+    }
+
     public static void flushAllDataToDiskAtBackup(ResultHandler completeHandler) {
         flushAllDataToDisk(completeHandler, false);
     }
@@ -223,6 +274,19 @@ public class PersistenceManager<T extends PersistableEnvelope> {
     public final AtomicBoolean initCalled = new AtomicBoolean(false);
     public final AtomicBoolean readCalled = new AtomicBoolean(false);
 
+    // Only used in append log mode. Keys of entries which have been changed since the last persist call.
+    private final Set<ByteBuffer> changedKeys = new LinkedHashSet<>();
+    // Set if we got a requestPersistence call without a key, so we do not know what has changed.
+    private volatile boolean snapshotRequested;
+    // Set at the write thread if the log got too large, or at the read thread if the log could not be fully read.
+    private volatile boolean compactionRequired;
+    private volatile long snapshotFileSize;
+    @Nullable
+    private volatile Long snapshotChecksum;
+    @Nullable
+    private String snapshotFileName;
+    private volatile long logFileSize;
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Constructor
@@ -273,6 +337,10 @@ public class PersistenceManager<T extends PersistableEnvelope> {
         this.fileName = fileName;
         this.source = source;
         storageFile = new File(dir, fileName);
+        if (!fileName.equals(snapshotFileName)) {
+            // We have not read our snapshot, so we do not know its checksum and start with a new snapshot.
+            snapshotChecksum = null;
+        }
         ALL_PERSISTENCE_MANAGERS.put(fileName, this);
     }
 
@@ -317,7 +385,7 @@ public class PersistenceManager<T extends PersistableEnvelope> {
             return;
         }
 
-        new Thread(() -> {
+        READ_EXECUTOR.execute(() -> {
             T persisted = getPersisted(fileName);
             if (persisted != null) {
                 UserThread.execute(() -> {
@@ -328,7 +396,7 @@ public class PersistenceManager<T extends PersistableEnvelope> {
             } else {
                 UserThread.execute(orElse);
             }
-        }, "PersistenceManager-read-" + fileName).start();
+        });
     }
 
     // API for synchronous reading of data. Not recommended to be used in application code.
@@ -355,9 +423,27 @@ public class PersistenceManager<T extends PersistableEnvelope> {
         long ts = System.currentTimeMillis();
         try (FileInputStream fileInputStream = new FileInputStream(storageFile)) {
             protobuf.PersistableEnvelope proto = protobuf.PersistableEnvelope.parseDelimitedFrom(fileInputStream);
+            long readDuration = System.currentTimeMillis() - ts;
             //noinspection unchecked
             T persistableEnvelope = (T) persistenceProtoResolver.fromProto(proto);
-            log.info("Reading {} completed in {} ms", fileName, System.currentTimeMillis() - ts);
+            long decodeDuration = System.currentTimeMillis() - ts - readDuration;
+            if (persistableEnvelope instanceof AppendLogPersistableEnvelope) {
+                boolean isOwnFile = isOwnFile(fileName);
+                File logFile = new File(dir, fileName + LOG_FILE_POSTFIX);
+                // We need the checksum of the snapshot only for our own file or if there is a log to replay.
+                if (isOwnFile || logFile.exists()) {
+                    long checksum = getChecksum(storageFile);
+                    replayLog((AppendLogPersistableEnvelope) persistableEnvelope, fileName, logFile, checksum, isOwnFile);
+                    if (isOwnFile) {
+                        snapshotFileName = fileName;
+                        snapshotFileSize = storageFile.length();
+                        snapshotChecksum = checksum;
+                    }
+                }
+            }
+            log.info("Reading {} completed in {} ms (read: {} ms, decode: {} ms, size: {})", fileName,
+                    System.currentTimeMillis() - ts, readDuration, decodeDuration,
+                    Utilities.readableFileSize(storageFile.length()));
             return persistableEnvelope;
         } catch (Throwable t) {
             log.error("Reading {} failed with {}.", fileName, t.getMessage());
@@ -377,6 +463,69 @@ public class PersistenceManager<T extends PersistableEnvelope> {
         return null;
     }
 
+    private void replayLog(AppendLogPersistableEnvelope persistableEnvelope,
+                           String fileName,
+                           File logFile,
+                           long snapshotChecksum,
+                           boolean isOwnFile) {
+        if (!logFile.exists()) {
+            return;
+        }
+
+        int numRecords = 0;
+        try (FileInputStream fileInputStream = new FileInputStream(logFile)) {
+            protobuf.PersistableEnvelopeLogRecord record;
+            while ((record = protobuf.PersistableEnvelopeLogRecord.parseDelimitedFrom(fileInputStream)) != null) {
+                if (numRecords == 0 && record.getSnapshotChecksum() != snapshotChecksum) {
+                    // The log was started on another snapshot. As we write the new snapshot before we delete the log
+                    // the snapshot contains all changes of the log already.
+                    log.warn("Log of {} does not belong to the snapshot. We ignore it.", fileName);
+                    if (isOwnFile) {
+                        compactionRequired = true;
+                    }
+                    return;
+                }
+                PersistableEnvelope added = record.hasAdded() ?
+                        persistenceProtoResolver.fromProto(record.getAdded()) :
+                        null;
+                List<byte[]> removedKeys = record.getRemovedKeysList().stream()
+                        .map(ByteString::toByteArray)
+                        .collect(Collectors.toList());
+                persistableEnvelope.applyLogRecord(added, removedKeys);
+                numRecords++;
+            }
+        } catch (Throwable t) {
+            // An incomplete record at the end of the log can be caused by a crash while appending. We keep the
+            // records we could read and write a new snapshot at the next persist call.
+            log.warn("Reading log of {} failed after {} records with {}.", fileName, numRecords, t.getMessage());
+            if (isOwnFile) {
+                compactionRequired = true;
+            }
+        }
+
+        if (isOwnFile) {
+            logFileSize = logFile.length();
+        }
+        log.info("Replayed {} log records of {}", numRecords, fileName);
+    }
+
+    // Stores read the persisted data before they initialize the PersistenceManager, so we do not know our file
+    // name yet in that case and check it at initialize.
+    private boolean isOwnFile(String fileName) {
+        return this.fileName == null || this.fileName.equals(fileName);
+    }
+
+    private static long getChecksum(File file) throws IOException {
+        CRC32 checksum = new CRC32();
+        try (CheckedInputStream checkedInputStream = new CheckedInputStream(new FileInputStream(file), checksum)) {
+            byte[] buffer = new byte[64 * 1024];
+            //noinspection StatementWithEmptyBody
+            while (checkedInputStream.read(buffer) != -1) {
+            }
+        }
+        return checksum.getValue();
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Write file to disk
@@ -389,6 +538,7 @@ public class PersistenceManager<T extends PersistableEnvelope> {
         }
 
         persistenceRequested = true;
+        snapshotRequested = true;
 
         // If we have not initialized yet we postpone the start of the timer and call maybeStartTimerForPersistence at
         // onAllServicesInitialized
@@ -399,6 +549,35 @@ public class PersistenceManager<T extends PersistableEnvelope> {
         maybeStartTimerForPersistence();
     }
 
+    /**
+     * Requests persistence of the entry with the given key. If our persistable supports the append log mode, only the
+     * changed entry gets written at the next persist call. Otherwise it is the same as requestPersistence().
+     *
+     * @param key   Key of the entry which got added, updated or removed.
+     */
+    public void requestPersistence(byte[] key) {
+        if (!(persistable instanceof AppendLogPersistableEnvelope)) {
+            requestPersistence();
+            return;
+        }
+
+        if (flushAtShutdownCalled) {
+            log.warn("We have started the shut down routine already. We ignore that requestPersistence call.");
+            return;
+        }
+
+        synchronized (changedKeys) {
+            changedKeys.add(ByteBuffer.wrap(key));
+        }
+        persistenceRequested = true;
+
+        if (!allServicesInitialized.get()) {
+            return;
+        }
+
+        maybeStartTimerForPersistence();
+    }
+
     private void maybeStartTimerForPersistence() {
         // We write to disk with a delay to avoid frequent write operations. Depending on the priority those delays
         // can be rather long.
@@ -420,8 +599,32 @@ public class PersistenceManager<T extends PersistableEnvelope> {
     }
 
     private void persistNow(@Nullable Runnable completeHandler, boolean force) {
+        if (persistable instanceof AppendLogPersistableEnvelope && !isSnapshotRequired()) {
+            appendChangesToLog((AppendLogPersistableEnvelope) persistable, completeHandler, force);
+            return;
+        }
+
         long ts = System.currentTimeMillis();
         try {
+            // A snapshot contains all changes, so we do not need to append them to the log.
+            synchronized (changedKeys) {
+                changedKeys.clear();
+            }
+            snapshotRequested = false;
+            compactionRequired = false;
+
+            // If the persistable provides a snapshot we only capture it here and serialize it at the write thread, as
+            // the snapshot is not affected by later mutations of the persistable.
+            PersistableEnvelope snapshot = persistable.toPersistableSnapshot();
+            if (snapshot != null) {
+                getWriteToDiskExecutor().execute(() -> serializeAndWriteToDisk(snapshot, completeHandler, force));
+                long duration = System.currentTimeMillis() - ts;
+                if (duration > 100) {
+                    log.info("Creating snapshot of {} took {} msec", fileName, duration);
+                }
+                return;
+            }
+
             // The serialisation is done on the user thread to avoid threading issue with potential mutations of the
             // persistable object. Keeping it on the user thread we are in a synchronize model.
             protobuf.PersistableEnvelope serialized = (protobuf.PersistableEnvelope) persistable.toPersistableMessage();
@@ -442,9 +645,36 @@ public class PersistenceManager<T extends PersistableEnvelope> {
         }
     }
 
+    // Called at the write thread
+    private void serializeAndWriteToDisk(PersistableEnvelope snapshot,
+                                         @Nullable Runnable completeHandler,
+                                         boolean force) {
+        protobuf.PersistableEnvelope serialized;
+        long ts = System.currentTimeMillis();
+        try {
+            serialized = (protobuf.PersistableEnvelope) snapshot.toPersistableMessage();
+        } catch (Throwable e) {
+            // We must not throw here as our completeHandler would never get called.
+            log.error("Error in saveToFile toProtoMessage: {}, {}", snapshot.getClass().getSimpleName(), fileName, e);
+            compactionRequired = true;
+            if (completeHandler != null) {
+                UserThread.execute(completeHandler);
+            }
+            return;
+        }
+
+        long duration = System.currentTimeMillis() - ts;
+        if (duration > 100) {
+            log.info("Serializing snapshot of {} took {} msec", fileName, duration);
+        }
+        writeToDisk(serialized, completeHandler, force);
+    }
+
     private void writeToDisk(protobuf.PersistableEnvelope serialized, @Nullable Runnable completeHandler, boolean force) {
         if (!allServicesInitialized.get() && !force) {
             log.warn("Application has not completed start up yet so we do not permit writing data to disk.");
+            // In append log mode the dropped changes are not in the log either, so we need a new snapshot.
+            compactionRequired = true;
             if (completeHandler != null)
                 UserThread.execute(completeHandler);
             return;
@@ -469,7 +699,8 @@ public class PersistenceManager<T extends PersistableEnvelope> {
 
             fileOutputStream = new FileOutputStream(tempFile);
 
-            serialized.writeDelimitedTo(fileOutputStream);
+            CRC32 checksum = new CRC32();
+            serialized.writeDelimitedTo(new CheckedOutputStream(fileOutputStream, checksum));
 
             // Attempt to force the bits to hit the disk. In reality the OS or hard disk itself may still decide
             // to not write through to physical media for at least a few seconds, but this is the best we can do.
@@ -482,10 +713,19 @@ public class PersistenceManager<T extends PersistableEnvelope> {
 
             FileUtil.renameFile(tempFile, storageFile);
             usedTempFilePath = tempFile.toPath();
+
+            if (persistable instanceof AppendLogPersistableEnvelope) {
+                // The snapshot contains all records of the log.
+                snapshotFileSize = storageFile.length();
+                snapshotChecksum = checksum.getValue();
+                deleteLogFile();
+            }
         } catch (Throwable t) {
             // If an error occurred, don't attempt to reuse this path again, in case temp file cleanup fails.
             usedTempFilePath = null;
             log.error("Error at saveToFile, storageFile={}", fileName, t);
+            // The log does not contain the changes of the failed snapshot, so we need to try again with a snapshot.
+            compactionRequired = true;
         } finally {
             if (tempFile != null && tempFile.exists()) {
                 log.warn("Temp file still exists after failed save. We will delete it now. storageFile={}", fileName);
@@ -514,6 +754,108 @@ public class PersistenceManager<T extends PersistableEnvelope> {
         }
     }
 
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Append log
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private boolean isSnapshotRequired() {
+        return snapshotRequested || compactionRequired || snapshotChecksum == null || !storageFile.exists();
+    }
+
+    private void appendChangesToLog(AppendLogPersistableEnvelope persistable,
+                                    @Nullable Runnable completeHandler,
+                                    boolean force) {
+        List<byte[]> keys;
+        synchronized (changedKeys) {
+            keys = changedKeys.stream().map(ByteBuffer::array).collect(Collectors.toList());
+            changedKeys.clear();
+        }
+
+        protobuf.PersistableEnvelopeLogRecord record = null;
+        if (!keys.isEmpty()) {
+            try {
+                // We serialize on the user thread like at the snapshot, but only the changed entries.
+                List<byte[]> addedKeys = new ArrayList<>();
+                protobuf.PersistableEnvelopeLogRecord.Builder builder = protobuf.PersistableEnvelopeLogRecord.newBuilder();
+                keys.forEach(key -> {
+                    if (persistable.containsLogKey(key)) {
+                        addedKeys.add(key);
+                    } else {
+                        builder.addRemovedKeys(ByteString.copyFrom(key));
+                    }
+                });
+                if (!addedKeys.isEmpty()) {
+                    builder.setAdded((protobuf.PersistableEnvelope) persistable.toPersistableMessage(addedKeys));
+                }
+                record = builder.build();
+            } catch (Throwable e) {
+                log.error("Error in saveToFile toPersistableMessage: {}, {}", persistable.getClass().getSimpleName(), fileName);
+                e.printStackTrace();
+                throw new RuntimeException(e);
+            }
+        }
+
+        protobuf.PersistableEnvelopeLogRecord finalRecord = record;
+        getWriteToDiskExecutor().execute(() -> appendToLog(finalRecord, completeHandler, force));
+    }
+
+    private void appendToLog(@Nullable protobuf.PersistableEnvelopeLogRecord record,
+                             @Nullable Runnable completeHandler,
+                             boolean force) {
+        if (!allServicesInitialized.get() && !force) {
+            log.warn("Application has not completed start up yet so we do not permit writing data to disk.");
+            // The changes of the dropped record are not on disk, so we need a snapshot at the next write.
+            compactionRequired = true;
+            if (completeHandler != null)
+                UserThread.execute(completeHandler);
+            return;
+        }
+
+        long ts = System.currentTimeMillis();
+        if (record != null) {
+            File logFile = new File(dir, fileName + LOG_FILE_POSTFIX);
+            if (logFileSize == 0 || !logFile.exists()) {
+                record = record.toBuilder().setSnapshotChecksum(checkNotNull(snapshotChecksum)).build();
+            }
+            try (FileOutputStream fileOutputStream = new FileOutputStream(logFile, true)) {
+                record.writeDelimitedTo(fileOutputStream);
+                fileOutputStream.flush();
+                fileOutputStream.getFD().sync();
+                logFileSize = logFile.length();
+            } catch (Throwable t) {
+                log.error("Error at appending to log, storageFile={}", fileName, t);
+                compactionRequired = true;
+            }
+
+            if (logFileSize > Math.max(MIN_LOG_SIZE_FOR_COMPACTION, snapshotFileSize * LOG_COMPACTION_RATIO)) {
+                log.info("Log of {} has reached {} bytes. We write a new snapshot at the next persist call.",
+                        fileName, logFileSize);
+                compactionRequired = true;
+            }
+        }
+
+        long duration = System.currentTimeMillis() - ts;
+        if (duration > 100) {
+            log.info("Appending to log of {} completed in {} msec", fileName, duration);
+        }
+        persistenceRequested = false;
+        if (completeHandler != null) {
+            UserThread.execute(completeHandler);
+        }
+    }
+
+    private void deleteLogFile() {
+        File logFile = new File(dir, fileName + LOG_FILE_POSTFIX);
+        if (logFile.exists() && !logFile.delete()) {
+            // The checksum of the snapshot protects us from replaying the outdated log, but we must not append to it.
+            log.error("Cannot delete log file {}.", logFile);
+            compactionRequired = true;
+            return;
+        }
+        logFileSize = 0;
+    }
+
     private ExecutorService getWriteToDiskExecutor() {
         if (writeToDiskExecutor == null) {
             String name = "Write-" + fileName + "_to-disk";
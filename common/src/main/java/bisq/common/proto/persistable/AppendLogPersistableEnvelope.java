@@ -0,0 +1,51 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common.proto.persistable;
+
+import com.google.protobuf.Message;
+
+import java.util.Collection;
+
+import javax.annotation.Nullable;
+
+/**
+ * A PersistableEnvelope consisting of entries with a unique key which supports the append log mode of the
+ * PersistenceManager. Instead of writing the whole envelope if only a few entries have changed, the changed entries are
+ * appended to a log file next to the snapshot file. At startup the log gets replayed on top of the snapshot.
+ *
+ * Changes are reported with PersistenceManager.requestPersistence(byte[] key). A call of requestPersistence() without a
+ * key still causes a write of the whole envelope.
+ */
+public interface AppendLogPersistableEnvelope extends PersistableEnvelope {
+
+    boolean containsLogKey(byte[] key);
+
+    /**
+     * @param keys  Keys of entries which are contained in the envelope.
+     * @return An envelope of the same type holding only the entries for the given keys.
+     */
+    Message toPersistableMessage(Collection<byte[]> keys);
+
+    /**
+     * Applies a log record read from disk.
+     *
+     * @param added         Envelope of the same type holding the added or updated entries, or null if there are none.
+     * @param removedKeys   Keys of the removed entries.
+     */
+    void applyLogRecord(@Nullable PersistableEnvelope added, Collection<byte[]> removedKeys);
+}
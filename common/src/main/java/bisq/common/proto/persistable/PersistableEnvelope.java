@@ -21,6 +21,8 @@ import bisq.common.Envelope;
 
 import com.google.protobuf.Message;
 
+import javax.annotation.Nullable;
+
 /**
  * Interface for the outside envelope object persisted to disk.
  */
@@ -30,6 +32,18 @@ public interface PersistableEnvelope extends Envelope {
         return toProtoMessage();
     }
 
+    /**
+     * Returns an envelope with the current state which is not affected by later mutations of this envelope, so that
+     * the PersistenceManager can serialize it at its write thread. It must be cheap to create, e.g. by referencing
+     * immutable data or by copying collections of immutable items, as it is called on the user thread.
+     *
+     * @return The snapshot, or null if not supported. In that case we serialize on the user thread.
+     */
+    @Nullable
+    default PersistableEnvelope toPersistableSnapshot() {
+        return null;
+    }
+
     default String getDefaultStorageFileName() {
         return this.getClass().getSimpleName();
     }
@@ -115,6 +115,13 @@ public class ConfigTests {
         configWithOpts(opt("bogus"));
     }
 
+    @Test
+    public void whenDeprecatedSendMsgThrottleOptionsAreSet_thenNoExceptionIsThrown() {
+        Config config = configWithOpts(opt(SEND_MSG_THROTTLE_TRIGGER, 20), opt(SEND_MSG_THROTTLE_SLEEP, 50));
+        assertThat(config.sendMsgRatePerSec, equalTo(0));
+        assertThat(config.sendMsgBurst, equalTo(20));
+    }
+
     @Test
     public void whenUnrecognizedOptionIsSetInConfigFile_thenNoExceptionIsThrown() throws IOException {
         File configFile = File.createTempFile("bisq", "properties");
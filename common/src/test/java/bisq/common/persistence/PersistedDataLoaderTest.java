@@ -0,0 +1,119 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common.persistence;
+
+import bisq.common.proto.persistable.PersistedDataHost;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PersistedDataLoaderTest {
+    private List<String> readOrder;
+    private AtomicBoolean completed;
+
+    @Before
+    public void setUp() {
+        readOrder = new ArrayList<>();
+        completed = new AtomicBoolean();
+    }
+
+    @Test
+    public void readAll_startsIndependentHostsAtOnce() {
+        HostStub a = new HostStub("a");
+        HostStub b = new HostStub("b");
+        new PersistedDataLoader().add(a).add(b).readAll(() -> completed.set(true));
+
+        assertEquals(List.of("a", "b"), readOrder);
+        assertFalse(completed.get());
+
+        b.complete();
+        a.complete();
+        assertTrue(completed.get());
+    }
+
+    @Test
+    public void readAll_startsHostAfterDependencies() {
+        HostStub a = new HostStub("a");
+        HostStub b = new HostStub("b");
+        HostStub c = new HostStub("c");
+        new PersistedDataLoader().add(a).add(b).add(c)
+                .addDependency(a, b)
+                .addDependency(a, c)
+                .readAll(() -> completed.set(true));
+
+        assertEquals(List.of("b", "c"), readOrder);
+
+        b.complete();
+        assertEquals(List.of("b", "c"), readOrder);
+
+        c.complete();
+        assertEquals(List.of("b", "c", "a"), readOrder);
+        assertFalse(completed.get());
+
+        a.complete();
+        assertTrue(completed.get());
+    }
+
+    @Test
+    public void readAll_completesWithoutHosts() {
+        new PersistedDataLoader().readAll(() -> completed.set(true));
+        assertTrue(completed.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void readAll_rejectsCyclicDependencies() {
+        HostStub a = new HostStub("a");
+        HostStub b = new HostStub("b");
+        new PersistedDataLoader().add(a).add(b)
+                .addDependency(a, b)
+                .addDependency(b, a)
+                .readAll(() -> completed.set(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addDependency_rejectsUnknownHost() {
+        new PersistedDataLoader().add(new HostStub("a")).addDependency(new HostStub("b"), new HostStub("a"));
+    }
+
+    private class HostStub implements PersistedDataHost {
+        private final String name;
+        private Runnable completeHandler;
+
+        HostStub(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void readPersisted(Runnable completeHandler) {
+            readOrder.add(name);
+            this.completeHandler = completeHandler;
+        }
+
+        void complete() {
+            completeHandler.run();
+        }
+    }
+}
@@ -42,6 +42,7 @@ import javax.inject.Inject;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Charsets;
+import com.google.common.math.LongMath;
 
 import java.security.PublicKey;
 import java.security.SignatureException;
@@ -94,6 +95,18 @@ public class SignedWitnessService {
     private final Map<P2PDataStorage.ByteArray, Boolean> verifySignatureWithDSAKeyResultCache = new HashMap<>();
     private final Map<P2PDataStorage.ByteArray, Boolean> verifySignatureWithECKeyResultCache = new HashMap<>();
 
+    // Walking the signer chain is expensive and done for each offer in the offer book. Only the date check of the
+    // first SignedWitness in the chain depends on the time of the request, the rest of the chain validation does not.
+    // So we cache that time independent result per SignedWitness hash and derive from it per AccountAgeWitness hash
+    // the earliest time at which the account is a signer.
+    // New SignedWitnesses can only add valid chains, so at adding we only drop the negative results. At removal and
+    // at filter changes (banned signers) we clear the caches.
+    private final Map<P2PDataStorage.ByteArray, Boolean> validSignerWitnessCache = new HashMap<>();
+    private final Map<P2PDataStorage.ByteArray, Long> signerSinceByAccountAgeWitnessHash = new HashMap<>();
+    // Set at adding a SignedWitness. We drop the outdated results only at the next lookup, so at a bulk load of
+    // SignedWitnesses we do it once and not per added SignedWitness.
+    private boolean signerCacheOutdated;
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Constructor
@@ -135,6 +148,8 @@ public class SignedWitnessService {
                 addToMap((SignedWitness) e);
         });
 
+        filterManager.filterProperty().addListener((observable, oldValue, newValue) -> invalidateSignerCache());
+
         if (p2PService.isBootstrapped()) {
             onBootstrapComplete();
         } else {
@@ -444,7 +459,7 @@ public class SignedWitnessService {
 
     private boolean verifySigner(SignedWitness signedWitness) {
         return getSignedWitnessSetByOwnerPubKey(signedWitness.getWitnessOwnerPubKey(), new Stack<>()).stream()
-                .anyMatch(w -> isValidSignerWitnessInternal(w, signedWitness.getDate(), new Stack<>()));
+                .anyMatch(w -> isValidSignerWitness(w) && (w.isSignedByArbitrator() || verifyDate(w, signedWitness.getDate())));
     }
 
     /**
@@ -456,15 +471,63 @@ public class SignedWitnessService {
      * @return true if accountAgeWitness is allowed to sign at time, false otherwise.
      */
     private boolean isSignerAccountAgeWitness(AccountAgeWitness accountAgeWitness, long time) {
-        Stack<P2PDataStorage.ByteArray> excludedPubKeys = new Stack<>();
-        Set<SignedWitness> signedWitnessSet = getSignedWitnessSet(accountAgeWitness);
-        for (SignedWitness signedWitness : signedWitnessSet) {
-            if (isValidSignerWitnessInternal(signedWitness, time, excludedPubKeys)) {
-                return true;
+        return time >= getSignerSince(accountAgeWitness);
+    }
+
+    /**
+     * @param accountAgeWitness accountAgeWitness
+     * @return the earliest time at which the accountAgeWitness is allowed to sign. Long.MIN_VALUE if signed by an
+     * arbitrator, Long.MAX_VALUE if there is no valid signer chain.
+     */
+    private long getSignerSince(AccountAgeWitness accountAgeWitness) {
+        updateSignerCacheIfOutdated();
+        P2PDataStorage.ByteArray key = new P2PDataStorage.ByteArray(accountAgeWitness.getHash());
+        Long cached = signerSinceByAccountAgeWitnessHash.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long signerSince = Long.MAX_VALUE;
+        for (SignedWitness signedWitness : getSignedWitnessSet(accountAgeWitness)) {
+            if (isValidSignerWitness(signedWitness)) {
+                // See verifyDate: The signedWitness date must be at least SIGNER_AGE before the time of signing.
+                long validSince = signedWitness.isSignedByArbitrator() ?
+                        Long.MIN_VALUE :
+                        LongMath.saturatedAdd(signedWitness.getDate(), SIGNER_AGE);
+                signerSince = Math.min(signerSince, validSince);
             }
         }
-        // If we have not returned in the loops or they have been empty we have not found a valid signer.
-        return false;
+        signerSinceByAccountAgeWitnessHash.put(key, signerSince);
+        return signerSince;
+    }
+
+    /**
+     * Time independent part of isValidSignerWitnessInternal for the first SignedWitness in the chain. The date check
+     * against the time of signing is left to the caller.
+     *
+     * @param signedWitness the signedWitness to validate
+     * @return true if signedWitness has a valid signature and a valid signer chain, false otherwise.
+     */
+    private boolean isValidSignerWitness(SignedWitness signedWitness) {
+        updateSignerCacheIfOutdated();
+        P2PDataStorage.ByteArray key = signedWitness.getHashAsByteArray();
+        Boolean cached = validSignerWitnessCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        boolean isValid;
+        if (filterManager.isWitnessSignerPubKeyBanned(Utils.HEX.encode(signedWitness.getWitnessOwnerPubKey()))) {
+            isValid = false;
+        } else if (!verifySignature(signedWitness)) {
+            isValid = false;
+        } else if (signedWitness.isSignedByArbitrator()) {
+            isValid = true;
+        } else {
+            isValid = hasValidSignerWitness(signedWitness, new Stack<>());
+        }
+        validSignerWitnessCache.put(key, isValid);
+        return isValid;
     }
 
     /**
@@ -491,22 +554,27 @@ public class SignedWitnessService {
             if (!verifyDate(signedWitness, childSignedWitnessDateMillis)) {
                 return false;
             }
-            if (excludedPubKeys.size() >= 2000) {
-                // Prevent DoS attack: an attacker floods the SignedWitness db with a long chain that takes lots of time to verify.
-                return false;
-            }
-            excludedPubKeys.push(new P2PDataStorage.ByteArray(signedWitness.getSignerPubKey()));
-            excludedPubKeys.push(new P2PDataStorage.ByteArray(signedWitness.getWitnessOwnerPubKey()));
-            // Iterate over signedWitness signers
-            Set<SignedWitness> signerSignedWitnessSet = getSignedWitnessSetByOwnerPubKey(signedWitness.getSignerPubKey(), excludedPubKeys);
-            for (SignedWitness signerSignedWitness : signerSignedWitnessSet) {
-                if (isValidSignerWitnessInternal(signerSignedWitness, signedWitness.getDate(), excludedPubKeys)) {
-                    return true;
-                }
+            return hasValidSignerWitness(signedWitness, excludedPubKeys);
+        }
+    }
+
+    // Checks whether any of the signers of signedWitness has a valid signer chain at the date signedWitness was signed.
+    private boolean hasValidSignerWitness(SignedWitness signedWitness, Stack<P2PDataStorage.ByteArray> excludedPubKeys) {
+        if (excludedPubKeys.size() >= 2000) {
+            // Prevent DoS attack: an attacker floods the SignedWitness db with a long chain that takes lots of time to verify.
+            return false;
+        }
+        excludedPubKeys.push(new P2PDataStorage.ByteArray(signedWitness.getSignerPubKey()));
+        excludedPubKeys.push(new P2PDataStorage.ByteArray(signedWitness.getWitnessOwnerPubKey()));
+        // Iterate over signedWitness signers
+        Set<SignedWitness> signerSignedWitnessSet = getSignedWitnessSetByOwnerPubKey(signedWitness.getSignerPubKey(), excludedPubKeys);
+        for (SignedWitness signerSignedWitness : signerSignedWitnessSet) {
+            if (isValidSignerWitnessInternal(signerSignedWitness, signedWitness.getDate(), excludedPubKeys)) {
+                return true;
             }
-            excludedPubKeys.pop();
-            excludedPubKeys.pop();
         }
+        excludedPubKeys.pop();
+        excludedPubKeys.pop();
         // If we have not returned in the loops or they have been empty we have not found a valid signer.
         return false;
     }
@@ -533,6 +601,24 @@ public class SignedWitnessService {
         P2PDataStorage.ByteArray ownerPubKey = new P2PDataStorage.ByteArray(signedWitness.getWitnessOwnerPubKey());
         signedWitnessSetByOwnerPubKey.putIfAbsent(ownerPubKey, new HashSet<>());
         signedWitnessSetByOwnerPubKey.get(ownerPubKey).add(signedWitness);
+
+        signerCacheOutdated = true;
+    }
+
+    @VisibleForTesting
+    void invalidateSignerCache() {
+        validSignerWitnessCache.clear();
+        signerSinceByAccountAgeWitnessHash.clear();
+        signerCacheOutdated = false;
+    }
+
+    private void updateSignerCacheIfOutdated() {
+        if (signerCacheOutdated) {
+            // The new witnesses can complete a signer chain but cannot break one.
+            validSignerWitnessCache.values().removeIf(isValid -> !isValid);
+            signerSinceByAccountAgeWitnessHash.clear();
+            signerCacheOutdated = false;
+        }
     }
 
     private void publishSignedWitness(SignedWitness signedWitness) {
@@ -570,6 +656,8 @@ public class SignedWitnessService {
                 signedWitnessSetByOwnerPubKey.remove(ownerPubKey);
             }
         }
+
+        invalidateSignerCache();
     }
 
     // Remove SignedWitnesses that are signed by TRADE that also have an ARBITRATOR signature
@@ -18,11 +18,17 @@
 package bisq.core.account.sign;
 
 
+import bisq.network.p2p.storage.P2PDataStorage;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
 import bisq.network.p2p.storage.persistence.PersistableNetworkPayloadStore;
 
+import bisq.common.proto.persistable.AppendLogPersistableEnvelope;
+
 import com.google.protobuf.Message;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
@@ -34,7 +40,7 @@ import lombok.extern.slf4j.Slf4j;
  * definition and provide a hashMap for the domain access.
  */
 @Slf4j
-public class SignedWitnessStore extends PersistableNetworkPayloadStore<SignedWitness> {
+public class SignedWitnessStore extends PersistableNetworkPayloadStore<SignedWitness> implements AppendLogPersistableEnvelope {
 
     SignedWitnessStore() {
     }
@@ -48,20 +54,36 @@ public class SignedWitnessStore extends PersistableNetworkPayloadStore<SignedWit
         super(list);
     }
 
+    private SignedWitnessStore(Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> map) {
+        super(map);
+    }
+
     public Message toProtoMessage() {
         return protobuf.PersistableEnvelope.newBuilder()
-                .setSignedWitnessStore(getBuilder())
+                .setSignedWitnessStore(getBuilder(map.values()))
                 .build();
     }
 
-    private protobuf.SignedWitnessStore.Builder getBuilder() {
-        final List<protobuf.SignedWitness> protoList = map.values().stream()
+    @Override
+    public Message toPersistableMessage(Collection<byte[]> keys) {
+        return protobuf.PersistableEnvelope.newBuilder()
+                .setSignedWitnessStore(getBuilder(getPayloads(keys)))
+                .build();
+    }
+
+    private protobuf.SignedWitnessStore.Builder getBuilder(Collection<PersistableNetworkPayload> payloads) {
+        final List<protobuf.SignedWitness> protoList = payloads.stream()
                 .map(payload -> (SignedWitness) payload)
                 .map(SignedWitness::toProtoSignedWitness)
                 .collect(Collectors.toList());
         return protobuf.SignedWitnessStore.newBuilder().addAllItems(protoList);
     }
 
+    @Override
+    public SignedWitnessStore toPersistableSnapshot() {
+        return new SignedWitnessStore(map);
+    }
+
     public static SignedWitnessStore fromProto(protobuf.SignedWitnessStore proto) {
         List<SignedWitness> list = proto.getItemsList().stream()
                 .map(SignedWitness::fromProto).collect(Collectors.toList());
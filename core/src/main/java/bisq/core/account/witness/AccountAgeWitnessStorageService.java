@@ -74,4 +74,9 @@ public class AccountAgeWitnessStorageService extends HistoricalDataStoreService<
     protected AccountAgeWitnessStore createStore() {
         return new AccountAgeWitnessStore();
     }
+
+    @Override
+    protected PersistableNetworkPayload fromProto(protobuf.PersistableNetworkPayload proto) {
+        return AccountAgeWitness.fromProto(proto.getAccountAgeWitness());
+    }
 }
@@ -17,11 +17,17 @@
 
 package bisq.core.account.witness;
 
+import bisq.network.p2p.storage.P2PDataStorage;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
 import bisq.network.p2p.storage.persistence.PersistableNetworkPayloadStore;
 
+import bisq.common.proto.persistable.AppendLogPersistableEnvelope;
+
 import com.google.protobuf.Message;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
@@ -33,7 +39,7 @@ import lombok.extern.slf4j.Slf4j;
  * definition and provide a hashMap for the domain access.
  */
 @Slf4j
-public class AccountAgeWitnessStore extends PersistableNetworkPayloadStore<AccountAgeWitness> {
+public class AccountAgeWitnessStore extends PersistableNetworkPayloadStore<AccountAgeWitness> implements AppendLogPersistableEnvelope {
 
     public AccountAgeWitnessStore() {
     }
@@ -47,20 +53,36 @@ public class AccountAgeWitnessStore extends PersistableNetworkPayloadStore<Accou
         super(list);
     }
 
+    private AccountAgeWitnessStore(Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> map) {
+        super(map);
+    }
+
     public Message toProtoMessage() {
         return protobuf.PersistableEnvelope.newBuilder()
-                .setAccountAgeWitnessStore(getBuilder())
+                .setAccountAgeWitnessStore(getBuilder(map.values()))
                 .build();
     }
 
-    private protobuf.AccountAgeWitnessStore.Builder getBuilder() {
-        final List<protobuf.AccountAgeWitness> protoList = map.values().stream()
+    @Override
+    public Message toPersistableMessage(Collection<byte[]> keys) {
+        return protobuf.PersistableEnvelope.newBuilder()
+                .setAccountAgeWitnessStore(getBuilder(getPayloads(keys)))
+                .build();
+    }
+
+    private protobuf.AccountAgeWitnessStore.Builder getBuilder(Collection<PersistableNetworkPayload> payloads) {
+        final List<protobuf.AccountAgeWitness> protoList = payloads.stream()
                 .map(payload -> (AccountAgeWitness) payload)
                 .map(AccountAgeWitness::toProtoAccountAgeWitness)
                 .collect(Collectors.toList());
         return protobuf.AccountAgeWitnessStore.newBuilder().addAllItems(protoList);
     }
 
+    @Override
+    public AccountAgeWitnessStore toPersistableSnapshot() {
+        return new AccountAgeWitnessStore(map);
+    }
+
     public static AccountAgeWitnessStore fromProto(protobuf.AccountAgeWitnessStore proto) {
         List<AccountAgeWitness> list = proto.getItemsList().stream()
                 .map(AccountAgeWitness::fromProto).collect(Collectors.toList());
@@ -346,6 +346,10 @@ public class CoreApi {
         return coreTradesService.getTradeHistory(category);
     }
 
+    public List<Tradable> getClosedTradeHistory(int offset, int limit) {
+        return coreTradesService.getClosedTradeHistory(offset, limit);
+    }
+
     public String getTradeRole(TradeModel tradeModel) {
         return coreTradesService.getTradeRole(tradeModel);
     }
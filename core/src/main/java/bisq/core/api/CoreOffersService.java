@@ -198,9 +198,8 @@ class CoreOffersService {
     }
 
     List<Offer> getBsqSwapOffers(String direction) {
-        return offerBookService.getOffers().stream()
+        return offerBookService.getOffers("BSQ", OfferDirection.valueOf(direction.toUpperCase())).stream()
                 .filter(o -> !o.isMyOffer(keyRing))
-                .filter(o -> o.getDirection().name().equalsIgnoreCase(direction))
                 .filter(Offer::isBsqSwapOffer)
                 .sorted(priceComparator(direction, false))
                 .collect(Collectors.toList());
@@ -208,11 +207,12 @@ class CoreOffersService {
 
     List<Offer> getOffers(String direction, String currencyCode) {
         var upperCaseCurrencyCode = currencyCode.toUpperCase();
+        var offerDirection = OfferDirection.valueOf(direction.toUpperCase());
         var isFiat = isFiatCurrency(upperCaseCurrencyCode);
         if (isFiat) {
-            return offerBookService.getOffers().stream()
+            return offerBookService.getOffers(upperCaseCurrencyCode, offerDirection).stream()
                     .filter(o -> !o.isMyOffer(keyRing))
-                    .filter(o -> offerMatchesDirectionAndCurrency(o, direction, upperCaseCurrencyCode))
+                    .filter(o -> o.getCounterCurrencyCode().equalsIgnoreCase(upperCaseCurrencyCode))
                     .filter(o -> offerFilterService.canTakeOffer(o, coreContext.isApiUser()).isValid())
                     .sorted(priceComparator(direction, true))
                     .collect(Collectors.toList());
@@ -222,9 +222,9 @@ class CoreOffersService {
             // This forces an extra filtering step below:  get all BTC offers,
             // then filter on the currencyCode param (the altcoin code).
             if (apiSupportsCryptoCurrency(upperCaseCurrencyCode))
-                return offerBookService.getOffers().stream()
+                return offerBookService.getOffers(upperCaseCurrencyCode, offerDirection).stream()
                         .filter(o -> !o.isMyOffer(keyRing))
-                        .filter(o -> offerMatchesDirectionAndCurrency(o, direction, "BTC"))
+                        .filter(o -> o.getCounterCurrencyCode().equalsIgnoreCase("BTC"))
                         .filter(o -> o.getBaseCurrencyCode().equalsIgnoreCase(upperCaseCurrencyCode))
                         .filter(o -> offerFilterService.canTakeOffer(o, coreContext.isApiUser()).isValid())
                         .sorted(priceComparator(direction, false))
@@ -263,7 +263,7 @@ class CoreOffersService {
     }
 
     List<Offer> getMyBsqSwapOffers(String direction) {
-        return offerBookService.getOffers().stream()
+        return offerBookService.getOffers("BSQ").stream()
                 .filter(o -> o.isMyOffer(keyRing))
                 .filter(o -> o.getDirection().name().equalsIgnoreCase(direction))
                 .filter(Offer::isBsqSwapOffer)
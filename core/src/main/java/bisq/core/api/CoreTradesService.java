@@ -53,6 +53,7 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
@@ -351,6 +352,26 @@ class CoreTradesService {
         }
     }
 
+    // Returns a page of the closed trades, completed BsqSwap trades and canceled offers, sorted by date.
+    List<Tradable> getClosedTradeHistory(int offset, int limit) {
+        coreWalletsService.verifyWalletsAreAvailable();
+        coreWalletsService.verifyEncryptedWalletIsUnlocked();
+        if (offset < 0 || limit < 0)
+            throw new IllegalArgumentException(format("invalid offset %d or limit %d, must not be negative",
+                    offset, limit));
+
+        List<Tradable> closedTradables = new ArrayList<>(closedTradableManager.getClosedTrades());
+        closedTradables.addAll(bsqSwapTradeManager.getBsqSwapTrades());
+        closedTradables.addAll(closedTradableManager.getCanceledOpenOffers());
+        closedTradables.sort(Comparator.comparing(Tradable::getDate));
+
+        int fromIndex = Math.min(offset, closedTradables.size());
+        int toIndex = limit == 0
+                ? closedTradables.size()
+                : (int) Math.min((long) fromIndex + limit, closedTradables.size());
+        return new ArrayList<>(closedTradables.subList(fromIndex, toIndex));
+    }
+
     void failTrade(String tradeId) {
         // TODO Recommend API users call this method with extra care because
         //  the API lacks methods for diagnosing trade problems, and does not support
@@ -40,6 +40,7 @@ import bisq.common.config.BisqHelpFormatter;
 import bisq.common.config.Config;
 import bisq.common.config.ConfigException;
 import bisq.common.handlers.ResultHandler;
+import bisq.common.persistence.PersistedDataLoader;
 import bisq.common.persistence.PersistenceManager;
 import bisq.common.proto.persistable.PersistedDataHost;
 import bisq.common.setup.CommonSetup;
@@ -54,7 +55,6 @@ import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -187,14 +187,9 @@ public abstract class BisqExecutable implements GracefulShutDownHandler, BisqSet
             hosts.addAll(additionalHosts);
         }
 
-        AtomicInteger remaining = new AtomicInteger(hosts.size());
-        hosts.forEach(host -> {
-            host.readPersisted(() -> {
-                if (remaining.decrementAndGet() == 0) {
-                    UserThread.execute(completeHandler);
-                }
-            });
-        });
+        PersistedDataLoader loader = new PersistedDataLoader().addAll(hosts);
+        CorePersistedDataHost.addReadDependencies(loader, injector);
+        loader.readAll(completeHandler);
     }
 
     protected void setupAvoidStandbyMode() {
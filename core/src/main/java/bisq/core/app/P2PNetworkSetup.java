@@ -18,7 +18,6 @@
 package bisq.core.app;
 
 import bisq.core.btc.setup.WalletsSetup;
-import bisq.core.filter.Filter;
 import bisq.core.filter.FilterManager;
 import bisq.core.locale.Res;
 import bisq.core.provider.price.PriceFeedService;
@@ -240,12 +239,9 @@ public class P2PNetworkSetup {
     }
 
     private void addP2PMessageFilter() {
-        p2PService.getP2PDataStorage().setFilterPredicate(payload -> {
-            Filter filter = filterManager.getFilter();
-            return filter == null ||
-                    !filter.isDisablePowMessage() ||
-                    !(payload instanceof ProofOfWorkPayload);
-        });
+        p2PService.getP2PDataStorage().setFilterPredicate(payload ->
+                !(payload instanceof ProofOfWorkPayload) ||
+                        !filterManager.getCompiledFilter().isDisablePowMessage());
     }
 
     private void updateNetworkStatusIndicator() {
@@ -72,8 +72,11 @@ import org.bitcoinj.wallet.listeners.WalletReorganizeEventListener;
 
 import javax.inject.Inject;
 
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.SetMultimap;
 import com.google.common.util.concurrent.FutureCallback;
@@ -87,6 +90,7 @@ import org.bouncycastle.crypto.params.KeyParameter;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
@@ -122,6 +126,8 @@ public abstract class WalletService {
     private final WalletChangeEventListener cacheInvalidationListener;
     private final AtomicReference<Multiset<Address>> txOutputAddressCache = new AtomicReference<>();
     private final AtomicReference<SetMultimap<Address, Transaction>> addressToMatchingTxSetCache = new AtomicReference<>();
+    private final AtomicReference<ListMultimap<Address, TransactionOutput>> addressToSpendCandidatesCache = new AtomicReference<>();
+    private final AtomicReference<Map<String, Transaction>> txIdToTxCache = new AtomicReference<>();
     @Getter
     protected Wallet wallet;
     @Getter
@@ -147,6 +153,8 @@ public abstract class WalletService {
         cacheInvalidationListener = wallet -> {
             txOutputAddressCache.set(null);
             addressToMatchingTxSetCache.set(null);
+            addressToSpendCandidatesCache.set(null);
+            txIdToTxCache.set(null);
         };
     }
 
@@ -465,15 +473,22 @@ public abstract class WalletService {
     @Nullable
     public TransactionConfidence getConfidenceForTxId(String txId) {
         if (wallet != null) {
-            Set<Transaction> transactions = wallet.getTransactions(false);
-            for (Transaction tx : transactions) {
-                if (tx.getTxId().toString().equals(txId))
-                    return tx.getConfidence();
-            }
+            Transaction tx = getTxIdToTxMap().get(txId);
+            if (tx != null)
+                return tx.getConfidence();
         }
         return null;
     }
 
+    private Map<String, Transaction> getTxIdToTxMap() {
+        return txIdToTxCache.updateAndGet(map -> map != null ? map : computeTxIdToTxMap());
+    }
+
+    private Map<String, Transaction> computeTxIdToTxMap() {
+        return wallet.getTransactions(false).stream()
+                .collect(ImmutableMap.toImmutableMap(tx -> tx.getTxId().toString(), Function.identity()));
+    }
+
     @Nullable
     private TransactionConfidence getTransactionConfidence(Transaction tx, Address address) {
         List<TransactionConfidence> transactionConfidenceList = getOutputsWithConnectedOutputs(tx).stream()
@@ -536,22 +551,30 @@ public abstract class WalletService {
     }
 
     public Coin getBalanceForAddress(Address address) {
-        return wallet != null ? getBalance(wallet.calculateAllSpendCandidates(), address) : Coin.ZERO;
+        return wallet != null && address != null ? getBalance(getAddressToSpendCandidatesMultimap().get(address)) : Coin.ZERO;
     }
 
-    protected Coin getBalance(List<TransactionOutput> transactionOutputs, Address address) {
+    protected Coin getBalance(List<TransactionOutput> transactionOutputs) {
         Coin balance = Coin.ZERO;
         for (TransactionOutput output : transactionOutputs) {
             if (!isDustAttackUtxo(output)) {
-                if (isOutputScriptConvertibleToAddress(output) &&
-                        address != null &&
-                        address.equals(getAddressFromOutput(output)))
-                    balance = balance.add(output.getValue());
+                balance = balance.add(output.getValue());
             }
         }
         return balance;
     }
 
+    // The dust attack filter is applied at query time as the threshold is a user preference.
+    private ListMultimap<Address, TransactionOutput> getAddressToSpendCandidatesMultimap() {
+        return addressToSpendCandidatesCache.updateAndGet(map -> map != null ? map : computeAddressToSpendCandidatesMultimap());
+    }
+
+    private ListMultimap<Address, TransactionOutput> computeAddressToSpendCandidatesMultimap() {
+        return wallet.calculateAllSpendCandidates().stream()
+                .filter(WalletService::isOutputScriptConvertibleToAddress)
+                .collect(ImmutableListMultimap.toImmutableListMultimap(WalletService::getAddressFromOutput, Function.identity()));
+    }
+
     protected abstract boolean isDustAttackUtxo(TransactionOutput output);
 
     public Coin getBalance(TransactionOutput output) {
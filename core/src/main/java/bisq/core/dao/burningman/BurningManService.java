@@ -25,10 +25,13 @@ import bisq.core.dao.governance.param.Param;
 import bisq.core.dao.governance.proofofburn.ProofOfBurnConsensus;
 import bisq.core.dao.governance.proposal.ProposalService;
 import bisq.core.dao.governance.proposal.storage.appendonly.ProposalPayload;
+import bisq.core.dao.state.DaoStateListener;
 import bisq.core.dao.state.DaoStateService;
 import bisq.core.dao.state.model.blockchain.BaseTx;
+import bisq.core.dao.state.model.blockchain.Block;
 import bisq.core.dao.state.model.blockchain.Tx;
 import bisq.core.dao.state.model.blockchain.TxOutput;
+import bisq.core.dao.state.model.blockchain.TxOutputType;
 import bisq.core.dao.state.model.governance.CompensationProposal;
 import bisq.core.dao.state.model.governance.Issuance;
 import bisq.core.dao.state.model.governance.IssuanceType;
@@ -45,11 +48,17 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableList;
 
+import javafx.collections.ListChangeListener;
+
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -63,10 +72,14 @@ import lombok.extern.slf4j.Slf4j;
  * verifying the delayed payout transaction. As verification is done by trade peer it requires data to be deterministic.
  * Parameters listed here must not be changed as they could break verification of the peers
  * delayed payout transaction in case not both traders are using the same version.
+ *
+ * The height independent input data (proof of burn outputs and compensation proposals) is indexed once and kept up to
+ * date with each parsed block. The candidates are memoized per chain height as the result for a height at or below
+ * the parsed chain height does not change anymore unless there is a reorg or new proposal data arrives.
  */
 @Slf4j
 @Singleton
-public class BurningManService {
+public class BurningManService implements DaoStateListener {
     private static final Date ACTIVATION_DATE = Utilities.getUTCDate(2023, GregorianCalendar.JANUARY, 1);
 
     public static boolean isActivated() {
@@ -102,11 +115,30 @@ public class BurningManService {
     // that deposit plus the trade amount the limiting factor here is 11% (0.15 / 1.3).
     public static final double MAX_BURN_SHARE = 0.11;
 
+    // Max. number of chain heights we keep the candidates for. The DPT uses selection heights at a grid of 10 blocks,
+    // so that covers the selection heights of the trades in progress as well as the current chain height used in the UI.
+    @VisibleForTesting
+    static final int MAX_CACHED_HEIGHTS = 10;
+
 
     private final DaoStateService daoStateService;
     private final CyclesInDaoStateService cyclesInDaoStateService;
     private final ProposalService proposalService;
 
+    // Access ordered, the least recently used height gets evicted.
+    private final Map<Integer, Map<String, BurningManCandidate>> burningManCandidatesByNameByHeight =
+            new LinkedHashMap<>(MAX_CACHED_HEIGHTS + 1, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Map<String, BurningManCandidate>> eldest) {
+                    return size() > MAX_CACHED_HEIGHTS;
+                }
+            };
+    // Proof of burn outputs of all parsed blocks up to proofOfBurnIndexHeight. Built at first use.
+    private final Map<P2PDataStorage.ByteArray, Set<TxOutput>> proofOfBurnOpReturnTxOutputsByHash = new HashMap<>();
+    private int proofOfBurnIndexHeight = -1;
+    // Null if it needs to be rebuilt from the proposal payloads.
+    private Map<String, List<CompensationProposal>> compensationProposalsByTxId;
+
     @Inject
     public BurningManService(DaoStateService daoStateService,
                              CyclesInDaoStateService cyclesInDaoStateService,
@@ -114,6 +146,42 @@ public class BurningManService {
         this.daoStateService = daoStateService;
         this.cyclesInDaoStateService = cyclesInDaoStateService;
         this.proposalService = proposalService;
+
+        daoStateService.addDaoStateListener(this);
+        // A late arriving compensation proposal can add a candidate to an already memoized height.
+        proposalService.getProposalPayloads().addListener((ListChangeListener<ProposalPayload>) c -> {
+            compensationProposalsByTxId = null;
+            burningManCandidatesByNameByHeight.clear();
+        });
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // DaoStateListener
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public void onParseBlockComplete(Block block) {
+        if (proofOfBurnIndexHeight < 0) {
+            // Index not built yet, nothing to maintain.
+            return;
+        }
+
+        if (block.getHeight() <= proofOfBurnIndexHeight) {
+            // Reorg or re-parsing after applying a snapshot. We rebuild the index at the next request.
+            log.info("Received block {} at or below the indexed height {}. We reset the burningman caches.",
+                    block.getHeight(), proofOfBurnIndexHeight);
+            proofOfBurnOpReturnTxOutputsByHash.clear();
+            proofOfBurnIndexHeight = -1;
+            burningManCandidatesByNameByHeight.clear();
+            return;
+        }
+
+        block.getTxs().stream()
+                .flatMap(tx -> tx.getTxOutputs().stream())
+                .filter(txOutput -> txOutput.getTxOutputType() == TxOutputType.PROOF_OF_BURN_OP_RETURN_OUTPUT)
+                .forEach(this::addToProofOfBurnIndex);
+        proofOfBurnIndexHeight = block.getHeight();
     }
 
 
@@ -122,8 +190,49 @@ public class BurningManService {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     Map<String, BurningManCandidate> getBurningManCandidatesByName(int chainHeight) {
+        Map<String, BurningManCandidate> cached = burningManCandidatesByNameByHeight.get(chainHeight);
+        if (cached != null) {
+            return cached;
+        }
+
+        Map<String, BurningManCandidate> burningManCandidatesByName = Collections.unmodifiableMap(createBurningManCandidatesByName(chainHeight));
+        // Data for heights above the parsed chain height can still change, so we do not memoize those.
+        if (chainHeight <= daoStateService.getChainHeight()) {
+            burningManCandidatesByNameByHeight.put(chainHeight, burningManCandidatesByName);
+        }
+        return burningManCandidatesByName;
+    }
+
+    String getLegacyBurningManAddress(int chainHeight) {
+        return daoStateService.getParamValue(Param.RECIPIENT_BTC_ADDRESS, chainHeight);
+    }
+
+    Set<BurningManCandidate> getActiveBurningManCandidates(int chainHeight) {
+        return getBurningManCandidatesByName(chainHeight).values().stream()
+                .filter(burningManCandidate -> burningManCandidate.getCappedBurnAmountShare() > 0)
+                .filter(candidate -> candidate.getMostRecentAddress().isPresent())
+                .collect(Collectors.toSet());
+    }
+
+    Map<P2PDataStorage.ByteArray, Set<TxOutput>> getProofOfBurnOpReturnTxOutputByHash(int chainHeight) {
+        Map<P2PDataStorage.ByteArray, Set<TxOutput>> map = new HashMap<>();
+        getProofOfBurnIndex().forEach((key, txOutputs) -> txOutputs.stream()
+                .filter(txOutput -> txOutput.getBlockHeight() <= chainHeight)
+                .forEach(txOutput -> {
+                    map.putIfAbsent(key, new HashSet<>());
+                    map.get(key).add(txOutput);
+                }));
+        return map;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private Map<String, BurningManCandidate> createBurningManCandidatesByName(int chainHeight) {
         Map<String, BurningManCandidate> burningManCandidatesByName = new HashMap<>();
-        Map<P2PDataStorage.ByteArray, Set<TxOutput>> proofOfBurnOpReturnTxOutputByHash = getProofOfBurnOpReturnTxOutputByHash(chainHeight);
+        Map<P2PDataStorage.ByteArray, Set<TxOutput>> proofOfBurnOpReturnTxOutputByHash = getProofOfBurnIndex();
 
         // Add contributors who made a compensation request
         daoStateService.getIssuanceSetForType(IssuanceType.COMPENSATION).stream()
@@ -204,40 +313,33 @@ public class BurningManService {
         return burningManCandidatesByName;
     }
 
-    String getLegacyBurningManAddress(int chainHeight) {
-        return daoStateService.getParamValue(Param.RECIPIENT_BTC_ADDRESS, chainHeight);
-    }
-
-    Set<BurningManCandidate> getActiveBurningManCandidates(int chainHeight) {
-        return getBurningManCandidatesByName(chainHeight).values().stream()
-                .filter(burningManCandidate -> burningManCandidate.getCappedBurnAmountShare() > 0)
-                .filter(candidate -> candidate.getMostRecentAddress().isPresent())
-                .collect(Collectors.toSet());
+    private Map<P2PDataStorage.ByteArray, Set<TxOutput>> getProofOfBurnIndex() {
+        if (proofOfBurnIndexHeight < 0) {
+            daoStateService.getProofOfBurnOpReturnTxOutputs().forEach(this::addToProofOfBurnIndex);
+            proofOfBurnIndexHeight = daoStateService.getChainHeight();
+        }
+        return proofOfBurnOpReturnTxOutputsByHash;
     }
 
-
-    ///////////////////////////////////////////////////////////////////////////////////////////
-    // Private
-    ///////////////////////////////////////////////////////////////////////////////////////////
-
-    Map<P2PDataStorage.ByteArray, Set<TxOutput>> getProofOfBurnOpReturnTxOutputByHash(int chainHeight) {
-        Map<P2PDataStorage.ByteArray, Set<TxOutput>> map = new HashMap<>();
-        daoStateService.getProofOfBurnOpReturnTxOutputs().stream()
-                .filter(txOutput -> txOutput.getBlockHeight() <= chainHeight)
-                .forEach(txOutput -> {
-                    P2PDataStorage.ByteArray key = new P2PDataStorage.ByteArray(ProofOfBurnConsensus.getHashFromOpReturnData(txOutput.getOpReturnData()));
-                    map.putIfAbsent(key, new HashSet<>());
-                    map.get(key).add(txOutput);
-                });
-        return map;
+    private void addToProofOfBurnIndex(TxOutput txOutput) {
+        P2PDataStorage.ByteArray key = new P2PDataStorage.ByteArray(ProofOfBurnConsensus.getHashFromOpReturnData(txOutput.getOpReturnData()));
+        proofOfBurnOpReturnTxOutputsByHash.putIfAbsent(key, new HashSet<>());
+        proofOfBurnOpReturnTxOutputsByHash.get(key).add(txOutput);
     }
 
     private Stream<CompensationProposal> getCompensationProposalsForIssuance(Issuance issuance) {
-        return proposalService.getProposalPayloads().stream()
-                .map(ProposalPayload::getProposal)
-                .filter(proposal -> issuance.getTxId().equals(proposal.getTxId()))
-                .filter(proposal -> proposal instanceof CompensationProposal)
-                .map(proposal -> (CompensationProposal) proposal);
+        if (compensationProposalsByTxId == null) {
+            compensationProposalsByTxId = new HashMap<>();
+            proposalService.getProposalPayloads().stream()
+                    .map(ProposalPayload::getProposal)
+                    .filter(proposal -> proposal instanceof CompensationProposal)
+                    .map(proposal -> (CompensationProposal) proposal)
+                    .forEach(proposal -> {
+                        compensationProposalsByTxId.putIfAbsent(proposal.getTxId(), new ArrayList<>());
+                        compensationProposalsByTxId.get(proposal.getTxId()).add(proposal);
+                    });
+        }
+        return compensationProposalsByTxId.getOrDefault(issuance.getTxId(), List.of()).stream();
     }
 
 
@@ -306,7 +408,8 @@ public class BurningManService {
                                     Map<P2PDataStorage.ByteArray, Set<TxOutput>> proofOfBurnOpReturnTxOutputByHash,
                                     String name,
                                     BurningManCandidate candidate) {
-        getProofOfBurnOpReturnTxOutputSetForName(proofOfBurnOpReturnTxOutputByHash, name)
+        getProofOfBurnOpReturnTxOutputSetForName(proofOfBurnOpReturnTxOutputByHash, name).stream()
+                .filter(burnOutput -> burnOutput.getBlockHeight() <= chainHeight)
                 .forEach(burnOutput -> {
                     int burnOutputHeight = burnOutput.getBlockHeight();
                     Optional<Tx> optionalTx = daoStateService.getTx(burnOutput.getTxId());
@@ -39,6 +39,7 @@ import bisq.network.p2p.network.Connection;
 import bisq.network.p2p.seed.SeedNodeRepository;
 
 import bisq.common.UserThread;
+import bisq.common.app.Capability;
 import bisq.common.config.Config;
 import bisq.common.crypto.Hash;
 import bisq.common.file.FileUtil;
@@ -77,6 +78,9 @@ import javax.annotation.Nullable;
  * The hash contains the hash of the previous block so we can ensure the validity of the whole history by
  * comparing the last block.
  *
+ * With the useIncrementalDaoStateHash option we create hashes of version 2 from incremental digests of the state
+ * instead (see DaoState.getStateDigestForHashChain). Those are only compared with peers' hashes of the same version.
+ *
  * We request the state from the connected seed nodes after batch processing of BSQ is complete as well as we start
  * to listen for broadcast messages from our peers about dao state of new blocks. It could be that the received dao
  * state from the peers is already covering the next block we have not received yet. So we only take data in account
@@ -130,6 +134,8 @@ public class DaoStateMonitoringService implements DaoSetupService, DaoStateListe
 
     private final Preferences preferences;
     private final File storageDir;
+    // If set we create DaoStateHashes of version 2 and only compare with peers' hashes of that version
+    private final boolean useIncrementalDaoStateHash;
     @Nullable
     private Runnable createSnapshotHandler;
     // Lookup map
@@ -147,13 +153,15 @@ public class DaoStateMonitoringService implements DaoSetupService, DaoStateListe
                                      SeedNodeRepository seedNodeRepository,
                                      Preferences preferences,
                                      @Named(Config.STORAGE_DIR) File storageDir,
-                                     @Named(Config.IGNORE_DEV_MSG) boolean ignoreDevMsg) {
+                                     @Named(Config.IGNORE_DEV_MSG) boolean ignoreDevMsg,
+                                     @Named(Config.USE_INCREMENTAL_DAO_STATE_HASH) boolean useIncrementalDaoStateHash) {
         this.daoStateService = daoStateService;
         this.daoStateNetworkService = daoStateNetworkService;
         this.genesisTxInfo = genesisTxInfo;
         this.preferences = preferences;
         this.storageDir = storageDir;
         this.ignoreDevMsg = ignoreDevMsg;
+        this.useIncrementalDaoStateHash = useIncrementalDaoStateHash;
         seedNodeAddresses = seedNodeRepository.getSeedNodeAddresses().stream()
                 .map(NodeAddress::getFullAddress)
                 .collect(Collectors.toSet());
@@ -222,7 +230,7 @@ public class DaoStateMonitoringService implements DaoSetupService, DaoStateListe
     public void onNewStateHashMessage(NewDaoStateHashMessage newStateHashMessage, Connection connection) {
         // Called when receiving NewDaoStateHashMessages from peers after a new block
         DaoStateHash peersDaoStateHash = newStateHashMessage.getStateHash();
-        if (peersDaoStateHash.getHeight() <= daoStateService.getChainHeight()) {
+        if (peersDaoStateHash.getHeight() <= daoStateService.getChainHeight() && hasMyVersion(peersDaoStateHash)) {
             putInPeersMapAndCheckForConflicts(getPeersAddress(connection.getPeersNodeAddressOptional()), peersDaoStateHash);
             listeners.forEach(Listener::onDaoStateHashesChanged);
         }
@@ -244,8 +252,11 @@ public class DaoStateMonitoringService implements DaoSetupService, DaoStateListe
     @Override
     public void onGetStateHashRequest(Connection connection, GetDaoStateHashesRequest getStateHashRequest) {
         int fromHeight = getStateHashRequest.getHeight();
+        // Peers which do not support version 2 would consider those hashes as conflicts
+        boolean peerSupportsIncrementalDigest = connection.getCapabilities().containsAll(Capability.DAO_STATE_HASH_V2);
         List<DaoStateHash> daoStateHashes = daoStateHashChain.stream()
                 .filter(e -> e.getHeight() >= fromHeight)
+                .filter(e -> peerSupportsIncrementalDigest || !e.isIncrementalDigest())
                 .collect(Collectors.toList());
         daoStateNetworkService.sendGetStateHashesResponse(connection, getStateHashRequest.getNonce(), daoStateHashes);
     }
@@ -342,13 +353,20 @@ public class DaoStateMonitoringService implements DaoSetupService, DaoStateListe
             }
         }
 
-        byte[] stateAsBytes = daoStateService.getSerializedStateForHashChain();
-        // We include the prev. hash in our new hash so we can be sure that if one hash is matching all the past would
-        // match as well.
-        byte[] combined = ArrayUtils.addAll(prevHash, stateAsBytes);
-        byte[] hash = Hash.getSha256Ripemd160hash(combined);
-
-        DaoStateHash myDaoStateHash = new DaoStateHash(height, hash, true);
+        DaoStateHash myDaoStateHash;
+        if (useIncrementalDaoStateHash) {
+            // The digests cover the full state, so we do not need to include the prev. hash. That way the hash does
+            // not depend on the version of the hashes of past blocks, which we might have got from resources.
+            byte[] hash = Hash.getSha256Ripemd160hash(daoStateService.getStateDigestForHashChain());
+            myDaoStateHash = new DaoStateHash(height, hash, true, DaoStateHash.VERSION_INCREMENTAL_DIGEST);
+        } else {
+            byte[] stateAsBytes = daoStateService.getSerializedStateForHashChain();
+            // We include the prev. hash in our new hash so we can be sure that if one hash is matching all the past would
+            // match as well.
+            byte[] combined = ArrayUtils.addAll(prevHash, stateAsBytes);
+            byte[] hash = Hash.getSha256Ripemd160hash(combined);
+            myDaoStateHash = new DaoStateHash(height, hash, true);
+        }
         DaoStateBlock daoStateBlock = new DaoStateBlock(myDaoStateHash);
         daoStateBlockChain.add(daoStateBlock);
         daoStateBlockByHeight.put(height, daoStateBlock);
@@ -377,7 +395,7 @@ public class DaoStateMonitoringService implements DaoSetupService, DaoStateListe
 
     private void processPeersDaoStateHashes(List<DaoStateHash> stateHashes, Optional<NodeAddress> peersNodeAddress) {
         boolean useDaoMonitor = preferences.isUseFullModeDaoMonitor();
-        stateHashes.forEach(peersHash -> {
+        stateHashes.stream().filter(this::hasMyVersion).forEach(peersHash -> {
             Optional<DaoStateBlock> optionalDaoStateBlock;
             // If we do not add own hashes during initial parsing we fill the missing hashes from the peer and create
             // at the last block our own hash.
@@ -390,7 +408,7 @@ public class DaoStateMonitoringService implements DaoSetupService, DaoStateListe
                             .orElse(findDaoStateBlock(height));
                 } else {
                     // Otherwise, we create a block from the peers daoStateHash
-                    DaoStateHash daoStateHash = new DaoStateHash(height, peersHash.getHash(), false);
+                    DaoStateHash daoStateHash = new DaoStateHash(height, peersHash.getHash(), false, peersHash.getVersion());
                     DaoStateBlock daoStateBlock = new DaoStateBlock(daoStateHash);
                     daoStateBlockChain.add(daoStateBlock);
                     daoStateBlockByHeight.put(height, daoStateBlock);
@@ -446,6 +464,10 @@ public class DaoStateMonitoringService implements DaoSetupService, DaoStateListe
         }
     }
 
+    private boolean hasMyVersion(DaoStateHash peersHash) {
+        return peersHash.isIncrementalDigest() == useIncrementalDaoStateHash;
+    }
+
     private void checkUtxos(Block block) {
         long genesisTotalSupply = daoStateService.getGenesisTotalSupply().value;
         long compensationIssuance = daoStateService.getTotalIssuedAmount(IssuanceType.COMPENSATION);
@@ -462,8 +484,10 @@ public class DaoStateMonitoringService implements DaoSetupService, DaoStateListe
 
     private void verifyCheckpoints() {
         // Checkpoint
+        // Checkpoints are hashes of version 1
         checkpoints.forEach(checkpoint -> daoStateHashChain.stream()
                 .filter(daoStateHash -> daoStateHash.getHeight() == checkpoint.getHeight())
+                .filter(daoStateHash -> !daoStateHash.isIncrementalDigest())
                 .findAny()
                 .ifPresent(daoStateHash -> {
                     if (Arrays.equals(daoStateHash.getHash(), checkpoint.getHash())) {
@@ -26,12 +26,24 @@ import lombok.Getter;
 @Getter
 @EqualsAndHashCode(callSuper = true)
 public final class DaoStateHash extends StateHash {
+    // Hash of the serialized DaoState and the previous hash
+    public static final int VERSION_FULL_SERIALIZATION = 1;
+    // Hash of the incremental digests of the DaoState collections, see DaoState.getStateDigestForHashChain
+    public static final int VERSION_INCREMENTAL_DIGEST = 2;
+
     // If we have built the hash by ourself opposed to that we got delivered the hash from seed nodes or resources
     private final boolean isSelfCreated;
+    // Hashes of different versions cannot be compared
+    private final int version;
 
     public DaoStateHash(int height, byte[] hash, boolean isSelfCreated) {
+        this(height, hash, isSelfCreated, VERSION_FULL_SERIALIZATION);
+    }
+
+    public DaoStateHash(int height, byte[] hash, boolean isSelfCreated, int version) {
         super(height, hash);
         this.isSelfCreated = isSelfCreated;
+        this.version = version;
     }
 
 
@@ -41,21 +53,33 @@ public final class DaoStateHash extends StateHash {
 
     @Override
     public protobuf.DaoStateHash toProtoMessage() {
-        return protobuf.DaoStateHash.newBuilder()
+        protobuf.DaoStateHash.Builder builder = protobuf.DaoStateHash.newBuilder()
                 .setHeight(height)
                 .setHash(ByteString.copyFrom(hash))
-                .setIsSelfCreated(isSelfCreated)
-                .build();
+                .setIsSelfCreated(isSelfCreated);
+        // We leave the version unset for version 1 so that the data stay the same as before versions got added
+        if (version != VERSION_FULL_SERIALIZATION) {
+            builder.setVersion(version);
+        }
+        return builder.build();
     }
 
     public static DaoStateHash fromProto(protobuf.DaoStateHash proto) {
-        return new DaoStateHash(proto.getHeight(), proto.getHash().toByteArray(), proto.getIsSelfCreated());
+        return new DaoStateHash(proto.getHeight(),
+                proto.getHash().toByteArray(),
+                proto.getIsSelfCreated(),
+                Math.max(VERSION_FULL_SERIALIZATION, proto.getVersion()));
+    }
+
+    public boolean isIncrementalDigest() {
+        return version == VERSION_INCREMENTAL_DIGEST;
     }
 
     @Override
     public String toString() {
         return "DaoStateHash{" +
                 "\r\n     isSelfCreated=" + isSelfCreated +
+                ",\r\n     version=" + version +
                 "\r\n} " + super.toString();
     }
 }
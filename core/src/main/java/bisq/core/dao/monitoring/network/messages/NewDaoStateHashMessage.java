@@ -57,6 +57,9 @@ public final class NewDaoStateHashMessage extends NewStateHashMessage<DaoStateHa
 
     @Override
     public Capabilities getRequiredCapabilities() {
-        return new Capabilities(Capability.DAO_STATE);
+        // Peers which do not support version 2 would consider those hashes as conflicts
+        return stateHash.isIncrementalDigest() ?
+                new Capabilities(Capability.DAO_STATE, Capability.DAO_STATE_HASH_V2) :
+                new Capabilities(Capability.DAO_STATE);
     }
 }
@@ -0,0 +1,168 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.node.full;
+
+import bisq.common.handlers.ResultHandler;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Requests a range of blocks with up to windowSize requests in flight and delivers the results strictly in height
+ * order on the callback executor. The block handler returns false if no further blocks should be delivered
+ * (e.g. at a reorg), in which case the pending requests get cancelled.
+ * <p>
+ * All state is only accessed from the callback executor, which is expected to be single threaded (the UserThread).
+ */
+class BlockPrefetcher<T> {
+    interface BlockFetcher<T> {
+        T fetch(int blockHeight) throws Exception;
+    }
+
+    private final ListeningExecutorService fetchExecutor;
+    private final Executor callbackExecutor;
+    private final int windowSize;
+    private final BlockFetcher<T> blockFetcher;
+    private final int toHeight;
+    private final Predicate<T> blockHandler;
+    private final ResultHandler resultHandler;
+    private final Consumer<Throwable> errorHandler;
+
+    private final Deque<ListenableFuture<T>> pendingRequests = new ArrayDeque<>();
+    private int nextHeightToRequest;
+    private volatile boolean stopped;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    BlockPrefetcher(ListeningExecutorService fetchExecutor,
+                    Executor callbackExecutor,
+                    int windowSize,
+                    BlockFetcher<T> blockFetcher,
+                    int fromHeight,
+                    int toHeight,
+                    Predicate<T> blockHandler,
+                    ResultHandler resultHandler,
+                    Consumer<Throwable> errorHandler) {
+        this.fetchExecutor = fetchExecutor;
+        this.callbackExecutor = callbackExecutor;
+        this.windowSize = Math.max(1, windowSize);
+        this.blockFetcher = blockFetcher;
+        this.toHeight = toHeight;
+        this.blockHandler = blockHandler;
+        this.resultHandler = resultHandler;
+        this.errorHandler = errorHandler;
+        nextHeightToRequest = fromHeight;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    void start() {
+        if (nextHeightToRequest > toHeight) {
+            resultHandler.handleResult();
+            return;
+        }
+        fillWindow();
+        awaitNextBlock();
+    }
+
+    void stop() {
+        if (stopped) {
+            return;
+        }
+        stopped = true;
+        pendingRequests.forEach(future -> future.cancel(true));
+        pendingRequests.clear();
+    }
+
+    boolean isStopped() {
+        return stopped;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void fillWindow() {
+        while (pendingRequests.size() < windowSize && nextHeightToRequest <= toHeight) {
+            int blockHeight = nextHeightToRequest++;
+            pendingRequests.add(fetchExecutor.submit(() -> blockFetcher.fetch(blockHeight)));
+        }
+    }
+
+    private void awaitNextBlock() {
+        ListenableFuture<T> future = pendingRequests.peek();
+        if (future == null) {
+            stopped = true;
+            resultHandler.handleResult();
+            return;
+        }
+
+        Futures.addCallback(future, new FutureCallback<>() {
+            @Override
+            public void onSuccess(T block) {
+                if (stopped) {
+                    return;
+                }
+                pendingRequests.poll();
+                if (!blockHandler.test(block)) {
+                    stop();
+                    return;
+                }
+                if (stopped) {
+                    // Handler has stopped us (e.g. at shutdown)
+                    return;
+                }
+                try {
+                    fillWindow();
+                } catch (RejectedExecutionException e) {
+                    stop();
+                    return;
+                }
+                awaitNextBlock();
+            }
+
+            @Override
+            public void onFailure(@NotNull Throwable throwable) {
+                if (stopped || throwable instanceof CancellationException) {
+                    return;
+                }
+                stop();
+                errorHandler.accept(throwable);
+            }
+        }, callbackExecutor);
+    }
+}
@@ -232,34 +232,26 @@ public class FullNode extends BsqNode {
                              Consumer<Block> newBlockHandler,
                              ResultHandler resultHandler,
                              Consumer<Throwable> errorHandler) {
-        parseBlockRecursively(startBlockHeight, chainHeight, newBlockHandler, resultHandler, errorHandler);
-    }
-
-    private void parseBlockRecursively(int blockHeight,
-                                       int chainHeight,
-                                       Consumer<Block> newBlockHandler,
-                                       ResultHandler resultHandler,
-                                       Consumer<Throwable> errorHandler) {
         if (shutdownInProgress) {
             return;
         }
-        rpcService.requestDtoBlock(blockHeight,
+        // Blocks are requested ahead by the rpcService but we get them delivered in height order, so the block
+        // parser still detects reorgs by the connecting block hashes.
+        rpcService.requestDtoBlocks(startBlockHeight,
+                chainHeight,
                 rawBlock -> {
+                    if (shutdownInProgress) {
+                        return false;
+                    }
                     try {
                         doParseBlock(rawBlock).ifPresent(newBlockHandler);
-
-                        // Increment blockHeight and recursively call parseBlockAsync until we reach chainHeight
-                        if (blockHeight < chainHeight) {
-                            int newBlockHeight = blockHeight + 1;
-                            parseBlockRecursively(newBlockHeight, chainHeight, newBlockHandler, resultHandler, errorHandler);
-                        } else {
-                            // We are done
-                            resultHandler.handleResult();
-                        }
+                        return true;
                     } catch (RequiredReorgFromSnapshotException ignore) {
-                        // If we get a reorg we don't continue to call parseBlockRecursively
+                        // If we get a reorg we don't continue with parsing and the pending requests get cancelled
+                        return false;
                     }
                 },
+                resultHandler,
                 errorHandler);
     }
 
@@ -58,15 +58,19 @@ import java.math.BigDecimal;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 
 import org.jetbrains.annotations.NotNull;
 
+import javax.annotation.Nullable;
+
 /**
  * Request blockchain data via RPC from Bitcoin Core for a FullNode.
  * Runs in a custom thread.
@@ -78,6 +82,8 @@ public class RpcService {
     private static final int ACTIVATE_HARD_FORK_2_HEIGHT_TESTNET = 1943000;
     private static final int ACTIVATE_HARD_FORK_2_HEIGHT_REGTEST = 1;
     private static final Range<Integer> SUPPORTED_NODE_VERSION_RANGE = Range.closedOpen(180000, 220100);
+    // Bitcoin Core serves 4 RPC requests in parallel by default (rpcthreads)
+    private static final int MAX_FETCH_THREADS = 4;
 
     private final String rpcUser;
     private final String rpcPassword;
@@ -85,13 +91,16 @@ public class RpcService {
     private final int rpcPort;
     private final int rpcBlockPort;
     private final String rpcBlockHost;
+    private final int blockPrefetchWindow;
 
     private BitcoindClient client;
     private BitcoindDaemon daemon;
 
-    // We could use multiple threads, but then we need to support ordering of results in a queue
-    // Keep that for optimization after measuring performance differences
     private final ListeningExecutorService executor = Utilities.getSingleThreadListeningExecutor("RpcService");
+    // Used for requesting a range of blocks while parsing. The BlockPrefetcher takes care of the ordering of results.
+    private final ListeningExecutorService fetchExecutor;
+    @Nullable
+    private BlockPrefetcher<RawBlock> blockPrefetcher;
     private volatile boolean shutdownInProgress;
     private final Set<ResultHandler> setupResultHandlers = new CopyOnWriteArraySet<>();
     private final Set<Consumer<Throwable>> setupErrorHandlers = new CopyOnWriteArraySet<>();
@@ -112,7 +121,8 @@ public class RpcService {
                        @Named(Config.RPC_HOST) String rpcHost,
                        @Named(Config.RPC_PORT) int rpcPort,
                        @Named(Config.RPC_BLOCK_NOTIFICATION_PORT) int rpcBlockPort,
-                       @Named(Config.RPC_BLOCK_NOTIFICATION_HOST) String rpcBlockHost) {
+                       @Named(Config.RPC_BLOCK_NOTIFICATION_HOST) String rpcBlockHost,
+                       @Named(Config.RPC_BLOCK_PREFETCH_WINDOW) int blockPrefetchWindow) {
         this.rpcUser = preferences.getRpcUser();
         this.rpcPassword = preferences.getRpcPw();
 
@@ -131,6 +141,13 @@ public class RpcService {
         boolean isBlockHostSet = !rpcBlockHost.isEmpty();
         this.rpcBlockPort = isBlockPortSet ? rpcBlockPort : 5125;
         this.rpcBlockHost = isBlockHostSet ? rpcBlockHost : "127.0.0.1";
+        this.blockPrefetchWindow = Math.max(1, blockPrefetchWindow);
+
+        // The JDK keeps the http connections of the fetch threads alive, so they act as a small connection pool.
+        // We use an unbounded queue as cancelled requests stay in the queue until a thread picks them up.
+        int numFetchThreads = Math.min(this.blockPrefetchWindow, MAX_FETCH_THREADS);
+        fetchExecutor = Utilities.getListeningExecutorService("RpcService-fetch", numFetchThreads, numFetchThreads,
+                60, new LinkedBlockingQueue<>());
     }
 
 
@@ -148,8 +165,13 @@ public class RpcService {
             log.info("daemon shut down");
         }
 
+        if (blockPrefetcher != null) {
+            blockPrefetcher.stop();
+        }
+
         // A hard shutdown is justified for the RPC service.
         executor.shutdownNow();
+        fetchExecutor.shutdownNow();
     }
 
     public void setup(ResultHandler resultHandler, Consumer<Throwable> errorHandler) {
@@ -327,43 +349,53 @@ public class RpcService {
         }
     }
 
-    void requestDtoBlock(int blockHeight,
-                         Consumer<RawBlock> resultHandler,
-                         Consumer<Throwable> errorHandler) {
+    /**
+     * Requests the blocks from fromHeight to toHeight with up to blockPrefetchWindow requests in flight.
+     * The blocks are delivered in height order on the UserThread. If the blockHandler returns false we stop and
+     * cancel the pending requests. A new call stops the previous one.
+     */
+    void requestDtoBlocks(int fromHeight,
+                          int toHeight,
+                          Predicate<RawBlock> blockHandler,
+                          ResultHandler resultHandler,
+                          Consumer<Throwable> errorHandler) {
+        if (blockPrefetcher != null) {
+            blockPrefetcher.stop();
+        }
+        blockPrefetcher = new BlockPrefetcher<>(fetchExecutor,
+                UserThread::execute,
+                blockPrefetchWindow,
+                this::fetchRawBlock,
+                fromHeight,
+                toHeight,
+                blockHandler,
+                resultHandler,
+                throwable -> {
+                    log.error("Error at requestDtoBlocks: fromHeight={}, toHeight={}, error={}",
+                            fromHeight, toHeight, throwable.toString());
+                    errorHandler.accept(throwable);
+                });
         try {
-            ListenableFuture<RawBlock> future = executor.submit(() -> {
-                long startTs = System.currentTimeMillis();
-                String blockHash = client.getBlockHash(blockHeight);
-                var rawDtoBlock = client.getBlock(blockHash, 2);
-                var block = getRawBlockFromRawDtoBlock(rawDtoBlock);
-                log.info("requestDtoBlock from bitcoind at blockHeight {} with {} txs took {} ms",
-                        blockHeight, block.getRawTxs().size(), System.currentTimeMillis() - startTs);
-                return block;
-            });
-
-            Futures.addCallback(future, new FutureCallback<>() {
-                @Override
-                public void onSuccess(RawBlock block) {
-                    UserThread.execute(() -> resultHandler.accept(block));
-                }
-
-                @Override
-                public void onFailure(@NotNull Throwable throwable) {
-                    log.error("Error at requestDtoBlock: blockHeight={}, error={}", blockHeight, throwable);
-                    UserThread.execute(() -> errorHandler.accept(throwable));
-                }
-            }, MoreExecutors.directExecutor());
+            blockPrefetcher.start();
         } catch (RejectedExecutionException e) {
+            blockPrefetcher.stop();
             if (!shutdownInProgress) {
-                log.error("Exception at requestDtoBlock", e);
+                log.error("Exception at requestDtoBlocks", e);
                 throw e;
             }
-        } catch (Exception e) {
-            log.error("Exception at requestDtoBlock", e);
-            throw e;
         }
     }
 
+    private RawBlock fetchRawBlock(int blockHeight) throws IOException {
+        long startTs = System.currentTimeMillis();
+        String blockHash = client.getBlockHash(blockHeight);
+        var rawDtoBlock = client.getBlock(blockHash, 2);
+        var block = getRawBlockFromRawDtoBlock(rawDtoBlock);
+        log.info("requestDtoBlock from bitcoind at blockHeight {} with {} txs took {} ms",
+                blockHeight, block.getRawTxs().size(), System.currentTimeMillis() - startTs);
+        return block;
+    }
+
     public void requestRawDtoBlock(int blockHeight,
                                    Consumer<RawDtoBlock> rawDtoBlockHandler,
                                    Consumer<Throwable> errorHandler) {
@@ -50,6 +50,8 @@ import org.jetbrains.annotations.NotNull;
 @Slf4j
 class GetBlocksRequestHandler {
     private static final long TIMEOUT_MIN = 4;
+    // We limit number of blocks to 3000 which is about 3 weeks.
+    private static final int MAX_BLOCKS = 3000;
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -91,13 +93,19 @@ class GetBlocksRequestHandler {
 
     public void onGetBlocksRequest(GetBlocksRequest getBlocksRequest, Connection connection) {
         long ts = System.currentTimeMillis();
-        // We limit number of blocks to 3000 which is about 3 weeks.
-        List<Block> blocks = new LinkedList<>(daoStateService.getBlocksFromBlockHeight(getBlocksRequest.getFromBlockHeight(), 3000));
+        // Lite nodes supporting Capability.BLOCK_CHUNKS request smaller ranges, so that they can request the chunks
+        // from several full nodes in parallel and we don't need to build a response close to the max. message size.
+        int fromBlockHeight = getBlocksRequest.getFromBlockHeight();
+        int toBlockHeight = getBlocksRequest.getToBlockHeight();
+        int numMaxBlocks = toBlockHeight > 0 ?
+                Math.max(0, Math.min(MAX_BLOCKS, toBlockHeight - fromBlockHeight + 1)) :
+                MAX_BLOCKS;
+        List<Block> blocks = new LinkedList<>(daoStateService.getBlocksFromBlockHeight(fromBlockHeight, numMaxBlocks));
         List<RawBlock> rawBlocks = blocks.stream().map(RawBlock::fromBlock).collect(Collectors.toList());
         GetBlocksResponse getBlocksResponse = new GetBlocksResponse(rawBlocks, getBlocksRequest.getNonce());
         log.info("Received GetBlocksRequest from {} for blocks from height {}. " +
                         "Building GetBlocksResponse with {} blocks took {} ms.",
-                connection.getPeersNodeAddressOptional(), getBlocksRequest.getFromBlockHeight(),
+                connection.getPeersNodeAddressOptional(), fromBlockHeight,
                 rawBlocks.size(), System.currentTimeMillis() - ts);
 
         if (timeoutTimer != null) {
@@ -236,6 +236,12 @@ public class LiteNode extends BsqNode {
                             MathUtils.roundDouble(duration / 1000d, 2),
                             MathUtils.roundDouble(duration / 1000d / 60, 2),
                             MathUtils.roundDouble(duration / blockList.size(), 2));
+                    if (liteNodeNetworkService.isRequestingBlockChunks()) {
+                        // We get called again with the next chunk
+                        onParsingComplete.run();
+                        return;
+                    }
+
                     // We only request again if wallet is synced, otherwise we would get repeated calls we want to avoid.
                     // We deal with that case at the setupWalletBestBlockListener method above.
                     if (walletsSetup.isDownloadComplete() && daoStateService.getChainHeight() < bsqWalletService.getBestChainHeight()) {
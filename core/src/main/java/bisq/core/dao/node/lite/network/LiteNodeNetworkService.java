@@ -33,6 +33,7 @@ import bisq.network.p2p.seed.SeedNodeRepository;
 
 import bisq.common.Timer;
 import bisq.common.UserThread;
+import bisq.common.app.Capability;
 import bisq.common.app.DevEnv;
 import bisq.common.proto.network.NetworkEnvelope;
 import bisq.common.util.Tuple2;
@@ -97,6 +98,8 @@ public class LiteNodeNetworkService implements MessageListener, ConnectionListen
 
     // Key is tuple of seedNode address and requested blockHeight
     private final Map<Tuple2<NodeAddress, Integer>, RequestBlocksHandler> requestBlocksHandlerMap = new HashMap<>();
+    @Nullable
+    private RequestBlockChunksHandler requestBlockChunksHandler;
     private Timer retryTimer;
     private boolean stopped;
     private final Set<String> receivedBlocks = new HashSet<>();
@@ -148,6 +151,13 @@ public class LiteNodeNetworkService implements MessageListener, ConnectionListen
      */
     public void requestBlocks(int startBlockHeight) {
         lastRequestedBlockHeight = startBlockHeight;
+        terminateRequestBlockChunksHandler();
+
+        if (!stopped && !getSeedNodesSupportingBlockChunks().isEmpty()) {
+            requestBlockChunks(startBlockHeight);
+            return;
+        }
+
         Optional<Connection> connectionToSeedNodeOptional = networkNode.getConfirmedConnections().stream()
                 .filter(peerManager::isSeedNode)
                 .findAny();
@@ -166,6 +176,14 @@ public class LiteNodeNetworkService implements MessageListener, ConnectionListen
         lastReceivedBlockHeight = 0;
         retryCounter = 0;
         requestBlocksHandlerMap.values().forEach(RequestBlocksHandler::terminate);
+        terminateRequestBlockChunksHandler();
+    }
+
+    /**
+     * @return true if we requested blocks in chunks and more chunks will be delivered
+     */
+    public boolean isRequestingBlockChunks() {
+        return requestBlockChunksHandler != null && !requestBlockChunksHandler.isStopped();
     }
 
 
@@ -180,6 +198,9 @@ public class LiteNodeNetworkService implements MessageListener, ConnectionListen
     @Override
     public void onDisconnect(CloseConnectionReason closeConnectionReason, Connection connection) {
         closeHandler(connection);
+        if (requestBlockChunksHandler != null) {
+            connection.getPeersNodeAddressOptional().ifPresent(requestBlockChunksHandler::onDisconnect);
+        }
 
         if (peerManager.isPeerBanned(closeConnectionReason, connection)) {
             connection.getPeersNodeAddressOptional().ifPresent(nodeAddress -> {
@@ -329,6 +350,57 @@ public class LiteNodeNetworkService implements MessageListener, ConnectionListen
     }
 
 
+    private void requestBlockChunks(int startBlockHeight) {
+        requestBlockChunksHandler = new RequestBlockChunksHandler(networkNode,
+                peerManager,
+                startBlockHeight,
+                this::getSeedNodesSupportingBlockChunks,
+                new RequestBlockChunksHandler.Listener() {
+                    @Override
+                    public void onChunkReceived(GetBlocksResponse getBlocksResponse, Runnable onParsingComplete) {
+                        stopRetryTimer();
+                        retryCounter = 0;
+                        lastReceivedBlockHeight = Math.max(lastReceivedBlockHeight,
+                                getBlocksResponse.getBlocks().isEmpty() ?
+                                        0 :
+                                        getBlocksResponse.getBlocks().get(0).getHeight());
+                        listeners.forEach(listener -> listener.onRequestedBlocksReceived(getBlocksResponse,
+                                onParsingComplete));
+                    }
+
+                    @Override
+                    public void onFault(String errorMessage, int nextBlockHeight, boolean isParsingPending) {
+                        listeners.forEach(listener -> listener.onFault(errorMessage, null));
+
+                        // If a chunk is still in parsing the LiteNode requests the missing blocks after parsing.
+                        if (!isParsingPending) {
+                            lastRequestedBlockHeight = nextBlockHeight;
+                            tryWithNewSeedNode(nextBlockHeight);
+                        }
+                    }
+                });
+        requestBlockChunksHandler.requestBlocks();
+    }
+
+    private List<NodeAddress> getSeedNodesSupportingBlockChunks() {
+        return networkNode.getConfirmedConnections().stream()
+                .filter(peerManager::isSeedNode)
+                .filter(connection -> connection.getCapabilities().containsAll(Capability.BLOCK_CHUNKS))
+                .map(Connection::getPeersNodeAddressOptional)
+                .flatMap(Optional::stream)
+                .filter(nodeAddress -> !peerManager.isSelf(nodeAddress))
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    private void terminateRequestBlockChunksHandler() {
+        if (requestBlockChunksHandler != null) {
+            requestBlockChunksHandler.terminate();
+            requestBlockChunksHandler = null;
+        }
+    }
+
+
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Utils
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -412,5 +484,6 @@ public class LiteNodeNetworkService implements MessageListener, ConnectionListen
     private void closeAllHandlers() {
         requestBlocksHandlerMap.values().forEach(RequestBlocksHandler::terminate);
         requestBlocksHandlerMap.clear();
+        terminateRequestBlockChunksHandler();
     }
 }
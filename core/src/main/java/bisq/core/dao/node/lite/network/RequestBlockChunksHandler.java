@@ -0,0 +1,283 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.node.lite.network;
+
+import bisq.core.dao.node.messages.GetBlocksResponse;
+
+import bisq.network.p2p.NodeAddress;
+import bisq.network.p2p.network.Connection;
+import bisq.network.p2p.network.NetworkNode;
+import bisq.network.p2p.peers.PeerManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Requests the blocks from startBlockHeight on in chunks of BLOCKS_PER_CHUNK blocks from the seed nodes supporting
+ * Capability.BLOCK_CHUNKS. Each seed node has at most one chunk request in flight, so with several seed nodes the
+ * chunks are downloaded (and decoded on the connection threads) in parallel. The received chunks are delivered in
+ * height order and the next chunk is only delivered after the previous one got parsed. A chunk with less than
+ * BLOCKS_PER_CHUNK blocks marks the chain tip of the seed node and is the last chunk we deliver.
+ * <p>
+ * If a request fails we retry the chunk at another seed node. If there is no seed node left we stop and report
+ * the fault with the height of the first block we have not delivered.
+ */
+@Slf4j
+class RequestBlockChunksHandler {
+    static final int BLOCKS_PER_CHUNK = 500;
+    // Max. number of chunks which are requested or received but not delivered yet
+    private static final int MAX_CHUNKS_AHEAD = 4;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Listener
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public interface Listener {
+        void onChunkReceived(GetBlocksResponse getBlocksResponse, Runnable onParsingComplete);
+
+        void onFault(String errorMessage, int nextBlockHeight, boolean isParsingPending);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Class fields
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private final NetworkNode networkNode;
+    private final PeerManager peerManager;
+    private final Supplier<List<NodeAddress>> seedNodesSupplier;
+    private final Listener listener;
+
+    private final Map<NodeAddress, RequestBlocksHandler> requestBlocksHandlerBySeedNode = new HashMap<>();
+    private final Set<NodeAddress> failedSeedNodes = new HashSet<>();
+    private final TreeSet<Integer> chunksToRetry = new TreeSet<>();
+    // Key is the start height of the chunk
+    private final NavigableMap<Integer, GetBlocksResponse> receivedChunks = new TreeMap<>();
+    private int nextChunkToRequest;
+    @Getter
+    private int nextBlockHeight;
+    // Set once we received a chunk with less than BLOCKS_PER_CHUNK blocks
+    private int lastBlockHeight = Integer.MAX_VALUE;
+    private boolean parsingPending;
+    @Getter
+    private boolean stopped;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    RequestBlockChunksHandler(NetworkNode networkNode,
+                              PeerManager peerManager,
+                              int startBlockHeight,
+                              Supplier<List<NodeAddress>> seedNodesSupplier,
+                              Listener listener) {
+        this.networkNode = networkNode;
+        this.peerManager = peerManager;
+        this.seedNodesSupplier = seedNodesSupplier;
+        this.listener = listener;
+        nextChunkToRequest = startBlockHeight;
+        nextBlockHeight = startBlockHeight;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    void requestBlocks() {
+        log.info("We request blocks from height {} in chunks of {} blocks.", nextBlockHeight, BLOCKS_PER_CHUNK);
+        requestChunks();
+    }
+
+    void onDisconnect(NodeAddress nodeAddress) {
+        RequestBlocksHandler requestBlocksHandler = requestBlocksHandlerBySeedNode.get(nodeAddress);
+        if (requestBlocksHandler != null) {
+            requestBlocksHandler.terminate();
+            onChunkFault(nodeAddress, requestBlocksHandler.getStartBlockHeight(), "Connection to " + nodeAddress + " closed");
+        }
+    }
+
+    void terminate() {
+        stopped = true;
+        requestBlocksHandlerBySeedNode.values().forEach(RequestBlocksHandler::terminate);
+        requestBlocksHandlerBySeedNode.clear();
+        receivedChunks.clear();
+        chunksToRetry.clear();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void requestChunks() {
+        if (stopped) {
+            return;
+        }
+
+        for (NodeAddress seedNode : seedNodesSupplier.get()) {
+            if (requestBlocksHandlerBySeedNode.containsKey(seedNode) || failedSeedNodes.contains(seedNode)) {
+                continue;
+            }
+            Integer chunkStart = getNextChunkToRequest();
+            if (chunkStart == null) {
+                break;
+            }
+            requestChunk(seedNode, chunkStart);
+        }
+
+        if (requestBlocksHandlerBySeedNode.isEmpty() && hasChunksToRequest()) {
+            handleFault("No seed node supporting block chunks available for block height " + nextBlockHeight);
+        }
+    }
+
+    @Nullable
+    private Integer getNextChunkToRequest() {
+        Integer chunkToRetry = chunksToRetry.pollFirst();
+        if (chunkToRetry != null) {
+            return chunkToRetry;
+        }
+        if (nextChunkToRequest <= lastBlockHeight &&
+                nextChunkToRequest < nextBlockHeight + MAX_CHUNKS_AHEAD * BLOCKS_PER_CHUNK) {
+            int chunkStart = nextChunkToRequest;
+            nextChunkToRequest += BLOCKS_PER_CHUNK;
+            return chunkStart;
+        }
+        return null;
+    }
+
+    private boolean hasChunksToRequest() {
+        return !chunksToRetry.isEmpty() ||
+                (nextChunkToRequest <= lastBlockHeight &&
+                        nextChunkToRequest < nextBlockHeight + MAX_CHUNKS_AHEAD * BLOCKS_PER_CHUNK);
+    }
+
+    private void requestChunk(NodeAddress seedNode, int chunkStart) {
+        int chunkEnd = chunkStart + BLOCKS_PER_CHUNK - 1;
+        RequestBlocksHandler requestBlocksHandler = new RequestBlocksHandler(networkNode,
+                peerManager,
+                seedNode,
+                chunkStart,
+                chunkEnd,
+                new RequestBlocksHandler.Listener() {
+                    @Override
+                    public void onComplete(GetBlocksResponse getBlocksResponse) {
+                        onChunkReceived(seedNode, chunkStart, getBlocksResponse);
+                    }
+
+                    @Override
+                    public void onFault(String errorMessage, @Nullable Connection connection) {
+                        onChunkFault(seedNode, chunkStart, errorMessage);
+                    }
+                });
+        requestBlocksHandlerBySeedNode.put(seedNode, requestBlocksHandler);
+        requestBlocksHandler.requestBlocks();
+    }
+
+    private void onChunkReceived(NodeAddress seedNode, int chunkStart, GetBlocksResponse getBlocksResponse) {
+        if (stopped) {
+            return;
+        }
+        requestBlocksHandlerBySeedNode.remove(seedNode);
+
+        int numBlocks = getBlocksResponse.getBlocks().size();
+        log.info("We received {} blocks of chunk {} from {}", numBlocks, chunkStart, seedNode);
+        if (numBlocks < BLOCKS_PER_CHUNK && chunkStart + numBlocks - 1 < lastBlockHeight) {
+            // The seed node has no more blocks, so we don't need the chunks above
+            lastBlockHeight = chunkStart + numBlocks - 1;
+            receivedChunks.tailMap(lastBlockHeight, false).clear();
+            chunksToRetry.tailSet(lastBlockHeight, false).clear();
+            List<NodeAddress> obsoleteRequests = new ArrayList<>();
+            requestBlocksHandlerBySeedNode.forEach((nodeAddress, handler) -> {
+                if (handler.getStartBlockHeight() > lastBlockHeight) {
+                    handler.terminate();
+                    obsoleteRequests.add(nodeAddress);
+                }
+            });
+            obsoleteRequests.forEach(requestBlocksHandlerBySeedNode::remove);
+        }
+
+        // An empty chunk at the next height still gets delivered so that the listener completes.
+        if (chunkStart <= lastBlockHeight || chunkStart == nextBlockHeight) {
+            receivedChunks.put(chunkStart, getBlocksResponse);
+        }
+        maybeDeliverNextChunk();
+        requestChunks();
+    }
+
+    private void onChunkFault(NodeAddress seedNode, int chunkStart, String errorMessage) {
+        if (stopped) {
+            return;
+        }
+        log.warn("Requesting chunk {} from {} failed. We try another seed node. errorMessage={}",
+                chunkStart, seedNode, errorMessage);
+        requestBlocksHandlerBySeedNode.remove(seedNode);
+        failedSeedNodes.add(seedNode);
+        if (chunkStart <= lastBlockHeight) {
+            chunksToRetry.add(chunkStart);
+        }
+        requestChunks();
+    }
+
+    private void maybeDeliverNextChunk() {
+        if (stopped || parsingPending) {
+            return;
+        }
+
+        GetBlocksResponse getBlocksResponse = receivedChunks.remove(nextBlockHeight);
+        if (getBlocksResponse == null) {
+            return;
+        }
+
+        nextBlockHeight += BLOCKS_PER_CHUNK;
+        boolean isLastChunk = nextBlockHeight > lastBlockHeight;
+        if (isLastChunk) {
+            // We are done before we deliver, so the listener sees that no further chunks will follow
+            terminate();
+        } else {
+            parsingPending = true;
+        }
+        listener.onChunkReceived(getBlocksResponse, () -> {
+            parsingPending = false;
+            maybeDeliverNextChunk();
+            requestChunks();
+        });
+    }
+
+    private void handleFault(String errorMessage) {
+        log.warn(errorMessage);
+        boolean isParsingPending = parsingPending;
+        terminate();
+        listener.onFault(errorMessage, nextBlockHeight, isParsingPending);
+    }
+}
@@ -76,6 +76,8 @@ public class RequestBlocksHandler implements MessageListener {
     private final NodeAddress nodeAddress;
     @Getter
     private final int startBlockHeight;
+    // 0 if not set
+    private final int toBlockHeight;
     private final Listener listener;
     private Timer timeoutTimer;
     private final int nonce = new Random().nextInt();
@@ -91,10 +93,20 @@ public class RequestBlocksHandler implements MessageListener {
                                 NodeAddress nodeAddress,
                                 int startBlockHeight,
                                 Listener listener) {
+        this(networkNode, peerManager, nodeAddress, startBlockHeight, 0, listener);
+    }
+
+    public RequestBlocksHandler(NetworkNode networkNode,
+                                PeerManager peerManager,
+                                NodeAddress nodeAddress,
+                                int startBlockHeight,
+                                int toBlockHeight,
+                                Listener listener) {
         this.networkNode = networkNode;
         this.peerManager = peerManager;
         this.nodeAddress = nodeAddress;
         this.startBlockHeight = startBlockHeight;
+        this.toBlockHeight = toBlockHeight;
         this.listener = listener;
     }
 
@@ -109,7 +121,8 @@ public class RequestBlocksHandler implements MessageListener {
             return;
         }
 
-        GetBlocksRequest getBlocksRequest = new GetBlocksRequest(startBlockHeight, nonce, networkNode.getNodeAddress());
+        GetBlocksRequest getBlocksRequest = new GetBlocksRequest(startBlockHeight, toBlockHeight, nonce,
+                networkNode.getNodeAddress());
 
         if (timeoutTimer != null) {
             log.warn("We had a timer already running and stop it.");
@@ -49,6 +49,9 @@ public final class GetBlocksRequest extends NetworkEnvelope implements DirectMes
     private final int fromBlockHeight;
     private final int nonce;
 
+    // Added for Capability.BLOCK_CHUNKS. Is 0 if not set, in which case the full node sends up to 3000 blocks.
+    private final int toBlockHeight;
+
     // Added after version 1.0.1. Can be null if received from older clients.
     @Nullable
     private final NodeAddress senderNodeAddress;
@@ -60,7 +63,15 @@ public final class GetBlocksRequest extends NetworkEnvelope implements DirectMes
     public GetBlocksRequest(int fromBlockHeight,
                             int nonce,
                             @Nullable NodeAddress senderNodeAddress) {
+        this(fromBlockHeight, 0, nonce, senderNodeAddress);
+    }
+
+    public GetBlocksRequest(int fromBlockHeight,
+                            int toBlockHeight,
+                            int nonce,
+                            @Nullable NodeAddress senderNodeAddress) {
         this(fromBlockHeight,
+                toBlockHeight,
                 nonce,
                 senderNodeAddress,
                 Capabilities.app,
@@ -73,12 +84,14 @@ public final class GetBlocksRequest extends NetworkEnvelope implements DirectMes
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     private GetBlocksRequest(int fromBlockHeight,
+                             int toBlockHeight,
                              int nonce,
                              @Nullable NodeAddress senderNodeAddress,
                              @Nullable Capabilities supportedCapabilities,
                              int messageVersion) {
         super(messageVersion);
         this.fromBlockHeight = fromBlockHeight;
+        this.toBlockHeight = toBlockHeight;
         this.nonce = nonce;
         this.senderNodeAddress = senderNodeAddress;
         this.supportedCapabilities = supportedCapabilities;
@@ -88,6 +101,7 @@ public final class GetBlocksRequest extends NetworkEnvelope implements DirectMes
     public protobuf.NetworkEnvelope toProtoNetworkEnvelope() {
         protobuf.GetBlocksRequest.Builder builder = protobuf.GetBlocksRequest.newBuilder()
                 .setFromBlockHeight(fromBlockHeight)
+                .setToBlockHeight(toBlockHeight)
                 .setNonce(nonce);
         Optional.ofNullable(senderNodeAddress).ifPresent(e -> builder.setSenderNodeAddress(e.toProtoMessage()));
         Optional.ofNullable(supportedCapabilities).ifPresent(e -> builder.addAllSupportedCapabilities(Capabilities.toIntList(supportedCapabilities)));
@@ -103,6 +117,7 @@ public final class GetBlocksRequest extends NetworkEnvelope implements DirectMes
                 null :
                 Capabilities.fromIntList(proto.getSupportedCapabilitiesList());
         return new GetBlocksRequest(proto.getFromBlockHeight(),
+                proto.getToBlockHeight(),
                 proto.getNonce(),
                 senderNodeAddress,
                 supportedCapabilities,
@@ -118,6 +133,7 @@ public final class GetBlocksRequest extends NetworkEnvelope implements DirectMes
     public String toString() {
         return "GetBlocksRequest{" +
                 "\n     fromBlockHeight=" + fromBlockHeight +
+                ",\n     toBlockHeight=" + toBlockHeight +
                 ",\n     nonce=" + nonce +
                 ",\n     senderNodeAddress=" + senderNodeAddress +
                 ",\n     supportedCapabilities=" + supportedCapabilities +
@@ -144,20 +144,27 @@ public class DaoStateService implements DaoSetupService {
 
         daoState.getDecryptedBallotsWithMeritsList().clear();
         daoState.getDecryptedBallotsWithMeritsList().addAll(snapshot.getDecryptedBallotsWithMeritsList());
+
+        daoState.resetStateDigests();
     }
 
     public DaoState getClone() {
         return DaoState.getClone(daoState);
     }
 
-    public protobuf.DaoState getBsqStateCloneExcludingBlocks() {
-        return DaoState.getBsqStateCloneExcludingBlocks(daoState);
+    // The returned snapshot shares its data with the daoState and must not be modified
+    public DaoState getSnapshotExcludingBlocks() {
+        return daoState.getSnapshotExcludingBlocks();
     }
 
     public byte[] getSerializedStateForHashChain() {
         return daoState.getSerializedStateForHashChain();
     }
 
+    public byte[] getStateDigestForHashChain() {
+        return daoState.getStateDigestForHashChain();
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // ChainHeight
@@ -492,12 +499,12 @@ public class DaoStateService implements DaoSetupService {
 
     public void addUnspentTxOutput(TxOutput txOutput) {
         assertDaoStateChange();
-        getUnspentTxOutputMap().put(txOutput.getKey(), txOutput);
+        daoState.addUnspentTxOutput(txOutput);
     }
 
     public void removeUnspentTxOutput(TxOutput txOutput) {
         assertDaoStateChange();
-        getUnspentTxOutputMap().remove(txOutput.getKey());
+        daoState.removeUnspentTxOutput(txOutput.getKey());
     }
 
     public boolean isUnspent(TxOutputKey key) {
@@ -640,7 +647,7 @@ public class DaoStateService implements DaoSetupService {
 
     public void addIssuance(Issuance issuance) {
         assertDaoStateChange();
-        daoState.getIssuanceMap().put(issuance.getTxId(), issuance);
+        daoState.putIssuance(issuance);
     }
 
     public Collection<Issuance> getIssuanceItems() {
@@ -1016,7 +1023,7 @@ public class DaoStateService implements DaoSetupService {
 
     public void setSpentInfo(TxOutputKey txOutputKey, SpentInfo spentInfo) {
         assertDaoStateChange();
-        daoState.getSpentInfoMap().put(txOutputKey, spentInfo);
+        daoState.putSpentInfo(txOutputKey, spentInfo);
     }
 
     public Optional<SpentInfo> getSpentInfo(TxOutput txOutput) {
@@ -70,7 +70,7 @@ public class DaoStateSnapshotService implements DaoSetupService, DaoStateListene
     private final Config config;
     private final File storageDir;
 
-    private protobuf.DaoState daoStateCandidate;
+    private DaoState daoStateCandidate;
     private LinkedList<DaoStateHash> hashChainCandidate = new LinkedList<>();
     private List<Block> blocksCandidate;
     private int snapshotHeight;
@@ -184,7 +184,7 @@ public class DaoStateSnapshotService implements DaoSetupService, DaoStateListene
                 log.info("Create snapshot at height {}", chainHeight);
                 // We do not keep the data in our fields to enable gc as soon its released in the store
 
-                protobuf.DaoState daoStateForSnapshot = getDaoStateForSnapshot();
+                DaoState daoStateForSnapshot = getDaoStateForSnapshot();
                 List<Block> blocksForSnapshot = getBlocksForSnapshot();
                 LinkedList<DaoStateHash> hashChainForSnapshot = getHashChainForSnapshot();
                 daoStateStorageService.requestPersistence(daoStateForSnapshot,
@@ -260,18 +260,18 @@ public class DaoStateSnapshotService implements DaoSetupService, DaoStateListene
 
     private void createSnapshot() {
         long ts = System.currentTimeMillis();
-        // Now we clone and keep it in memory for the next trigger event
+        // Now we take a snapshot and keep it in memory for the next trigger event
         // We do not fit into the target grid of 20 blocks as we get called here once persistence is
         // done from the write thread (mapped back to user thread).
-        // As we want to prevent to maintain 2 clones we prefer that strategy. If we would do the clone
-        // after the persist call we would keep an additional copy in memory.
+        // The snapshot shares the collections with the live daoState until they get changed, so it is cheap to
+        // create. Serializing it to protobuf happens at the write thread.
         daoStateCandidate = getDaoStateForSnapshot();
         blocksCandidate = getBlocksForSnapshot();
         hashChainCandidate = getHashChainForSnapshot();
         snapshotHeight = daoStateService.getChainHeight();
         GcUtil.maybeReleaseMemory();
 
-        log.info("Cloned new daoStateCandidate at height {} took {} ms.", snapshotHeight, System.currentTimeMillis() - ts);
+        log.info("Created new daoStateCandidate at height {} took {} ms.", snapshotHeight, System.currentTimeMillis() - ts);
     }
 
     public void applySnapshot(boolean fromReorg) {
@@ -360,8 +360,8 @@ public class DaoStateSnapshotService implements DaoSetupService, DaoStateListene
         return isSnapshotHeight(genesisTxInfo.getGenesisBlockHeight(), height, SNAPSHOT_GRID);
     }
 
-    private protobuf.DaoState getDaoStateForSnapshot() {
-        return daoStateService.getBsqStateCloneExcludingBlocks();
+    private DaoState getDaoStateForSnapshot() {
+        return daoStateService.getSnapshotExcludingBlocks();
     }
 
     private List<Block> getBlocksForSnapshot() {
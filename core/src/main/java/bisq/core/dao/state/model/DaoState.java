@@ -34,12 +34,21 @@ import bisq.common.util.JsonExclude;
 
 import com.google.protobuf.Message;
 
+import com.google.common.annotations.VisibleForTesting;
+
 import javax.inject.Inject;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import java.io.ByteArrayOutputStream;
+
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -67,6 +76,12 @@ public class DaoState implements PersistablePayload {
     // Static
     ///////////////////////////////////////////////////////////////////////////////////////////
 
+    // Sorting of the TxOutputKeys inside a bucket of the DaoStateHash version 2. Like serializeKey it must not
+    // depend on TxOutputKey.toString or compareTo.
+    @VisibleForTesting
+    static final Comparator<TxOutputKey> TX_OUTPUT_KEY_COMPARATOR = Comparator.comparing(TxOutputKey::getTxId)
+            .thenComparingInt(TxOutputKey::getIndex);
+
     public static DaoState getClone(DaoState daoState) {
         return DaoState.fromProto(daoState.getBsqStateBuilder().build());
     }
@@ -86,32 +101,30 @@ public class DaoState implements PersistablePayload {
     // We override the getter so callers can't modify the list without also updating
     // the block caches and indices below
     private final LinkedList<Block> blocks;
-    @Getter
-    private final LinkedList<Cycle> cycles;
+    private LinkedList<Cycle> cycles;
 
     // These maps represent mutual data which can get changed at parsing a transaction
     // We use TreeMaps instead of HashMaps because we need deterministic sorting of the maps for the hashChains
     // used for the DAO monitor.
-    @Getter
-    private final TreeMap<TxOutputKey, TxOutput> unspentTxOutputMap;
-    @Getter
-    private final TreeMap<TxOutputKey, SpentInfo> spentInfoMap;
+    private TreeMap<TxOutputKey, TxOutput> unspentTxOutputMap;
+    private TreeMap<TxOutputKey, SpentInfo> spentInfoMap;
 
     // These maps are related to state change triggered by voting
-    @Getter
-    private final List<String> confiscatedLockupTxList;
-    @Getter
-    private final TreeMap<String, Issuance> issuanceMap; // key is txId
-    @Getter
-    private final List<ParamChange> paramChangeList;
+    private List<String> confiscatedLockupTxList;
+    private TreeMap<String, Issuance> issuanceMap; // key is txId
+    private List<ParamChange> paramChangeList;
 
     // Vote result data
     // All evaluated proposals which get added at the result phase
-    @Getter
-    private final List<EvaluatedProposal> evaluatedProposalList;
+    private List<EvaluatedProposal> evaluatedProposalList;
     // All voting data which get added at the result phase
-    @Getter
-    private final List<DecryptedBallotsWithMerits> decryptedBallotsWithMeritsList;
+    private List<DecryptedBallotsWithMerits> decryptedBallotsWithMeritsList;
+
+    // Collections which are shared with the last snapshot. As all elements are immutable we do not need to copy
+    // anything at taking a snapshot. A shared collection gets copied at the first access by its getter, as the
+    // callers use the getters for changing the collections as well.
+    @JsonExclude
+    private transient final Set<Object> collectionsSharedWithSnapshot = Collections.newSetFromMap(new IdentityHashMap<>());
 
     // Transient data used only as an index - must be kept in sync with the block list
     @JsonExclude
@@ -121,6 +134,20 @@ public class DaoState implements PersistablePayload {
     @JsonExclude
     private transient final Map<TxOutputType, Set<TxOutput>> txOutputsByTxOutputType = new HashMap<>();
 
+    // Incremental digests of the large maps used for the DaoStateHash version 2
+    @JsonExclude
+    private transient final IncrementalMapDigest<TxOutputKey, TxOutput> unspentTxOutputMapDigest =
+            new IncrementalMapDigest<>(DaoState::serializeKey, DaoState.TX_OUTPUT_KEY_COMPARATOR,
+                    txOutput -> txOutput.toProtoMessage().toByteArray());
+    @JsonExclude
+    private transient final IncrementalMapDigest<TxOutputKey, SpentInfo> spentInfoMapDigest =
+            new IncrementalMapDigest<>(DaoState::serializeKey, DaoState.TX_OUTPUT_KEY_COMPARATOR,
+                    spentInfo -> spentInfo.toProtoMessage().toByteArray());
+    @JsonExclude
+    private transient final IncrementalMapDigest<String, Issuance> issuanceMapDigest =
+            new IncrementalMapDigest<>(txId -> txId.getBytes(StandardCharsets.UTF_8), Comparator.<String>naturalOrder(),
+                    issuance -> issuance.toProtoMessage().toByteArray());
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Constructor
@@ -250,6 +277,89 @@ public class DaoState implements PersistablePayload {
         this.chainHeight = chainHeight;
     }
 
+    /**
+     * Captures the current state excluding the blocks without copying the collections. The live state copies a
+     * collection only when it gets accessed after the snapshot was taken, so the snapshot is never changed and can
+     * be serialized at another thread. The returned DaoState must not be modified.
+     */
+    public DaoState getSnapshotExcludingBlocks() {
+        collectionsSharedWithSnapshot.clear();
+        collectionsSharedWithSnapshot.addAll(List.of(cycles,
+                unspentTxOutputMap,
+                spentInfoMap,
+                confiscatedLockupTxList,
+                issuanceMap,
+                paramChangeList,
+                evaluatedProposalList,
+                decryptedBallotsWithMeritsList));
+        return new DaoState(chainHeight,
+                new LinkedList<>(),
+                cycles,
+                unspentTxOutputMap,
+                spentInfoMap,
+                confiscatedLockupTxList,
+                issuanceMap,
+                paramChangeList,
+                evaluatedProposalList,
+                decryptedBallotsWithMeritsList);
+    }
+
+    public LinkedList<Cycle> getCycles() {
+        if (collectionsSharedWithSnapshot.remove(cycles)) {
+            cycles = new LinkedList<>(cycles);
+        }
+        return cycles;
+    }
+
+    public TreeMap<TxOutputKey, TxOutput> getUnspentTxOutputMap() {
+        if (collectionsSharedWithSnapshot.remove(unspentTxOutputMap)) {
+            unspentTxOutputMap = new TreeMap<>(unspentTxOutputMap);
+        }
+        return unspentTxOutputMap;
+    }
+
+    public TreeMap<TxOutputKey, SpentInfo> getSpentInfoMap() {
+        if (collectionsSharedWithSnapshot.remove(spentInfoMap)) {
+            spentInfoMap = new TreeMap<>(spentInfoMap);
+        }
+        return spentInfoMap;
+    }
+
+    public List<String> getConfiscatedLockupTxList() {
+        if (collectionsSharedWithSnapshot.remove(confiscatedLockupTxList)) {
+            confiscatedLockupTxList = new ArrayList<>(confiscatedLockupTxList);
+        }
+        return confiscatedLockupTxList;
+    }
+
+    public TreeMap<String, Issuance> getIssuanceMap() {
+        if (collectionsSharedWithSnapshot.remove(issuanceMap)) {
+            issuanceMap = new TreeMap<>(issuanceMap);
+        }
+        return issuanceMap;
+    }
+
+    public List<ParamChange> getParamChangeList() {
+        if (collectionsSharedWithSnapshot.remove(paramChangeList)) {
+            paramChangeList = new ArrayList<>(paramChangeList);
+        }
+        return paramChangeList;
+    }
+
+    public List<EvaluatedProposal> getEvaluatedProposalList() {
+        if (collectionsSharedWithSnapshot.remove(evaluatedProposalList)) {
+            evaluatedProposalList = new ArrayList<>(evaluatedProposalList);
+        }
+        return evaluatedProposalList;
+    }
+
+    public List<DecryptedBallotsWithMerits> getDecryptedBallotsWithMeritsList() {
+        if (collectionsSharedWithSnapshot.remove(decryptedBallotsWithMeritsList)) {
+            decryptedBallotsWithMeritsList = new ArrayList<>(decryptedBallotsWithMeritsList);
+        }
+        return decryptedBallotsWithMeritsList;
+    }
+
     public byte[] getSerializedStateForHashChain() {
         // We only add last block as for the hash chain we include the prev. hash in the new hash so the state of the
         // earlier blocks is included in the hash. The past blocks cannot be changed anyway when a new block arrives.
@@ -259,6 +369,78 @@ public class DaoState implements PersistablePayload {
         return getBsqStateBuilderExcludingBlocks().addBlocks(getLastBlock().toProtoMessage()).build().toByteArray();
     }
 
+    /**
+     * Used for the DaoStateHash version 2. Instead of serializing the maps of the state we use their incremental
+     * digests, so the costs depend mainly on the changes since the last call. The smaller collections and the last
+     * block are serialized as in getSerializedStateForHashChain. As the digests cover the full state we do not need
+     * to include the previous hash.
+     */
+    public byte[] getStateDigestForHashChain() {
+        byte[] otherCollections = protobuf.DaoState.newBuilder()
+                .setChainHeight(chainHeight)
+                .addAllCycles(cycles.stream().map(Cycle::toProtoMessage).collect(Collectors.toList()))
+                .addAllConfiscatedLockupTxList(confiscatedLockupTxList)
+                .addAllParamChangeList(paramChangeList.stream().map(ParamChange::toProtoMessage).collect(Collectors.toList()))
+                .addAllEvaluatedProposalList(evaluatedProposalList.stream().map(EvaluatedProposal::toProtoMessage).collect(Collectors.toList()))
+                .addAllDecryptedBallotsWithMeritsList(decryptedBallotsWithMeritsList.stream().map(DecryptedBallotsWithMerits::toProtoMessage).collect(Collectors.toList()))
+                .addBlocks(getLastBlock().toProtoMessage())
+                .build()
+                .toByteArray();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        getMapDigests().forEach(outputStream::writeBytes);
+        outputStream.writeBytes(otherCollections);
+        return outputStream.toByteArray();
+    }
+
+    // Digests of the UTXO, spent info and issuance maps in the order used by getStateDigestForHashChain
+    @VisibleForTesting
+    List<byte[]> getMapDigests() {
+        return List.of(unspentTxOutputMapDigest.getDigest(unspentTxOutputMap),
+                spentInfoMapDigest.getDigest(spentInfoMap),
+                issuanceMapDigest.getDigest(issuanceMap));
+    }
+
+    // Changes of the maps need to be done with those methods to keep the state digests in sync
+
+    public void addUnspentTxOutput(TxOutput txOutput) {
+        getUnspentTxOutputMap().put(txOutput.getKey(), txOutput);
+        unspentTxOutputMapDigest.onChanged(txOutput.getKey());
+    }
+
+    public void removeUnspentTxOutput(TxOutputKey txOutputKey) {
+        getUnspentTxOutputMap().remove(txOutputKey);
+        unspentTxOutputMapDigest.onChanged(txOutputKey);
+    }
+
+    public void putSpentInfo(TxOutputKey txOutputKey, SpentInfo spentInfo) {
+        getSpentInfoMap().put(txOutputKey, spentInfo);
+        spentInfoMapDigest.onChanged(txOutputKey);
+    }
+
+    public void putIssuance(Issuance issuance) {
+        getIssuanceMap().put(issuance.getTxId(), issuance);
+        issuanceMapDigest.onChanged(issuance.getTxId());
+    }
+
+    // Needs to be called if the maps got changed directly (e.g. at applying a snapshot). The digests get rebuilt
+    // from the full maps at the next getStateDigestForHashChain call.
+    public void resetStateDigests() {
+        unspentTxOutputMapDigest.reset();
+        spentInfoMapDigest.reset();
+        issuanceMapDigest.reset();
+    }
+
+    // The key format is part of the DaoStateHash version 2, so we serialize the fields explicitly instead of
+    // relying on TxOutputKey.toString: UTF-8 bytes of the txId followed by the index as big-endian int.
+    @VisibleForTesting
+    static byte[] serializeKey(TxOutputKey txOutputKey) {
+        byte[] txId = txOutputKey.getTxId().getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(txId.length + 4)
+                .put(txId)
+                .putInt(txOutputKey.getIndex())
+                .array();
+    }
+
     public void addToTxCache(Tx tx) {
         // We shouldn't get duplicate txIds, but use putIfAbsent instead of put for consistency with the map merge
         // function used in the constructor to initialise txCache (and to exactly match the pre-caching behaviour).
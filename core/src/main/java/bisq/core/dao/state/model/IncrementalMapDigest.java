@@ -0,0 +1,145 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.state.model;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import java.nio.ByteBuffer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Digest of a map which gets updated incrementally. The keys are distributed by their hash into a fixed number of
+ * buckets. Each bucket has a digest over its entries sorted by key and the digest of the map is the hash over all
+ * bucket digests. At a change we only need to recompute the digests of the affected buckets.
+ *
+ * All changes of the map must be reported with onChanged, otherwise the digest gets out of sync with the map.
+ * The digest only depends on the content of the map, not on the order of the changes.
+ *
+ * The key serializer and comparator define the digest format, so they must not depend on toString or other
+ * representations which might change without a protocol change.
+ */
+class IncrementalMapDigest<K, V> {
+    private static final int NUM_BUCKETS = 1024;
+
+    private final Function<K, byte[]> keySerializer;
+    private final Comparator<K> keyComparator;
+    private final Function<V, byte[]> valueSerializer;
+    private final List<TreeSet<K>> keysByBucket = new ArrayList<>(NUM_BUCKETS);
+    private final byte[][] bucketDigests = new byte[NUM_BUCKETS][];
+    private final Set<K> changedKeys = new HashSet<>();
+    private boolean initialized;
+
+    IncrementalMapDigest(Function<K, byte[]> keySerializer,
+                         Comparator<K> keyComparator,
+                         Function<V, byte[]> valueSerializer) {
+        this.keySerializer = keySerializer;
+        this.keyComparator = keyComparator;
+        this.valueSerializer = valueSerializer;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            keysByBucket.add(new TreeSet<>(keyComparator));
+        }
+    }
+
+    void onChanged(K key) {
+        if (initialized) {
+            changedKeys.add(key);
+        }
+    }
+
+    // The digest gets rebuilt from the whole map at the next getDigest call
+    void reset() {
+        initialized = false;
+        changedKeys.clear();
+    }
+
+    byte[] getDigest(Map<K, V> map) {
+        if (initialized) {
+            applyChanges(map);
+        } else {
+            rebuild(map);
+        }
+
+        MessageDigest digest = getSha256MessageDigest();
+        for (byte[] bucketDigest : bucketDigests) {
+            digest.update(bucketDigest);
+        }
+        return digest.digest();
+    }
+
+    private void rebuild(Map<K, V> map) {
+        keysByBucket.forEach(TreeSet::clear);
+        map.keySet().forEach(key -> keysByBucket.get(getBucketIndex(key)).add(key));
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            bucketDigests[i] = getBucketDigest(keysByBucket.get(i), map);
+        }
+        changedKeys.clear();
+        initialized = true;
+    }
+
+    private void applyChanges(Map<K, V> map) {
+        Set<Integer> changedBuckets = new HashSet<>();
+        changedKeys.forEach(key -> {
+            int bucketIndex = getBucketIndex(key);
+            if (map.containsKey(key)) {
+                keysByBucket.get(bucketIndex).add(key);
+            } else {
+                keysByBucket.get(bucketIndex).remove(key);
+            }
+            changedBuckets.add(bucketIndex);
+        });
+        changedBuckets.forEach(bucketIndex ->
+                bucketDigests[bucketIndex] = getBucketDigest(keysByBucket.get(bucketIndex), map));
+        changedKeys.clear();
+    }
+
+    private byte[] getBucketDigest(TreeSet<K> keys, Map<K, V> map) {
+        MessageDigest digest = getSha256MessageDigest();
+        for (K key : keys) {
+            updateWithLengthPrefix(digest, keySerializer.apply(key));
+            updateWithLengthPrefix(digest, valueSerializer.apply(map.get(key)));
+        }
+        return digest.digest();
+    }
+
+    private int getBucketIndex(K key) {
+        byte[] hash = getSha256MessageDigest().digest(keySerializer.apply(key));
+        return (((hash[0] & 0xff) << 8) | (hash[1] & 0xff)) % NUM_BUCKETS;
+    }
+
+    private static void updateWithLengthPrefix(MessageDigest digest, byte[] data) {
+        digest.update(ByteBuffer.allocate(4).putInt(data.length).array());
+        digest.update(data);
+    }
+
+    private static MessageDigest getSha256MessageDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -17,23 +17,24 @@
 
 package bisq.core.dao.state.storage;
 
-import bisq.common.file.FileUtil;
 import bisq.common.proto.persistable.PersistenceProtoResolver;
 
 import protobuf.BaseBlock;
 
-import java.nio.file.Path;
-
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Reads the blocks stored in buckets of 1000 blocks as whole BsqBlockStore envelopes. That format was used before
+ * IndexedBlocksPersistence and is still used by the resource files. We only read the buckets for migrating them.
+ */
 @Slf4j
 public class BlocksPersistence {
     public static final int BUCKET_SIZE = 1000; // results in about 1 MB files and about 1 new file per week
@@ -41,7 +42,6 @@ public class BlocksPersistence {
     private final File storageDir;
     private final String fileName;
     private final PersistenceProtoResolver persistenceProtoResolver;
-    private Path usedTempFilePath;
 
     public BlocksPersistence(File storageDir, String fileName, PersistenceProtoResolver persistenceProtoResolver) {
         this.storageDir = storageDir;
@@ -49,130 +49,56 @@ public class BlocksPersistence {
         this.persistenceProtoResolver = persistenceProtoResolver;
     }
 
-    public void writeBlocks(List<BaseBlock> protobufBlocks) {
-        long ts = System.currentTimeMillis();
-        if (!storageDir.exists()) {
-            storageDir.mkdir();
-        }
-        List<BaseBlock> temp = new ArrayList<>();
-        int bucketIndex = 0;
-        for (BaseBlock block : protobufBlocks) {
-            temp.add(block);
-
-            int height = block.getHeight();
-            bucketIndex = height / BUCKET_SIZE;
-            int remainder = height % BUCKET_SIZE;
-            boolean isLastBucketItem = remainder == 0;
-            if (isLastBucketItem) {
-                int first = bucketIndex * BUCKET_SIZE - BUCKET_SIZE + 1;
-                int last = bucketIndex * BUCKET_SIZE;
-                File storageFile = new File(storageDir, fileName + "_" + first + "-" + last);
-                writeToDisk(storageFile, new BsqBlockStore(temp));
-                temp = new ArrayList<>();
-            }
-        }
-        if (!temp.isEmpty()) {
-            bucketIndex++;
-            int first = bucketIndex * BUCKET_SIZE - BUCKET_SIZE + 1;
-            int last = bucketIndex * BUCKET_SIZE;
-            File storageFile = new File(storageDir, fileName + "_" + first + "-" + last);
-            writeToDisk(storageFile, new BsqBlockStore(temp));
+    public boolean hasBuckets() {
+        return !getBucketFiles().isEmpty();
+    }
 
-        }
-        log.info("Write {} blocks to disk took {} msec", protobufBlocks.size(), System.currentTimeMillis() - ts);
+    public List<BaseBlock> readAllBlocks() {
+        long ts = System.currentTimeMillis();
+        List<BaseBlock> blocks = new ArrayList<>();
+        getBucketFiles().forEach(bucketFile -> blocks.addAll(readBucket(bucketFile)));
+        log.info("Reading {} blocks took {} msec", blocks.size(), System.currentTimeMillis() - ts);
+        return blocks;
     }
 
-    public void removeBlocksDirectory() {
-        if (storageDir.exists()) {
-            try {
-                FileUtil.deleteDirectory(storageDir);
-            } catch (IOException e) {
-                e.printStackTrace();
+    public void removeBuckets() {
+        getBucketFiles().forEach(bucketFile -> {
+            if (!bucketFile.delete()) {
+                log.error("Could not delete {}", bucketFile);
             }
-        }
+        });
     }
 
-    public List<BaseBlock> readBlocks(int from, int to) {
-        if (!storageDir.exists()) {
-            storageDir.mkdir();
+    // Bucket files are named like BsqBlocks_571001-572000
+    private List<File> getBucketFiles() {
+        String prefix = fileName + "_";
+        File[] files = storageDir.listFiles((dir, name) -> name.startsWith(prefix) && name.contains("-"));
+        if (files == null) {
+            return new ArrayList<>();
         }
+        List<File> bucketFiles = new ArrayList<>(Arrays.asList(files));
+        bucketFiles.sort(Comparator.comparingInt(file -> getFirstHeight(file, prefix)));
+        return bucketFiles;
+    }
 
-        long ts = System.currentTimeMillis();
-        List<BaseBlock> buckets = new ArrayList<>();
-        int start = from / BUCKET_SIZE + 1;
-        int end = to / BUCKET_SIZE + 1;
-        for (int bucketIndex = start; bucketIndex <= end; bucketIndex++) {
-            List<BaseBlock> bucket = readBucket(bucketIndex);
-            buckets.addAll(bucket);
+    private int getFirstHeight(File bucketFile, String prefix) {
+        String name = bucketFile.getName();
+        try {
+            return Integer.parseInt(name.substring(prefix.length(), name.indexOf('-', prefix.length())));
+        } catch (RuntimeException e) {
+            log.warn("Unexpected file name of blocks bucket {}", name);
+            return Integer.MAX_VALUE;
         }
-        log.info("Reading {} blocks took {} msec", buckets.size(), System.currentTimeMillis() - ts);
-        return buckets;
     }
 
-
-    private List<BaseBlock> readBucket(int bucketIndex) {
-        int first = bucketIndex * BUCKET_SIZE - BUCKET_SIZE + 1;
-        int last = bucketIndex * BUCKET_SIZE;
-        String child = fileName + "_" + first + "-" + last;
-        File storageFile = new File(storageDir, child);
-        if (!storageFile.exists()) {
-            return new ArrayList<>();
-        }
+    private List<BaseBlock> readBucket(File storageFile) {
         try (FileInputStream fileInputStream = new FileInputStream(storageFile)) {
             protobuf.PersistableEnvelope proto = protobuf.PersistableEnvelope.parseDelimitedFrom(fileInputStream);
             BsqBlockStore bsqBlockStore = (BsqBlockStore) persistenceProtoResolver.fromProto(proto);
             return bsqBlockStore.getBlocksAsProto();
         } catch (Throwable t) {
-            log.info("Reading {} failed with {}.", fileName, t.getMessage());
+            log.info("Reading {} failed with {}.", storageFile.getName(), t.getMessage());
             return new ArrayList<>();
         }
     }
-
-    private void writeToDisk(File storageFile, BsqBlockStore bsqBlockStore) {
-        File tempFile = null;
-        FileOutputStream fileOutputStream = null;
-        try {
-            tempFile = usedTempFilePath != null
-                    ? FileUtil.createNewFile(usedTempFilePath)
-                    : File.createTempFile("temp_" + fileName, null, storageDir);
-
-            // Don't use a new temp file path each time, as that causes the delete-on-exit hook to leak memory:
-            tempFile.deleteOnExit();
-
-            fileOutputStream = new FileOutputStream(tempFile);
-            bsqBlockStore.toProtoMessage().writeDelimitedTo(fileOutputStream);
-
-            // Attempt to force the bits to hit the disk. In reality the OS or hard disk itself may still decide
-            // to not write through to physical media for at least a few seconds, but this is the best we can do.
-            fileOutputStream.flush();
-            fileOutputStream.getFD().sync();
-
-            // Close resources before replacing file with temp file because otherwise it causes problems on windows
-            // when rename temp file
-            fileOutputStream.close();
-
-            FileUtil.renameFile(tempFile, storageFile);
-            usedTempFilePath = tempFile.toPath();
-        } catch (Throwable t) {
-            // If an error occurred, don't attempt to reuse this path again, in case temp file cleanup fails.
-            usedTempFilePath = null;
-            log.error("Error at saveToFile, storageFile={}", fileName, t);
-        } finally {
-            if (tempFile != null && tempFile.exists()) {
-                log.warn("Temp file still exists after failed save. We will delete it now. storageFile={}", fileName);
-                if (!tempFile.delete()) {
-                    log.error("Cannot delete temp file.");
-                }
-            }
-
-            try {
-                if (fileOutputStream != null) {
-                    fileOutputStream.close();
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-                log.error("Cannot close resources." + e.getMessage());
-            }
-        }
-    }
 }
@@ -32,6 +32,7 @@ import javax.inject.Named;
 import javax.inject.Singleton;
 
 import java.io.File;
+import java.io.IOException;
 
 import java.util.LinkedList;
 import java.util.List;
@@ -47,9 +48,11 @@ public class BsqBlocksStorageService {
 
     private final int genesisBlockHeight;
     private final File storageDir;
+    private final IndexedBlocksPersistence indexedBlocksPersistence;
+    // Only used for migrating blocks stored in buckets (e.g. from resources)
     private final BlocksPersistence blocksPersistence;
     @Getter
-    private int chainHeightOfPersistedBlocks;
+    private volatile int chainHeightOfPersistedBlocks;
 
     @Inject
     public BsqBlocksStorageService(GenesisTxInfo genesisTxInfo,
@@ -57,19 +60,21 @@ public class BsqBlocksStorageService {
                                    @Named(Config.STORAGE_DIR) File dbStorageDir) {
         genesisBlockHeight = genesisTxInfo.getGenesisBlockHeight();
         storageDir = new File(dbStorageDir.getAbsolutePath() + File.separator + NAME);
+        indexedBlocksPersistence = new IndexedBlocksPersistence(storageDir, NAME);
         blocksPersistence = new BlocksPersistence(storageDir, NAME, persistenceProtoResolver);
     }
 
+    // We get passed the blocks above chainHeightOfPersistedBlocks, so we only write the new blocks. If we have stored
+    // blocks at those heights already (e.g. from an orphaned chain) they get replaced.
     public void persistBlocks(List<Block> blocks) {
         long ts = System.currentTimeMillis();
         List<BaseBlock> protobufBlocks = blocks.stream()
                 .map(Block::toProtoMessage)
                 .collect(Collectors.toList());
-        blocksPersistence.writeBlocks(protobufBlocks);
+        indexedBlocksPersistence.appendBlocks(protobufBlocks);
 
         if (!blocks.isEmpty()) {
-            chainHeightOfPersistedBlocks = Math.max(chainHeightOfPersistedBlocks,
-                    getHeightOfLastFullBucket(blocks));
+            chainHeightOfPersistedBlocks = indexedBlocksPersistence.getLastHeight();
         }
         log.info("Persist (serialize+write) {} blocks took {} ms",
                 blocks.size(),
@@ -77,25 +82,29 @@ public class BsqBlocksStorageService {
     }
 
     public LinkedList<Block> readBlocks(int chainHeight) {
+        maybeMigrateBuckets();
+
         long ts = System.currentTimeMillis();
         LinkedList<Block> blocks = new LinkedList<>();
-        List<BaseBlock> list = blocksPersistence.readBlocks(genesisBlockHeight, chainHeight);
+        List<BaseBlock> list = indexedBlocksPersistence.readBlocks(genesisBlockHeight, chainHeight);
         list.stream().map(Block::fromProto)
                 .forEach(blocks::add);
         log.info("Reading and deserializing {} blocks took {} ms", blocks.size(), System.currentTimeMillis() - ts);
         if (!blocks.isEmpty()) {
-            chainHeightOfPersistedBlocks = getHeightOfLastFullBucket(blocks);
+            // Blocks we might have stored above chainHeight get replaced at the next persistBlocks call
+            chainHeightOfPersistedBlocks = blocks.getLast().getHeight();
         }
         return blocks;
     }
 
     public LinkedList<Block> migrateBlocks(List<protobuf.BaseBlock> protobufBlocks) {
         long ts = System.currentTimeMillis();
-        blocksPersistence.writeBlocks(protobufBlocks);
+        indexedBlocksPersistence.clear();
+        indexedBlocksPersistence.appendBlocks(protobufBlocks);
         LinkedList<Block> blocks = new LinkedList<>();
         protobufBlocks.forEach(protobufBlock -> blocks.add(Block.fromProto(protobufBlock)));
         if (!blocks.isEmpty()) {
-            chainHeightOfPersistedBlocks = getHeightOfLastFullBucket(blocks);
+            chainHeightOfPersistedBlocks = blocks.getLast().getHeight();
         }
 
         log.info("Migrating blocks (write+deserialization) from DaoStateStore took {} ms", System.currentTimeMillis() - ts);
@@ -135,19 +144,43 @@ public class BsqBlocksStorageService {
         }
     }
 
-    private int getHeightOfLastFullBucket(List<Block> blocks) {
-        int bucketIndex = blocks.get(blocks.size() - 1).getHeight() / BlocksPersistence.BUCKET_SIZE;
-        return bucketIndex * BlocksPersistence.BUCKET_SIZE;
+    // Blocks in the bucket format from resources or from previous versions are moved to the indexed storage
+    private void maybeMigrateBuckets() {
+        if (!blocksPersistence.hasBuckets()) {
+            return;
+        }
+
+        long ts = System.currentTimeMillis();
+        if (indexedBlocksPersistence.isEmpty()) {
+            List<BaseBlock> protobufBlocks = blocksPersistence.readAllBlocks();
+            try {
+                indexedBlocksPersistence.appendBlocks(protobufBlocks);
+                log.info("Migrating {} blocks from buckets took {} ms", protobufBlocks.size(), System.currentTimeMillis() - ts);
+            } catch (IllegalArgumentException e) {
+                // If a bucket is missing we start without blocks and the DaoStateSnapshotService handles that case
+                log.error("Migrating blocks from buckets failed", e);
+                indexedBlocksPersistence.clear();
+            }
+        }
+        blocksPersistence.removeBuckets();
     }
 
     public void removeBlocksDirectory() {
-        blocksPersistence.removeBlocksDirectory();
+        indexedBlocksPersistence.clear();
+        chainHeightOfPersistedBlocks = 0;
+        if (storageDir.exists()) {
+            try {
+                FileUtil.deleteDirectory(storageDir);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
     }
 
     // We recreate the directory so that we don't fill the blocks after restart from resources
     // In copyFromResources we only check for the directory not the files inside.
     public void removeBlocksInDirectory() {
-        blocksPersistence.removeBlocksDirectory();
+        removeBlocksDirectory();
         if (!storageDir.exists()) {
             storageDir.mkdir();
         }
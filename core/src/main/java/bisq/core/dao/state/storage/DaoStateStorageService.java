@@ -92,17 +92,18 @@ public class DaoStateStorageService extends StoreService<DaoStateStore> {
         return bsqBlocksStorageService.getChainHeightOfPersistedBlocks();
     }
 
-    public void requestPersistence(protobuf.DaoState daoStateAsProto,
+    // The daoStateSnapshot is an immutable snapshot, so we can serialize it at our write thread
+    public void requestPersistence(DaoState daoStateSnapshot,
                                    List<Block> blocks,
                                    LinkedList<DaoStateHash> daoStateHashChain,
                                    Runnable completeHandler) {
-        if (daoStateAsProto == null) {
+        if (daoStateSnapshot == null) {
             completeHandler.run();
             return;
         }
 
         if (future.isPresent() && !future.get().isDone()) {
-            UserThread.runAfter(() -> requestPersistence(daoStateAsProto, blocks, daoStateHashChain, completeHandler), 2);
+            UserThread.runAfter(() -> requestPersistence(daoStateSnapshot, blocks, daoStateHashChain, completeHandler), 2);
             return;
         }
 
@@ -110,7 +111,10 @@ public class DaoStateStorageService extends StoreService<DaoStateStore> {
            try {
                Thread.currentThread().setName("Write-blocks-and-DaoState");
                bsqBlocksStorageService.persistBlocks(blocks);
-               store.setDaoStateAsProto(daoStateAsProto);
+               long tsSerialize = System.currentTimeMillis();
+               store.setDaoStateAsProto(DaoState.getBsqStateCloneExcludingBlocks(daoStateSnapshot));
+               log.info("Serializing daoState snapshot at height {} took {} ms",
+                       daoStateSnapshot.getChainHeight(), System.currentTimeMillis() - tsSerialize);
                store.setDaoStateHashChain(daoStateHashChain);
                long ts = System.currentTimeMillis();
                persistenceManager.persistNow(() -> {
@@ -68,6 +68,13 @@ public class DaoStateStore implements PersistableEnvelope {
                 .build();
     }
 
+    // The DaoState is held as immutable proto object and the DaoStateHash items are immutable, so we only copy the
+    // hash chain.
+    @Override
+    public DaoStateStore toPersistableSnapshot() {
+        return new DaoStateStore(daoStateAsProto, new LinkedList<>(daoStateHashChain));
+    }
+
     public static DaoStateStore fromProto(protobuf.DaoStateStore proto) {
         LinkedList<DaoStateHash> daoStateHashList = proto.getDaoStateHashList().isEmpty() ?
                 new LinkedList<>() :
@@ -0,0 +1,334 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.state.storage;
+
+import protobuf.BaseBlock;
+
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import lombok.extern.slf4j.Slf4j;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Append-only storage of consecutive blocks. The serialized blocks are appended to a data file and an index file
+ * holds a fixed size entry per block with the height, offset and length of its record in the data file. As the
+ * heights are consecutive the index entry of a block is found by its height, so we can read single blocks or ranges
+ * of blocks without reading the whole file. Appending a block only writes that block and removing blocks after a
+ * reorg only truncates both files.
+ * <p>
+ * We write the data before the index, so after a crash the index might miss records of the data file, but never
+ * points to missing data. At startup we drop index entries pointing beyond the data file and data beyond the last
+ * index entry.
+ */
+@Slf4j
+public class IndexedBlocksPersistence {
+    static final int INDEX_ENTRY_SIZE = 16; // height (int), offset (long), length (int)
+
+    private final File storageDir;
+    private final File dataFile;
+    private final File indexFile;
+
+    private boolean initialized;
+    // -1 if empty
+    private int firstHeight = -1;
+    private int lastHeight = -1;
+    private long dataSize;
+
+    public IndexedBlocksPersistence(File storageDir, String fileName) {
+        this.storageDir = storageDir;
+        dataFile = new File(storageDir, fileName + ".dat");
+        indexFile = new File(storageDir, fileName + ".idx");
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Appends the consecutive blocks. If we have already blocks at the height of the first block (e.g. after a
+     * reorg) we remove those and all blocks above before appending.
+     */
+    public synchronized void appendBlocks(List<BaseBlock> blocks) {
+        if (blocks.isEmpty()) {
+            return;
+        }
+
+        int height = blocks.get(0).getHeight();
+        for (int i = 0; i < blocks.size(); i++) {
+            checkArgument(blocks.get(i).getHeight() == height + i,
+                    "Blocks must be consecutive. Expected height " + (height + i) + " but got " + blocks.get(i).getHeight());
+        }
+
+        long ts = System.currentTimeMillis();
+        try {
+            maybeInitialize();
+            if (!isEmpty()) {
+                if (height <= lastHeight) {
+                    doTruncate(height);
+                } else if (height > lastHeight + 1) {
+                    log.warn("Blocks must be appended without gaps. We clear the blocks store. " +
+                            "lastHeight={}, height of first new block={}", lastHeight, height);
+                    doClear();
+                }
+            }
+            if (!storageDir.exists()) {
+                storageDir.mkdirs();
+            }
+
+            long offset = dataSize;
+            List<long[]> entries = new ArrayList<>(blocks.size());
+            try (FileChannel channel = FileChannel.open(dataFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                channel.position(dataSize);
+                DataOutputStream dataOutputStream = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+                for (BaseBlock block : blocks) {
+                    byte[] bytes = block.toByteArray();
+                    dataOutputStream.write(bytes);
+                    entries.add(new long[]{block.getHeight(), offset, bytes.length});
+                    offset += bytes.length;
+                }
+                dataOutputStream.flush();
+                channel.force(false);
+            }
+
+            try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                channel.position(getNumEntries() * INDEX_ENTRY_SIZE);
+                DataOutputStream indexOutputStream = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+                for (long[] entry : entries) {
+                    indexOutputStream.writeInt((int) entry[0]);
+                    indexOutputStream.writeLong(entry[1]);
+                    indexOutputStream.writeInt((int) entry[2]);
+                }
+                indexOutputStream.flush();
+                channel.force(false);
+            }
+
+            if (isEmpty()) {
+                firstHeight = height;
+            }
+            lastHeight = height + blocks.size() - 1;
+            dataSize = offset;
+            log.info("Appending {} blocks took {} ms", blocks.size(), System.currentTimeMillis() - ts);
+        } catch (IOException e) {
+            log.error("Appending blocks failed", e);
+            // We read the state from the files again at the next call
+            initialized = false;
+        }
+    }
+
+    public synchronized Optional<BaseBlock> readBlock(int height) {
+        List<BaseBlock> blocks = readBlocks(height, height);
+        return blocks.isEmpty() ? Optional.empty() : Optional.of(blocks.get(0));
+    }
+
+    /**
+     * @return The blocks with heights from from to to (both inclusive) we have stored
+     */
+    public synchronized List<BaseBlock> readBlocks(int from, int to) {
+        List<BaseBlock> blocks = new ArrayList<>();
+        try {
+            maybeInitialize();
+            if (isEmpty()) {
+                return blocks;
+            }
+            int fromHeight = Math.max(from, firstHeight);
+            int toHeight = Math.min(to, lastHeight);
+            if (fromHeight > toHeight) {
+                return blocks;
+            }
+
+            long ts = System.currentTimeMillis();
+            int numBlocks = toHeight - fromHeight + 1;
+            long[] offsets = new long[numBlocks];
+            int[] lengths = new int[numBlocks];
+            try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+                channel.position((long) (fromHeight - firstHeight) * INDEX_ENTRY_SIZE);
+                DataInputStream indexInputStream = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+                for (int i = 0; i < numBlocks; i++) {
+                    int height = indexInputStream.readInt();
+                    if (height != fromHeight + i) {
+                        throw new IOException("Index entry has height " + height + " but expected " + (fromHeight + i));
+                    }
+                    offsets[i] = indexInputStream.readLong();
+                    lengths[i] = indexInputStream.readInt();
+                }
+            }
+
+            // The records are stored consecutively, so we can read them in one pass
+            try (FileChannel channel = FileChannel.open(dataFile.toPath(), StandardOpenOption.READ)) {
+                channel.position(offsets[0]);
+                DataInputStream dataInputStream = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+                for (int i = 0; i < numBlocks; i++) {
+                    byte[] bytes = new byte[lengths[i]];
+                    dataInputStream.readFully(bytes);
+                    blocks.add(BaseBlock.parseFrom(bytes));
+                }
+            }
+            log.debug("Reading {} blocks took {} ms", blocks.size(), System.currentTimeMillis() - ts);
+            return blocks;
+        } catch (IOException e) {
+            log.error("Reading blocks from {} to {} failed", from, to, e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Removes the blocks with heights from fromHeight on.
+     */
+    public synchronized void truncate(int fromHeight) {
+        try {
+            maybeInitialize();
+            doTruncate(fromHeight);
+        } catch (IOException e) {
+            log.error("Truncating blocks failed", e);
+            initialized = false;
+        }
+    }
+
+    public synchronized void clear() {
+        doClear();
+    }
+
+    public synchronized boolean isEmpty() {
+        try {
+            maybeInitialize();
+        } catch (IOException e) {
+            log.error("Reading blocks index failed", e);
+            return true;
+        }
+        return lastHeight < 0;
+    }
+
+    public synchronized int getLastHeight() {
+        return isEmpty() ? -1 : lastHeight;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void maybeInitialize() throws IOException {
+        if (initialized) {
+            return;
+        }
+        initialized = true;
+        firstHeight = -1;
+        lastHeight = -1;
+        dataSize = 0;
+        if (!dataFile.exists() || !indexFile.exists()) {
+            return;
+        }
+
+        try (RandomAccessFile index = new RandomAccessFile(indexFile, "rw");
+             RandomAccessFile data = new RandomAccessFile(dataFile, "rw")) {
+            long numEntries = index.length() / INDEX_ENTRY_SIZE;
+            long dataLength = data.length();
+            while (numEntries > 0) {
+                index.seek((numEntries - 1) * INDEX_ENTRY_SIZE + 4);
+                long endOfRecord = index.readLong() + index.readInt();
+                if (endOfRecord <= dataLength) {
+                    break;
+                }
+                numEntries--;
+            }
+            if (numEntries * INDEX_ENTRY_SIZE != index.length()) {
+                log.warn("We drop {} bytes of incomplete index entries", index.length() - numEntries * INDEX_ENTRY_SIZE);
+                index.setLength(numEntries * INDEX_ENTRY_SIZE);
+            }
+            if (numEntries == 0) {
+                data.setLength(0);
+                return;
+            }
+
+            index.seek(0);
+            int first = index.readInt();
+            index.seek((numEntries - 1) * INDEX_ENTRY_SIZE);
+            int last = index.readInt();
+            long end = index.readLong() + index.readInt();
+            if (last - first + 1 != numEntries) {
+                log.warn("Index of blocks is not consecutive. We clear the blocks store. first={}, last={}, numEntries={}",
+                        first, last, numEntries);
+                index.setLength(0);
+                data.setLength(0);
+                return;
+            }
+            if (end != dataLength) {
+                log.warn("We drop {} bytes of incomplete block records", dataLength - end);
+                data.setLength(end);
+            }
+            firstHeight = first;
+            lastHeight = last;
+            dataSize = end;
+        }
+    }
+
+    private void doTruncate(int fromHeight) throws IOException {
+        if (lastHeight < 0 || fromHeight > lastHeight) {
+            return;
+        }
+        if (fromHeight <= firstHeight) {
+            doClear();
+            return;
+        }
+
+        long entryPosition = (long) (fromHeight - firstHeight) * INDEX_ENTRY_SIZE;
+        try (RandomAccessFile index = new RandomAccessFile(indexFile, "rw");
+             RandomAccessFile data = new RandomAccessFile(dataFile, "rw")) {
+            index.seek(entryPosition + 4);
+            long offset = index.readLong();
+            index.setLength(entryPosition);
+            data.setLength(offset);
+            dataSize = offset;
+        }
+        log.info("We removed the blocks from height {} to {}", fromHeight, lastHeight);
+        lastHeight = fromHeight - 1;
+    }
+
+    private void doClear() {
+        if (indexFile.exists() && !indexFile.delete()) {
+            log.error("Could not delete {}", indexFile);
+        }
+        if (dataFile.exists() && !dataFile.delete()) {
+            log.error("Could not delete {}", dataFile);
+        }
+        initialized = true;
+        firstHeight = -1;
+        lastHeight = -1;
+        dataSize = 0;
+    }
+
+    private long getNumEntries() {
+        return lastHeight < 0 ? 0 : lastHeight - firstHeight + 1;
+    }
+}
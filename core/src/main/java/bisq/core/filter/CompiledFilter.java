@@ -0,0 +1,234 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+package bisq.core.filter;
+
+import bisq.core.payment.payload.PaymentAccountPayload;
+import bisq.core.payment.payload.PaymentMethod;
+
+import bisq.network.p2p.NodeAddress;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+
+/**
+ * Lookup structures for the ban checks, built once each time a new Filter is applied. The checks are hash lookups
+ * instead of scans of the lists of the Filter. The banned payment account data are grouped by payment method id and
+ * the getter methods of the PaymentAccountPayload classes are resolved once to MethodHandles.
+ */
+@Slf4j
+public final class CompiledFilter {
+    static final CompiledFilter EMPTY = new CompiledFilter(null);
+
+    private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, PaymentAccountPayload.class);
+
+    public static CompiledFilter from(@Nullable Filter filter) {
+        return filter != null ? new CompiledFilter(filter) : EMPTY;
+    }
+
+    @Nullable
+    @Getter
+    private final Filter filter;
+    private final Set<String> bannedOfferIds;
+    private final Set<String> nodeAddressesBannedFromTrading;
+    private final Set<String> nodeAddressesBannedFromNetwork;
+    private final Set<String> bannedCurrencies;
+    private final Set<String> bannedPaymentMethods;
+    private final Set<String> bannedAutoConfExplorers;
+    private final Set<String> bannedAccountWitnessSignerPubKeys;
+    private final Set<String> bannedPrivilegedDevPubKeys;
+    private final Map<String, List<BannedPaymentAccountData>> bannedPaymentAccountDataByPaymentMethodId;
+
+    private CompiledFilter(@Nullable Filter filter) {
+        this.filter = filter;
+        if (filter == null) {
+            bannedOfferIds = Collections.emptySet();
+            nodeAddressesBannedFromTrading = Collections.emptySet();
+            nodeAddressesBannedFromNetwork = Collections.emptySet();
+            bannedCurrencies = Collections.emptySet();
+            bannedPaymentMethods = Collections.emptySet();
+            bannedAutoConfExplorers = Collections.emptySet();
+            bannedAccountWitnessSignerPubKeys = Collections.emptySet();
+            bannedPrivilegedDevPubKeys = Collections.emptySet();
+            bannedPaymentAccountDataByPaymentMethodId = Collections.emptyMap();
+            return;
+        }
+
+        bannedOfferIds = toSet(filter.getBannedOfferIds());
+        nodeAddressesBannedFromTrading = toSet(filter.getNodeAddressesBannedFromTrading());
+        nodeAddressesBannedFromNetwork = toSet(filter.getNodeAddressesBannedFromNetwork());
+        bannedCurrencies = toSet(filter.getBannedCurrencies());
+        bannedPaymentMethods = toSet(filter.getBannedPaymentMethods());
+        bannedAutoConfExplorers = toSet(filter.getBannedAutoConfExplorers());
+        bannedAccountWitnessSignerPubKeys = toSet(filter.getBannedAccountWitnessSignerPubKeys());
+        bannedPrivilegedDevPubKeys = toSet(filter.getBannedPrivilegedDevPubKeys());
+        bannedPaymentAccountDataByPaymentMethodId = groupBannedPaymentAccounts(filter.getBannedPaymentAccounts());
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public boolean isOfferIdBanned(String offerId) {
+        return bannedOfferIds.contains(offerId);
+    }
+
+    public boolean isNodeAddressBanned(NodeAddress nodeAddress) {
+        return nodeAddressesBannedFromTrading.contains(nodeAddress.getFullAddress());
+    }
+
+    public boolean isNodeAddressBannedFromNetwork(NodeAddress nodeAddress) {
+        return nodeAddressesBannedFromNetwork.contains(nodeAddress.getFullAddress());
+    }
+
+    public boolean isCurrencyBanned(String currencyCode) {
+        return bannedCurrencies.contains(currencyCode);
+    }
+
+    public boolean isPaymentMethodBanned(PaymentMethod paymentMethod) {
+        return bannedPaymentMethods.contains(paymentMethod.getId());
+    }
+
+    public boolean isAutoConfExplorerBanned(String address) {
+        return bannedAutoConfExplorers.contains(address);
+    }
+
+    public boolean isWitnessSignerPubKeyBanned(String witnessSignerPubKeyAsHex) {
+        return bannedAccountWitnessSignerPubKeys.contains(witnessSignerPubKeyAsHex);
+    }
+
+    public boolean isPrivilegedDevPubKeyBanned(String pubKeyAsHex) {
+        return bannedPrivilegedDevPubKeys.contains(pubKeyAsHex);
+    }
+
+    public boolean isDisablePowMessage() {
+        return filter != null && filter.isDisablePowMessage();
+    }
+
+    public boolean arePeersPaymentAccountDataBanned(@Nullable PaymentAccountPayload paymentAccountPayload) {
+        if (paymentAccountPayload == null) {
+            return false;
+        }
+
+        List<BannedPaymentAccountData> bannedPaymentAccountData =
+                bannedPaymentAccountDataByPaymentMethodId.get(paymentAccountPayload.getPaymentMethodId());
+        return bannedPaymentAccountData != null &&
+                bannedPaymentAccountData.stream().anyMatch(data -> data.matches(paymentAccountPayload));
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private static Set<String> toSet(@Nullable Collection<String> values) {
+        return values != null ? ImmutableSet.copyOf(values) : Collections.emptySet();
+    }
+
+    private static Map<String, List<BannedPaymentAccountData>> groupBannedPaymentAccounts(
+            @Nullable List<PaymentAccountFilter> paymentAccountFilters) {
+        if (paymentAccountFilters == null) {
+            return Collections.emptyMap();
+        }
+
+        // Values banned for the same getter of the same payment method end up in one set
+        Map<String, Map<String, Set<String>>> valuesByGetMethodNameByPaymentMethodId = new HashMap<>();
+        paymentAccountFilters.forEach(paymentAccountFilter -> valuesByGetMethodNameByPaymentMethodId
+                .computeIfAbsent(paymentAccountFilter.getPaymentMethodId(), key -> new LinkedHashMap<>())
+                .computeIfAbsent(paymentAccountFilter.getGetMethodName(), key -> new HashSet<>())
+                .add(toCaseInsensitiveKey(paymentAccountFilter.getValue())));
+
+        ImmutableMap.Builder<String, List<BannedPaymentAccountData>> builder = ImmutableMap.builder();
+        valuesByGetMethodNameByPaymentMethodId.forEach((paymentMethodId, valuesByGetMethodName) ->
+                builder.put(paymentMethodId, valuesByGetMethodName.entrySet().stream()
+                        .map(entry -> new BannedPaymentAccountData(entry.getKey(), entry.getValue()))
+                        .collect(Collectors.toUnmodifiableList())));
+        return builder.build();
+    }
+
+    // Two strings are equal ignoring case if their keys are equal. We apply the same mapping per char as
+    // String.equalsIgnoreCase.
+    private static String toCaseInsensitiveKey(String value) {
+        char[] chars = value.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+
+    private static final class BannedPaymentAccountData {
+        private final String getMethodName;
+        private final Set<String> bannedValues;
+        // Resolved at the first check per PaymentAccountPayload class. Empty if the class has no such getter.
+        private final Map<Class<?>, Optional<MethodHandle>> accessorByClass = new ConcurrentHashMap<>();
+
+        private BannedPaymentAccountData(String getMethodName, Set<String> bannedValues) {
+            this.getMethodName = getMethodName;
+            this.bannedValues = ImmutableSet.copyOf(bannedValues);
+        }
+
+        private boolean matches(PaymentAccountPayload paymentAccountPayload) {
+            Optional<MethodHandle> accessor = accessorByClass.computeIfAbsent(paymentAccountPayload.getClass(),
+                    this::findAccessor);
+            if (accessor.isEmpty()) {
+                return false;
+            }
+
+            try {
+                // We invoke getter methods (no args), e.g. getHolderName
+                Object value = accessor.get().invokeExact(paymentAccountPayload);
+                return value instanceof String && bannedValues.contains(toCaseInsensitiveKey((String) value));
+            } catch (Throwable e) {
+                log.error(e.getMessage());
+                return false;
+            }
+        }
+
+        private Optional<MethodHandle> findAccessor(Class<?> paymentAccountPayloadClass) {
+            try {
+                MethodHandle methodHandle = MethodHandles.publicLookup()
+                        .unreflect(paymentAccountPayloadClass.getMethod(getMethodName));
+                return Optional.of(methodHandle.asType(ACCESSOR_TYPE));
+            } catch (Throwable e) {
+                log.error("Cannot access {} of {}. {}", getMethodName, paymentAccountPayloadClass.getSimpleName(),
+                        e.toString());
+                return Optional.empty();
+            }
+        }
+    }
+}
@@ -25,6 +25,7 @@ import bisq.core.util.JsonUtil;
 import bisq.network.p2p.BootstrapListener;
 import bisq.network.p2p.P2PService;
 import bisq.network.p2p.storage.HashMapChangedListener;
+import bisq.network.p2p.storage.P2PDataStorage;
 import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
 
 import bisq.common.UserThread;
@@ -38,10 +39,14 @@ import javax.inject.Named;
 
 import java.io.File;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EnumMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
@@ -50,7 +55,8 @@ import javax.annotation.Nullable;
 
 /**
  * Handles storage and retrieval of offers.
- * Uses an invalidation flag to only request the full offer map in case there was a change (anyone has added or removed an offer).
+ * Keeps an index of the offers in the P2P data map which is updated at each added or removed offer, so queries do not
+ * need to scan the full data map. The Offer instances are created once per offer payload and shared with all clients.
  */
 @Slf4j
 public class OfferBookService {
@@ -59,6 +65,16 @@ public class OfferBookService {
         void onAdded(Offer offer);
 
         void onRemoved(Offer offer);
+
+        // We get the changes of the P2P network data in batches. Listeners which update derived state can override
+        // those to do it once per batch.
+        default void onAdded(Collection<Offer> offers) {
+            offers.forEach(this::onAdded);
+        }
+
+        default void onRemoved(Collection<Offer> offers) {
+            offers.forEach(this::onRemoved);
+        }
     }
 
     private final P2PService p2PService;
@@ -67,6 +83,13 @@ public class OfferBookService {
     private final FilterManager filterManager;
     private final JsonFileManager jsonFileManager;
 
+    // Keyed by offer payload hash, as at editing an offer the new payload with the same offer ID might get added
+    // before the old one is removed. Queries come from the UI and from gRPC threads.
+    private final Map<P2PDataStorage.ByteArray, Offer> offersByPayloadHash = new ConcurrentHashMap<>();
+    // Offers by direction and currency code. The direction maps are created here and not changed afterwards.
+    private final Map<OfferDirection, Map<String, Map<P2PDataStorage.ByteArray, Offer>>>
+            offersByDirectionAndCurrencyCode = new EnumMap<>(OfferDirection.class);
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Constructor
@@ -82,33 +105,41 @@ public class OfferBookService {
         this.priceFeedService = priceFeedService;
         this.filterManager = filterManager;
         jsonFileManager = new JsonFileManager(storageDir);
+        for (OfferDirection direction : OfferDirection.values()) {
+            offersByDirectionAndCurrencyCode.put(direction, new ConcurrentHashMap<>());
+        }
 
         p2PService.addHashSetChangedListener(new HashMapChangedListener() {
             @Override
             public void onAdded(Collection<ProtectedStorageEntry> protectedStorageEntries) {
-                protectedStorageEntries.forEach(protectedStorageEntry -> offerBookChangedListeners.forEach(listener -> {
-                    if (protectedStorageEntry.getProtectedStoragePayload() instanceof OfferPayloadBase) {
-                        OfferPayloadBase offerPayloadBase = (OfferPayloadBase) protectedStorageEntry.getProtectedStoragePayload();
-                        Offer offer = new Offer(offerPayloadBase);
-                        offer.setPriceFeedService(priceFeedService);
-                        listener.onAdded(offer);
-                    }
-                }));
+                List<Offer> addedOffers = protectedStorageEntries.stream()
+                        .map(ProtectedStorageEntry::getProtectedStoragePayload)
+                        .filter(payload -> payload instanceof OfferPayloadBase)
+                        .map(payload -> addToIndex((OfferPayloadBase) payload))
+                        .collect(Collectors.toList());
+                if (!addedOffers.isEmpty()) {
+                    offerBookChangedListeners.forEach(listener -> listener.onAdded(addedOffers));
+                }
             }
 
             @Override
             public void onRemoved(Collection<ProtectedStorageEntry> protectedStorageEntries) {
-                protectedStorageEntries.forEach(protectedStorageEntry -> offerBookChangedListeners.forEach(listener -> {
-                    if (protectedStorageEntry.getProtectedStoragePayload() instanceof OfferPayloadBase) {
-                        OfferPayloadBase offerPayloadBase = (OfferPayloadBase) protectedStorageEntry.getProtectedStoragePayload();
-                        Offer offer = new Offer(offerPayloadBase);
-                        offer.setPriceFeedService(priceFeedService);
-                        listener.onRemoved(offer);
-                    }
-                }));
+                List<Offer> removedOffers = protectedStorageEntries.stream()
+                        .map(ProtectedStorageEntry::getProtectedStoragePayload)
+                        .filter(payload -> payload instanceof OfferPayloadBase)
+                        .map(payload -> removeFromIndex((OfferPayloadBase) payload))
+                        .collect(Collectors.toList());
+                if (!removedOffers.isEmpty()) {
+                    offerBookChangedListeners.forEach(listener -> listener.onRemoved(removedOffers));
+                }
             }
         });
 
+        // Offers which have been added to the data map before our listener was registered.
+        p2PService.getDataMap().values().stream()
+                .filter(data -> data.getProtectedStoragePayload() instanceof OfferPayloadBase)
+                .forEach(data -> addToIndex((OfferPayloadBase) data.getProtectedStoragePayload()));
+
         if (dumpStatistics) {
             p2PService.addP2PServiceListener(new BootstrapListener() {
                 @Override
@@ -123,6 +154,16 @@ public class OfferBookService {
                         public void onRemoved(Offer offer) {
                             doDumpStatistics();
                         }
+
+                        @Override
+                        public void onAdded(Collection<Offer> offers) {
+                            doDumpStatistics();
+                        }
+
+                        @Override
+                        public void onRemoved(Collection<Offer> offers) {
+                            doDumpStatistics();
+                        }
                     });
                     UserThread.runAfter(OfferBookService.this::doDumpStatistics, 1);
                 }
@@ -190,15 +231,32 @@ public class OfferBookService {
     }
 
     public List<Offer> getOffers() {
-        return p2PService.getDataMap().values().stream()
-                .filter(data -> data.getProtectedStoragePayload() instanceof OfferPayloadBase)
-                .map(data -> {
-                    OfferPayloadBase offerPayloadBase = (OfferPayloadBase) data.getProtectedStoragePayload();
-                    Offer offer = new Offer(offerPayloadBase);
-                    offer.setPriceFeedService(priceFeedService);
-                    return offer;
-                })
-                .collect(Collectors.toList());
+        return new ArrayList<>(offersByPayloadHash.values());
+    }
+
+    /**
+     * @param currencyCode the non-BTC currency code of the offer's market, as returned by Offer.getCurrencyCode()
+     * @return the offers of the given market
+     */
+    public List<Offer> getOffers(String currencyCode) {
+        List<Offer> result = new ArrayList<>();
+        offersByDirectionAndCurrencyCode.values().forEach(offersByCurrencyCode -> {
+            Map<P2PDataStorage.ByteArray, Offer> offers = offersByCurrencyCode.get(currencyCode);
+            if (offers != null) {
+                result.addAll(offers.values());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @param currencyCode the non-BTC currency code of the offer's market, as returned by Offer.getCurrencyCode()
+     * @param direction    the direction of the offers
+     * @return the offers of the given market with the given direction
+     */
+    public List<Offer> getOffers(String currencyCode, OfferDirection direction) {
+        Map<P2PDataStorage.ByteArray, Offer> offers = offersByDirectionAndCurrencyCode.get(direction).get(currencyCode);
+        return offers != null ? new ArrayList<>(offers.values()) : new ArrayList<>();
     }
 
     public void removeOfferAtShutDown(OfferPayloadBase offerPayloadBase) {
@@ -218,6 +276,35 @@ public class OfferBookService {
     // Private
     ///////////////////////////////////////////////////////////////////////////////////////////
 
+    private Offer addToIndex(OfferPayloadBase offerPayloadBase) {
+        P2PDataStorage.ByteArray hash = new P2PDataStorage.ByteArray(offerPayloadBase.getHash());
+        Offer offer = offersByPayloadHash.computeIfAbsent(hash, key -> {
+            Offer newOffer = new Offer(offerPayloadBase);
+            newOffer.setPriceFeedService(priceFeedService);
+            return newOffer;
+        });
+        offersByDirectionAndCurrencyCode.get(offer.getDirection())
+                .computeIfAbsent(offer.getCurrencyCode(), key -> new ConcurrentHashMap<>())
+                .put(hash, offer);
+        return offer;
+    }
+
+    private Offer removeFromIndex(OfferPayloadBase offerPayloadBase) {
+        P2PDataStorage.ByteArray hash = new P2PDataStorage.ByteArray(offerPayloadBase.getHash());
+        Offer offer = offersByPayloadHash.remove(hash);
+        if (offer == null) {
+            offer = new Offer(offerPayloadBase);
+            offer.setPriceFeedService(priceFeedService);
+        }
+        Map<String, Map<P2PDataStorage.ByteArray, Offer>> offersByCurrencyCode =
+                offersByDirectionAndCurrencyCode.get(offer.getDirection());
+        offersByCurrencyCode.computeIfPresent(offer.getCurrencyCode(), (key, offers) -> {
+            offers.remove(hash);
+            return offers.isEmpty() ? null : offers;
+        });
+        return offer;
+    }
+
     private void doDumpStatistics() {
         // We filter the case that it is a MarketBasedPrice but the price is not available
         // That should only be possible if the price feed provider is not available
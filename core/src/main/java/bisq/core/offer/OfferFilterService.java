@@ -18,6 +18,7 @@
 package bisq.core.offer;
 
 import bisq.core.account.witness.AccountAgeWitnessService;
+import bisq.core.filter.Filter;
 import bisq.core.filter.FilterManager;
 import bisq.core.payment.PaymentAccount;
 import bisq.core.payment.PaymentAccountUtil;
@@ -95,7 +96,8 @@ public class OfferFilterService {
     }
 
     public Result canTakeOffer(Offer offer, boolean isTakerApiUser) {
-        if (isTakerApiUser && filterManager.getFilter() != null && filterManager.getFilter().isDisableApi()) {
+        Filter filter = filterManager.getCompiledFilter().getFilter();
+        if (isTakerApiUser && filter != null && filter.isDisableApi()) {
             return Result.API_DISABLED;
         }
         if (!isAnyPaymentAccountValidForOffer(offer)) {
@@ -147,19 +149,19 @@ public class OfferFilterService {
     }
 
     public boolean isOfferBanned(Offer offer) {
-        return filterManager.isOfferIdBanned(offer.getId());
+        return filterManager.getCompiledFilter().isOfferIdBanned(offer.getId());
     }
 
     public boolean isCurrencyBanned(Offer offer) {
-        return filterManager.isCurrencyBanned(offer.getCurrencyCode());
+        return filterManager.getCompiledFilter().isCurrencyBanned(offer.getCurrencyCode());
     }
 
     public boolean isPaymentMethodBanned(Offer offer) {
-        return filterManager.isPaymentMethodBanned(offer.getPaymentMethod());
+        return filterManager.getCompiledFilter().isPaymentMethodBanned(offer.getPaymentMethod());
     }
 
     public boolean isNodeAddressBanned(Offer offer) {
-        return filterManager.isNodeAddressBanned(offer.getMakerNodeAddress());
+        return filterManager.getCompiledFilter().isNodeAddressBanned(offer.getMakerNodeAddress());
     }
 
     public boolean requireUpdateToNewVersion() {
@@ -19,7 +19,7 @@ package bisq.core.offer;
 
 import bisq.network.p2p.NodeAddress;
 import bisq.network.p2p.storage.payload.ExpirablePayload;
-import bisq.network.p2p.storage.payload.ProtectedStoragePayload;
+import bisq.network.p2p.storage.payload.HashCachingPayload;
 import bisq.network.p2p.storage.payload.RequiresOwnerIsOnlinePayload;
 
 import bisq.common.crypto.Hash;
@@ -37,9 +37,9 @@ import lombok.Getter;
 
 import javax.annotation.Nullable;
 
-@EqualsAndHashCode(exclude = {"hash"})
+@EqualsAndHashCode(exclude = {"hash", "serializedBytes"})
 @Getter
-public abstract class OfferPayloadBase implements ProtectedStoragePayload, ExpirablePayload, RequiresOwnerIsOnlinePayload {
+public abstract class OfferPayloadBase implements HashCachingPayload, ExpirablePayload, RequiresOwnerIsOnlinePayload {
     public static final long TTL = TimeUnit.MINUTES.toMillis(9);
 
     protected final String id;
@@ -62,6 +62,7 @@ public abstract class OfferPayloadBase implements ProtectedStoragePayload, Expir
     protected final PubKeyRing pubKeyRing;
     // cache
     protected transient byte[] hash;
+    protected transient byte[] serializedBytes;
     @Nullable
     protected final Map<String, String> extraDataMap;
 
@@ -99,11 +100,24 @@ public abstract class OfferPayloadBase implements ProtectedStoragePayload, Expir
 
     public byte[] getHash() {
         if (this.hash == null) {
-            this.hash = Hash.getSha256Hash(this.toProtoMessage().toByteArray());
+            this.hash = Hash.getSha256Hash(this.getSerializedBytes());
         }
         return this.hash;
     }
 
+    @Override
+    public byte[] getSerializedBytes() {
+        if (this.serializedBytes == null) {
+            this.serializedBytes = this.toProtoMessage().toByteArray();
+        }
+        return this.serializedBytes;
+    }
+
+    @Override
+    public byte[] get32ByteHash() {
+        return getHash();
+    }
+
     @Override
     public PublicKey getOwnerPubKey() {
         return pubKeyRing.getSignaturePubKey();
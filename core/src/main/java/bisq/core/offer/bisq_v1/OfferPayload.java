@@ -218,11 +218,17 @@ public final class OfferPayload extends OfferPayloadBase {
         if (this.hash == null && this.offerFeePaymentTxId != null) {
             // A proto message can be created only after the offerFeePaymentTxId is
             // set to a non-null value;  now is the time to cache the payload hash.
-            this.hash = Hash.getSha256Hash(this.toProtoMessage().toByteArray());
+            this.hash = Hash.getSha256Hash(this.getSerializedBytes());
         }
         return this.hash;
     }
 
+    @Nullable
+    @Override
+    public byte[] getSerializedBytes() {
+        return this.offerFeePaymentTxId != null ? super.getSerializedBytes() : null;
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // PROTO BUFFER
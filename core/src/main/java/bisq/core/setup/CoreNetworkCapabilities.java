@@ -42,11 +42,17 @@ public class CoreNetworkCapabilities {
                 Capability.TRADE_STATISTICS_HASH_UPDATE,
                 Capability.NO_ADDRESS_PRE_FIX,
                 Capability.TRADE_STATISTICS_3,
-                Capability.BSQ_SWAP_OFFER
+                Capability.BSQ_SWAP_OFFER,
+                Capability.PAYLOAD_HASH_FILTER,
+                Capability.BLOCK_CHUNKS
         );
 
         maybeApplyDaoFullMode(config);
 
+        if (config.useIncrementalDaoStateHash) {
+            Capabilities.app.addAll(Capability.DAO_STATE_HASH_V2);
+        }
+
         log.info(Capabilities.app.prettyPrint());
     }
 
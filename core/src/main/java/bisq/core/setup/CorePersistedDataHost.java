@@ -42,6 +42,7 @@ import bisq.network.p2p.peers.PeerManager;
 import bisq.network.p2p.storage.P2PDataStorage;
 import bisq.network.p2p.storage.persistence.RemovedPayloadsService;
 
+import bisq.common.persistence.PersistedDataLoader;
 import bisq.common.proto.persistable.PersistedDataHost;
 
 import com.google.inject.Injector;
@@ -82,4 +83,12 @@ public class CorePersistedDataHost {
         persistedDataHosts.add(injector.getInstance(UnconfirmedBsqChangeOutputListService.class));
         return persistedDataHosts;
     }
+
+    // Hosts which need data of other hosts at reading need to declare the dependency here. All others are read in
+    // parallel.
+    public static void addReadDependencies(PersistedDataLoader loader, Injector injector) {
+        // MailboxMessageService adds the persisted mailbox entries to the map of P2PDataStorage.
+        loader.addDependency(injector.getInstance(MailboxMessageService.class),
+                injector.getInstance(P2PDataStorage.class));
+    }
 }
@@ -38,7 +38,6 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
-import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -161,8 +160,8 @@ public class ClosedTradableFormatter {
         return tradable.getOptionalPrice().map(FormattingUtils::formatPrice).orElse("");
     }
 
-    public Map<String, String> getTotalVolumeByCurrencyAsString(List<Tradable> tradableList) {
-        return getTotalVolumeByCurrency(tradableList).entrySet().stream()
+    public Map<String, String> getTotalVolumeByCurrencyAsString(Map<String, Long> totalVolumeByCurrency) {
+        return totalVolumeByCurrency.entrySet().stream()
                 .collect(Collectors.toMap(Map.Entry::getKey,
                         entry -> {
                             String currencyCode = entry.getKey();
@@ -47,17 +47,28 @@ import org.bitcoinj.utils.Fiat;
 import com.google.inject.Inject;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 
 import java.time.Instant;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -74,6 +85,9 @@ import static bisq.core.util.AveragePriceUtil.getAveragePriceTuple;
  * Manages closed trades or offers.
  * BsqSwap trades are once confirmed moved in the closed trades domain as well.
  * We do not manage the persistence of BsqSwap trades here but in BsqSwapTradeManager.
+ *
+ * Lookups by id and by peer as well as the totals of the closed trades are maintained incrementally from the changes
+ * of the closed tradables list, so they do not require a scan over the whole history.
  */
 @Slf4j
 public class ClosedTradableManager implements PersistedDataHost {
@@ -89,6 +103,26 @@ public class ClosedTradableManager implements PersistedDataHost {
 
     private final TradableList<Tradable> closedTradables = new TradableList<>();
 
+    // Indexes and aggregates over closedTradables. They are updated by the list change listener and read from the
+    // UserThread as well as from API threads.
+    private final Map<String, Tradable> tradableById = new ConcurrentHashMap<>();
+    // Keyed by full address as NodeAddress.hashCode changes once the address prefix hash got lazily set.
+    private final Map<String, Integer> numClosedTradesByPeer = new ConcurrentHashMap<>();
+    private final Map<String, Long> totalVolumeByCurrency = new ConcurrentHashMap<>();
+    // The volume each tradable added to totalVolumeByCurrency, so a removal subtracts exactly that value. Keyed by
+    // identity as the hashCode of tradables changes with their state.
+    private final Map<Tradable, Volume> volumeByTradable = Collections.synchronizedMap(new IdentityHashMap<>());
+    // The volume of canceled market price offers follows the price feed, so they are not part of
+    // totalVolumeByCurrency but get added with the current price at each call.
+    private final Set<Tradable> marketPriceOffers = Collections.synchronizedSet(
+            Collections.newSetFromMap(new IdentityHashMap<>()));
+    private final AtomicLong totalAmount = new AtomicLong();
+    private final AtomicLong totalTxFee = new AtomicLong();
+    private volatile List<Trade> closedTrades = ImmutableList.of();
+    // Whether a taker fee was paid in BSQ depends on the BSQ wallet (see isBsqTradeFee), so the fee totals are
+    // calculated lazily and reset if the closed tradables or the BSQ wallet transactions change.
+    private final AtomicReference<Tuple2<Long, Long>> btcAndBsqTradeFeeTotals = new AtomicReference<>();
+
     @Inject
     public ClosedTradableManager(KeyRing keyRing,
                                  PriceFeedService priceFeedService,
@@ -110,15 +144,19 @@ public class ClosedTradableManager implements PersistedDataHost {
         this.persistenceManager = persistenceManager;
 
         this.persistenceManager.initialize(closedTradables, "ClosedTrades", PersistenceManager.Source.PRIVATE);
+
+        closedTradables.getObservableList().addListener(this::onClosedTradablesChanged);
+        bsqWalletService.addWalletTransactionsChangeListener(() -> btcAndBsqTradeFeeTotals.set(null));
     }
 
     @Override
     public void readPersisted(Runnable completeHandler) {
         persistenceManager.readPersisted(persisted -> {
-                    closedTradables.setAll(persisted.getList());
-                    closedTradables.stream()
+                    // The price feed service must be set before the aggregates get built from the list change.
+                    persisted.getList().stream()
                             .filter(tradable -> tradable.getOffer() != null)
                             .forEach(tradable -> tradable.getOffer().setPriceFeedService(priceFeedService));
+                    closedTradables.setAll(persisted.getList());
                     dumpDelayedPayoutTx.maybeDumpDelayedPayoutTxs(closedTradables, "delayed_payout_txs_closed");
                     completeHandler.run();
                 },
@@ -157,10 +195,7 @@ public class ClosedTradableManager implements PersistedDataHost {
     }
 
     public List<Trade> getClosedTrades() {
-        return ImmutableList.copyOf(getObservableList().stream()
-                .filter(e -> e instanceof Trade)
-                .map(e -> (Trade) e)
-                .collect(Collectors.toList()));
+        return closedTrades;
     }
 
     public List<OpenOffer> getCanceledOpenOffers() {
@@ -171,7 +206,7 @@ public class ClosedTradableManager implements PersistedDataHost {
     }
 
     public Optional<Tradable> getTradableById(String id) {
-        return closedTradables.stream().filter(e -> e.getId().equals(id)).findFirst();
+        return Optional.ofNullable(tradableById.get(id));
     }
 
     // if user has closed trades of greater size to the default trade limit and has never customized their
@@ -204,10 +239,9 @@ public class ClosedTradableManager implements PersistedDataHost {
 
     public boolean canTradeHaveSensitiveDataCleared(String tradeId) {
         Instant safeDate = getSafeDateForSensitiveDataClearing();
-        return closedTradables.stream()
-                .filter(e -> e.getId().equals(tradeId))
+        return getTradableById(tradeId)
                 .filter(e -> e.getDate().toInstant().isBefore(safeDate))
-                .count() > 0;
+                .isPresent();
     }
 
     public Instant getSafeDateForSensitiveDataClearing() {
@@ -229,11 +263,69 @@ public class ClosedTradableManager implements PersistedDataHost {
             return 0;
         }
         NodeAddress addressInTrade = castToTradeModel(tradable).getTradingPeerNodeAddress();
-        return (int) getTradeModelStream()
+        if (addressInTrade == null) {
+            return 0;
+        }
+        int numBsqSwapTrades = (int) bsqSwapTradeManager.getConfirmedBsqSwapTrades()
                 .map(TradeModel::getTradingPeerNodeAddress)
                 .filter(Objects::nonNull)
                 .filter(address -> address.equals(addressInTrade))
                 .count();
+        return getNumClosedTradesWithPeer(addressInTrade) + numBsqSwapTrades;
+    }
+
+    // Only bisq v1 trades, as confirmed BsqSwap trades are not managed here.
+    public int getNumClosedTradesWithPeer(NodeAddress peerNodeAddress) {
+        return peerNodeAddress != null ? numClosedTradesByPeer.getOrDefault(peerNodeAddress.getFullAddress(), 0) : 0;
+    }
+
+    // The totals cover the closed tradables and the confirmed BsqSwap trades, like the closed trades view. The totals
+    // of the closed tradables are maintained incrementally. The BsqSwap trades are not managed here and their
+    // confirmation state changes with the wallet, so we add them up at each call.
+    public Coin getTotalAmount() {
+        return Coin.valueOf(totalAmount.get()).add(ClosedTradableUtil.getTotalAmount(getConfirmedBsqSwapTrades()));
+    }
+
+    public Coin getTotalTxFee() {
+        return Coin.valueOf(totalTxFee.get()).add(ClosedTradableUtil.getTotalTxFee(getConfirmedBsqSwapTrades()));
+    }
+
+    public Map<String, Long> getTotalVolumeByCurrency() {
+        Map<String, Long> result = new HashMap<>(totalVolumeByCurrency);
+        List<Tradable> marketPriceOffers;
+        synchronized (this.marketPriceOffers) {
+            marketPriceOffers = new ArrayList<>(this.marketPriceOffers);
+        }
+        ClosedTradableUtil.getTotalVolumeByCurrency(marketPriceOffers)
+                .forEach((currencyCode, volume) -> result.merge(currencyCode, volume, Long::sum));
+        ClosedTradableUtil.getTotalVolumeByCurrency(getConfirmedBsqSwapTrades())
+                .forEach((currencyCode, volume) -> result.merge(currencyCode, volume, Long::sum));
+        return ImmutableMap.copyOf(result);
+    }
+
+    public Coin getTotalTradeFee(boolean expectBtcFee) {
+        return getTotalTradeFeeOfClosedTradables(expectBtcFee)
+                .add(getTotalTradeFee(getConfirmedBsqSwapTrades(), expectBtcFee));
+    }
+
+    private Coin getTotalTradeFeeOfClosedTradables(boolean expectBtcFee) {
+        Tuple2<Long, Long> totals = btcAndBsqTradeFeeTotals.updateAndGet(cached -> {
+            if (cached != null) {
+                return cached;
+            }
+            long btcTradeFee = 0;
+            long bsqTradeFee = 0;
+            for (Tradable tradable : getTradableList()) {
+                btcTradeFee += getBtcTradeFee(tradable);
+                bsqTradeFee += getBsqTradeFee(tradable);
+            }
+            return new Tuple2<>(btcTradeFee, bsqTradeFee);
+        });
+        return Coin.valueOf(expectBtcFee ? totals.first : totals.second);
+    }
+
+    private List<Tradable> getConfirmedBsqSwapTrades() {
+        return bsqSwapTradeManager.getConfirmedBsqSwapTrades().collect(Collectors.toList());
     }
 
     public boolean isCurrencyForTradeFeeBtc(Tradable tradable) {
@@ -300,4 +392,108 @@ public class ClosedTradableManager implements PersistedDataHost {
     private void requestPersistence() {
         persistenceManager.requestPersistence();
     }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Indexes
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void onClosedTradablesChanged(ListChangeListener.Change<? extends Tradable> change) {
+        Set<String> removedIds = new HashSet<>();
+        while (change.next()) {
+            if (change.wasRemoved()) {
+                change.getRemoved().forEach(tradable -> {
+                    if (tradableById.remove(tradable.getId(), tradable)) {
+                        removedIds.add(tradable.getId());
+                    }
+                    applyToAggregates(tradable, -1);
+                });
+            }
+            if (change.wasAdded()) {
+                change.getAddedSubList().forEach(tradable -> {
+                    tradableById.putIfAbsent(tradable.getId(), tradable);
+                    applyToAggregates(tradable, 1);
+                });
+            }
+        }
+
+        // getTradableById returns the first tradable with a given id. If we removed the indexed one we fall back to
+        // another tradable with the same id, if there is one.
+        if (!removedIds.isEmpty()) {
+            removedIds.forEach(tradableById::remove);
+            closedTradables.stream()
+                    .filter(tradable -> removedIds.contains(tradable.getId()))
+                    .forEach(tradable -> tradableById.putIfAbsent(tradable.getId(), tradable));
+        }
+
+        closedTrades = ImmutableList.copyOf(closedTradables.stream()
+                .filter(e -> e instanceof Trade)
+                .map(e -> (Trade) e)
+                .collect(Collectors.toList()));
+        btcAndBsqTradeFeeTotals.set(null);
+    }
+
+    // Follows ClosedTradableUtil: amount and tx fee only count for trades, the volume of canceled offers counts as
+    // well.
+    private void applyToAggregates(Tradable tradable, int sign) {
+        if (tradable instanceof TradeModel) {
+            TradeModel tradeModel = (TradeModel) tradable;
+            if (tradable instanceof Trade) {
+                applyToNumClosedTradesByPeer(tradeModel.getTradingPeerNodeAddress(), sign);
+            }
+
+            totalAmount.addAndGet(sign * tradeModel.getAmountAsLong());
+
+            Coin txFee = tradeModel.getTxFee();
+            if (txFee != null) {
+                totalTxFee.addAndGet(sign * txFee.value);
+            }
+        }
+
+        if (sign > 0) {
+            addToTotalVolume(tradable);
+        } else {
+            removeFromTotalVolume(tradable);
+        }
+    }
+
+    private void addToTotalVolume(Tradable tradable) {
+        Volume volume = tradable instanceof TradeModel ? ((TradeModel) tradable).getVolume() : null;
+        if (volume == null && tradable.getOffer() != null) {
+            if (tradable.getOffer().isUseMarketBasedPrice()) {
+                marketPriceOffers.add(tradable);
+                return;
+            }
+            volume = tradable.getOffer().getVolume();
+        }
+        if (volume != null) {
+            volumeByTradable.put(tradable, volume);
+            applyToTotalVolume(volume, 1);
+        }
+    }
+
+    private void removeFromTotalVolume(Tradable tradable) {
+        marketPriceOffers.remove(tradable);
+        Volume volume = volumeByTradable.remove(tradable);
+        if (volume != null) {
+            applyToTotalVolume(volume, -1);
+        }
+    }
+
+    private void applyToTotalVolume(Volume volume, int sign) {
+        totalVolumeByCurrency.merge(volume.getCurrencyCode(), sign * volume.getValue(),
+                (value, delta) -> value + delta == 0 ? null : value + delta);
+    }
+
+    private void applyToNumClosedTradesByPeer(NodeAddress peerNodeAddress, int sign) {
+        if (peerNodeAddress == null) {
+            return;
+        }
+        if (sign > 0) {
+            numClosedTradesByPeer.merge(peerNodeAddress.getFullAddress(), 1, Integer::sum);
+        } else {
+            numClosedTradesByPeer.computeIfPresent(peerNodeAddress.getFullAddress(),
+                    (address, num) -> num > 1 ? num - 1 : null);
+        }
+    }
 }
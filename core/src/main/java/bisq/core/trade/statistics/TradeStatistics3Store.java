@@ -18,11 +18,13 @@
 package bisq.core.trade.statistics;
 
 import bisq.network.p2p.storage.P2PDataStorage;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
 import bisq.network.p2p.storage.persistence.PersistableNetworkPayloadStore;
 
 import com.google.protobuf.Message;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
@@ -47,6 +49,10 @@ public class TradeStatistics3Store extends PersistableNetworkPayloadStore<TradeS
         list.forEach(item -> map.put(new P2PDataStorage.ByteArray(item.getHash()), item));
     }
 
+    private TradeStatistics3Store(Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> map) {
+        super(map);
+    }
+
     public Message toProtoMessage() {
         return protobuf.PersistableEnvelope.newBuilder()
                 .setTradeStatistics3Store(getBuilder())
@@ -61,6 +67,11 @@ public class TradeStatistics3Store extends PersistableNetworkPayloadStore<TradeS
         return protobuf.TradeStatistics3Store.newBuilder().addAllItems(protoList);
     }
 
+    @Override
+    public TradeStatistics3Store toPersistableSnapshot() {
+        return new TradeStatistics3Store(map);
+    }
+
     public static TradeStatistics3Store fromProto(protobuf.TradeStatistics3Store proto) {
         List<TradeStatistics3> list = proto.getItemsList().stream()
                 .map(TradeStatistics3::fromProto).collect(Collectors.toList());
@@ -35,15 +35,21 @@ import org.bitcoinj.core.Coin;
 import org.bitcoinj.core.ECKey;
 
 import com.google.common.base.Charsets;
+import com.google.common.base.Stopwatch;
 
 import java.security.KeyPair;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+
+import lombok.extern.slf4j.Slf4j;
 
 import org.junit.Before;
+import org.junit.Ignore;
 import org.junit.Test;
 
 import static bisq.core.account.sign.SignedWitness.VerificationMethod.ARBITRATOR;
@@ -52,6 +58,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
+@Slf4j
 public class SignedWitnessServiceTest {
     private SignedWitnessService signedWitnessService;
     private byte[] account1DataHash;
@@ -340,6 +347,71 @@ public class SignedWitnessServiceTest {
     }
 
 
+    @Test
+    public void testSignerStateUpdatedWhenSignerWitnessArrives() {
+        SignedWitness sw1 = new SignedWitness(ARBITRATOR, account1DataHash, signature1, signer1PubKey, witnessOwner1PubKey, date1, tradeAmount1);
+        SignedWitness sw2 = new SignedWitness(TRADE, account2DataHash, signature2, signer2PubKey, witnessOwner2PubKey, date2, tradeAmount2);
+        SignedWitness sw3 = new SignedWitness(TRADE, account3DataHash, signature3, signer3PubKey, witnessOwner3PubKey, date3, tradeAmount3);
+
+        signedWitnessService.addToMap(sw2);
+        signedWitnessService.addToMap(sw3);
+        assertFalse(signedWitnessService.isSignerAccountAgeWitness(aew2));
+        assertFalse(signedWitnessService.isSignerAccountAgeWitness(aew3));
+
+        signedWitnessService.addToMap(sw1);
+        assertTrue(signedWitnessService.isSignerAccountAgeWitness(aew1));
+        assertTrue(signedWitnessService.isSignerAccountAgeWitness(aew2));
+        assertTrue(signedWitnessService.isSignerAccountAgeWitness(aew3));
+
+        signedWitnessService.removeSignedWitness(sw1);
+        assertFalse(signedWitnessService.isSignerAccountAgeWitness(aew2));
+        assertFalse(signedWitnessService.isSignerAccountAgeWitness(aew3));
+    }
+
+    @Test
+    @Ignore
+    public void benchmarkIsSignerAccountAgeWitness() throws Exception {
+        // Arbitrator signed roots with chains of trade signed witnesses below, each signed SIGNER_AGE_DAYS + 1 later.
+        int numChains = 100;
+        int chainLength = 10;
+        List<AccountAgeWitness> accountAgeWitnesses = new ArrayList<>();
+        for (int chain = 0; chain < numChains; chain++) {
+            KeyPair signerKeyPair = null;
+            for (int i = 0; i < chainLength; i++) {
+                byte[] accountDataHash = org.bitcoinj.core.Utils.sha256hash160((chain + "/" + i).getBytes(Charsets.UTF_8));
+                long date = getTodayMinusNDays((chainLength - i) * (SignedWitnessService.SIGNER_AGE_DAYS + 1));
+                accountAgeWitnesses.add(new AccountAgeWitness(accountDataHash, date));
+                String accountDataHashAsHexString = Utilities.encodeToHex(accountDataHash);
+                KeyPair ownerKeyPair = Sig.generateKeyPair();
+                SignedWitness signedWitness;
+                if (signerKeyPair == null) {
+                    byte[] signature = arbitrator1Key.signMessage(accountDataHashAsHexString).getBytes(Charsets.UTF_8);
+                    signedWitness = new SignedWitness(ARBITRATOR, accountDataHash, signature, arbitrator1Key.getPubKey(),
+                            Sig.getPublicKeyBytes(ownerKeyPair.getPublic()), date, tradeAmount1);
+                } else {
+                    byte[] signature = Sig.sign(signerKeyPair.getPrivate(), accountDataHashAsHexString.getBytes(Charsets.UTF_8));
+                    signedWitness = new SignedWitness(TRADE, accountDataHash, signature, Sig.getPublicKeyBytes(signerKeyPair.getPublic()),
+                            Sig.getPublicKeyBytes(ownerKeyPair.getPublic()), date, tradeAmount1);
+                }
+                signedWitnessService.addToMap(signedWitness);
+                signerKeyPair = ownerKeyPair;
+            }
+        }
+
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        accountAgeWitnesses.forEach(signedWitnessService::isSignerAccountAgeWitness);
+        log.info("First lookup of {} witnesses: {} ms", accountAgeWitnesses.size(), stopwatch.elapsed().toMillis());
+
+        int iterations = 1000;
+        stopwatch.reset().start();
+        for (int i = 0; i < iterations; i++) {
+            accountAgeWitnesses.forEach(signedWitnessService::isSignerAccountAgeWitness);
+        }
+        var duration = stopwatch.elapsed();
+        log.info("Mean time of a cached lookup: {} ns",
+                duration.dividedBy((long) iterations * accountAgeWitnesses.size()).toNanos());
+    }
+
     private long getTodayMinusNDays(long days) {
         return Instant.ofEpochMilli(new Date().getTime()).minus(days, ChronoUnit.DAYS).toEpochMilli();
     }
@@ -405,6 +477,7 @@ public class SignedWitnessServiceTest {
         // First account is banned, no accounts in the tree below it are signers
         when(filterManager.isWitnessSignerPubKeyBanned(Utilities.bytesAsHexString(witnessOwner1PubKey))).thenReturn(true);
         when(filterManager.isWitnessSignerPubKeyBanned(Utilities.bytesAsHexString(witnessOwner2PubKey))).thenReturn(false);
+        signedWitnessService.invalidateSignerCache();
         assertFalse(signedWitnessService.isSignerAccountAgeWitness(aew1));
         assertFalse(signedWitnessService.isSignerAccountAgeWitness(aew2));
         assertFalse(signedWitnessService.isSignerAccountAgeWitness(aew3));
@@ -442,6 +515,7 @@ public class SignedWitnessServiceTest {
         // Only first account is banned, account2 and account3 are still signers
         when(filterManager.isWitnessSignerPubKeyBanned(Utilities.bytesAsHexString(witnessOwner1PubKey))).thenReturn(true);
         when(filterManager.isWitnessSignerPubKeyBanned(Utilities.bytesAsHexString(witnessOwner2PubKey))).thenReturn(false);
+        signedWitnessService.invalidateSignerCache();
         assertFalse(signedWitnessService.isSignerAccountAgeWitness(aew1));
         assertTrue(signedWitnessService.isSignerAccountAgeWitness(aew2));
         assertTrue(signedWitnessService.isSignerAccountAgeWitness(aew3));
@@ -492,6 +566,7 @@ public class SignedWitnessServiceTest {
         // Second account is banned, the other two are still signers
         when(filterManager.isWitnessSignerPubKeyBanned(Utilities.bytesAsHexString(witnessOwner1PubKey))).thenReturn(false);
         when(filterManager.isWitnessSignerPubKeyBanned(Utilities.bytesAsHexString(witnessOwner2PubKey))).thenReturn(true);
+        signedWitnessService.invalidateSignerCache();
         assertTrue(signedWitnessService.isSignerAccountAgeWitness(aew1));
         assertFalse(signedWitnessService.isSignerAccountAgeWitness(aew2));
         assertTrue(signedWitnessService.isSignerAccountAgeWitness(aew3));
@@ -499,6 +574,7 @@ public class SignedWitnessServiceTest {
         // First and second account is banned, the third is no longer a signer
         when(filterManager.isWitnessSignerPubKeyBanned(Utilities.bytesAsHexString(witnessOwner1PubKey))).thenReturn(true);
         when(filterManager.isWitnessSignerPubKeyBanned(Utilities.bytesAsHexString(witnessOwner2PubKey))).thenReturn(true);
+        signedWitnessService.invalidateSignerCache();
         assertFalse(signedWitnessService.isSignerAccountAgeWitness(aew1));
         assertFalse(signedWitnessService.isSignerAccountAgeWitness(aew2));
         assertFalse(signedWitnessService.isSignerAccountAgeWitness(aew3));
@@ -0,0 +1,134 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.btc.wallet;
+
+import bisq.core.btc.setup.WalletsSetup;
+import bisq.core.provider.fee.FeeService;
+import bisq.core.user.Preferences;
+
+import bisq.common.config.Config;
+
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.LegacyAddress;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionConfidence;
+import org.bitcoinj.core.TransactionOutput;
+import org.bitcoinj.utils.Threading;
+import org.bitcoinj.wallet.Wallet;
+import org.bitcoinj.wallet.listeners.WalletChangeEventListener;
+
+import java.util.List;
+import java.util.Set;
+
+import org.mockito.ArgumentCaptor;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WalletServiceTest {
+    private final NetworkParameters params = Config.baseCurrencyNetworkParameters();
+    private Wallet wallet;
+    private WalletService walletService;
+    private WalletChangeEventListener cacheInvalidationListener;
+
+    @Before
+    public void setUp() {
+        wallet = mock(Wallet.class);
+        walletService = new WalletService(mock(WalletsSetup.class), mock(Preferences.class), mock(FeeService.class)) {
+            @Override
+            String getWalletAsString(boolean includePrivKeys) {
+                return "";
+            }
+
+            @Override
+            protected boolean isDustAttackUtxo(TransactionOutput output) {
+                return false;
+            }
+        };
+        walletService.wallet = wallet;
+        walletService.addListenersToWallet();
+
+        ArgumentCaptor<WalletChangeEventListener> captor = ArgumentCaptor.forClass(WalletChangeEventListener.class);
+        verify(wallet).addChangeEventListener(eq(Threading.SAME_THREAD), captor.capture());
+        cacheInvalidationListener = captor.getValue();
+    }
+
+    @Test
+    public void getBalanceForAddress_cacheInvalidatedOnWalletChange() {
+        Address address = LegacyAddress.fromKey(params, new ECKey());
+        TransactionOutput output = new TransactionOutput(params, null, Coin.valueOf(1000), address);
+        when(wallet.calculateAllSpendCandidates()).thenReturn(List.of(output));
+        assertEquals(Coin.valueOf(1000), walletService.getBalanceForAddress(address));
+
+        TransactionOutput newOutput = new TransactionOutput(params, null, Coin.valueOf(500), address);
+        when(wallet.calculateAllSpendCandidates()).thenReturn(List.of(output, newOutput));
+        assertEquals(Coin.valueOf(1000), walletService.getBalanceForAddress(address));
+
+        cacheInvalidationListener.onWalletChanged(wallet);
+        assertEquals(Coin.valueOf(1500), walletService.getBalanceForAddress(address));
+    }
+
+    // The wallet signals tx confidence changes which are relevant for it (e.g. a tx seen by more peers or a new
+    // block) as wallet change as well
+    @Test
+    public void getConfidenceForTxId_cacheInvalidatedOnWalletChange() {
+        Transaction tx = mockTx(Sha256Hash.of(new byte[]{1}));
+        when(wallet.getTransactions(false)).thenReturn(Set.of());
+        assertNull(walletService.getConfidenceForTxId(tx.getTxId().toString()));
+
+        when(wallet.getTransactions(false)).thenReturn(Set.of(tx));
+        assertNull(walletService.getConfidenceForTxId(tx.getTxId().toString()));
+
+        cacheInvalidationListener.onWalletChanged(wallet);
+        assertSame(tx.getConfidence(), walletService.getConfidenceForTxId(tx.getTxId().toString()));
+    }
+
+    // The confidence is read from the cached tx, so confidence changes show up without a rebuild of the cache
+    @Test
+    public void getConfidenceForTxId_readsConfidenceFromCachedTx() {
+        Transaction tx = mockTx(Sha256Hash.of(new byte[]{1}));
+        when(wallet.getTransactions(false)).thenReturn(Set.of(tx));
+        assertSame(tx.getConfidence(), walletService.getConfidenceForTxId(tx.getTxId().toString()));
+
+        TransactionConfidence newConfidence = mock(TransactionConfidence.class);
+        when(tx.getConfidence()).thenReturn(newConfidence);
+        assertSame(newConfidence, walletService.getConfidenceForTxId(tx.getTxId().toString()));
+        verify(wallet, times(1)).getTransactions(false);
+    }
+
+    private static Transaction mockTx(Sha256Hash txId) {
+        Transaction tx = mock(Transaction.class);
+        when(tx.getTxId()).thenReturn(txId);
+        TransactionConfidence confidence = mock(TransactionConfidence.class);
+        when(tx.getConfidence()).thenReturn(confidence);
+        return tx;
+    }
+}
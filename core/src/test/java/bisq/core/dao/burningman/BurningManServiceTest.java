@@ -17,16 +17,86 @@
 
 package bisq.core.dao.burningman;
 
+import bisq.core.dao.CyclesInDaoStateService;
+import bisq.core.dao.governance.proposal.ProposalService;
+import bisq.core.dao.state.DaoStateService;
+import bisq.core.dao.state.model.blockchain.Block;
+import bisq.core.dao.state.model.governance.IssuanceType;
 
+import javafx.collections.FXCollections;
+
+import java.util.Optional;
+import java.util.Set;
+
+import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
 public class BurningManServiceTest {
+    @Mock
+    private DaoStateService daoStateService;
+    @Mock
+    private CyclesInDaoStateService cyclesInDaoStateService;
+    @Mock
+    private ProposalService proposalService;
+    private BurningManService burningManService;
+
+    @Before
+    public void setUp() {
+        when(proposalService.getProposalPayloads()).thenReturn(FXCollections.observableArrayList());
+        when(daoStateService.getIssuanceSetForType(IssuanceType.COMPENSATION)).thenReturn(Set.of());
+        when(daoStateService.getGenesisTx()).thenReturn(Optional.empty());
+        when(daoStateService.getProofOfBurnOpReturnTxOutputs()).thenReturn(Set.of());
+        when(daoStateService.getChainHeight()).thenReturn(100);
+        burningManService = new BurningManService(daoStateService, cyclesInDaoStateService, proposalService);
+    }
+
+    @Test
+    public void testCandidatesAreMemoizedPerHeight() {
+        var candidates = burningManService.getBurningManCandidatesByName(90);
+        assertSame(candidates, burningManService.getBurningManCandidatesByName(90));
+        assertNotSame(candidates, burningManService.getBurningManCandidatesByName(80));
+        verify(daoStateService, times(2)).getIssuanceSetForType(IssuanceType.COMPENSATION);
+    }
+
+    @Test
+    public void testHeightAboveChainHeightIsNotMemoized() {
+        burningManService.getBurningManCandidatesByName(110);
+        burningManService.getBurningManCandidatesByName(110);
+        verify(daoStateService, times(2)).getIssuanceSetForType(IssuanceType.COMPENSATION);
+    }
+
+    @Test
+    public void testMemoizedHeightsAreBounded() {
+        var candidates = burningManService.getBurningManCandidatesByName(0);
+        for (int i = 1; i <= BurningManService.MAX_CACHED_HEIGHTS; i++) {
+            burningManService.getBurningManCandidatesByName(i);
+        }
+        assertNotSame(candidates, burningManService.getBurningManCandidatesByName(0));
+    }
+
+    @Test
+    public void testReorgClearsMemoizedCandidates() {
+        var candidates = burningManService.getBurningManCandidatesByName(90);
+        burningManService.onParseBlockComplete(new Block(101, 0, "hash101", "hash100"));
+        assertSame(candidates, burningManService.getBurningManCandidatesByName(90));
+
+        burningManService.onParseBlockComplete(new Block(95, 0, "hash95'", "hash94"));
+        assertNotSame(candidates, burningManService.getBurningManCandidatesByName(90));
+        verify(daoStateService, times(2)).getProofOfBurnOpReturnTxOutputs();
+    }
+
     @Test
     public void testGetDecayedAmount() {
         long amount = 100;
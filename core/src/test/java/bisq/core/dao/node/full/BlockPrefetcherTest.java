@@ -0,0 +1,263 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.node.full;
+
+import bisq.core.dao.node.full.rpc.BitcoindClient;
+import bisq.core.dao.node.full.rpc.dto.RawDtoBlock;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import com.sun.net.httpserver.HttpServer;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BlockPrefetcherTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int WINDOW_SIZE = 8;
+
+    private ListeningExecutorService fetchExecutor;
+    private ExecutorService callbackExecutor;
+    private HttpServer stubRpcServer;
+
+    @Before
+    public void setUp() {
+        fetchExecutor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(4));
+        callbackExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        fetchExecutor.shutdownNow();
+        callbackExecutor.shutdownNow();
+        if (stubRpcServer != null) {
+            stubRpcServer.stop(0);
+        }
+    }
+
+    @Test
+    public void testBlocksFromStubRpcServerAreDeliveredInHeightOrder() throws Exception {
+        AtomicInteger maxRequestedHeight = new AtomicInteger();
+        BitcoindClient client = startStubRpcServer(maxRequestedHeight);
+        List<RawDtoBlock> blocks = new ArrayList<>();
+        AtomicReference<String> windowViolation = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        new BlockPrefetcher<RawDtoBlock>(fetchExecutor,
+                callbackExecutor,
+                WINDOW_SIZE,
+                height -> client.getBlock(client.getBlockHash(height), 2),
+                100,
+                139,
+                block -> {
+                    // The block at that height was requested before the window got moved forward
+                    if (maxRequestedHeight.get() > block.getHeight() + WINDOW_SIZE - 1) {
+                        windowViolation.set("Requested height " + maxRequestedHeight.get() +
+                                " at delivery of block " + block.getHeight());
+                    }
+                    blocks.add(block);
+                    return true;
+                },
+                done::countDown,
+                Throwable::printStackTrace).start();
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertNull(windowViolation.get());
+        assertEquals(IntStream.rangeClosed(100, 139).boxed().collect(Collectors.toList()),
+                blocks.stream().map(RawDtoBlock::getHeight).collect(Collectors.toList()));
+        for (int i = 1; i < blocks.size(); i++) {
+            assertEquals(blocks.get(i - 1).getHash(), blocks.get(i).getPreviousBlockHash());
+        }
+        assertEquals(11, blocks.get(0).getTx().size());
+    }
+
+    @Test
+    public void testStopAtReorg() throws Exception {
+        List<Integer> heights = new ArrayList<>();
+        AtomicInteger numResults = new AtomicInteger();
+        CountDownLatch stopped = new CountDownLatch(1);
+
+        BlockPrefetcher<Integer> blockPrefetcher = new BlockPrefetcher<>(fetchExecutor,
+                callbackExecutor,
+                WINDOW_SIZE,
+                height -> height,
+                1,
+                100,
+                height -> {
+                    heights.add(height);
+                    if (height == 5) {
+                        stopped.countDown();
+                        return false;
+                    }
+                    return true;
+                },
+                numResults::incrementAndGet,
+                Throwable::printStackTrace);
+        blockPrefetcher.start();
+
+        assertTrue(stopped.await(10, TimeUnit.SECONDS));
+        awaitCallbacks();
+        assertTrue(blockPrefetcher.isStopped());
+        assertEquals(List.of(1, 2, 3, 4, 5), heights);
+        assertEquals(0, numResults.get());
+    }
+
+    @Test
+    public void testFailureIsReportedAfterPrecedingBlocks() throws Exception {
+        List<Integer> heights = new ArrayList<>();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        AtomicInteger numResults = new AtomicInteger();
+        CountDownLatch failed = new CountDownLatch(1);
+
+        new BlockPrefetcher<Integer>(fetchExecutor,
+                callbackExecutor,
+                WINDOW_SIZE,
+                height -> {
+                    if (height == 7) {
+                        throw new IOException("RPC failure");
+                    }
+                    // Let the failing request complete before the earlier ones
+                    Thread.sleep(height < 7 ? 20 : 0);
+                    return height;
+                },
+                1,
+                20,
+                height -> {
+                    heights.add(height);
+                    return true;
+                },
+                numResults::incrementAndGet,
+                throwable -> {
+                    error.set(throwable);
+                    failed.countDown();
+                }).start();
+
+        assertTrue(failed.await(10, TimeUnit.SECONDS));
+        awaitCallbacks();
+        assertEquals(List.of(1, 2, 3, 4, 5, 6), heights);
+        assertTrue(error.get() instanceof IOException);
+        assertEquals(0, numResults.get());
+    }
+
+    @Test
+    public void testEmptyRange() {
+        AtomicInteger numResults = new AtomicInteger();
+        new BlockPrefetcher<Integer>(fetchExecutor,
+                callbackExecutor,
+                WINDOW_SIZE,
+                height -> height,
+                10,
+                9,
+                height -> true,
+                numResults::incrementAndGet,
+                Throwable::printStackTrace).start();
+
+        assertEquals(1, numResults.get());
+    }
+
+    private void awaitCallbacks() throws InterruptedException {
+        fetchExecutor.shutdown();
+        assertTrue(fetchExecutor.awaitTermination(10, TimeUnit.SECONDS));
+        callbackExecutor.shutdown();
+        assertTrue(callbackExecutor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    // Replays the recorded block with the height and hashes of the requested block. Earlier blocks are served with
+    // a delay, so that the responses arrive out of order.
+    private BitcoindClient startStubRpcServer(AtomicInteger maxRequestedHeight) throws IOException {
+        JsonNode recordedBlock;
+        try (InputStream inputStream = getClass().getResourceAsStream("rpc/getblock-result-verbosity-2.json")) {
+            recordedBlock = MAPPER.readTree(inputStream);
+        }
+
+        stubRpcServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        stubRpcServer.setExecutor(Executors.newFixedThreadPool(4));
+        stubRpcServer.createContext("/", exchange -> {
+            JsonNode request = MAPPER.readTree(exchange.getRequestBody());
+            JsonNode params = request.get("params");
+            ObjectNode response = MAPPER.createObjectNode();
+            response.set("id", request.get("id"));
+            switch (request.get("method").asText()) {
+                case "getblockhash":
+                    int requestedHeight = params.get(0).asInt();
+                    maxRequestedHeight.accumulateAndGet(requestedHeight, Math::max);
+                    response.put("result", toBlockHash(requestedHeight));
+                    break;
+                case "getblock":
+                    int height = Integer.parseInt(params.get(0).asText(), 16);
+                    try {
+                        Thread.sleep(height % 4 == 0 ? 30 : 0);
+                    } catch (InterruptedException ignore) {
+                    }
+                    ObjectNode block = recordedBlock.deepCopy();
+                    block.put("height", height);
+                    block.put("hash", toBlockHash(height));
+                    block.put("previousblockhash", toBlockHash(height - 1));
+                    response.set("result", block);
+                    break;
+                default:
+                    response.putNull("result");
+            }
+            response.putNull("error");
+            byte[] body = MAPPER.writeValueAsBytes(response);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        stubRpcServer.start();
+
+        return BitcoindClient.builder()
+                .rpcHost("127.0.0.1")
+                .rpcPort(stubRpcServer.getAddress().getPort())
+                .rpcUser("bisqdao")
+                .rpcPassword("bsq")
+                .build();
+    }
+
+    private static String toBlockHash(int height) {
+        return String.format("%064x", height);
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.node.lite.network;
+
+import bisq.core.dao.node.full.RawBlock;
+import bisq.core.dao.node.messages.GetBlocksRequest;
+import bisq.core.dao.node.messages.GetBlocksResponse;
+
+import bisq.network.p2p.NodeAddress;
+import bisq.network.p2p.network.Connection;
+import bisq.network.p2p.network.MessageListener;
+import bisq.network.p2p.network.NetworkNode;
+import bisq.network.p2p.peers.PeerManager;
+
+import bisq.common.proto.network.NetworkEnvelope;
+
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static bisq.core.dao.node.lite.network.RequestBlockChunksHandler.BLOCKS_PER_CHUNK;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RequestBlockChunksHandlerTest {
+    private static final NodeAddress SEED_1 = new NodeAddress("seed1.onion:8000");
+    private static final NodeAddress SEED_2 = new NodeAddress("seed2.onion:8000");
+
+    private NetworkNode networkNode;
+    private PeerManager peerManager;
+    private final List<MessageListener> messageListeners = new CopyOnWriteArrayList<>();
+    private final List<SentRequest> sentRequests = new ArrayList<>();
+    private final List<GetBlocksResponse> deliveredChunks = new ArrayList<>();
+    private final List<Runnable> parsingCompleteHandlers = new ArrayList<>();
+    private String faultMessage;
+
+    @Before
+    public void setUp() {
+        networkNode = mock(NetworkNode.class);
+        peerManager = mock(PeerManager.class);
+        doAnswer(invocation -> messageListeners.add(invocation.getArgument(0)))
+                .when(networkNode).addMessageListener(any());
+        doAnswer(invocation -> messageListeners.remove(invocation.<MessageListener>getArgument(0)))
+                .when(networkNode).removeMessageListener(any());
+        when(networkNode.sendMessage(any(NodeAddress.class), any(NetworkEnvelope.class))).thenAnswer(invocation -> {
+            SettableFuture<Connection> future = SettableFuture.create();
+            sentRequests.add(new SentRequest(invocation.getArgument(0), invocation.getArgument(1), future));
+            return future;
+        });
+    }
+
+    @Test
+    public void testChunksAreDeliveredInOrder() {
+        RequestBlockChunksHandler handler = createHandler(100, List.of(SEED_1, SEED_2));
+        handler.requestBlocks();
+
+        // One chunk in flight per seed node
+        assertEquals(2, sentRequests.size());
+        SentRequest first = sentRequests.get(0);
+        SentRequest second = sentRequests.get(1);
+        assertEquals(100, first.getBlocksRequest.getFromBlockHeight());
+        assertEquals(100 + BLOCKS_PER_CHUNK - 1, first.getBlocksRequest.getToBlockHeight());
+        assertEquals(100 + BLOCKS_PER_CHUNK, second.getBlocksRequest.getFromBlockHeight());
+
+        int chainTip = 100 + 2 * BLOCKS_PER_CHUNK + 10;
+        respond(second, chainTip);
+        assertTrue(deliveredChunks.isEmpty());
+
+        respond(first, chainTip);
+        assertEquals(1, deliveredChunks.size());
+        assertEquals(100, deliveredChunks.get(0).getBlocks().get(0).getHeight());
+        // Next chunk gets only delivered after parsing of the previous one is complete
+        assertFalse(handler.isStopped());
+
+        parsingCompleteHandlers.get(0).run();
+        assertEquals(2, deliveredChunks.size());
+        assertEquals(100 + BLOCKS_PER_CHUNK, deliveredChunks.get(1).getBlocks().get(0).getHeight());
+
+        parsingCompleteHandlers.get(1).run();
+        List<SentRequest> openRequests = sentRequests.subList(2, sentRequests.size());
+        assertEquals(2, openRequests.size());
+        openRequests.forEach(request -> respond(request, chainTip));
+
+        // The chunk with 11 blocks marks the chain tip of the seed node
+        assertEquals(3, deliveredChunks.size());
+        assertEquals(11, deliveredChunks.get(2).getBlocks().size());
+        assertTrue(handler.isStopped());
+        assertEquals(IntStream.rangeClosed(100, chainTip).boxed().collect(Collectors.toList()),
+                deliveredChunks.stream()
+                        .flatMap(response -> response.getBlocks().stream())
+                        .map(RawBlock::getHeight)
+                        .collect(Collectors.toList()));
+        assertNull(faultMessage);
+    }
+
+    @Test
+    public void testFailedChunkIsRequestedFromOtherSeedNode() {
+        RequestBlockChunksHandler handler = createHandler(0, List.of(SEED_1, SEED_2));
+        handler.requestBlocks();
+
+        SentRequest first = sentRequests.get(0);
+        SentRequest second = sentRequests.get(1);
+        first.future.setException(new RuntimeException("Peer offline"));
+        assertEquals(2, sentRequests.size());
+
+        respond(second, BLOCKS_PER_CHUNK + 10);
+        SentRequest retry = sentRequests.get(2);
+        assertEquals(second.nodeAddress, retry.nodeAddress);
+        assertEquals(0, retry.getBlocksRequest.getFromBlockHeight());
+
+        respond(retry, BLOCKS_PER_CHUNK + 10);
+        parsingCompleteHandlers.get(0).run();
+        assertEquals(2, deliveredChunks.size());
+        assertTrue(handler.isStopped());
+        assertNull(faultMessage);
+    }
+
+    @Test
+    public void testFaultIfNoSeedNodeAvailable() {
+        RequestBlockChunksHandler handler = createHandler(0, List.of());
+        handler.requestBlocks();
+
+        assertTrue(sentRequests.isEmpty());
+        assertTrue(handler.isStopped());
+        assertTrue(faultMessage.contains("No seed node"));
+    }
+
+    private RequestBlockChunksHandler createHandler(int startBlockHeight, List<NodeAddress> seedNodes) {
+        return new RequestBlockChunksHandler(networkNode,
+                peerManager,
+                startBlockHeight,
+                () -> seedNodes,
+                new RequestBlockChunksHandler.Listener() {
+                    @Override
+                    public void onChunkReceived(GetBlocksResponse getBlocksResponse, Runnable onParsingComplete) {
+                        deliveredChunks.add(getBlocksResponse);
+                        parsingCompleteHandlers.add(onParsingComplete);
+                    }
+
+                    @Override
+                    public void onFault(String errorMessage, int nextBlockHeight, boolean isParsingPending) {
+                        faultMessage = errorMessage;
+                    }
+                });
+    }
+
+    private void respond(SentRequest sentRequest, int chainTip) {
+        GetBlocksRequest getBlocksRequest = sentRequest.getBlocksRequest;
+        List<RawBlock> blocks = IntStream.rangeClosed(getBlocksRequest.getFromBlockHeight(),
+                        Math.min(getBlocksRequest.getToBlockHeight(), chainTip))
+                .mapToObj(height -> RawBlock.fromProto(protobuf.BaseBlock.newBuilder()
+                        .setHeight(height)
+                        .setHash("hash" + height)
+                        .setPreviousBlockHash("hash" + (height - 1))
+                        .setRawBlock(protobuf.RawBlock.newBuilder())
+                        .build()))
+                .collect(Collectors.toList());
+        Connection connection = mock(Connection.class);
+        when(connection.getPeersNodeAddressOptional()).thenReturn(Optional.of(sentRequest.nodeAddress));
+        GetBlocksResponse getBlocksResponse = new GetBlocksResponse(blocks, getBlocksRequest.getNonce());
+        messageListeners.forEach(listener -> listener.onMessage(getBlocksResponse, connection));
+    }
+
+    private static class SentRequest {
+        final NodeAddress nodeAddress;
+        final GetBlocksRequest getBlocksRequest;
+        final SettableFuture<Connection> future;
+
+        SentRequest(NodeAddress nodeAddress, NetworkEnvelope networkEnvelope, SettableFuture<Connection> future) {
+            this.nodeAddress = nodeAddress;
+            this.getBlocksRequest = (GetBlocksRequest) networkEnvelope;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.state.model;
+
+import bisq.core.dao.state.model.blockchain.Block;
+import bisq.core.dao.state.model.blockchain.SpentInfo;
+import bisq.core.dao.state.model.blockchain.Tx;
+import bisq.core.dao.state.model.blockchain.TxOutput;
+import bisq.core.dao.state.model.blockchain.TxOutputKey;
+import bisq.core.dao.state.model.blockchain.TxOutputType;
+import bisq.core.dao.state.model.blockchain.TxType;
+import bisq.core.dao.state.model.governance.Issuance;
+import bisq.core.dao.state.model.governance.IssuanceType;
+import bisq.core.dao.state.storage.BlocksPersistence;
+
+import bisq.common.crypto.Hash;
+
+import org.apache.commons.lang3.ArrayUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Feeds the BSQ blocks from the mainnet resource files into a DaoState through the methods which keep the incremental
+ * digests in sync. We do not run the parser, so the state only approximates the real DAO state: the BSQ outputs get
+ * added as unspent, the inputs spending them are recorded as spent and the issuance candidate outputs are issued
+ * at their block. That covers the keys, values and changes of the mainnet blocks.
+ */
+public class DaoStateMainnetBlocksTest {
+    private static final String BLOCKS_RESOURCE_DIR = "BsqBlocks_BTC_MAINNET";
+    private static final int FIRST_BUCKET_HEIGHT = 571001;
+    // Rebuilding the digests and serializing the state for the version 1 hash take time proportional to the state
+    // size. So we check after each of the first blocks, which include the genesis tx, and then every 10000 blocks.
+    private static final int NUM_FIRST_BLOCKS_TO_CHECK = 2000;
+    private static final int CHECK_INTERVAL = 10000;
+    private static final Set<TxOutputType> UNSPENT_TX_OUTPUT_TYPES = EnumSet.of(TxOutputType.GENESIS_OUTPUT,
+            TxOutputType.BSQ_OUTPUT,
+            TxOutputType.BLIND_VOTE_LOCK_STAKE_OUTPUT,
+            TxOutputType.VOTE_REVEAL_UNLOCK_STAKE_OUTPUT,
+            TxOutputType.LOCKUP_OUTPUT,
+            TxOutputType.UNLOCK_OUTPUT);
+
+    private final DaoState daoState = new DaoState();
+    // Its maps are changed directly like before the digest tracking methods were added
+    private final DaoState referenceDaoState = new DaoState();
+    private byte[] prevHash = new byte[0];
+
+    @Test
+    public void testStateDigestsMatchRebuiltDigestsForMainnetBlocks() throws IOException {
+        int numBlocks = 0;
+        int bucketHeight = FIRST_BUCKET_HEIGHT;
+        List<Block> blocks;
+        while (!(blocks = readBucket(bucketHeight)).isEmpty()) {
+            for (Block block : blocks) {
+                applyBlock(block);
+                // Like the DaoStateMonitoringService we get the version 2 hash at each block, so only the changes
+                // of that block are applied to the digests.
+                daoState.getStateDigestForHashChain();
+                int height = block.getHeight();
+                if (height < FIRST_BUCKET_HEIGHT + NUM_FIRST_BLOCKS_TO_CHECK || height % CHECK_INTERVAL == 0) {
+                    assertStateMatchesReference(height);
+                }
+                numBlocks++;
+            }
+            bucketHeight += BlocksPersistence.BUCKET_SIZE;
+        }
+
+        assertTrue("No mainnet blocks found in " + BLOCKS_RESOURCE_DIR, numBlocks > 0);
+        assertStateMatchesReference(daoState.getChainHeight());
+    }
+
+    private void applyBlock(Block block) {
+        int height = block.getHeight();
+        List.of(daoState, referenceDaoState).forEach(state -> {
+            state.setChainHeight(height);
+            // We only keep the last block, as the hashes only include that one
+            state.clearAndSetBlocks(List.of(block));
+        });
+
+        block.getTxs().forEach(tx -> {
+            for (int inputIndex = 0; inputIndex < tx.getTxInputs().size(); inputIndex++) {
+                TxOutputKey txOutputKey = tx.getTxInputs().get(inputIndex).getConnectedTxOutputKey();
+                if (daoState.getUnspentTxOutputMap().containsKey(txOutputKey)) {
+                    SpentInfo spentInfo = new SpentInfo(height, tx.getId(), inputIndex);
+                    daoState.putSpentInfo(txOutputKey, spentInfo);
+                    daoState.removeUnspentTxOutput(txOutputKey);
+                    referenceDaoState.getSpentInfoMap().put(txOutputKey, spentInfo);
+                    referenceDaoState.getUnspentTxOutputMap().remove(txOutputKey);
+                }
+            }
+
+            tx.getTxOutputs().forEach(txOutput -> {
+                if (txOutput.getTxOutputType() == TxOutputType.ISSUANCE_CANDIDATE_OUTPUT) {
+                    Issuance issuance = new Issuance(tx.getId(),
+                            height,
+                            txOutput.getValue(),
+                            tx.getTxInputs().get(0).getPubKey(),
+                            getIssuanceType(tx));
+                    daoState.putIssuance(issuance);
+                    referenceDaoState.getIssuanceMap().put(issuance.getTxId(), issuance);
+                    addUnspentTxOutput(txOutput);
+                } else if (UNSPENT_TX_OUTPUT_TYPES.contains(txOutput.getTxOutputType())) {
+                    addUnspentTxOutput(txOutput);
+                }
+            });
+        });
+    }
+
+    private void addUnspentTxOutput(TxOutput txOutput) {
+        daoState.addUnspentTxOutput(txOutput);
+        referenceDaoState.getUnspentTxOutputMap().put(txOutput.getKey(), txOutput);
+    }
+
+    private void assertStateMatchesReference(int height) {
+        // The reference digests get rebuilt from scratch over the reference maps
+        referenceDaoState.resetStateDigests();
+        List<byte[]> expectedDigests = referenceDaoState.getMapDigests();
+        List<byte[]> digests = daoState.getMapDigests();
+        assertArrayEquals("UTXO map digest at height " + height, expectedDigests.get(0), digests.get(0));
+        assertArrayEquals("Spent info map digest at height " + height, expectedDigests.get(1), digests.get(1));
+        assertArrayEquals("Issuance map digest at height " + height, expectedDigests.get(2), digests.get(2));
+
+        // The version 1 hash like created by the DaoStateMonitoringService. We chain the hashes of the checked blocks.
+        byte[] expectedHash = getVersion1Hash(referenceDaoState);
+        assertArrayEquals("Version 1 DaoStateHash at height " + height, expectedHash, getVersion1Hash(daoState));
+        prevHash = expectedHash;
+    }
+
+    private byte[] getVersion1Hash(DaoState state) {
+        return Hash.getSha256Ripemd160hash(ArrayUtils.addAll(prevHash, state.getSerializedStateForHashChain()));
+    }
+
+    private static IssuanceType getIssuanceType(Tx tx) {
+        return tx.getTxType() == TxType.REIMBURSEMENT_REQUEST ? IssuanceType.REIMBURSEMENT : IssuanceType.COMPENSATION;
+    }
+
+    // Bucket files are named like BsqBlocks_571001-572000. Returns an empty list if there is no such bucket.
+    private List<Block> readBucket(int firstHeight) throws IOException {
+        String resourceName = String.format("%s/BsqBlocks_%d-%d", BLOCKS_RESOURCE_DIR, firstHeight,
+                firstHeight + BlocksPersistence.BUCKET_SIZE - 1);
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(resourceName)) {
+            if (inputStream == null) {
+                return List.of();
+            }
+            return protobuf.PersistableEnvelope.parseDelimitedFrom(inputStream).getBsqBlockStore().getBlocksList().stream()
+                    .map(Block::fromProto)
+                    .collect(Collectors.toList());
+        }
+    }
+}
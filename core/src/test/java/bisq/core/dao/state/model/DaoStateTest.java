@@ -0,0 +1,74 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.state.model;
+
+import bisq.core.dao.state.model.blockchain.TxOutputKey;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DaoStateTest {
+
+    @Test
+    public void testSnapshotIsNotAffectedByChanges() {
+        DaoState daoState = new DaoState();
+        daoState.setChainHeight(100);
+        daoState.getConfiscatedLockupTxList().add("tx1");
+
+        DaoState snapshot = daoState.getSnapshotExcludingBlocks();
+        daoState.setChainHeight(101);
+        daoState.getConfiscatedLockupTxList().add("tx2");
+
+        assertEquals(100, snapshot.getChainHeight());
+        assertEquals(1, snapshot.getConfiscatedLockupTxList().size());
+        assertEquals(2, daoState.getConfiscatedLockupTxList().size());
+        assertEquals(DaoState.getBsqStateCloneExcludingBlocks(snapshot).getConfiscatedLockupTxListList(),
+                snapshot.getConfiscatedLockupTxList());
+    }
+
+    @Test
+    public void testCollectionIsCopiedOnlyOnceAfterSnapshot() {
+        DaoState daoState = new DaoState();
+        DaoState snapshot = daoState.getSnapshotExcludingBlocks();
+        assertSame(snapshot.getUnspentTxOutputMap(), snapshot.getUnspentTxOutputMap());
+
+        var unspentTxOutputMap = daoState.getUnspentTxOutputMap();
+        assertNotSame(snapshot.getUnspentTxOutputMap(), unspentTxOutputMap);
+        assertSame(unspentTxOutputMap, daoState.getUnspentTxOutputMap());
+    }
+
+    @Test
+    public void testSerializeKeyFormat() {
+        // The format is part of the DaoStateHash version 2 and must not change
+        byte[] expected = {'a', 'b', 'c', 0x00, 0x00, 0x01, 0x02};
+        assertArrayEquals(expected, DaoState.serializeKey(new TxOutputKey("abc", 258)));
+    }
+
+    @Test
+    public void testTxOutputKeyComparatorSortsByTxIdThenIndex() {
+        // TxOutputKey.compareTo would sort "tx:10" before "tx:2"
+        assertTrue(DaoState.TX_OUTPUT_KEY_COMPARATOR.compare(new TxOutputKey("tx", 2), new TxOutputKey("tx", 10)) < 0);
+        assertTrue(DaoState.TX_OUTPUT_KEY_COMPARATOR.compare(new TxOutputKey("tx1", 10), new TxOutputKey("tx2", 2)) < 0);
+        assertEquals(0, DaoState.TX_OUTPUT_KEY_COMPARATOR.compare(new TxOutputKey("tx", 2), new TxOutputKey("tx", 2)));
+    }
+}
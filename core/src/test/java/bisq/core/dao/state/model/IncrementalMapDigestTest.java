@@ -0,0 +1,94 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.state.model;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+
+public class IncrementalMapDigestTest {
+
+    @Test
+    public void testIncrementalDigestMatchesRebuiltDigest() {
+        TreeMap<String, String> map = new TreeMap<>();
+        IncrementalMapDigest<String, String> incrementalDigest = newDigest();
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            map.put("key" + i, "value" + i);
+        }
+        incrementalDigest.getDigest(map);
+
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 200; i++) {
+                String key = "key" + random.nextInt(10000);
+                if (random.nextBoolean()) {
+                    map.put(key, "value" + random.nextInt());
+                } else {
+                    map.remove(key);
+                }
+                incrementalDigest.onChanged(key);
+            }
+
+            assertArrayEquals(newDigest().getDigest(map), incrementalDigest.getDigest(map));
+        }
+    }
+
+    @Test
+    public void testDigestIsIndependentOfInsertionOrder() {
+        TreeMap<String, String> map1 = new TreeMap<>();
+        IncrementalMapDigest<String, String> digest1 = newDigest();
+        digest1.getDigest(map1);
+        TreeMap<String, String> map2 = new TreeMap<>();
+        IncrementalMapDigest<String, String> digest2 = newDigest();
+        digest2.getDigest(map2);
+        for (int i = 0; i < 100; i++) {
+            map1.put("key" + i, "value" + i);
+            digest1.onChanged("key" + i);
+            map2.put("key" + (99 - i), "value" + (99 - i));
+            digest2.onChanged("key" + (99 - i));
+        }
+
+        assertArrayEquals(digest1.getDigest(map1), digest2.getDigest(map2));
+    }
+
+    @Test
+    public void testDigestChangesWithValue() {
+        TreeMap<String, String> map = new TreeMap<>();
+        map.put("key", "value1");
+        IncrementalMapDigest<String, String> digest = newDigest();
+        byte[] before = digest.getDigest(map);
+
+        map.put("key", "value2");
+        digest.onChanged("key");
+
+        assertFalse(Arrays.equals(before, digest.getDigest(map)));
+    }
+
+    private static IncrementalMapDigest<String, String> newDigest() {
+        return new IncrementalMapDigest<>(key -> key.getBytes(StandardCharsets.UTF_8), Comparator.naturalOrder(),
+                value -> value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.state.storage;
+
+import bisq.common.file.FileUtil;
+
+import protobuf.BaseBlock;
+
+import java.nio.file.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IndexedBlocksPersistenceTest {
+    private File storageDir;
+    private IndexedBlocksPersistence persistence;
+
+    @Before
+    public void setUp() throws IOException {
+        storageDir = Files.createTempDirectory("BsqBlocks").toFile();
+        persistence = new IndexedBlocksPersistence(storageDir, "BsqBlocks");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtil.deleteDirectory(storageDir);
+    }
+
+    @Test
+    public void testAppendAndRead() {
+        assertTrue(persistence.isEmpty());
+        persistence.appendBlocks(blocks(100, 149, "a"));
+        persistence.appendBlocks(blocks(150, 159, "a"));
+
+        assertEquals(159, persistence.getLastHeight());
+        assertEquals("a120", persistence.readBlock(120).orElseThrow().getHash());
+        assertFalse(persistence.readBlock(99).isPresent());
+        assertFalse(persistence.readBlock(160).isPresent());
+        assertEquals(IntStream.rangeClosed(140, 159).boxed().collect(Collectors.toList()),
+                heights(persistence.readBlocks(140, 1000)));
+        assertEquals(60, persistence.readBlocks(0, 200).size());
+
+        // A new instance reads the state from the files
+        IndexedBlocksPersistence reopened = new IndexedBlocksPersistence(storageDir, "BsqBlocks");
+        assertEquals(159, reopened.getLastHeight());
+        assertEquals(blocks(100, 159, "a"), reopened.readBlocks(100, 159));
+    }
+
+    @Test
+    public void testAppendReplacesBlocksAtReorg() {
+        persistence.appendBlocks(blocks(100, 159, "a"));
+        persistence.appendBlocks(blocks(155, 165, "b"));
+
+        assertEquals(165, persistence.getLastHeight());
+        assertEquals("a154", persistence.readBlock(154).orElseThrow().getHash());
+        assertEquals("b155", persistence.readBlock(155).orElseThrow().getHash());
+
+        persistence.truncate(130);
+        assertEquals(129, persistence.getLastHeight());
+        persistence.appendBlocks(blocks(130, 131, "c"));
+        assertEquals("c131", new IndexedBlocksPersistence(storageDir, "BsqBlocks").readBlock(131).orElseThrow().getHash());
+    }
+
+    @Test
+    public void testIncompleteIndexEntryIsDroppedAtStartup() throws IOException {
+        persistence.appendBlocks(blocks(100, 109, "a"));
+        // Simulate a crash after the data of the next block but before its complete index entry has been written
+        byte[] nextBlock = blocks(110, 110, "a").get(0).toByteArray();
+        try (RandomAccessFile data = new RandomAccessFile(new File(storageDir, "BsqBlocks.dat"), "rw");
+             RandomAccessFile index = new RandomAccessFile(new File(storageDir, "BsqBlocks.idx"), "rw")) {
+            data.seek(data.length());
+            data.write(nextBlock);
+            index.seek(index.length());
+            index.writeInt(110);
+        }
+
+        IndexedBlocksPersistence reopened = new IndexedBlocksPersistence(storageDir, "BsqBlocks");
+        assertEquals(109, reopened.getLastHeight());
+        reopened.appendBlocks(blocks(110, 111, "a"));
+        assertEquals(blocks(100, 111, "a"), new IndexedBlocksPersistence(storageDir, "BsqBlocks").readBlocks(0, 200));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBlocksMustBeConsecutive() {
+        persistence.appendBlocks(List.of(block(100, "a"), block(102, "a")));
+    }
+
+    private static List<BaseBlock> blocks(int from, int to, String chain) {
+        return IntStream.rangeClosed(from, to)
+                .mapToObj(height -> block(height, chain))
+                .collect(Collectors.toList());
+    }
+
+    private static BaseBlock block(int height, String chain) {
+        return BaseBlock.newBuilder()
+                .setHeight(height)
+                .setTime(1600000000L + height)
+                .setHash(chain + height)
+                .setPreviousBlockHash(chain + (height - 1))
+                .setBlock(protobuf.Block.newBuilder())
+                .build();
+    }
+
+    private static List<Integer> heights(List<BaseBlock> blocks) {
+        return blocks.stream().map(BaseBlock::getHeight).collect(Collectors.toList());
+    }
+}
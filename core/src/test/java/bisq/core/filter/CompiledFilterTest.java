@@ -0,0 +1,93 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.filter;
+
+import bisq.core.payment.payload.PaymentMethod;
+import bisq.core.payment.payload.SepaAccountPayload;
+
+import bisq.network.p2p.NodeAddress;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CompiledFilterTest {
+    @Test
+    public void testNullFilterBansNothing() {
+        CompiledFilter compiledFilter = CompiledFilter.from(null);
+
+        assertSame(CompiledFilter.EMPTY, compiledFilter);
+        assertFalse(compiledFilter.isOfferIdBanned("offerId"));
+        assertFalse(compiledFilter.isNodeAddressBanned(new NodeAddress("localhost:9999")));
+        assertFalse(compiledFilter.isDisablePowMessage());
+        assertFalse(compiledFilter.arePeersPaymentAccountDataBanned(newSepaAccountPayload("Alice")));
+    }
+
+    @Test
+    public void testBannedValuesAreLookedUp() {
+        Filter filter = mock(Filter.class);
+        when(filter.getBannedOfferIds()).thenReturn(List.of("offerId"));
+        when(filter.getNodeAddressesBannedFromTrading()).thenReturn(List.of("localhost:9999"));
+        when(filter.getBannedCurrencies()).thenReturn(List.of("EUR"));
+        when(filter.getBannedPaymentMethods()).thenReturn(List.of(PaymentMethod.SEPA_ID));
+        CompiledFilter compiledFilter = CompiledFilter.from(filter);
+
+        assertTrue(compiledFilter.isOfferIdBanned("offerId"));
+        assertFalse(compiledFilter.isOfferIdBanned("otherOfferId"));
+        assertTrue(compiledFilter.isNodeAddressBanned(new NodeAddress("localhost:9999")));
+        assertFalse(compiledFilter.isNodeAddressBannedFromNetwork(new NodeAddress("localhost:9999")));
+        assertTrue(compiledFilter.isCurrencyBanned("EUR"));
+        assertFalse(compiledFilter.isCurrencyBanned("USD"));
+        assertTrue(compiledFilter.isPaymentMethodBanned(PaymentMethod.SEPA));
+        assertFalse(compiledFilter.isPaymentMethodBanned(PaymentMethod.SWIFT));
+    }
+
+    @Test
+    public void testPaymentAccountDataIsMatchedIgnoringCase() {
+        Filter filter = mock(Filter.class);
+        when(filter.getBannedPaymentAccounts()).thenReturn(List.of(
+                new PaymentAccountFilter(PaymentMethod.SEPA_ID, "getHolderName", "Alice"),
+                new PaymentAccountFilter(PaymentMethod.SEPA_ID, "getIban", "DE89370400440532013000"),
+                new PaymentAccountFilter(PaymentMethod.SEPA_ID, "getUnknownField", "Bob"),
+                new PaymentAccountFilter(PaymentMethod.SWIFT_ID, "getHolderName", "Carol")));
+        CompiledFilter compiledFilter = CompiledFilter.from(filter);
+
+        assertTrue(compiledFilter.arePeersPaymentAccountDataBanned(newSepaAccountPayload("Alice")));
+        assertTrue(compiledFilter.arePeersPaymentAccountDataBanned(newSepaAccountPayload("aLICE")));
+        assertFalse(compiledFilter.arePeersPaymentAccountDataBanned(newSepaAccountPayload("Bob")));
+        assertFalse(compiledFilter.arePeersPaymentAccountDataBanned(newSepaAccountPayload("Carol")));
+        assertFalse(compiledFilter.arePeersPaymentAccountDataBanned(null));
+
+        SepaAccountPayload bannedIban = newSepaAccountPayload("Dave");
+        bannedIban.setIban("de89370400440532013000");
+        assertTrue(compiledFilter.arePeersPaymentAccountDataBanned(bannedIban));
+    }
+
+    private static SepaAccountPayload newSepaAccountPayload(String holderName) {
+        SepaAccountPayload payload = new SepaAccountPayload(PaymentMethod.SEPA_ID, "id", Collections.emptyList());
+        payload.setHolderName(holderName);
+        return payload;
+    }
+}
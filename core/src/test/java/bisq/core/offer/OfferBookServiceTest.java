@@ -0,0 +1,176 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.offer;
+
+import bisq.core.filter.FilterManager;
+import bisq.core.offer.bisq_v1.OfferPayload;
+import bisq.core.provider.price.PriceFeedService;
+
+import bisq.network.p2p.P2PService;
+import bisq.network.p2p.storage.HashMapChangedListener;
+import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
+
+import java.nio.file.Files;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+import org.mockito.ArgumentCaptor;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OfferBookServiceTest {
+    private OfferBookService offerBookService;
+    private HashMapChangedListener hashMapChangedListener;
+    private final List<Offer> addedOffers = new ArrayList<>();
+    private final List<Offer> removedOffers = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        P2PService p2PService = mock(P2PService.class);
+        when(p2PService.getDataMap()).thenReturn(new HashMap<>());
+        File storageDir = Files.createTempDirectory("OfferBookServiceTest").toFile();
+        storageDir.deleteOnExit();
+        offerBookService = new OfferBookService(p2PService,
+                mock(PriceFeedService.class),
+                mock(FilterManager.class),
+                storageDir,
+                false);
+
+        ArgumentCaptor<HashMapChangedListener> captor = ArgumentCaptor.forClass(HashMapChangedListener.class);
+        verify(p2PService).addHashSetChangedListener(captor.capture());
+        hashMapChangedListener = captor.getValue();
+
+        offerBookService.addOfferBookChangedListener(new OfferBookService.OfferBookChangedListener() {
+            @Override
+            public void onAdded(Offer offer) {
+                addedOffers.add(offer);
+            }
+
+            @Override
+            public void onRemoved(Offer offer) {
+                removedOffers.add(offer);
+            }
+        });
+    }
+
+    @Test
+    public void testOffersAreIndexedByCurrencyCodeAndDirection() {
+        hashMapChangedListener.onAdded(List.of(
+                createEntry("1", "BTC", "EUR", OfferDirection.BUY),
+                createEntry("2", "BTC", "EUR", OfferDirection.SELL),
+                createEntry("3", "XMR", "BTC", OfferDirection.BUY)));
+
+        assertEquals(3, offerBookService.getOffers().size());
+        assertEquals(2, offerBookService.getOffers("EUR").size());
+        assertEquals(1, offerBookService.getOffers("XMR").size());
+        assertTrue(offerBookService.getOffers("USD").isEmpty());
+        assertEquals("2", offerBookService.getOffers("EUR", OfferDirection.SELL).get(0).getId());
+        assertEquals(1, offerBookService.getOffers("EUR", OfferDirection.BUY).size());
+        assertEquals("3", offerBookService.getOffers("XMR", OfferDirection.BUY).get(0).getId());
+        assertTrue(offerBookService.getOffers("XMR", OfferDirection.SELL).isEmpty());
+    }
+
+    @Test
+    public void testOfferInstancesAreReused() {
+        ProtectedStorageEntry entry = createEntry("1", "BTC", "EUR", OfferDirection.BUY);
+        hashMapChangedListener.onAdded(List.of(entry));
+
+        Offer offer = offerBookService.getOffers().get(0);
+        assertSame(offer, addedOffers.get(0));
+        assertSame(offer, offerBookService.getOffers("EUR").get(0));
+
+        hashMapChangedListener.onRemoved(List.of(entry));
+        assertSame(offer, removedOffers.get(0));
+        assertTrue(offerBookService.getOffers().isEmpty());
+        assertTrue(offerBookService.getOffers("EUR").isEmpty());
+        assertTrue(offerBookService.getOffers("EUR", OfferDirection.BUY).isEmpty());
+    }
+
+    @Test
+    public void testEditedOfferAddedBeforeRemovalOfOldOne() {
+        ProtectedStorageEntry oldEntry = createEntry("1", "BTC", "EUR", OfferDirection.BUY);
+        ProtectedStorageEntry editedEntry = createEntry("1", "BTC", "EUR", OfferDirection.BUY);
+        hashMapChangedListener.onAdded(List.of(oldEntry));
+        hashMapChangedListener.onAdded(List.of(editedEntry));
+        hashMapChangedListener.onRemoved(List.of(oldEntry));
+
+        List<Offer> offers = offerBookService.getOffers("EUR");
+        assertEquals(1, offers.size());
+        assertSame(editedEntry.getProtectedStoragePayload(), offers.get(0).getOfferPayloadBase());
+    }
+
+    @Test
+    public void testListenersGetOneCallPerBatch() {
+        List<Collection<Offer>> addedBatches = new ArrayList<>();
+        offerBookService.addOfferBookChangedListener(new OfferBookService.OfferBookChangedListener() {
+            @Override
+            public void onAdded(Offer offer) {
+                throw new IllegalStateException("Batch listener must not be called per offer");
+            }
+
+            @Override
+            public void onRemoved(Offer offer) {
+            }
+
+            @Override
+            public void onAdded(Collection<Offer> offers) {
+                addedBatches.add(offers);
+            }
+        });
+
+        hashMapChangedListener.onAdded(List.of(
+                createEntry("1", "BTC", "EUR", OfferDirection.BUY),
+                createEntry("2", "BTC", "EUR", OfferDirection.SELL)));
+
+        assertEquals(1, addedBatches.size());
+        assertEquals(2, addedBatches.get(0).size());
+        // Listeners which only implement the per offer callbacks still get each offer
+        assertEquals(2, addedOffers.size());
+    }
+
+    private static int nextHash = 0;
+
+    private static ProtectedStorageEntry createEntry(String id,
+                                                     String baseCurrencyCode,
+                                                     String counterCurrencyCode,
+                                                     OfferDirection direction) {
+        OfferPayload offerPayload = mock(OfferPayload.class);
+        when(offerPayload.getId()).thenReturn(id);
+        when(offerPayload.getHash()).thenReturn(new byte[]{(byte) nextHash++});
+        when(offerPayload.getBaseCurrencyCode()).thenReturn(baseCurrencyCode);
+        when(offerPayload.getCounterCurrencyCode()).thenReturn(counterCurrencyCode);
+        when(offerPayload.getDirection()).thenReturn(direction);
+        ProtectedStorageEntry entry = mock(ProtectedStorageEntry.class);
+        when(entry.getProtectedStoragePayload()).thenReturn(offerPayload);
+        return entry;
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade;
+
+import bisq.core.btc.wallet.BsqWalletService;
+import bisq.core.monetary.Volume;
+import bisq.core.offer.Offer;
+import bisq.core.offer.OfferDirection;
+import bisq.core.offer.OpenOffer;
+import bisq.core.offer.bisq_v1.OfferPayload;
+import bisq.core.provider.price.MarketPrice;
+import bisq.core.provider.price.PriceFeedService;
+import bisq.core.trade.bisq_v1.CleanupMailboxMessagesService;
+import bisq.core.trade.bisq_v1.DumpDelayedPayoutTx;
+import bisq.core.trade.bsq_swap.BsqSwapTradeManager;
+import bisq.core.trade.model.Tradable;
+import bisq.core.trade.model.TradableList;
+import bisq.core.trade.model.bisq_v1.Trade;
+import bisq.core.trade.model.bsq_swap.BsqSwapTrade;
+import bisq.core.trade.statistics.TradeStatisticsManager;
+import bisq.core.user.Preferences;
+
+import bisq.network.p2p.NodeAddress;
+
+import bisq.common.crypto.Encryption;
+import bisq.common.crypto.KeyRing;
+import bisq.common.crypto.PubKeyRing;
+import bisq.common.crypto.Sig;
+import bisq.common.persistence.PersistenceManager;
+import bisq.common.proto.persistable.PersistableEnvelope;
+
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.utils.Fiat;
+
+import java.time.Instant;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ClosedTradableManagerTest {
+    private ClosedTradableManager closedTradableManager;
+    private PriceFeedService priceFeedService;
+    private PersistenceManager<TradableList<Tradable>> persistenceManager;
+    private List<BsqSwapTrade> confirmedBsqSwapTrades;
+
+    @SuppressWarnings("unchecked")
+    @Before
+    public void setUp() {
+        confirmedBsqSwapTrades = new ArrayList<>();
+        BsqSwapTradeManager bsqSwapTradeManager = mock(BsqSwapTradeManager.class);
+        when(bsqSwapTradeManager.getConfirmedBsqSwapTrades())
+                .thenAnswer(invocation -> confirmedBsqSwapTrades.stream());
+        priceFeedService = mock(PriceFeedService.class);
+        persistenceManager = mock(PersistenceManager.class);
+        closedTradableManager = new ClosedTradableManager(mock(KeyRing.class),
+                priceFeedService,
+                bsqSwapTradeManager,
+                mock(BsqWalletService.class),
+                mock(Preferences.class),
+                mock(TradeStatisticsManager.class),
+                persistenceManager,
+                mock(CleanupMailboxMessagesService.class),
+                mock(DumpDelayedPayoutTx.class));
+    }
+
+    @Test
+    public void testIndexesAndAggregatesFollowAddAndRemove() {
+        NodeAddress peer = new NodeAddress("peer.onion:9999");
+        Trade trade1 = mockTrade("id1", peer, 100_000, 2_000, "EUR", 300_000);
+        Trade trade2 = mockTrade("id2", new NodeAddress("peer.onion", 9999), 200_000, 3_000, "EUR", 600_000);
+        Trade trade3 = mockTrade("id3", new NodeAddress("other.onion:9999"), 50_000, 1_000, "USD", 200_000);
+
+        closedTradableManager.add(trade1);
+        closedTradableManager.add(trade2);
+        closedTradableManager.add(trade3);
+
+        assertSame(trade2, closedTradableManager.getTradableById("id2").orElseThrow());
+        assertFalse(closedTradableManager.getTradableById("unknown").isPresent());
+        assertEquals(2, closedTradableManager.getNumClosedTradesWithPeer(peer));
+        assertEquals(2, closedTradableManager.getNumPastTrades(trade1));
+        assertEquals(Coin.valueOf(350_000), closedTradableManager.getTotalAmount());
+        assertEquals(Coin.valueOf(6_000), closedTradableManager.getTotalTxFee());
+        assertEquals(900_000L, (long) closedTradableManager.getTotalVolumeByCurrency().get("EUR"));
+        assertEquals(200_000L, (long) closedTradableManager.getTotalVolumeByCurrency().get("USD"));
+        assertEquals(3, closedTradableManager.getClosedTrades().size());
+
+        closedTradableManager.remove(trade1);
+        closedTradableManager.remove(trade3);
+
+        assertFalse(closedTradableManager.getTradableById("id1").isPresent());
+        assertEquals(1, closedTradableManager.getNumClosedTradesWithPeer(peer));
+        assertEquals(Coin.valueOf(200_000), closedTradableManager.getTotalAmount());
+        assertEquals(Coin.valueOf(3_000), closedTradableManager.getTotalTxFee());
+        assertFalse(closedTradableManager.getTotalVolumeByCurrency().containsKey("USD"));
+        assertEquals(1, closedTradableManager.getClosedTrades().size());
+    }
+
+    @Test
+    public void testFirstTradableWinsForDuplicateIds() {
+        NodeAddress peer = new NodeAddress("peer.onion:9999");
+        Trade first = mockTrade("id", peer, 100_000, 2_000, "EUR", 300_000);
+        Trade second = mockTrade("id", peer, 100_000, 2_000, "EUR", 300_000);
+
+        closedTradableManager.add(first);
+        closedTradableManager.add(second);
+        assertSame(first, closedTradableManager.getTradableById("id").orElseThrow());
+
+        closedTradableManager.remove(first);
+        assertSame(second, closedTradableManager.getTradableById("id").orElseThrow());
+
+        closedTradableManager.remove(second);
+        assertTrue(closedTradableManager.getTradableById("id").isEmpty());
+        assertEquals(0, closedTradableManager.getNumClosedTradesWithPeer(peer));
+    }
+
+    @Test
+    public void testTotalsMatchClosedTradableUtil() {
+        Trade trade = mockTrade("id1", new NodeAddress("peer.onion:9999"), 100_000, 2_000, "EUR", 300_000);
+        when(trade.getOffer()).thenReturn(mock(Offer.class));
+        closedTradableManager.add(trade);
+
+        Offer canceledOffer = mock(Offer.class);
+        when(canceledOffer.getVolume()).thenReturn(new Volume(Fiat.valueOf("EUR", 50_000)));
+        OpenOffer openOffer = mock(OpenOffer.class);
+        when(openOffer.getId()).thenReturn("id2");
+        when(openOffer.getDate()).thenReturn(new Date());
+        when(openOffer.getOffer()).thenReturn(canceledOffer);
+        closedTradableManager.add(openOffer);
+
+        Offer bsqSwapOffer = mock(Offer.class);
+        when(bsqSwapOffer.isMyOffer(any())).thenReturn(true);
+        BsqSwapTrade bsqSwapTrade = mock(BsqSwapTrade.class);
+        when(bsqSwapTrade.getOffer()).thenReturn(bsqSwapOffer);
+        when(bsqSwapTrade.getOptionalAmountAsLong()).thenReturn(Optional.of(30_000L));
+        when(bsqSwapTrade.getOptionalTxFee()).thenReturn(Optional.of(Coin.valueOf(500)));
+        when(bsqSwapTrade.getOptionalMakerFee()).thenReturn(Optional.of(Coin.valueOf(40)));
+        when(bsqSwapTrade.getOptionalVolume()).thenReturn(Optional.of(new Volume(Fiat.valueOf("USD", 10_000))));
+        confirmedBsqSwapTrades.add(bsqSwapTrade);
+
+        assertEquals(Coin.valueOf(130_000), closedTradableManager.getTotalAmount());
+        assertEquals(Coin.valueOf(2_500), closedTradableManager.getTotalTxFee());
+        assertEquals(Map.of("EUR", 350_000L, "USD", 10_000L), closedTradableManager.getTotalVolumeByCurrency());
+        assertEquals(Coin.valueOf(40), closedTradableManager.getTotalTradeFee(false));
+
+        // BsqSwap trades get counted once they are confirmed
+        confirmedBsqSwapTrades.clear();
+        assertEquals(Coin.valueOf(100_000), closedTradableManager.getTotalAmount());
+        assertEquals(Map.of("EUR", 350_000L), closedTradableManager.getTotalVolumeByCurrency());
+
+        closedTradableManager.remove(openOffer);
+        assertEquals(Map.of("EUR", 300_000L), closedTradableManager.getTotalVolumeByCurrency());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testCanceledMarketPriceOfferVolumeFollowsPriceFeed() {
+        // The canceled offer goes through the same proto round trip as when it is read from the ClosedTrades file
+        TradableList<Tradable> closedTrades = new TradableList<>();
+        closedTrades.add(new OpenOffer(new Offer(createMarketPriceOfferPayload()), OpenOffer.State.CANCELED));
+        protobuf.PersistableEnvelope proto = (protobuf.PersistableEnvelope) closedTrades.toProtoMessage();
+        TradableList<Tradable> persisted = TradableList.fromProto(proto.getTradableList(), null, null);
+        doAnswer(invocation -> {
+            ((Consumer<PersistableEnvelope>) invocation.getArgument(0)).accept(persisted);
+            return null;
+        }).when(persistenceManager).readPersisted(any(Consumer.class), any(Runnable.class));
+
+        // No market price has arrived yet
+        closedTradableManager.readPersisted(() -> {
+        });
+        OpenOffer openOffer = (OpenOffer) closedTradableManager.getTradableById("id").orElseThrow();
+        assertNull(openOffer.getOffer().getVolume());
+        assertTrue(closedTradableManager.getTotalVolumeByCurrency().isEmpty());
+
+        setMarketPrice(50_000);
+        long volumeAtFirstPrice = openOffer.getOffer().getVolume().getValue();
+        assertEquals(Map.of("USD", volumeAtFirstPrice), closedTradableManager.getTotalVolumeByCurrency());
+
+        setMarketPrice(60_000);
+        long volumeAtSecondPrice = openOffer.getOffer().getVolume().getValue();
+        assertTrue(volumeAtSecondPrice > volumeAtFirstPrice);
+        assertEquals(Map.of("USD", volumeAtSecondPrice), closedTradableManager.getTotalVolumeByCurrency());
+
+        closedTradableManager.remove(openOffer);
+        assertTrue(closedTradableManager.getTotalVolumeByCurrency().isEmpty());
+    }
+
+    private void setMarketPrice(double price) {
+        when(priceFeedService.getMarketPrice("USD"))
+                .thenReturn(new MarketPrice("USD", price, Instant.now().getEpochSecond(), true));
+    }
+
+    private static OfferPayload createMarketPriceOfferPayload() {
+        PubKeyRing pubKeyRing = new PubKeyRing(Sig.generateKeyPair().getPublic(),
+                Encryption.generateKeyPair().getPublic());
+        return new OfferPayload("id",
+                new Date().getTime(),
+                new NodeAddress("maker.onion:9999"),
+                pubKeyRing,
+                OfferDirection.BUY,
+                0L,
+                0.01,
+                true,
+                100_000_000L,
+                100_000_000L,
+                "BTC",
+                "USD",
+                List.of(),
+                List.of(),
+                "SEPA",
+                "makerPaymentAccountId",
+                "offerFeePaymentTxId",
+                null,
+                null,
+                null,
+                null,
+                "1.0.0",
+                0L,
+                0L,
+                0L,
+                true,
+                0L,
+                0L,
+                0L,
+                0L,
+                false,
+                false,
+                0L,
+                0L,
+                false,
+                null,
+                null,
+                0);
+    }
+
+    private static Trade mockTrade(String id,
+                                   NodeAddress peer,
+                                   long amount,
+                                   long txFee,
+                                   String currencyCode,
+                                   long volume) {
+        Trade trade = mock(Trade.class);
+        when(trade.getId()).thenReturn(id);
+        when(trade.getDate()).thenReturn(new Date());
+        when(trade.getTradingPeerNodeAddress()).thenReturn(peer);
+        when(trade.getAmountAsLong()).thenReturn(amount);
+        when(trade.getTxFee()).thenReturn(Coin.valueOf(txFee));
+        when(trade.getVolume()).thenReturn(new Volume(Fiat.valueOf(currencyCode, volume)));
+        return trade;
+    }
+}
@@ -22,6 +22,7 @@ import bisq.core.api.model.CanceledTradeInfo;
 import bisq.core.api.model.TradeInfo;
 import bisq.core.offer.Offer;
 import bisq.core.offer.OpenOffer;
+import bisq.core.trade.model.Tradable;
 import bisq.core.trade.model.TradeModel;
 import bisq.core.trade.model.bisq_v1.Trade;
 import bisq.core.trade.model.bsq_swap.BsqSwapTrade;
@@ -50,7 +51,6 @@ import io.grpc.stub.StreamObserver;
 
 import javax.inject.Inject;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
@@ -157,10 +157,14 @@ class GrpcTradesService extends TradesImplBase {
                           StreamObserver<GetTradesReply> responseObserver) {
         try {
             var category = req.getCategory();
-            var trades = category.equals(OPEN)
-                    ? coreApi.getOpenTrades()
-                    : coreApi.getTradeHistory(category);
-            var reply = buildGetTradesReply(trades, category);
+            List<? extends Tradable> tradables;
+            if (category.equals(OPEN))
+                tradables = coreApi.getOpenTrades();
+            else if (category.equals(CLOSED))
+                tradables = coreApi.getClosedTradeHistory(req.getOffset(), req.getLimit());
+            else
+                tradables = coreApi.getTradeHistory(category);
+            var reply = buildGetTradesReply(tradables, category);
             responseObserver.onNext(reply);
             responseObserver.onCompleted();
         } catch (IllegalArgumentException cause) {
@@ -315,10 +319,13 @@ class GrpcTradesService extends TradesImplBase {
     }
 
 
-    private GetTradesReply buildGetTradesReply(List<TradeModel> trades, GetTradesRequest.Category category) {
+    private GetTradesReply buildGetTradesReply(List<? extends Tradable> tradables,
+                                               GetTradesRequest.Category category) {
         // Build an unsorted List<TradeInfo>, starting with
         // all pending, or all completed BsqSwap and v1 trades.
-        List<TradeInfo> unsortedTrades = trades.stream()
+        List<TradeInfo> unsortedTrades = tradables.stream()
+                .filter(tradable -> tradable instanceof TradeModel)
+                .map(tradable -> (TradeModel) tradable)
                 .map(tradeModel -> {
                     var role = coreApi.getTradeRole(tradeModel);
                     var isMyOffer = coreApi.isMyOffer(tradeModel.getOffer());
@@ -335,17 +342,12 @@ class GrpcTradesService extends TradesImplBase {
                 })
                 .collect(Collectors.toList());
 
-        // If closed trades were requested, add any canceled
-        // OpenOffers (canceled trades) to the unsorted List<TradeInfo>.
-        Optional<List<OpenOffer>> canceledOpenOffers = category.equals(CLOSED)
-                ? Optional.of(coreApi.getCanceledOpenOffers())
-                : Optional.empty();
-        List<TradeInfo> canceledTrades = new ArrayList<>();
-        canceledOpenOffers.ifPresent(openOffers -> canceledTrades.addAll(
-                openOffers.stream()
-                        .map(CanceledTradeInfo::toCanceledTradeInfo)
-                        .collect(Collectors.toList())
-        ));
+        // If closed trades were requested, the list also contains the canceled
+        // OpenOffers (canceled trades), add them to the unsorted List<TradeInfo>.
+        List<TradeInfo> canceledTrades = tradables.stream()
+                .filter(tradable -> tradable instanceof OpenOffer)
+                .map(tradable -> CanceledTradeInfo.toCanceledTradeInfo((OpenOffer) tradable))
+                .collect(Collectors.toList());
         unsortedTrades.addAll(canceledTrades);
 
         // Sort the cumulative List<TradeInfo> by date before sending it to the client.
@@ -31,10 +31,14 @@ import javax.inject.Singleton;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
@@ -70,51 +74,25 @@ public class OfferBook {
         offerBookService.addOfferBookChangedListener(new OfferBookService.OfferBookChangedListener() {
             @Override
             public void onAdded(Offer offer) {
-                printOfferBookListItems("Before onAdded");
-                // We get onAdded called every time a new ProtectedStorageEntry is received.
-                // Mostly it is the same OfferPayload but the ProtectedStorageEntry is different.
-                // We filter here to only add new offers if the same offer (using equals) was not already added and it
-                // is not banned.
-
-                if (filterManager.isOfferIdBanned(offer.getId())) {
-                    log.debug("Ignored banned offer. ID={}", offer.getId());
-                    return;
-                }
-
-                if (offer.isBsqSwapOffer() && !filterManager.isProofOfWorkValid(offer)) {
-                    log.info("Proof of work of offer with id {} is not valid.", offer.getId());
-                    return;
-                }
+                onAdded(Collections.singletonList(offer));
+            }
 
-                if (OfferRestrictions.requiresNodeAddressUpdate() && !Utils.isV3Address(offer.getMakerNodeAddress().getHostName())) {
-                    log.debug("Ignored offer with Tor v2 node address. ID={}", offer.getId());
-                    return;
-                }
+            @Override
+            public void onRemoved(Offer offer) {
+                onRemoved(Collections.singletonList(offer));
+            }
 
-                // Use offer.equals(offer) to see if the OfferBook list contains an exact
-                // match -- offer.equals(offer) includes comparisons of payload, state
-                // and errorMessage.
-                boolean hasSameOffer = offerBookListItems.stream().anyMatch(item -> item.getOffer().equals(offer));
-                if (!hasSameOffer) {
-                    OfferBookListItem newOfferBookListItem = new OfferBookListItem(offer);
-                    removeDuplicateItem(newOfferBookListItem);
-                    offerBookListItems.add(newOfferBookListItem);  // Add replacement.
-                    if (log.isDebugEnabled()) {  // TODO delete debug stmt in future PR.
-                        log.debug("onAdded: Added new offer {}\n"
-                                        + "\twith newItem.payloadHash: {}",
-                                offer.getId(),
-                                newOfferBookListItem.hashOfPayload.getHex());
-                    }
-                } else {
-                    log.debug("We have the exact same offer already in our list and ignore the onAdded call. ID={}", offer.getId());
-                }
+            @Override
+            public void onAdded(Collection<Offer> offers) {
+                printOfferBookListItems("Before onAdded");
+                addOffers(offers);
                 printOfferBookListItems("After onAdded");
             }
 
             @Override
-            public void onRemoved(Offer offer) {
+            public void onRemoved(Collection<Offer> offers) {
                 printOfferBookListItems("Before onRemoved");
-                removeOffer(offer);
+                removeOffers(offers);
                 printOfferBookListItems("After onRemoved");
             }
         });
@@ -134,79 +112,120 @@ public class OfferBook {
         toRemove.forEach(offerBookListItems::remove);
     }
 
-    private void removeDuplicateItem(OfferBookListItem newOfferBookListItem) {
-        String offerId = newOfferBookListItem.getOffer().getId();
-        // We need to remove any view items with a matching offerId before
-        // a newOfferBookListItem is added to the view.
-        List<OfferBookListItem> duplicateItems = offerBookListItems.stream()
-                .filter(item -> item.getOffer().getId().equals(offerId))
-                .collect(Collectors.toList());
-        duplicateItems.forEach(oldOfferItem -> {
-            offerBookListItems.remove(oldOfferItem);
+    private void addOffers(Collection<Offer> offers) {
+        // We get onAdded called every time a new ProtectedStorageEntry is received.
+        // Mostly it is the same OfferPayload but the ProtectedStorageEntry is different.
+        // We filter here to only add new offers if the same offer (using equals) was not already added and it
+        // is not banned.
+        // Use offer.equals(offer) to see if the OfferBook list contains an exact
+        // match -- offer.equals(offer) includes comparisons of payload, state
+        // and errorMessage.
+        Set<Offer> offersInList = offerBookListItems.stream()
+                .map(OfferBookListItem::getOffer)
+                .collect(Collectors.toSet());
+        // A later offer with the same offerId replaces an earlier one of the same batch
+        Map<String, OfferBookListItem> newItemsByOfferId = new LinkedHashMap<>();
+        offers.forEach(offer -> {
+            if (filterManager.isOfferIdBanned(offer.getId())) {
+                log.debug("Ignored banned offer. ID={}", offer.getId());
+                return;
+            }
+
+            if (offer.isBsqSwapOffer() && !filterManager.isProofOfWorkValid(offer)) {
+                log.info("Proof of work of offer with id {} is not valid.", offer.getId());
+                return;
+            }
+
+            if (OfferRestrictions.requiresNodeAddressUpdate() && !Utils.isV3Address(offer.getMakerNodeAddress().getHostName())) {
+                log.debug("Ignored offer with Tor v2 node address. ID={}", offer.getId());
+                return;
+            }
+
+            if (offersInList.contains(offer)) {
+                log.debug("We have the exact same offer already in our list and ignore the onAdded call. ID={}", offer.getId());
+                return;
+            }
+
+            OfferBookListItem newOfferBookListItem = new OfferBookListItem(offer);
+            newItemsByOfferId.put(offer.getId(), newOfferBookListItem);
             if (log.isDebugEnabled()) {  // TODO delete debug stmt in future PR.
-                log.debug("onAdded: Removed old offer {}\n"
-                                + "\twith payload hash {} from list.\n"
-                                + "\tThis may make a subsequent onRemoved( {} ) call redundant.",
-                        offerId,
-                        oldOfferItem.getHashOfPayload().getHex(),
-                        oldOfferItem.getOffer().getId());
+                log.debug("onAdded: Added new offer {}\n"
+                                + "\twith newItem.payloadHash: {}",
+                        offer.getId(),
+                        newOfferBookListItem.hashOfPayload.getHex());
             }
         });
+        if (newItemsByOfferId.isEmpty()) {
+            return;
+        }
+
+        // We need to remove any view items with a matching offerId before
+        // the new items are added to the view.
+        List<OfferBookListItem> duplicateItems = offerBookListItems.stream()
+                .filter(item -> newItemsByOfferId.containsKey(item.getOffer().getId()))
+                .collect(Collectors.toList());
+        if (log.isDebugEnabled()) {  // TODO delete debug stmt in future PR.
+            duplicateItems.forEach(oldOfferItem -> log.debug("onAdded: Removed old offer {}\n"
+                            + "\twith payload hash {} from list.\n"
+                            + "\tThis may make a subsequent onRemoved( {} ) call redundant.",
+                    oldOfferItem.getOffer().getId(),
+                    oldOfferItem.getHashOfPayload().getHex(),
+                    oldOfferItem.getOffer().getId()));
+        }
+        // Each change of the list triggers the listeners of the UI, so we apply the batch with 2 changes
+        if (!duplicateItems.isEmpty()) {
+            offerBookListItems.removeAll(new HashSet<>(duplicateItems));
+        }
+        offerBookListItems.addAll(newItemsByOfferId.values());  // Add replacements.
     }
 
     public void removeOffer(Offer offer) {
-        // Update state in case that that offer is used in the take offer screen, so it gets updated correctly
-        offer.setState(Offer.State.REMOVED);
-        offer.cancelAvailabilityRequest();
+        removeOffers(Collections.singletonList(offer));
+    }
 
-        P2PDataStorage.ByteArray hashOfPayload = new P2PDataStorage.ByteArray(offer.getOfferPayloadHash());
+    private void removeOffers(Collection<Offer> offers) {
+        Map<P2PDataStorage.ByteArray, OfferBookListItem> itemsByHashOfPayload = offerBookListItems.stream()
+                .collect(Collectors.toMap(OfferBookListItem::getHashOfPayload, item -> item, (first, second) -> first));
+        Set<OfferBookListItem> itemsToRemove = new HashSet<>();
+        offers.forEach(offer -> {
+            // Update state in case that that offer is used in the take offer screen, so it gets updated correctly
+            offer.setState(Offer.State.REMOVED);
+            offer.cancelAvailabilityRequest();
 
-        if (log.isDebugEnabled()) {  // TODO delete debug stmt in future PR.
-            log.debug("onRemoved: id = {}\n"
-                            + "\twith payload-hash = {}",
-                    offer.getId(),
-                    hashOfPayload.getHex());
-        }
+            P2PDataStorage.ByteArray hashOfPayload = new P2PDataStorage.ByteArray(offer.getOfferPayloadHash());
 
-        // Find the removal candidate in the OfferBook list with matching offerId and payload-hash.
-        Optional<OfferBookListItem> candidateWithMatchingPayloadHash = offerBookListItems.stream()
-                .filter(item -> item.getOffer().getId().equals(offer.getId())
-                        && item.hashOfPayload.equals(hashOfPayload))
-                .findAny();
-
-        if (!candidateWithMatchingPayloadHash.isPresent()) {
             if (log.isDebugEnabled()) {  // TODO delete debug stmt in future PR.
-                log.debug("UI view list does not contain offer with id {} and payload-hash {}",
+                log.debug("onRemoved: id = {}\n"
+                                + "\twith payload-hash = {}",
                         offer.getId(),
                         hashOfPayload.getHex());
             }
-            return;
-        }
 
-        OfferBookListItem candidate = candidateWithMatchingPayloadHash.get();
-        // Remove the candidate only if the candidate's offer payload the hash matches the
-        // onRemoved hashOfPayload parameter.  We may receive add/remove messages out of
-        // order from the API's 'editoffer' method, and use the offer payload hash to
-        // ensure we do not remove an edited offer immediately after it was added.
-        if (candidate.getHashOfPayload().equals(hashOfPayload)) {
-            // The payload-hash test passed, remove the candidate and print reason.
-            offerBookListItems.remove(candidate);
+            // Find the removal candidate in the OfferBook list with matching offerId and payload-hash.
+            // We may receive add/remove messages out of order from the API's 'editoffer' method, and use
+            // the offer payload hash to ensure we do not remove an edited offer immediately after it was added.
+            OfferBookListItem candidate = itemsByHashOfPayload.get(hashOfPayload);
+            if (candidate == null || !candidate.getOffer().getId().equals(offer.getId())) {
+                if (log.isDebugEnabled()) {  // TODO delete debug stmt in future PR.
+                    log.debug("UI view list does not contain offer with id {} and payload-hash {}",
+                            offer.getId(),
+                            hashOfPayload.getHex());
+                }
+                return;
+            }
 
+            itemsToRemove.add(candidate);
             if (log.isDebugEnabled()) {  // TODO delete debug stmt in future PR.
                 log.debug("Candidate.payload-hash: {} == onRemoved.payload-hash: {} ?"
                                 + " Yes, removed old offer",
                         candidate.hashOfPayload.getHex(),
                         hashOfPayload.getHex());
             }
-        } else {
-            if (log.isDebugEnabled()) {  // TODO delete debug stmt in future PR.
-                // Candidate's payload-hash test failed:  payload-hash != onRemoved.payload-hash.
-                // Print reason for not removing candidate.
-                log.debug("Candidate.payload-hash: {} == onRemoved.payload-hash: {} ?"
-                                + " No, old offer not removed",
-                        candidate.hashOfPayload.getHex(),
-                        hashOfPayload.getHex());
-            }
+        });
+
+        // Each change of the list triggers the listeners of the UI, so we remove the whole batch at once
+        if (!itemsToRemove.isEmpty()) {
+            offerBookListItems.removeAll(itemsToRemove);
         }
     }
 
@@ -28,7 +28,6 @@ import bisq.core.provider.price.MarketPrice;
 import bisq.core.provider.price.PriceFeedService;
 import bisq.core.trade.ClosedTradableFormatter;
 import bisq.core.trade.ClosedTradableManager;
-import bisq.core.trade.ClosedTradableUtil;
 import bisq.core.trade.bsq_swap.BsqSwapTradeManager;
 import bisq.core.trade.model.Tradable;
 import bisq.core.user.Preferences;
@@ -43,7 +42,7 @@ import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 
-import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -101,12 +100,12 @@ class ClosedTradesDataModel extends ActivatableDataModel {
         return list;
     }
 
-    List<Tradable> getListAsTradables() {
-        return list.stream().map(ClosedTradesListItem::getTradable).collect(Collectors.toList());
+    Coin getTotalAmount() {
+        return closedTradableManager.getTotalAmount();
     }
 
-    Coin getTotalAmount() {
-        return ClosedTradableUtil.getTotalAmount(getListAsTradables());
+    Map<String, Long> getTotalVolumeByCurrency() {
+        return closedTradableManager.getTotalVolumeByCurrency();
     }
 
     Optional<Volume> getVolumeInUserFiatCurrency(Coin amount) {
@@ -128,11 +127,11 @@ class ClosedTradesDataModel extends ActivatableDataModel {
     }
 
     Coin getTotalTxFee() {
-        return ClosedTradableUtil.getTotalTxFee(getListAsTradables());
+        return closedTradableManager.getTotalTxFee();
     }
 
     Coin getTotalTradeFee(boolean expectBtcFee) {
-        return closedTradableManager.getTotalTradeFee(getListAsTradables(), expectBtcFee);
+        return closedTradableManager.getTotalTradeFee(expectBtcFee);
     }
 
     boolean isCurrencyForTradeFeeBtc(Tradable item) {
@@ -54,7 +54,7 @@ public class ClosedTradesViewModel extends ActivatableWithDataModel<ClosedTrades
     }
 
     public Map<String, String> getTotalVolumeByCurrency() {
-        return closedTradableFormatter.getTotalVolumeByCurrencyAsString(dataModel.getListAsTradables());
+        return closedTradableFormatter.getTotalVolumeByCurrencyAsString(dataModel.getTotalVolumeByCurrency());
     }
 
     public String getTotalTxFee(Coin totalTradeAmount) {
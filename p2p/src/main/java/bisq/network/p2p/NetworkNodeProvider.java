@@ -46,6 +46,7 @@ public class NetworkNodeProvider implements Provider<NetworkNode> {
                                BridgeAddressProvider bridgeAddressProvider,
                                @Nullable NetworkFilter networkFilter,
                                @Named(Config.MAX_CONNECTIONS) int maxConnections,
+                               @Named(Config.GLOBAL_SEND_MSG_RATE_PER_SEC) int globalSendMsgRatePerSec,
                                @Named(Config.USE_LOCALHOST_FOR_P2P) boolean useLocalhostForP2P,
                                @Named(Config.NODE_PORT) int port,
                                @Named(Config.TOR_DIR) File torDir,
@@ -57,7 +58,11 @@ public class NetworkNodeProvider implements Provider<NetworkNode> {
                                @Named(Config.TOR_STREAM_ISOLATION) boolean streamIsolation,
                                @Named(Config.TOR_CONTROL_USE_SAFE_COOKIE_AUTH) boolean useSafeCookieAuthentication) {
         if (useLocalhostForP2P) {
-            networkNode = new LocalhostNetworkNode(port, networkProtoResolver, networkFilter, maxConnections);
+            networkNode = new LocalhostNetworkNode(port,
+                    networkProtoResolver,
+                    networkFilter,
+                    maxConnections,
+                    globalSendMsgRatePerSec);
         } else {
             TorMode torMode = getTorMode(bridgeAddressProvider,
                     torDir,
@@ -67,7 +72,13 @@ public class NetworkNodeProvider implements Provider<NetworkNode> {
                     password,
                     cookieFile,
                     useSafeCookieAuthentication);
-            networkNode = new TorNetworkNode(port, networkProtoResolver, streamIsolation, torMode, networkFilter, maxConnections);
+            networkNode = new TorNetworkNode(port,
+                    networkProtoResolver,
+                    streamIsolation,
+                    torMode,
+                    networkFilter,
+                    maxConnections,
+                    globalSendMsgRatePerSec);
         }
     }
 
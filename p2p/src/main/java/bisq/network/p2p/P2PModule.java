@@ -21,6 +21,7 @@ import bisq.network.Socks5ProxyProvider;
 import bisq.network.http.HttpClient;
 import bisq.network.http.HttpClientImpl;
 import bisq.network.p2p.network.Connection;
+import bisq.network.p2p.network.MessageDispatcher;
 import bisq.network.p2p.network.NetworkNode;
 import bisq.network.p2p.peers.Broadcaster;
 import bisq.network.p2p.peers.PeerManager;
@@ -70,6 +71,7 @@ public class P2PModule extends AppModule {
         bind(NetworkNode.class).toProvider(NetworkNodeProvider.class).in(Singleton.class);
         bind(Socks5ProxyProvider.class).in(Singleton.class);
         bind(HttpClient.class).to(HttpClientImpl.class);
+        bind(MessageDispatcher.class).in(Singleton.class);
 
         requestStaticInjection(Connection.class);
 
@@ -80,6 +82,7 @@ public class P2PModule extends AppModule {
         bind(int.class).annotatedWith(named(NODE_PORT)).toInstance(config.nodePort);
 
         bindConstant().annotatedWith(named(MAX_CONNECTIONS)).to(config.maxConnections);
+        bindConstant().annotatedWith(named(GLOBAL_SEND_MSG_RATE_PER_SEC)).to(config.globalSendMsgRatePerSec);
 
         bind(new TypeLiteral<List<String>>(){}).annotatedWith(named(BAN_LIST)).toInstance(config.banList);
         bindConstant().annotatedWith(named(SOCKS_5_PROXY_BTC_ADDRESS)).to(config.socks5ProxyBtcAddress);
@@ -92,6 +95,7 @@ public class P2PModule extends AppModule {
         bindConstant().annotatedWith(named(TOR_CONTROL_USE_SAFE_COOKIE_AUTH)).to(config.useTorControlSafeCookieAuth);
         bindConstant().annotatedWith(named(TOR_STREAM_ISOLATION)).to(config.torStreamIsolation);
         bindConstant().annotatedWith(named("MAX_SEQUENCE_NUMBER_MAP_SIZE_BEFORE_PURGE")).to(1000);
+        bindConstant().annotatedWith(named(P2P_DATA_NOTIFICATION_DELAY)).to(config.p2pDataNotificationDelay);
         bind(Boolean.class).annotatedWith(named(REPUBLISH_MAILBOX_ENTRIES)).toInstance(config.republishMailboxEntries);
     }
 }
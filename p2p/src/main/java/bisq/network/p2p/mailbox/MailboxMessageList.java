@@ -58,6 +58,12 @@ public class MailboxMessageList extends PersistableList<MailboxItem> {
                 .build();
     }
 
+    // MailboxItems are immutable, so a copy of the list is sufficient.
+    @Override
+    public MailboxMessageList toPersistableSnapshot() {
+        return new MailboxMessageList(new ArrayList<>(getList()));
+    }
+
     public static MailboxMessageList fromProto(protobuf.MailboxMessageList proto,
                                                NetworkProtoResolver networkProtoResolver) {
         return new MailboxMessageList(new ArrayList<>(proto.getMailboxItemList().stream()
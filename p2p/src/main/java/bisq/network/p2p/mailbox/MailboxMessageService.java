@@ -68,17 +68,17 @@ import java.time.Clock;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
-import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
@@ -114,6 +114,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 @Slf4j
 public class MailboxMessageService implements HashMapChangedListener, PersistedDataHost {
     private static final long REPUBLISH_DELAY_SEC = TimeUnit.MINUTES.toSeconds(2);
+    private static final int NUM_DECRYPTION_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
 
     private final NetworkNode networkNode;
     private final PeerManager peerManager;
@@ -128,6 +129,12 @@ public class MailboxMessageService implements HashMapChangedListener, PersistedD
     private final Set<DecryptedMailboxListener> decryptedMailboxListeners = new CopyOnWriteArraySet<>();
     private final MailboxMessageList mailboxMessageList = new MailboxMessageList();
     private final Map<String, MailboxItem> mailboxItemsByUid = new HashMap<>();
+    // Bounded pool for decrypting batches of mailbox entries. Idle threads time out.
+    private final ListeningExecutorService decryptionExecutor = Utilities.getListeningExecutorService("decryptMailboxEntry",
+            NUM_DECRYPTION_THREADS,
+            NUM_DECRYPTION_THREADS,
+            60,
+            new LinkedBlockingQueue<>());
 
     private boolean isBootstrapped;
     private boolean allServicesInitialized;
@@ -421,28 +428,36 @@ public class MailboxMessageService implements HashMapChangedListener, PersistedD
 
     private void processSingleMailboxEntry(Collection<ProtectedMailboxStorageEntry> protectedMailboxStorageEntries) {
         checkArgument(protectedMailboxStorageEntries.size() == 1);
-        var mailboxItems = new ArrayList<>(getMailboxItems(protectedMailboxStorageEntries));
-        if (mailboxItems.size() == 1) {
-            handleMailboxItem(mailboxItems.get(0));
-        }
+        ProtectedMailboxStorageEntry protectedMailboxStorageEntry = protectedMailboxStorageEntries.iterator().next();
+        Tuple2<MailboxItem, Boolean> result = isCandidateForDecryption(protectedMailboxStorageEntry) ?
+                tryDecryptProtectedMailboxStorageEntry(protectedMailboxStorageEntry) :
+                new Tuple2<>(new MailboxItem(protectedMailboxStorageEntry, null), false);
+        handleDecryptionResults(List.of(result));
     }
 
-    // We run the batch processing of all mailbox messages we have received at startup in a thread to not block the UI.
-    // For about 1000 messages decryption takes about 1 sec.
+    // We run the batch processing of all mailbox messages we have received at startup off the UserThread to not block
+    // the UI. Entries not addressed to us are filtered out by their receiver key, the remaining candidates get
+    // decrypted in parallel. Results are applied on the UserThread in the order of the creation date of the entries.
     private void threadedBatchProcessMailboxEntries(Collection<ProtectedMailboxStorageEntry> protectedMailboxStorageEntries) {
-        ListeningExecutorService executor = Utilities.getSingleThreadListeningExecutor("processMailboxEntry-" + new Random().nextInt(1000));
         long ts = System.currentTimeMillis();
-        ListenableFuture<Set<MailboxItem>> future = executor.submit(() -> {
-            var mailboxItems = getMailboxItems(protectedMailboxStorageEntries);
-            log.info("Batch processing of {} mailbox entries took {} ms",
-                    protectedMailboxStorageEntries.size(),
-                    System.currentTimeMillis() - ts);
-            return mailboxItems;
-        });
-
-        Futures.addCallback(future, new FutureCallback<>() {
-            public void onSuccess(Set<MailboxItem> decryptedMailboxMessageWithEntries) {
-                UserThread.execute(() -> decryptedMailboxMessageWithEntries.forEach(e -> handleMailboxItem(e)));
+        List<ListenableFuture<Tuple2<MailboxItem, Boolean>>> futures = new ArrayList<>();
+        int numCandidates = 0;
+        for (ProtectedMailboxStorageEntry protectedMailboxStorageEntry : protectedMailboxStorageEntries) {
+            if (isCandidateForDecryption(protectedMailboxStorageEntry)) {
+                futures.add(decryptionExecutor.submit(() -> tryDecryptProtectedMailboxStorageEntry(protectedMailboxStorageEntry)));
+                numCandidates++;
+            } else {
+                futures.add(Futures.immediateFuture(new Tuple2<>(new MailboxItem(protectedMailboxStorageEntry, null), false)));
+            }
+        }
+        int finalNumCandidates = numCandidates;
+        Futures.addCallback(Futures.allAsList(futures), new FutureCallback<>() {
+            public void onSuccess(List<Tuple2<MailboxItem, Boolean>> results) {
+                log.info("Batch processing of {} mailbox entries with {} decryption candidates took {} ms",
+                        protectedMailboxStorageEntries.size(),
+                        finalNumCandidates,
+                        System.currentTimeMillis() - ts);
+                UserThread.execute(() -> handleDecryptionResults(results));
             }
 
             public void onFailure(@NotNull Throwable throwable) {
@@ -451,37 +466,49 @@ public class MailboxMessageService implements HashMapChangedListener, PersistedD
         }, MoreExecutors.directExecutor());
     }
 
-    private Set<MailboxItem> getMailboxItems(Collection<ProtectedMailboxStorageEntry> protectedMailboxStorageEntries) {
-        Set<MailboxItem> mailboxItems = new HashSet<>();
-        protectedMailboxStorageEntries.stream()
-                .map(this::tryDecryptProtectedMailboxStorageEntry)
-                .forEach(mailboxItems::add);
-        return mailboxItems;
+    // Senders use our signature pubKey as receiversPubKey of the mailbox entry (see sendEncryptedMailboxMessage), so
+    // an entry with another receiver key cannot be for us and we skip the expensive decryption attempt.
+    // Entries which failed decryption at an earlier attempt are skipped as well.
+    private boolean isCandidateForDecryption(ProtectedMailboxStorageEntry protectedMailboxStorageEntry) {
+        String uid = protectedMailboxStorageEntry.getMailboxStoragePayload().getPrefixedSealedAndSignedMessage().getUid();
+        return Arrays.equals(protectedMailboxStorageEntry.getReceiversPubKeyBytes(),
+                keyRing.getPubKeyRing().getSignaturePubKeyBytes()) &&
+                !ignoredMailboxService.isIgnored(uid);
     }
 
-    private MailboxItem tryDecryptProtectedMailboxStorageEntry(ProtectedMailboxStorageEntry protectedMailboxStorageEntry) {
-        PrefixedSealedAndSignedMessage prefixedSealedAndSignedMessage = protectedMailboxStorageEntry
-                .getMailboxStoragePayload()
-                .getPrefixedSealedAndSignedMessage();
-        SealedAndSigned sealedAndSigned = prefixedSealedAndSignedMessage.getSealedAndSigned();
-        String uid = prefixedSealedAndSignedMessage.getUid();
-        if (ignoredMailboxService.isIgnored(uid)) {
-            // We had persisted a past failed decryption attempt on that message so we don't try again and return early
-            return new MailboxItem(protectedMailboxStorageEntry, null);
-        }
+    // Is called from the decryption threads, so we must not access any state which is not thread safe. The second
+    // element of the result signals that decryption failed and the entry should be ignored in the future.
+    private Tuple2<MailboxItem, Boolean> tryDecryptProtectedMailboxStorageEntry(ProtectedMailboxStorageEntry protectedMailboxStorageEntry) {
+        SealedAndSigned sealedAndSigned = protectedMailboxStorageEntry.getMailboxStoragePayload()
+                .getPrefixedSealedAndSignedMessage()
+                .getSealedAndSigned();
         try {
             DecryptedMessageWithPubKey decryptedMessageWithPubKey = encryptionService.decryptAndVerify(sealedAndSigned);
             checkArgument(decryptedMessageWithPubKey.getNetworkEnvelope() instanceof MailboxMessage);
-            return new MailboxItem(protectedMailboxStorageEntry, decryptedMessageWithPubKey);
+            return new Tuple2<>(new MailboxItem(protectedMailboxStorageEntry, decryptedMessageWithPubKey), false);
         } catch (CryptoException ignore) {
             // Expected if message was not intended for us
-            // We persist those entries so at the next startup we do not need to try to decrypt it anymore
-            ignoredMailboxService.ignore(uid, protectedMailboxStorageEntry.getCreationTimeStamp());
+            return new Tuple2<>(new MailboxItem(protectedMailboxStorageEntry, null), true);
         } catch (ProtobufferException e) {
             log.error(e.toString());
             e.getStackTrace();
         }
-        return new MailboxItem(protectedMailboxStorageEntry, null);
+        return new Tuple2<>(new MailboxItem(protectedMailboxStorageEntry, null), false);
+    }
+
+    private void handleDecryptionResults(List<Tuple2<MailboxItem, Boolean>> results) {
+        results.stream()
+                .sorted(Comparator.comparingLong(result ->
+                        result.first.getProtectedMailboxStorageEntry().getCreationTimeStamp()))
+                .forEach(result -> {
+                    MailboxItem mailboxItem = result.first;
+                    if (result.second) {
+                        // We persist those entries so at the next startup we do not need to try to decrypt it anymore
+                        ignoredMailboxService.ignore(mailboxItem.getUid(),
+                                mailboxItem.getProtectedMailboxStorageEntry().getCreationTimeStamp());
+                    }
+                    handleMailboxItem(mailboxItem);
+                });
     }
 
     private void handleMailboxItem(MailboxItem mailboxItem) {
@@ -58,7 +58,6 @@ import java.net.SocketTimeoutException;
 
 import java.io.EOFException;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InvalidClassException;
 import java.io.OptionalDataException;
 import java.io.StreamCorruptedException;
@@ -104,6 +103,10 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
     @Nullable
     private static Config config;
 
+    @Inject
+    @Nullable
+    private static MessageDispatcher messageDispatcher;
+
     // Leaving some constants package-private for tests to know limits.
     private static final int PERMITTED_MESSAGE_SIZE = 200 * 1024;                       // 200 kb
     private static final int MAX_PERMITTED_MESSAGE_SIZE = 10 * 1024 * 1024;             // 10 MB (425 offers resulted in about 660 kb, mailbox msg will add more to it) offer has usually 2 kb, mailbox 3kb.
@@ -148,9 +151,15 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
 
     @Getter
     private final ObjectProperty<NodeAddress> peersNodeAddressProperty = new SimpleObjectProperty<>();
-    private final List<Long> messageTimeStamps = new ArrayList<>();
     private final CopyOnWriteArraySet<MessageListener> messageListeners = new CopyOnWriteArraySet<>();
-    private volatile long lastSendTimeStamp = 0;
+    // Null if the send rate limit per peer is disabled
+    @Nullable
+    private final TokenBucket sendRateLimiter;
+    @Getter
+    private final TokenBucket receiveRateLimiter;
+    // If the peer exceeds those limits we report a THROTTLE_LIMIT_EXCEEDED rule violation
+    private final ThrottleWindow throttleLimitPerSec;
+    private final ThrottleWindow throttleLimitPer10Sec;
     // We use a weak reference here to ensure that no connection causes a memory leak in case it get closed without
     // the shutDown being called.
     private final CopyOnWriteArraySet<WeakReference<SupportedCapabilitiesListener>> capabilitiesListeners = new CopyOnWriteArraySet<>();
@@ -177,6 +186,12 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
         this.networkFilter = networkFilter;
         uid = UUID.randomUUID().toString();
         statistic = new Statistic();
+        sendRateLimiter = getSendMsgRatePerSec() > 0 ?
+                new TokenBucket(getSendMsgRatePerSec(), getSendMsgBurst()) :
+                null;
+        receiveRateLimiter = new TokenBucket(getReceiveMsgRatePerSec(), getReceiveMsgBurst());
+        throttleLimitPerSec = new ThrottleWindow(getMsgThrottlePerSec(), TimeUnit.SECONDS.toMillis(1));
+        throttleLimitPer10Sec = new ThrottleWindow(getMsgThrottlePer10Sec(), TimeUnit.SECONDS.toMillis(10));
 
         addMessageListener(messageListener);
 
@@ -195,7 +210,7 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
             // the associated ObjectOutputStream on the other end of the connection has written.
             // It will not return until that header has been read.
             protoOutputStream = new SynchronizedProtoOutputStream(socket.getOutputStream(), statistic);
-            protoInputStream = socket.getInputStream();
+            protoInputStream = new ProtoInputStream(socket.getInputStream(), MAX_PERMITTED_MESSAGE_SIZE);
             // We create a thread for handling inputStream data
             singleThreadExecutor.submit(this);
 
@@ -223,11 +238,48 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
 
     void sendMessage(NetworkEnvelope networkEnvelope) {
         long ts = System.currentTimeMillis();
+        if (!canSendMessage(networkEnvelope)) {
+            return;
+        }
+
+        if (!testCapability(networkEnvelope)) {
+            log.debug("Capability for networkEnvelope is required but not supported");
+            return;
+        }
+
+        writeEnvelope(EncodedEnvelope.of(networkEnvelope), ts);
+    }
+
+    // The encodedEnvelope might be shared with other connections. The caller has to apply the capability filter for
+    // this connection before encoding as we cannot remove envelopes from an already encoded BundleOfEnvelopes.
+    void sendMessage(EncodedEnvelope encodedEnvelope) {
+        long ts = System.currentTimeMillis();
+        NetworkEnvelope networkEnvelope = encodedEnvelope.getNetworkEnvelope();
+        if (!canSendMessage(networkEnvelope)) {
+            return;
+        }
+
+        if (networkEnvelope instanceof BundleOfEnvelopes) {
+            List<NetworkEnvelope> envelopes = ((BundleOfEnvelopes) networkEnvelope).getEnvelopes();
+            if (!envelopes.stream().allMatch(this::testCapability)) {
+                // We must not alter the shared bundle, so we send a filtered copy
+                sendMessage(new BundleOfEnvelopes(new ArrayList<>(envelopes)));
+                return;
+            }
+        } else if (!testCapability(networkEnvelope)) {
+            log.debug("Capability for networkEnvelope is required but not supported");
+            return;
+        }
+
+        writeEnvelope(encodedEnvelope, ts);
+    }
+
+    private boolean canSendMessage(NetworkEnvelope networkEnvelope) {
         log.debug(">> Send networkEnvelope of type: {}", networkEnvelope.getClass().getSimpleName());
 
         if (stopped) {
             log.debug("called sendMessage but was already stopped");
-            return;
+            return false;
         }
 
         if (networkFilter != null &&
@@ -235,33 +287,20 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
                 networkFilter.isPeerBanned(peersNodeAddressOptional.get())) {
             log.warn("We tried to send a message to a banned peer. message={}", networkEnvelope.getClass().getSimpleName());
             reportInvalidRequest(RuleViolation.PEER_BANNED);
-            return;
+            return false;
         }
+        return true;
+    }
 
-        if (!testCapability(networkEnvelope)) {
-            log.debug("Capability for networkEnvelope is required but not supported");
-            return;
-        }
-        int networkEnvelopeSize = networkEnvelope.toProtoNetworkEnvelope().getSerializedSize();
+    private void writeEnvelope(EncodedEnvelope encodedEnvelope, long ts) {
+        NetworkEnvelope networkEnvelope = encodedEnvelope.getNetworkEnvelope();
         try {
-            // Throttle outbound network_messages
-            long now = System.currentTimeMillis();
-            long elapsed = now - lastSendTimeStamp;
-            if (elapsed < getSendMsgThrottleTrigger()) {
-                log.debug("We got 2 sendMessage requests in less than {} ms. We set the thread to sleep " +
-                                "for {} ms to avoid flooding our peer. lastSendTimeStamp={}, now={}, elapsed={}, networkEnvelope={}",
-                        getSendMsgThrottleTrigger(), getSendMsgThrottleSleep(), lastSendTimeStamp, now, elapsed,
-                        networkEnvelope.getClass().getSimpleName());
-
-                Thread.sleep(getSendMsgThrottleSleep());
-            }
-
-            lastSendTimeStamp = now;
-
+            // Outbound messages are throttled by NetworkNode with reserveSendPermit before they get here
             if (!stopped) {
-                protoOutputStream.writeEnvelope(networkEnvelope);
+                protoOutputStream.writeEnvelope(encodedEnvelope);
                 UserThread.execute(() -> messageListeners.forEach(e -> e.onMessageSent(networkEnvelope, this)));
-                UserThread.execute(() -> connectionStatistics.addSendMsgMetrics(System.currentTimeMillis() - ts, networkEnvelopeSize));
+                UserThread.execute(() -> connectionStatistics.addSendMsgMetrics(System.currentTimeMillis() - ts,
+                        encodedEnvelope.getSerializedSize()));
             }
         } catch (Throwable t) {
             handleException(t);
@@ -333,17 +372,29 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
         capabilitiesListeners.add(new WeakReference<>(listener));
     }
 
-    private boolean violatesThrottleLimit() {
-        long now = System.currentTimeMillis();
-
-        messageTimeStamps.add(now);
+    /**
+     * Reserves a slot for sending a message to that peer. Returns the time in ms after which the message should be
+     * sent to not exceed the send rate limit of the connection. The limit over all connections is applied by
+     * NetworkNode.
+     */
+    long reserveSendPermit() {
+        return sendRateLimiter != null ? sendRateLimiter.reserve() : 0;
+    }
 
-        // clean list
-        while (messageTimeStamps.size() > getMsgThrottlePer10Sec())
-            messageTimeStamps.remove(0);
+    public Optional<TokenBucket> getSendRateLimiter() {
+        return Optional.ofNullable(sendRateLimiter);
+    }
 
-        return violatesThrottleLimit(now, 1, getMsgThrottlePerSec()) ||
-                violatesThrottleLimit(now, 10, getMsgThrottlePer10Sec());
+    // Both windows record every message, as the sliding window count did before.
+    private boolean violatesThrottleLimit() {
+        boolean violatesPerSec = throttleLimitPerSec.addAndCheckLimitExceeded();
+        boolean violatesPer10Sec = throttleLimitPer10Sec.addAndCheckLimitExceeded();
+        if (violatesPerSec) {
+            log.error("violatesThrottleLimit {}/1 second(s)", getMsgThrottlePerSec());
+        } else if (violatesPer10Sec) {
+            log.error("violatesThrottleLimit {}/10 second(s)", getMsgThrottlePer10Sec());
+        }
+        return violatesPerSec || violatesPer10Sec;
     }
 
     private int getMsgThrottlePerSec() {
@@ -354,29 +405,25 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
         return config != null ? config.msgThrottlePer10Sec : 1000;
     }
 
-    private int getSendMsgThrottleSleep() {
-        return config != null ? config.sendMsgThrottleSleep : 50;
+    // 0 disables the send rate limit per peer
+    private int getSendMsgRatePerSec() {
+        return config != null ? config.sendMsgRatePerSec : 0;
     }
 
-    private int getSendMsgThrottleTrigger() {
-        return config != null ? config.sendMsgThrottleTrigger : 20;
+    private int getSendMsgBurst() {
+        return config != null ? config.sendMsgBurst : 20;
     }
 
-    private boolean violatesThrottleLimit(long now, int seconds, int messageCountLimit) {
-        if (messageTimeStamps.size() >= messageCountLimit) {
-
-            // find the entry in the message timestamp history which determines whether we overshot the limit or not
-            long compareValue = messageTimeStamps.get(messageTimeStamps.size() - messageCountLimit);
-
-            // if duration < seconds sec we received too much network_messages
-            if (now - compareValue < TimeUnit.SECONDS.toMillis(seconds)) {
-                log.error("violatesThrottleLimit {}/{} second(s)", messageCountLimit, seconds);
-
-                return true;
-            }
-        }
+    // Pausing the reader limits the rate at which the throttle limits see the messages of the peer. To still detect
+    // a flooding peer the receive rate must be above the rate permitted by msgThrottlePer10Sec, so we never go below
+    // msgThrottlePerSec.
+    private int getReceiveMsgRatePerSec() {
+        int receiveMsgRatePerSec = config != null ? config.receiveMsgRatePerSec : 200;
+        return Math.max(receiveMsgRatePerSec, Math.max(getMsgThrottlePerSec(), getMsgThrottlePer10Sec() / 10 + 1));
+    }
 
-        return false;
+    private int getReceiveMsgBurst() {
+        return config != null ? config.receiveMsgBurst : 50;
     }
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -390,7 +437,7 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
         if (networkEnvelope instanceof BundleOfEnvelopes) {
             onBundleOfEnvelopes((BundleOfEnvelopes) networkEnvelope, connection);
         } else {
-            UserThread.execute(() -> messageListeners.forEach(e -> e.onMessage(networkEnvelope, connection)));
+            dispatch(networkEnvelope, connection);
         }
     }
 
@@ -426,8 +473,16 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
                 envelopesToProcess.add(networkEnvelope);
             }
         }
-        envelopesToProcess.forEach(envelope -> UserThread.execute(() ->
-                messageListeners.forEach(listener -> listener.onMessage(envelope, connection))));
+        envelopesToProcess.forEach(envelope -> dispatch(envelope, connection));
+    }
+
+    private void dispatch(NetworkEnvelope networkEnvelope, Connection connection) {
+        Runnable handler = () -> messageListeners.forEach(listener -> listener.onMessage(networkEnvelope, connection));
+        if (messageDispatcher != null) {
+            messageDispatcher.dispatch(networkEnvelope, connection, handler);
+        } else {
+            UserThread.execute(handler);
+        }
     }
 
 
@@ -696,10 +751,9 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
     // Runs in same thread as Connection, receives a message, performs several checks on it
     // (including throttling limits, validity and statistics)
     // and delivers it to the message listener given in the constructor.
-    private InputStream protoInputStream;
+    private ProtoInputStream protoInputStream;
     private final NetworkProtoResolver networkProtoResolver;
 
-    private long lastReadTimeStamp;
     private boolean threadNameSet;
 
     @Override
@@ -720,7 +774,7 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
                     }
 
                     // Blocking read from the inputStream
-                    protobuf.NetworkEnvelope proto = protobuf.NetworkEnvelope.parseDelimitedFrom(protoInputStream);
+                    protobuf.NetworkEnvelope proto = protoInputStream.readEnvelope();
 
                     long ts = System.currentTimeMillis();
 
@@ -735,11 +789,7 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
                         if (stopped) {
                             return;
                         }
-                        if (protoInputStream.read() == -1) {
-                            log.warn("proto is null because protoInputStream.read()=-1 (EOF). That is expected if client got stopped without proper shutdown.");
-                        } else {
-                            log.warn("proto is null. protoInputStream.read()=" + protoInputStream.read());
-                        }
+                        log.warn("proto is null because we reached EOF. That is expected if client got stopped without proper shutdown.");
                         shutDown(CloseConnectionReason.NO_PROTO_BUFFER_ENV);
                         return;
                     }
@@ -753,20 +803,9 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
                         return;
                     }
 
-                    // Throttle inbound network_messages
-                    long now = System.currentTimeMillis();
-                    long elapsed = now - lastReadTimeStamp;
-                    if (elapsed < 10) {
-                        log.debug("We got 2 network_messages received in less than 10 ms. We set the thread to sleep " +
-                                        "for 20 ms to avoid getting flooded by our peer. lastReadTimeStamp={}, now={}, elapsed={}",
-                                lastReadTimeStamp, now, elapsed);
-                        Thread.sleep(20);
-                    }
-
                     NetworkEnvelope networkEnvelope = networkProtoResolver.fromProto(proto);
-                    lastReadTimeStamp = now;
                     log.debug("<< Received networkEnvelope of type: {}", networkEnvelope.getClass().getSimpleName());
-                    int size = proto.getSerializedSize();
+                    int size = protoInputStream.getLastMessageSize();
 
                     // We want to track the size of each object even if it is invalid data
                     statistic.addReceivedBytes(size);
@@ -801,6 +840,15 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
                     if (violatesThrottleLimit() && reportInvalidRequest(RuleViolation.THROTTLE_LIMIT_EXCEEDED))
                         return;
 
+                    // Throttle inbound network_messages. This thread only reads from that peer, so by pausing it the
+                    // further messages of the peer queue up in the socket buffers until we have capacity again.
+                    // We do that after the throttle limit check so the message got counted before we pause.
+                    long delay = receiveRateLimiter.reserve();
+                    if (delay > 0) {
+                        log.debug("Receive rate limit reached. We pause reading from our peer for {} ms.", delay);
+                        Thread.sleep(delay);
+                    }
+
                     // Check P2P network ID
                     if (proto.getMessageVersion() != Version.getP2PMessageVersion()
                             && reportInvalidRequest(RuleViolation.WRONG_NETWORK_ID)) {
@@ -848,6 +896,12 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
                         onMessage(networkEnvelope, this);
                         UserThread.execute(() -> connectionStatistics.addReceivedMsgMetrics(System.currentTimeMillis() - ts, size));
                     }
+                } catch (ProtoInputStream.MessageSizeExceededException e) {
+                    // We cannot skip the message without reading it, so the stream is not usable anymore
+                    log.warn("{}. We close the connection. peer={}", e.getMessage(), peersNodeAddressOptional);
+                    ruleViolation = RuleViolation.MAX_MSG_SIZE_EXCEEDED;
+                    shutDown(CloseConnectionReason.RULE_VIOLATION);
+                    return;
                 } catch (InvalidClassException e) {
                     log.error(e.getMessage());
                     e.printStackTrace();
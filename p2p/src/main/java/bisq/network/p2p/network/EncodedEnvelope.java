@@ -0,0 +1,72 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import bisq.common.proto.network.NetworkEnvelope;
+
+import com.google.protobuf.CodedOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import lombok.Getter;
+
+/**
+ * A NetworkEnvelope together with its length delimited wire format. The envelope is serialized only once, so the
+ * same instance can be sent to several connections (e.g. at a broadcast) without encoding it again for each peer.
+ * The bytes must not be modified after creation.
+ */
+public final class EncodedEnvelope {
+    public static EncodedEnvelope of(NetworkEnvelope networkEnvelope) {
+        protobuf.NetworkEnvelope proto = networkEnvelope.toProtoNetworkEnvelope();
+        // getSerializedSize is memoized by protobuf, so the size is only computed once
+        int serializedSize = proto.getSerializedSize();
+        byte[] frame = new byte[CodedOutputStream.computeUInt32SizeNoTag(serializedSize) + serializedSize];
+        CodedOutputStream codedOutputStream = CodedOutputStream.newInstance(frame);
+        try {
+            codedOutputStream.writeUInt32NoTag(serializedSize);
+            proto.writeTo(codedOutputStream);
+            codedOutputStream.checkNoSpaceLeft();
+        } catch (IOException e) {
+            // Can only happen if the serialized size was wrong
+            throw new IllegalStateException("Failed to encode " + networkEnvelope.getClass().getSimpleName(), e);
+        }
+        return new EncodedEnvelope(networkEnvelope, frame, serializedSize);
+    }
+
+    @Getter
+    private final NetworkEnvelope networkEnvelope;
+    private final byte[] frame;
+    // Size of the message without the length prefix
+    @Getter
+    private final int serializedSize;
+
+    private EncodedEnvelope(NetworkEnvelope networkEnvelope, byte[] frame, int serializedSize) {
+        this.networkEnvelope = networkEnvelope;
+        this.frame = frame;
+        this.serializedSize = serializedSize;
+    }
+
+    void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(frame);
+    }
+
+    int getFrameSize() {
+        return frame.length;
+    }
+}
@@ -57,8 +57,9 @@ public class LocalhostNetworkNode extends NetworkNode {
     public LocalhostNetworkNode(int port,
                                 NetworkProtoResolver networkProtoResolver,
                                 @Nullable NetworkFilter networkFilter,
-                                int maxConnections) {
-        super(port, networkProtoResolver, networkFilter, maxConnections);
+                                int maxConnections,
+                                int globalSendMsgRatePerSec) {
+        super(port, networkProtoResolver, networkFilter, maxConnections, globalSendMsgRatePerSec);
     }
 
     @Override
@@ -0,0 +1,207 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import bisq.network.p2p.storage.messages.AddDataMessage;
+import bisq.network.p2p.storage.messages.AddPersistableNetworkPayloadMessage;
+import bisq.network.p2p.storage.messages.RemoveDataMessage;
+import bisq.network.p2p.storage.messages.RemoveMailboxDataMessage;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+
+import bisq.common.UserThread;
+import bisq.common.config.Config;
+import bisq.common.proto.network.NetworkEnvelope;
+import bisq.common.util.Utilities;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Dispatches received messages to the user thread. If parallel dispatch is enabled (see
+ * {@link Config#PARALLEL_MESSAGE_DISPATCH}) the messages pass first a worker pool where we do the expensive validation
+ * which does not depend on application state (signatures and hashes). The result is memoized at the payload, so the
+ * handlers at the user thread do not repeat the work.
+ *
+ * The worker pool is sharded by connection. Each shard is a single thread, so the messages of one connection are
+ * delivered to the user thread in the order we received them. If parallel dispatch is disabled we call the handler
+ * directly at the user thread.
+ */
+@Slf4j
+@Singleton
+public class MessageDispatcher {
+    private static final long LOG_METRICS_INTERVAL_SEC = TimeUnit.MINUTES.toSeconds(10);
+
+    private final boolean enabled;
+    private final List<ExecutorService> shards = new ArrayList<>();
+
+    // Number of tasks dispatched to a shard which have not been handled at the user thread yet.
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final AtomicLong numDispatched = new AtomicLong();
+    private final AtomicLong totalLatency = new AtomicLong();
+    private final AtomicLong maxLatency = new AtomicLong();
+
+    @Inject
+    public MessageDispatcher(Config config) {
+        this(config.parallelMessageDispatch, Runtime.getRuntime().availableProcessors());
+    }
+
+    @VisibleForTesting
+    MessageDispatcher(boolean enabled, int numShards) {
+        this.enabled = enabled;
+        if (enabled) {
+            for (int i = 0; i < Math.max(1, numShards); i++) {
+                shards.add(Utilities.getSingleThreadExecutor("MessageDispatcher-" + i));
+            }
+            UserThread.runPeriodically(this::logMetrics, LOG_METRICS_INTERVAL_SEC);
+            log.info("Parallel message dispatch is enabled with {} shards", shards.size());
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Calls the handler at the user thread. If enabled, we validate the message before at the shard of the connection.
+     * Can be called from any thread.
+     */
+    public void dispatch(NetworkEnvelope networkEnvelope, Connection connection, Runnable handler) {
+        if (!enabled) {
+            UserThread.execute(handler);
+            return;
+        }
+
+        execute(connection, () -> {
+            preValidate(networkEnvelope);
+            return null;
+        }, result -> handler.run(), throwable -> {
+            log.warn("Validation of {} failed with {}. We leave the validation to the handler.",
+                    networkEnvelope.getClass().getSimpleName(), throwable.toString());
+            handler.run();
+        });
+    }
+
+    /**
+     * Executes the task at the shard of the connection and calls the resultHandler or errorHandler with the result at
+     * the user thread. The task must only access thread safe state. If not enabled, we execute the task at the
+     * calling thread.
+     */
+    public <T> void execute(Connection connection,
+                            Supplier<T> task,
+                            Consumer<T> resultHandler,
+                            Consumer<Throwable> errorHandler) {
+        if (!enabled) {
+            T result;
+            try {
+                result = task.get();
+            } catch (Throwable t) {
+                errorHandler.accept(t);
+                return;
+            }
+            resultHandler.accept(result);
+            return;
+        }
+
+        long ts = System.currentTimeMillis();
+        maxQueueDepth.accumulateAndGet(queueDepth.incrementAndGet(), Math::max);
+        getShard(connection).execute(() -> {
+            try {
+                T result = task.get();
+                UserThread.execute(() -> {
+                    onHandled(ts);
+                    resultHandler.accept(result);
+                });
+            } catch (Throwable t) {
+                UserThread.execute(() -> {
+                    onHandled(ts);
+                    errorHandler.accept(t);
+                });
+            }
+        });
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public long getNumDispatched() {
+        return numDispatched.get();
+    }
+
+    public long getAverageLatency() {
+        long numDispatched = this.numDispatched.get();
+        return numDispatched > 0 ? totalLatency.get() / numDispatched : 0;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private ExecutorService getShard(Connection connection) {
+        return shards.get(Math.floorMod(connection.getUid().hashCode(), shards.size()));
+    }
+
+    // The results are memoized at the payloads, so the handlers at the user thread get them for free.
+    private void preValidate(NetworkEnvelope networkEnvelope) {
+        if (networkEnvelope instanceof AddDataMessage) {
+            ((AddDataMessage) networkEnvelope).getProtectedStorageEntry().isSignatureValid();
+        } else if (networkEnvelope instanceof RemoveDataMessage) {
+            ((RemoveDataMessage) networkEnvelope).getProtectedStorageEntry().isSignatureValid();
+        } else if (networkEnvelope instanceof RemoveMailboxDataMessage) {
+            ((RemoveMailboxDataMessage) networkEnvelope).getProtectedMailboxStorageEntry().isSignatureValid();
+        } else if (networkEnvelope instanceof AddPersistableNetworkPayloadMessage) {
+            PersistableNetworkPayload payload = ((AddPersistableNetworkPayloadMessage) networkEnvelope).getPersistableNetworkPayload();
+            payload.verifyHashSize();
+        }
+    }
+
+    private void onHandled(long dispatchTime) {
+        long latency = System.currentTimeMillis() - dispatchTime;
+        queueDepth.decrementAndGet();
+        numDispatched.incrementAndGet();
+        totalLatency.addAndGet(latency);
+        maxLatency.accumulateAndGet(latency, Math::max);
+    }
+
+    private void logMetrics() {
+        log.info("MessageDispatcher metrics: queue depth={}, max. queue depth={}, dispatched={}, " +
+                        "avg. latency={} ms, max. latency={} ms",
+                queueDepth.get(), maxQueueDepth.getAndSet(0), numDispatched.get(),
+                getAverageLatency(), maxLatency.getAndSet(0));
+    }
+}
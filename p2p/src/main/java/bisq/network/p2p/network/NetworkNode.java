@@ -51,6 +51,7 @@ import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -81,6 +82,10 @@ public abstract class NetworkNode implements MessageListener {
     private final ListeningExecutorService connectionExecutor;
     private final ListeningExecutorService sendMessageExecutor;
     private final ExecutorService serverExecutor;
+    // Holds messages which exceed the send rate limits until they can be sent
+    private final ScheduledThreadPoolExecutor delayedSendMessageExecutor;
+    // Limits the messages we send to all peers combined
+    private final TokenBucket globalSendRateLimiter;
     private Server server;
 
     private volatile boolean shutDownInProgress;
@@ -96,7 +101,8 @@ public abstract class NetworkNode implements MessageListener {
     NetworkNode(int servicePort,
                 NetworkProtoResolver networkProtoResolver,
                 @Nullable NetworkFilter networkFilter,
-                int maxConnections) {
+                int maxConnections,
+                int globalSendMsgRatePerSec) {
         this.servicePort = servicePort;
         this.networkProtoResolver = networkProtoResolver;
         this.networkFilter = networkFilter;
@@ -112,6 +118,9 @@ public abstract class NetworkNode implements MessageListener {
                 30,
                 30);
         serverExecutor = Utilities.getSingleThreadExecutor("NetworkNode.server-" + servicePort);
+        delayedSendMessageExecutor = Utilities.getScheduledThreadPoolExecutor("NetworkNode.delayedSendMessage",
+                1, 1, 30);
+        globalSendRateLimiter = new TokenBucket(globalSendMsgRatePerSec, globalSendMsgRatePerSec);
     }
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -180,7 +189,6 @@ public abstract class NetworkNode implements MessageListener {
                             log.error("Error at closing socket " + throwable);
                         }
                     }
-                    existingConnection.sendMessage(networkEnvelope);
                     return existingConnection;
                 } else {
                     ConnectionListener connectionListener = new ConnectionListener() {
@@ -226,15 +234,18 @@ public abstract class NetworkNode implements MessageListener {
                                 + "\nmessage=" + networkEnvelope
                                 + "\n%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%\n");
                     }
-                    // can take a while when using tor
-                    outboundConnection.sendMessage(networkEnvelope);
                     return outboundConnection;
                 }
             });
 
             Futures.addCallback(future, new FutureCallback<>() {
                 public void onSuccess(Connection connection) {
-                    UserThread.execute(() -> resultFuture.set(connection));
+                    // The first message on the new connection is subject to the send rate limits as well
+                    sendMessage(connection,
+                            networkEnvelope,
+                            () -> connection.sendMessage(networkEnvelope),
+                            sendMessageExecutor,
+                            resultFuture);
                 }
 
                 public void onFailure(@NotNull Throwable throwable) {
@@ -300,13 +311,56 @@ public abstract class NetworkNode implements MessageListener {
     public SettableFuture<Connection> sendMessage(Connection connection,
                                                   NetworkEnvelope networkEnvelope,
                                                   ListeningExecutorService executor) {
+        return sendMessage(connection, networkEnvelope, () -> connection.sendMessage(networkEnvelope), executor);
+    }
+
+    // Used if the same message is sent to multiple peers, so we encode it only once.
+    public SettableFuture<Connection> sendMessage(Connection connection,
+                                                  EncodedEnvelope encodedEnvelope,
+                                                  ListeningExecutorService executor) {
+        return sendMessage(connection, encodedEnvelope.getNetworkEnvelope(), () -> connection.sendMessage(encodedEnvelope), executor);
+    }
+
+    private SettableFuture<Connection> sendMessage(Connection connection,
+                                                   NetworkEnvelope networkEnvelope,
+                                                   Runnable sendMessageHandler,
+                                                   ListeningExecutorService executor) {
         SettableFuture<Connection> resultFuture = SettableFuture.create();
+        sendMessage(connection, networkEnvelope, sendMessageHandler, executor, resultFuture);
+        return resultFuture;
+    }
+
+    private void sendMessage(Connection connection,
+                             NetworkEnvelope networkEnvelope,
+                             Runnable sendMessageHandler,
+                             ListeningExecutorService executor,
+                             SettableFuture<Connection> resultFuture) {
+        // If we exceed the send rate limits we queue the message instead of blocking a thread of the executor.
+        long delay = Math.max(connection.reserveSendPermit(), globalSendRateLimiter.reserve());
+        if (delay > 0) {
+            log.debug("Send rate limit reached. We send {} in {} ms.", networkEnvelope.getClass().getSimpleName(), delay);
+            try {
+                delayedSendMessageExecutor.schedule(() -> submitSendMessage(connection, sendMessageHandler, executor, resultFuture),
+                        delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException exception) {
+                log.error("RejectedExecutionException at sendMessage: ", exception);
+                setException(resultFuture, exception);
+            }
+        } else {
+            submitSendMessage(connection, sendMessageHandler, executor, resultFuture);
+        }
+    }
+
+    private void submitSendMessage(Connection connection,
+                                   Runnable sendMessageHandler,
+                                   ListeningExecutorService executor,
+                                   SettableFuture<Connection> resultFuture) {
         try {
             ListenableFuture<Connection> future = executor.submit(() -> {
                 String id = connection.getPeersNodeAddressOptional().isPresent() ? connection.getPeersNodeAddressOptional().get().getFullAddress() : connection.getUid();
                 Thread.currentThread().setName("NetworkNode:SendMessage-to-" + Utilities.toTruncatedString(id, 15));
 
-                connection.sendMessage(networkEnvelope);
+                sendMessageHandler.run();
                 return connection;
             });
 
@@ -316,25 +370,23 @@ public abstract class NetworkNode implements MessageListener {
                 }
 
                 public void onFailure(@NotNull Throwable throwable) {
-                    UserThread.execute(() -> {
-                        if (!resultFuture.setException(throwable)) {
-                            // In case the setException returns false we need to cancel the future.
-                            resultFuture.cancel(true);
-                        }
-                    });
+                    setException(resultFuture, throwable);
                 }
             }, MoreExecutors.directExecutor());
 
         } catch (RejectedExecutionException exception) {
             log.error("RejectedExecutionException at sendMessage: ", exception);
-            UserThread.execute(() -> {
-                if (!resultFuture.setException(exception)) {
-                    // In case the setException returns false we need to cancel the future.
-                    resultFuture.cancel(true);
-                }
-            });
+            setException(resultFuture, exception);
         }
-        return resultFuture;
+    }
+
+    private void setException(SettableFuture<Connection> resultFuture, Throwable throwable) {
+        UserThread.execute(() -> {
+            if (!resultFuture.setException(throwable)) {
+                // In case the setException returns false we need to cancel the future.
+                resultFuture.cancel(true);
+            }
+        });
     }
 
     public ReadOnlyObjectProperty<NodeAddress> nodeAddressProperty() {
@@ -405,6 +457,7 @@ public abstract class NetworkNode implements MessageListener {
                             timeoutHandler.stop();
                             connectionExecutor.shutdownNow();
                             sendMessageExecutor.shutdownNow();
+                            delayedSendMessageExecutor.shutdownNow();
                             if (shutDownCompleteHandler != null) {
                                 shutDownCompleteHandler.run();
                             }
@@ -0,0 +1,106 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import com.google.protobuf.CodedInputStream;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import lombok.Getter;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Reads length delimited NetworkEnvelopes. In contrast to protobuf's parseDelimitedFrom we read the length prefix
+ * first, so an oversized message is rejected before we allocate memory for it, and we reuse the read buffer for all
+ * messages of the connection. As the parsed message does not alias the buffer, it can be reused right after parsing.
+ */
+@NotThreadSafe
+class ProtoInputStream {
+    private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+    // If a large message has grown the buffer above that size we release it after parsing, so that idle
+    // connections do not keep large buffers.
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+    static class MessageSizeExceededException extends IOException {
+        MessageSizeExceededException(int size, int maxSize) {
+            super("Message size " + size + " exceeds max permitted size " + maxSize);
+        }
+    }
+
+    private final InputStream inputStream;
+    private final int maxMessageSize;
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    // Size of the last read message without the length prefix
+    @Getter
+    private int lastMessageSize;
+
+    ProtoInputStream(InputStream inputStream, int maxMessageSize) {
+        this.inputStream = inputStream;
+        this.maxMessageSize = maxMessageSize;
+    }
+
+    /**
+     * Blocks until a message is received.
+     * @return the message or null if the stream ended before a new message started
+     */
+    @Nullable
+    protobuf.NetworkEnvelope readEnvelope() throws IOException {
+        int firstByte = inputStream.read();
+        if (firstByte == -1) {
+            return null;
+        }
+        int size = CodedInputStream.readRawVarint32(firstByte, inputStream);
+        if (size < 0 || size > maxMessageSize) {
+            throw new MessageSizeExceededException(size, maxMessageSize);
+        }
+
+        if (buffer.length < size) {
+            buffer = new byte[Math.max(size, Math.min(maxMessageSize, buffer.length * 2))];
+        }
+        readFully(size);
+
+        CodedInputStream codedInputStream = CodedInputStream.newInstance(buffer, 0, size);
+        codedInputStream.setSizeLimit(size);
+        protobuf.NetworkEnvelope proto = protobuf.NetworkEnvelope.parseFrom(codedInputStream);
+        lastMessageSize = size;
+
+        if (buffer.length > MAX_RETAINED_BUFFER_SIZE) {
+            buffer = new byte[INITIAL_BUFFER_SIZE];
+        }
+        return proto;
+    }
+
+    void close() throws IOException {
+        inputStream.close();
+    }
+
+    private void readFully(int size) throws IOException {
+        int offset = 0;
+        while (offset < size) {
+            int read = inputStream.read(buffer, offset, size - offset);
+            if (read == -1) {
+                throw new EOFException("Stream ended after " + offset + " of " + size + " bytes");
+            }
+            offset += read;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.LongSupplier;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Exact sliding window count of received messages. The limit is exceeded if messageCountLimit messages have been
+ * received within the window. In contrast to a token bucket, an idle period does not allow a larger burst later on.
+ * We only keep the timestamps of the last messageCountLimit messages, as older ones cannot affect the result.
+ */
+@NotThreadSafe
+class ThrottleWindow {
+    private final int messageCountLimit;
+    private final long windowMillis;
+    private final LongSupplier currentTimeMillis;
+    private final Deque<Long> messageTimeStamps = new ArrayDeque<>();
+
+    ThrottleWindow(int messageCountLimit, long windowMillis) {
+        this(messageCountLimit, windowMillis, System::currentTimeMillis);
+    }
+
+    @VisibleForTesting
+    ThrottleWindow(int messageCountLimit, long windowMillis, LongSupplier currentTimeMillis) {
+        checkArgument(messageCountLimit >= 1, "messageCountLimit must be at least 1");
+        this.messageCountLimit = messageCountLimit;
+        this.windowMillis = windowMillis;
+        this.currentTimeMillis = currentTimeMillis;
+    }
+
+    /**
+     * Records a message and returns whether the limit is exceeded.
+     */
+    boolean addAndCheckLimitExceeded() {
+        long now = currentTimeMillis.getAsLong();
+        messageTimeStamps.addLast(now);
+        while (messageTimeStamps.size() > messageCountLimit)
+            messageTimeStamps.removeFirst();
+
+        // The oldest of the last messageCountLimit messages determines whether we overshot the limit or not
+        return messageTimeStamps.size() == messageCountLimit &&
+                now - messageTimeStamps.getFirst() < windowMillis;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Token bucket rate limiter. The bucket is refilled with ratePerSec tokens per second up to its capacity, so bursts of
+ * capacity messages pass without delay while the long term rate is limited to ratePerSec.
+ *
+ * {@link #reserve()} always takes a token, even if the bucket is empty, and returns the delay after which the
+ * token is available. Callers reserving later get a later slot, so the requests queue up in the order they arrived.
+ * The bucket is only used for pacing. Rule violations are decided by the exact count of {@link ThrottleWindow}, as
+ * a bucket refilled during an idle period lets a burst of up to twice the limit pass within one window.
+ */
+public class TokenBucket {
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int capacity;
+    private final LongSupplier nanoTime;
+
+    // We track the time at which the bucket would be full again instead of the number of tokens. That is equivalent
+    // but avoids rounding errors.
+    private long fullAt;
+    private long numDelayed;
+    private long totalDelay;
+
+    public TokenBucket(double ratePerSec, int capacity) {
+        this(ratePerSec, capacity, System::nanoTime);
+    }
+
+    @VisibleForTesting
+    TokenBucket(double ratePerSec, int capacity, LongSupplier nanoTime) {
+        checkArgument(ratePerSec > 0, "ratePerSec must be positive");
+        checkArgument(capacity >= 1, "capacity must be at least 1");
+        this.intervalNanos = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / ratePerSec));
+        this.burstNanos = (capacity - 1) * intervalNanos;
+        this.capacity = capacity;
+        this.nanoTime = nanoTime;
+        fullAt = nanoTime.getAsLong();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Takes a token and returns the time in ms until the token is available.
+     */
+    public synchronized long reserve() {
+        long now = nanoTime.getAsLong();
+        long start = Math.max(fullAt, now);
+        long delayNanos = Math.max(0, start - now - burstNanos);
+        fullAt = start + intervalNanos;
+        if (delayNanos == 0) {
+            return 0;
+        }
+        long delay = TimeUnit.NANOSECONDS.toMillis(delayNanos + TimeUnit.MILLISECONDS.toNanos(1) - 1);
+        numDelayed++;
+        totalDelay += delay;
+        return delay;
+    }
+
+    // Negative if requests are queued
+    public synchronized double getAvailableTokens() {
+        long now = nanoTime.getAsLong();
+        return capacity - (double) (Math.max(fullAt, now) - now) / intervalNanos;
+    }
+
+    public synchronized long getNumDelayed() {
+        return numDelayed;
+    }
+
+    // Sum of all delays in ms
+    public synchronized long getTotalDelay() {
+        return totalDelay;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("available tokens: %.1f/%d; delayed: %d (total %d ms)",
+                getAvailableTokens(), capacity, numDelayed, totalDelay);
+    }
+}
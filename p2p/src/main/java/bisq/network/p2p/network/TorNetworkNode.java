@@ -70,8 +70,9 @@ public class TorNetworkNode extends NetworkNode {
                           boolean useStreamIsolation,
                           TorMode torMode,
                           @Nullable NetworkFilter networkFilter,
-                          int maxConnections) {
-        super(servicePort, networkProtoResolver, networkFilter, maxConnections);
+                          int maxConnections,
+                          int globalSendMsgRatePerSec) {
+        super(servicePort, networkProtoResolver, networkFilter, maxConnections, globalSendMsgRatePerSec);
         this.torMode = torMode;
         this.streamIsolation = useStreamIsolation;
 
@@ -20,6 +20,7 @@ package bisq.network.p2p.peers;
 import bisq.network.p2p.BundleOfEnvelopes;
 import bisq.network.p2p.NodeAddress;
 import bisq.network.p2p.network.Connection;
+import bisq.network.p2p.network.EncodedEnvelope;
 import bisq.network.p2p.network.NetworkNode;
 import bisq.network.p2p.storage.messages.BroadcastMessage;
 
@@ -33,8 +34,11 @@ import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
@@ -87,6 +91,9 @@ public class BroadcastHandler implements PeerManager.Listener {
     @Nullable
     private Timer timeoutTimer;
     private final Set<SettableFuture<Connection>> sendMessageFutures = new CopyOnWriteArraySet<>();
+    // Connections which get the same subset of the broadcastRequests share the encoded message. Key is the set of
+    // indices of the requests in the broadcastRequests list. Only accessed from the user thread.
+    private final Map<BitSet, EncodedEnvelope> encodedEnvelopes = new HashMap<>();
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -173,7 +180,8 @@ public class BroadcastHandler implements PeerManager.Listener {
                 }
 
                 try {
-                    sendToPeer(connection, broadcastRequestsForConnection, executor);
+                    EncodedEnvelope encodedEnvelope = getEncodedEnvelope(broadcastRequests, broadcastRequestsForConnection);
+                    sendToPeer(connection, encodedEnvelope, broadcastRequestsForConnection, executor);
                 } catch (RejectedExecutionException e) {
                     log.error("RejectedExecutionException at broadcast ", e);
                     cleanup();
@@ -260,11 +268,10 @@ public class BroadcastHandler implements PeerManager.Listener {
     }
 
     private void sendToPeer(Connection connection,
+                            EncodedEnvelope encodedEnvelope,
                             List<Broadcaster.BroadcastRequest> broadcastRequestsForConnection,
                             ListeningExecutorService executor) {
-        // Can be BundleOfEnvelopes or a single BroadcastMessage
-        BroadcastMessage broadcastMessage = getMessage(broadcastRequestsForConnection);
-        SettableFuture<Connection> future = networkNode.sendMessage(connection, broadcastMessage, executor);
+        SettableFuture<Connection> future = networkNode.sendMessage(connection, encodedEnvelope, executor);
         sendMessageFutures.add(future);
         Futures.addCallback(future, new FutureCallback<>() {
             @Override
@@ -294,6 +301,21 @@ public class BroadcastHandler implements PeerManager.Listener {
         }, MoreExecutors.directExecutor());
     }
 
+    private EncodedEnvelope getEncodedEnvelope(List<Broadcaster.BroadcastRequest> broadcastRequests,
+                                               List<Broadcaster.BroadcastRequest> broadcastRequestsForConnection) {
+        // broadcastRequestsForConnection is a filtered view of broadcastRequests in the same order
+        BitSet key = new BitSet(broadcastRequests.size());
+        int index = 0;
+        for (int i = 0; i < broadcastRequests.size() && index < broadcastRequestsForConnection.size(); i++) {
+            if (broadcastRequests.get(i) == broadcastRequestsForConnection.get(index)) {
+                key.set(i);
+                index++;
+            }
+        }
+        // Can be BundleOfEnvelopes or a single BroadcastMessage
+        return encodedEnvelopes.computeIfAbsent(key, k -> EncodedEnvelope.of(getMessage(broadcastRequestsForConnection)));
+    }
+
     private BroadcastMessage getMessage(List<Broadcaster.BroadcastRequest> broadcastRequests) {
         if (broadcastRequests.size() == 1) {
             // If we only have 1 message we avoid the overhead of the BundleOfEnvelopes and send the message directly
@@ -353,6 +375,7 @@ public class BroadcastHandler implements PeerManager.Listener {
                 .filter(future -> !future.isCancelled() && !future.isDone())
                 .forEach(future -> future.cancel(true));
         sendMessageFutures.clear();
+        encodedEnvelopes.clear();
 
         peerManager.removeListener(this);
         resultHandler.onCompleted(this);
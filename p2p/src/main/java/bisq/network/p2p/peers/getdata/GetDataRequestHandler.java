@@ -19,6 +19,7 @@ package bisq.network.p2p.peers.getdata;
 
 import bisq.network.p2p.network.CloseConnectionReason;
 import bisq.network.p2p.network.Connection;
+import bisq.network.p2p.network.MessageDispatcher;
 import bisq.network.p2p.network.NetworkNode;
 import bisq.network.p2p.peers.getdata.messages.GetDataRequest;
 import bisq.network.p2p.peers.getdata.messages.GetDataResponse;
@@ -62,6 +63,7 @@ public class GetDataRequestHandler {
 
     private final NetworkNode networkNode;
     private final P2PDataStorage dataStorage;
+    private final MessageDispatcher messageDispatcher;
     private final Listener listener;
     private Timer timeoutTimer;
     private boolean stopped;
@@ -71,9 +73,13 @@ public class GetDataRequestHandler {
     // Constructor
     ///////////////////////////////////////////////////////////////////////////////////////////
 
-    public GetDataRequestHandler(NetworkNode networkNode, P2PDataStorage dataStorage, Listener listener) {
+    public GetDataRequestHandler(NetworkNode networkNode,
+                                 P2PDataStorage dataStorage,
+                                 MessageDispatcher messageDispatcher,
+                                 Listener listener) {
         this.networkNode = networkNode;
         this.dataStorage = dataStorage;
+        this.messageDispatcher = messageDispatcher;
         this.listener = listener;
     }
 
@@ -90,18 +96,50 @@ public class GetDataRequestHandler {
 
         AtomicBoolean wasPersistableNetworkPayloadsTruncated = new AtomicBoolean(false);
         AtomicBoolean wasProtectedStorageEntriesTruncated = new AtomicBoolean(false);
-        GetDataResponse getDataResponse = dataStorage.buildGetDataResponse(
-                getDataRequest,
-                MAX_ENTRIES,
-                wasPersistableNetworkPayloadsTruncated,
-                wasProtectedStorageEntriesTruncated,
-                connection.getCapabilities());
-
-        if (wasPersistableNetworkPayloadsTruncated.get()) {
+        // Building the response only reads the concurrent maps of the data storage, so the messageDispatcher can run
+        // it at a worker thread if parallel dispatch is enabled.
+        messageDispatcher.execute(connection,
+                () -> dataStorage.buildGetDataResponse(
+                        getDataRequest,
+                        MAX_ENTRIES,
+                        wasPersistableNetworkPayloadsTruncated,
+                        wasProtectedStorageEntriesTruncated,
+                        connection.getCapabilities()),
+                getDataResponse -> {
+                    if (stopped) {
+                        log.warn("We have stopped already. We ignore the getDataResponse.");
+                        return;
+                    }
+                    sendGetDataResponse(getDataResponse,
+                            connection,
+                            connectionInfo,
+                            wasPersistableNetworkPayloadsTruncated.get(),
+                            wasProtectedStorageEntriesTruncated.get());
+                    log.info("handle GetDataRequest took {} ms", System.currentTimeMillis() - ts);
+                },
+                throwable -> handleFault("Building getDataResponse failed: " + throwable,
+                        CloseConnectionReason.UNKNOWN_EXCEPTION, connection));
+    }
+
+    public void stop() {
+        cleanup();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void sendGetDataResponse(GetDataResponse getDataResponse,
+                                     Connection connection,
+                                     String connectionInfo,
+                                     boolean wasPersistableNetworkPayloadsTruncated,
+                                     boolean wasProtectedStorageEntriesTruncated) {
+        if (wasPersistableNetworkPayloadsTruncated) {
             log.info("The getDataResponse for peer {} got truncated.", connectionInfo);
         }
 
-        if (wasProtectedStorageEntriesTruncated.get()) {
+        if (wasProtectedStorageEntriesTruncated) {
             log.info("The getDataResponse for peer {} got truncated.", connectionInfo);
         }
 
@@ -145,18 +183,8 @@ public class GetDataRequestHandler {
                 }
             }
         }, MoreExecutors.directExecutor());
-        log.info("handle GetDataRequest took {} ms", System.currentTimeMillis() - ts);
-    }
-
-    public void stop() {
-        cleanup();
     }
 
-
-    ///////////////////////////////////////////////////////////////////////////////////////////
-    // Private
-    ///////////////////////////////////////////////////////////////////////////////////////////
-
     private void handleFault(String errorMessage, CloseConnectionReason closeConnectionReason, Connection connection) {
         if (!stopped) {
             log.info(errorMessage + "\n\tcloseConnectionReason=" + closeConnectionReason);
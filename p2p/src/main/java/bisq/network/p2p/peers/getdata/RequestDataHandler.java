@@ -31,6 +31,7 @@ import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
 
 import bisq.common.Timer;
 import bisq.common.UserThread;
+import bisq.common.app.Capability;
 import bisq.common.proto.network.NetworkEnvelope;
 import bisq.common.proto.network.NetworkPayload;
 import bisq.common.util.Tuple2;
@@ -121,10 +122,13 @@ class RequestDataHandler implements MessageListener {
         if (!stopped) {
             GetDataRequest getDataRequest;
 
+            // If the peer supports it we send a compact filter instead of all the hashes of our
+            // PersistableNetworkPayloads. Otherwise we use the exclude list.
+            boolean usePayloadHashFilter = peerManager.peerHasCapability(nodeAddress, Capability.PAYLOAD_HASH_FILTER);
             if (isPreliminaryDataRequest)
-                getDataRequest = dataStorage.buildPreliminaryGetDataRequest(nonce);
+                getDataRequest = dataStorage.buildPreliminaryGetDataRequest(nonce, usePayloadHashFilter);
             else
-                getDataRequest = dataStorage.buildGetUpdatedDataRequest(networkNode.getNodeAddress(), nonce);
+                getDataRequest = dataStorage.buildGetUpdatedDataRequest(networkNode.getNodeAddress(), nonce, usePayloadHashFilter);
 
             if (timeoutTimer == null) {
                 timeoutTimer = UserThread.runAfter(() -> {  // setup before sending to avoid race conditions
@@ -197,11 +201,19 @@ class RequestDataHandler implements MessageListener {
                             return;
                         }
 
-                        dataStorage.processGetDataResponse(getDataResponse,
-                                connection.getPeersNodeAddressOptional().get());
+                        NodeAddress sender = connection.getPeersNodeAddressOptional().get();
+                        // The signatures of large responses get verified off the user thread before we apply them
+                        dataStorage.verifySignatures(getDataResponse, () -> {
+                            if (stopped) {
+                                log.warn("We have stopped while verifying the signatures. We ignore the GetDataResponse.");
+                                return;
+                            }
+
+                            dataStorage.processGetDataResponse(getDataResponse, sender);
 
-                        cleanup();
-                        listener.onComplete(getDataResponse.isWasTruncated());
+                            cleanup();
+                            listener.onComplete(getDataResponse.isWasTruncated());
+                        });
                     } else {
                         log.warn("Nonce not matching. That can happen rarely if we get a response after a canceled " +
                                         "handshake (timeout causes connection close but peer might have sent a msg before " +
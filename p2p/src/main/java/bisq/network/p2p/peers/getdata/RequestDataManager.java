@@ -21,6 +21,7 @@ import bisq.network.p2p.NodeAddress;
 import bisq.network.p2p.network.CloseConnectionReason;
 import bisq.network.p2p.network.Connection;
 import bisq.network.p2p.network.ConnectionListener;
+import bisq.network.p2p.network.MessageDispatcher;
 import bisq.network.p2p.network.MessageListener;
 import bisq.network.p2p.network.NetworkNode;
 import bisq.network.p2p.peers.PeerManager;
@@ -97,6 +98,7 @@ public class RequestDataManager implements MessageListener, ConnectionListener,
     private final NetworkNode networkNode;
     private final P2PDataStorage dataStorage;
     private final PeerManager peerManager;
+    private final MessageDispatcher messageDispatcher;
     private final List<NodeAddress> seedNodeAddresses;
     private final List<ResponseListener> responseListeners = new CopyOnWriteArrayList<>();
 
@@ -120,10 +122,12 @@ public class RequestDataManager implements MessageListener, ConnectionListener,
     public RequestDataManager(NetworkNode networkNode,
                               SeedNodeRepository seedNodeRepository,
                               P2PDataStorage dataStorage,
-                              PeerManager peerManager) {
+                              PeerManager peerManager,
+                              MessageDispatcher messageDispatcher) {
         this.networkNode = networkNode;
         this.dataStorage = dataStorage;
         this.peerManager = peerManager;
+        this.messageDispatcher = messageDispatcher;
 
         this.networkNode.addMessageListener(this);
         this.networkNode.addConnectionListener(this);
@@ -286,7 +290,7 @@ public class RequestDataManager implements MessageListener, ConnectionListener,
                 }
                 final String uid = connection.getUid();
                 if (!getDataRequestHandlers.containsKey(uid)) {
-                    GetDataRequestHandler getDataRequestHandler = new GetDataRequestHandler(networkNode, dataStorage,
+                    GetDataRequestHandler getDataRequestHandler = new GetDataRequestHandler(networkNode, dataStorage, messageDispatcher,
                             new GetDataRequestHandler.Listener() {
                                 @Override
                                 public void onComplete(int serializedSize) {
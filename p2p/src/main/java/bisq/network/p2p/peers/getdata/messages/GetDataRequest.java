@@ -44,13 +44,21 @@ public abstract class GetDataRequest extends NetworkEnvelope implements Extended
     @Nullable
     protected final String version;
 
+    // Added at v1.9.10
+    // If set, the excludedKeys contain only the keys of ProtectedStorageEntry items and the keys of the
+    // PersistableNetworkPayload items are represented by that filter.
+    @Nullable
+    protected final PayloadHashFilter persistableNetworkPayloadFilter;
+
     public GetDataRequest(int messageVersion,
                           int nonce,
                           Set<byte[]> excludedKeys,
-                          @Nullable String version) {
+                          @Nullable String version,
+                          @Nullable PayloadHashFilter persistableNetworkPayloadFilter) {
         super(messageVersion);
         this.nonce = nonce;
         this.excludedKeys = excludedKeys;
         this.version = version;
+        this.persistableNetworkPayloadFilter = persistableNetworkPayloadFilter;
     }
 }
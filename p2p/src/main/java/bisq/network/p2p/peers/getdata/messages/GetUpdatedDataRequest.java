@@ -46,10 +46,18 @@ public final class GetUpdatedDataRequest extends GetDataRequest implements Sende
     public GetUpdatedDataRequest(NodeAddress senderNodeAddress,
                                  int nonce,
                                  Set<byte[]> excludedKeys) {
+        this(senderNodeAddress, nonce, excludedKeys, null);
+    }
+
+    public GetUpdatedDataRequest(NodeAddress senderNodeAddress,
+                                 int nonce,
+                                 Set<byte[]> excludedKeys,
+                                 @Nullable PayloadHashFilter persistableNetworkPayloadFilter) {
         this(senderNodeAddress,
                 nonce,
                 excludedKeys,
                 Version.VERSION,
+                persistableNetworkPayloadFilter,
                 Version.getP2PMessageVersion());
     }
 
@@ -62,11 +70,13 @@ public final class GetUpdatedDataRequest extends GetDataRequest implements Sende
                                   int nonce,
                                   Set<byte[]> excludedKeys,
                                   @Nullable String version,
+                                  @Nullable PayloadHashFilter persistableNetworkPayloadFilter,
                                   int messageVersion) {
         super(messageVersion,
                 nonce,
                 excludedKeys,
-                version);
+                version,
+                persistableNetworkPayloadFilter);
         this.senderNodeAddress = senderNodeAddress;
     }
 
@@ -79,23 +89,30 @@ public final class GetUpdatedDataRequest extends GetDataRequest implements Sende
                         .map(ByteString::copyFrom)
                         .collect(Collectors.toList()));
         Optional.ofNullable(version).ifPresent(builder::setVersion);
+        Optional.ofNullable(persistableNetworkPayloadFilter)
+                .ifPresent(filter -> builder.setPersistableNetworkPayloadFilter(filter.toProtoMessage()));
         NetworkEnvelope proto = getNetworkEnvelopeBuilder()
                 .setGetUpdatedDataRequest(builder)
                 .build();
-        log.info("Sending a GetUpdatedDataRequest with {} kB and {} excluded key entries. Requesters version={}",
-                proto.getSerializedSize() / 1000d, excludedKeys.size(), version);
+        log.info("Sending a GetUpdatedDataRequest with {} kB and {} excluded key entries. Requesters version={}. " +
+                        "PersistableNetworkPayload filter={}",
+                proto.getSerializedSize() / 1000d, excludedKeys.size(), version, persistableNetworkPayloadFilter);
         return proto;
     }
 
     public static GetUpdatedDataRequest fromProto(protobuf.GetUpdatedDataRequest proto, int messageVersion) {
         Set<byte[]> excludedKeys = ProtoUtil.byteSetFromProtoByteStringList(proto.getExcludedKeysList());
         String requestersVersion = ProtoUtil.stringOrNullFromProto(proto.getVersion());
-        log.info("Received a GetUpdatedDataRequest with {} kB and {} excluded key entries. Requesters version={}",
-                proto.getSerializedSize() / 1000d, excludedKeys.size(), requestersVersion);
+        PayloadHashFilter persistableNetworkPayloadFilter = proto.hasPersistableNetworkPayloadFilter() ?
+                PayloadHashFilter.fromProto(proto.getPersistableNetworkPayloadFilter()) : null;
+        log.info("Received a GetUpdatedDataRequest with {} kB and {} excluded key entries. Requesters version={}. " +
+                        "PersistableNetworkPayload filter={}",
+                proto.getSerializedSize() / 1000d, excludedKeys.size(), requestersVersion, persistableNetworkPayloadFilter);
         return new GetUpdatedDataRequest(NodeAddress.fromProto(proto.getSenderNodeAddress()),
                 proto.getNonce(),
                 excludedKeys,
                 requestersVersion,
+                persistableNetworkPayloadFilter,
                 messageVersion);
     }
 }
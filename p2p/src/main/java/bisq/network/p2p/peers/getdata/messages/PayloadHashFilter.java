@@ -0,0 +1,158 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.peers.getdata.messages;
+
+import bisq.common.proto.network.NetworkPayload;
+
+import com.google.protobuf.ByteString;
+
+import java.security.SecureRandom;
+
+import java.util.Collection;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Bloom filter over the payload hashes a requester knows already. It is sent instead of the list of excluded keys for
+ * the PersistableNetworkPayloads if the peer has the PAYLOAD_HASH_FILTER capability. With the used false positive
+ * rate it needs about 29 bits per hash compared to 20 or 32 bytes (plus protobuf overhead) for the full hash.
+ *
+ * A false positive would cause that the peer does not send us an item we miss. To not miss the same item at each
+ * request we use a random tweak for each filter, so the false positives differ between requests.
+ *
+ * The hash functions are part of the network protocol. Changes would break compatibility with other nodes.
+ */
+@EqualsAndHashCode
+@Getter
+public final class PayloadHashFilter implements NetworkPayload {
+    static final double FALSE_POSITIVE_RATE = 0.000001;
+    // Sufficient for about 1 million hashes. Protects against resource exhaustion by malicious peers.
+    private static final int MAX_NUM_BYTES = 4 * 1024 * 1024;
+    private static final int MAX_NUM_HASH_FUNCTIONS = 32;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final byte[] bits;
+    private final int numHashFunctions;
+    private final long tweak;
+
+    public static PayloadHashFilter fromHashes(Collection<byte[]> hashes) {
+        return fromHashes(hashes, RANDOM.nextLong());
+    }
+
+    static PayloadHashFilter fromHashes(Collection<byte[]> hashes, long tweak) {
+        int numHashes = Math.max(1, hashes.size());
+        long numBits = (long) Math.ceil(-numHashes * Math.log(FALSE_POSITIVE_RATE) / (Math.log(2) * Math.log(2)));
+        int numBytes = (int) Math.min(MAX_NUM_BYTES, Math.max(8, (numBits + 7) / 8));
+        int numHashFunctions = (int) Math.max(1, Math.min(MAX_NUM_HASH_FUNCTIONS,
+                Math.round((double) numBytes * 8 / numHashes * Math.log(2))));
+        PayloadHashFilter filter = new PayloadHashFilter(new byte[numBytes], numHashFunctions, tweak);
+        hashes.forEach(filter::put);
+        return filter;
+    }
+
+    private PayloadHashFilter(byte[] bits, int numHashFunctions, long tweak) {
+        checkArgument(bits.length > 0 && bits.length <= MAX_NUM_BYTES,
+                "Invalid size of PayloadHashFilter: %s bytes", bits.length);
+        checkArgument(numHashFunctions > 0 && numHashFunctions <= MAX_NUM_HASH_FUNCTIONS,
+                "Invalid number of hash functions of PayloadHashFilter: %s", numHashFunctions);
+        this.bits = bits;
+        this.numHashFunctions = numHashFunctions;
+        this.tweak = tweak;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // PROTO BUFFER
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public protobuf.PayloadHashFilter toProtoMessage() {
+        return protobuf.PayloadHashFilter.newBuilder()
+                .setBits(ByteString.copyFrom(bits))
+                .setNumHashFunctions(numHashFunctions)
+                .setTweak(tweak)
+                .build();
+    }
+
+    public static PayloadHashFilter fromProto(protobuf.PayloadHashFilter proto) {
+        return new PayloadHashFilter(proto.getBits().toByteArray(), proto.getNumHashFunctions(), proto.getTweak());
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public boolean mightContain(byte[] hash) {
+        long numBits = (long) bits.length * 8;
+        long hash1 = hash(hash, tweak);
+        long hash2 = hash(hash, Long.rotateLeft(tweak, 32) ^ 0x9e3779b97f4a7c15L);
+        for (int i = 0; i < numHashFunctions; i++) {
+            long index = Math.floorMod(hash1 + i * hash2, numBits);
+            if ((bits[(int) (index >>> 3)] & (1 << (index & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getSerializedSize() {
+        return toProtoMessage().getSerializedSize();
+    }
+
+    @Override
+    public String toString() {
+        return "PayloadHashFilter{" +
+                "\n     numBytes=" + bits.length +
+                ",\n     numHashFunctions=" + numHashFunctions +
+                "\n}";
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void put(byte[] hash) {
+        long numBits = (long) bits.length * 8;
+        long hash1 = hash(hash, tweak);
+        long hash2 = hash(hash, Long.rotateLeft(tweak, 32) ^ 0x9e3779b97f4a7c15L);
+        for (int i = 0; i < numHashFunctions; i++) {
+            long index = Math.floorMod(hash1 + i * hash2, numBits);
+            bits[(int) (index >>> 3)] |= (1 << (index & 7));
+        }
+    }
+
+    // FNV-1a over the bytes, seeded with the tweak, followed by the MurmurHash3 64 bit finalizer for better avalanche.
+    private static long hash(byte[] data, long seed) {
+        long hash = 0xcbf29ce484222325L ^ seed;
+        for (byte b : data) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93fe1a85ec3L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -45,9 +45,16 @@ public final class PreliminaryGetDataRequest extends GetDataRequest implements A
     private final Capabilities supportedCapabilities;
 
     public PreliminaryGetDataRequest(int nonce, Set<byte[]> excludedKeys) {
+        this(nonce, excludedKeys, null);
+    }
+
+    public PreliminaryGetDataRequest(int nonce,
+                                     Set<byte[]> excludedKeys,
+                                     @Nullable PayloadHashFilter persistableNetworkPayloadFilter) {
         this(nonce,
                 excludedKeys,
                 Version.VERSION,
+                persistableNetworkPayloadFilter,
                 Capabilities.app,
                 Version.getP2PMessageVersion());
     }
@@ -60,9 +67,10 @@ public final class PreliminaryGetDataRequest extends GetDataRequest implements A
     private PreliminaryGetDataRequest(int nonce,
                                       Set<byte[]> excludedKeys,
                                       @Nullable String version,
+                                      @Nullable PayloadHashFilter persistableNetworkPayloadFilter,
                                       Capabilities supportedCapabilities,
                                       int messageVersion) {
-        super(messageVersion, nonce, excludedKeys, version);
+        super(messageVersion, nonce, excludedKeys, version, persistableNetworkPayloadFilter);
 
         this.supportedCapabilities = supportedCapabilities;
     }
@@ -76,22 +84,29 @@ public final class PreliminaryGetDataRequest extends GetDataRequest implements A
                         .map(ByteString::copyFrom)
                         .collect(Collectors.toList()));
         Optional.ofNullable(version).ifPresent(builder::setVersion);
+        Optional.ofNullable(persistableNetworkPayloadFilter)
+                .ifPresent(filter -> builder.setPersistableNetworkPayloadFilter(filter.toProtoMessage()));
         NetworkEnvelope proto = getNetworkEnvelopeBuilder()
                 .setPreliminaryGetDataRequest(builder)
                 .build();
-        log.info("Sending a PreliminaryGetDataRequest with {} kB and {} excluded key entries. Requesters version={}",
-                proto.getSerializedSize() / 1000d, excludedKeys.size(), version);
+        log.info("Sending a PreliminaryGetDataRequest with {} kB and {} excluded key entries. Requesters version={}. " +
+                        "PersistableNetworkPayload filter={}",
+                proto.getSerializedSize() / 1000d, excludedKeys.size(), version, persistableNetworkPayloadFilter);
         return proto;
     }
 
     public static PreliminaryGetDataRequest fromProto(protobuf.PreliminaryGetDataRequest proto, int messageVersion) {
         Set<byte[]> excludedKeys = ProtoUtil.byteSetFromProtoByteStringList(proto.getExcludedKeysList());
         String requestersVersion = ProtoUtil.stringOrNullFromProto(proto.getVersion());
-        log.info("Received a PreliminaryGetDataRequest with {} kB and {} excluded key entries. Requesters version={}",
-                proto.getSerializedSize() / 1000d, excludedKeys.size(), requestersVersion);
+        PayloadHashFilter persistableNetworkPayloadFilter = proto.hasPersistableNetworkPayloadFilter() ?
+                PayloadHashFilter.fromProto(proto.getPersistableNetworkPayloadFilter()) : null;
+        log.info("Received a PreliminaryGetDataRequest with {} kB and {} excluded key entries. Requesters version={}. " +
+                        "PersistableNetworkPayload filter={}",
+                proto.getSerializedSize() / 1000d, excludedKeys.size(), requestersVersion, persistableNetworkPayloadFilter);
         return new PreliminaryGetDataRequest(proto.getNonce(),
                 excludedKeys,
                 requestersVersion,
+                persistableNetworkPayloadFilter,
                 Capabilities.fromIntList(proto.getSupportedCapabilitiesList()),
                 messageVersion);
     }
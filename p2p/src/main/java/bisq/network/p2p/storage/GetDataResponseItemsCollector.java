@@ -0,0 +1,267 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import bisq.network.p2p.storage.payload.CapabilityRequiringPayload;
+import bisq.network.p2p.storage.payload.DateSortedTruncatablePayload;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+import bisq.network.p2p.storage.payload.ProtectedStoragePayload;
+
+import bisq.common.app.Capabilities;
+import bisq.common.proto.network.NetworkPayload;
+import bisq.common.util.Utilities;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Selects the items of a Map<ByteArray, ProtectedStorageEntry || PersistableNetworkPayload> we send to a peer in a
+ * GetDataResponse.
+ *
+ * The candidates are classified in one pass over the map into the GetDataResponsePriority buckets. Date sorted
+ * truncatable items are kept in a bounded heap so only the most recent maxItems are retained. The serialized size of
+ * an item is only computed for items which are subject to the size limit and is cached by the hash of the payload,
+ * so that repeated requests from new peers do not serialize the same payloads again.
+ *
+ * Truncation follows these rules:
+ * 1. Add all payloads with GetDataResponsePriority.MID
+ * 2. Add all payloads with GetDataResponsePriority.LOW && !DateSortedTruncatablePayload until the size limit is reached
+ * 3. If the size limit is not reached, add the most recent payloads with GetDataResponsePriority.LOW &&
+ *    DateSortedTruncatablePayload (max. maxItems) until the size limit is reached. They are added in reverse date
+ *    order so in case we cut off at the next step we cut off the oldest items.
+ * 4. Truncate the result if its size is > maxEntries
+ * 5. Add all payloads with GetDataResponsePriority.HIGH
+ */
+@Slf4j
+class GetDataResponseItemsCollector<T extends NetworkPayload> {
+    private final Function<T, ? extends NetworkPayload> asPayload;
+    private final String name;
+
+    // Serialized size of items by the hash of their payload. We only add items which have been subject to the size
+    // limit, so the cache grows only with the data we actually send.
+    private final Map<P2PDataStorage.ByteArray, Integer> serializedSizeByHash = new ConcurrentHashMap<>();
+
+    GetDataResponseItemsCollector(Function<T, ? extends NetworkPayload> asPayload, String name) {
+        this.asPayload = asPayload;
+        this.name = name;
+    }
+
+    /**
+     * Needs to be called if the item for that hash got replaced or removed, as the serialized size of the new item
+     * might differ (e.g. a ProtectedStorageEntry with a new sequence number and signature).
+     */
+    void invalidate(P2PDataStorage.ByteArray hash) {
+        serializedSizeByHash.remove(hash);
+    }
+
+    void clear() {
+        serializedSizeByHash.clear();
+    }
+
+    Set<T> collect(Map<P2PDataStorage.ByteArray, T> toFilter,
+                   Predicate<P2PDataStorage.ByteArray> isKnownHash,
+                   Capabilities peerCapabilities,
+                   int maxEntries,
+                   long limit,
+                   AtomicBoolean outTruncated) {
+        return collect(Collections.singletonList(toFilter), isKnownHash, peerCapabilities, maxEntries, limit, outTruncated);
+    }
+
+    /**
+     * The key sets of the maps are expected to be disjoint, so we can iterate them without merging them into a new map.
+     */
+    Set<T> collect(Collection<Map<P2PDataStorage.ByteArray, T>> maps,
+                   Predicate<P2PDataStorage.ByteArray> isKnownHash,
+                   Capabilities peerCapabilities,
+                   int maxEntries,
+                   long limit,
+                   AtomicBoolean outTruncated) {
+        log.info("Filter {} data based on known hashes", name);
+
+        Map<String, AtomicInteger> numItemsByClassName = new HashMap<>();
+        List<T> midPrioItems = new ArrayList<>();
+        List<T> highPrioItems = new ArrayList<>();
+        List<Map.Entry<P2PDataStorage.ByteArray, T>> lowPrioCandidates = new ArrayList<>();
+
+        // Oldest item is at the head, so we can evict it once we exceed maxItems.
+        Comparator<Map.Entry<P2PDataStorage.ByteArray, T>> byDate = Comparator.comparingLong(entry -> getDate(entry.getValue()));
+        PriorityQueue<Map.Entry<P2PDataStorage.ByteArray, T>> dateSortedCandidates = new PriorityQueue<>(byDate);
+        int maxDateSortedItems = Integer.MAX_VALUE;
+        int numDateSortedCandidates = 0;
+        int numKnownItems = 0;
+
+        for (Map<P2PDataStorage.ByteArray, T> toFilter : maps) {
+            for (Map.Entry<P2PDataStorage.ByteArray, T> entry : toFilter.entrySet()) {
+                // We check the key before we access the value, as the values of the mapped historical stores get
+                // decoded on access.
+                if (isKnownHash.test(entry.getKey())) {
+                    numKnownItems++;
+                    continue;
+                }
+
+                T item = entry.getValue();
+                NetworkPayload payload = asPayload.apply(item);
+                numItemsByClassName.computeIfAbsent(payload.getClass().getSimpleName(), k -> new AtomicInteger())
+                        .incrementAndGet();
+
+                if (!shouldTransmitPayloadToPeer(peerCapabilities, payload)) {
+                    continue;
+                }
+
+                switch (item.getGetDataResponsePriority()) {
+                    case MID:
+                        midPrioItems.add(item);
+                        break;
+                    case HIGH:
+                        highPrioItems.add(item);
+                        break;
+                    case LOW:
+                    default:
+                        if (payload instanceof DateSortedTruncatablePayload) {
+                            if (numDateSortedCandidates == 0) {
+                                maxDateSortedItems = ((DateSortedTruncatablePayload) payload).maxItems();
+                            }
+                            numDateSortedCandidates++;
+                            dateSortedCandidates.add(entry);
+                            if (dateSortedCandidates.size() > maxDateSortedItems) {
+                                dateSortedCandidates.poll();
+                            }
+                        } else {
+                            lowPrioCandidates.add(entry);
+                        }
+                        break;
+                }
+            }
+        }
+        log.info("Number of items known by the requester: {}. numItemsByClassName of the other items: {}",
+                numKnownItems, numItemsByClassName);
+
+        // 1. Add all payloads with GetDataResponsePriority.MID
+        List<T> resultItems = new ArrayList<>(midPrioItems);
+        log.info("Number of items with GetDataResponsePriority.MID: {}", midPrioItems.size());
+
+        // 2. Add all payloads with GetDataResponsePriority.LOW && !DateSortedTruncatablePayload until the size limit
+        // is reached
+        long totalSize = 0;
+        boolean exceededSizeLimit = false;
+        int numLowPrioItems = 0;
+        for (Map.Entry<P2PDataStorage.ByteArray, T> entry : lowPrioCandidates) {
+            totalSize += getSerializedSize(entry);
+            if (totalSize > limit) {
+                exceededSizeLimit = true;
+                break;
+            }
+            resultItems.add(entry.getValue());
+            numLowPrioItems++;
+        }
+        log.info("Number of items with GetDataResponsePriority.LOW and !DateSortedTruncatablePayload: {}. " +
+                "Exceeded size limit: {}", numLowPrioItems, exceededSizeLimit);
+
+        // 3. If the size limit is not reached, add the most recent DateSortedTruncatablePayload items until the size
+        // limit is reached. We add them with the most recent first, so in case we get truncated we cut off the older items.
+        if (!exceededSizeLimit) {
+            if (numDateSortedCandidates > dateSortedCandidates.size()) {
+                outTruncated.set(true);
+                log.info("Removed oldest {} dateSortedItems as we exceeded {}",
+                        numDateSortedCandidates - dateSortedCandidates.size(), maxDateSortedItems);
+            }
+
+            List<Map.Entry<P2PDataStorage.ByteArray, T>> dateSortedItems = new ArrayList<>(dateSortedCandidates);
+            dateSortedItems.sort(byDate.reversed());
+            int numDateSortedItems = 0;
+            for (Map.Entry<P2PDataStorage.ByteArray, T> entry : dateSortedItems) {
+                totalSize += getSerializedSize(entry);
+                if (totalSize > limit) {
+                    exceededSizeLimit = true;
+                    break;
+                }
+                resultItems.add(entry.getValue());
+                numDateSortedItems++;
+            }
+            log.info("Number of items with GetDataResponsePriority.LOW and DateSortedTruncatablePayload: {}. " +
+                    "Was truncated: {}", numDateSortedItems, outTruncated.get());
+        } else if (numDateSortedCandidates > 0) {
+            log.info("No dateSortedItems added as we exceeded already the exceededSizeLimit of {}", limit);
+        }
+
+        // 4. We truncate list if resultList size > maxEntries
+        int size = resultItems.size();
+        if (size > maxEntries) {
+            resultItems = resultItems.subList(0, maxEntries);
+            outTruncated.set(true);
+            log.info("Removed last {} items as we exceeded {}", size - maxEntries, maxEntries);
+        }
+
+        outTruncated.set(outTruncated.get() || exceededSizeLimit);
+
+        // 5. Add all payloads with GetDataResponsePriority.HIGH
+        Set<T> result = new HashSet<>(resultItems);
+        result.addAll(highPrioItems);
+        log.info("Number of items with GetDataResponsePriority.HIGH: {}", highPrioItems.size());
+        log.info("Number of result items we send to requester: {}", result.size());
+        return result;
+    }
+
+    private int getSerializedSize(Map.Entry<P2PDataStorage.ByteArray, T> entry) {
+        return serializedSizeByHash.computeIfAbsent(entry.getKey(),
+                hash -> entry.getValue().toProtoMessage().getSerializedSize());
+    }
+
+    private long getDate(T item) {
+        return ((DateSortedTruncatablePayload) asPayload.apply(item)).getDate().getTime();
+    }
+
+    /**
+     * Returns true if a Payload should be transmit to a peer given the peer's supported capabilities.
+     */
+    static boolean shouldTransmitPayloadToPeer(Capabilities peerCapabilities, NetworkPayload payload) {
+
+        // Sanity check to ensure this isn't used outside P2PDataStorage
+        if (!(payload instanceof ProtectedStoragePayload || payload instanceof PersistableNetworkPayload))
+            return false;
+
+        // If the payload doesn't have a required capability, we should transmit it
+        if (!(payload instanceof CapabilityRequiringPayload))
+            return true;
+
+        // Otherwise, only transmit the Payload if the peer supports all capabilities required by the payload
+        boolean shouldTransmit = peerCapabilities.containsAll(((CapabilityRequiringPayload) payload).getRequiredCapabilities());
+
+        if (!shouldTransmit) {
+            log.debug("We do not send the message to the peer because they do not support the required capability for that message type.\n" +
+                    "storagePayload is: " + Utilities.toTruncatedString(payload));
+        }
+
+        return shouldTransmit;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only view of the payload hashes held by a list of stores. The stores are keyed by payload hash already and are
+ * updated at each add and remove, so the view reflects the current state without copying the keys into a new set for
+ * each GetData request.
+ *
+ * The key sets of the stores must be disjoint, which is the case for the maps we use (different payload types or
+ * live data which got pruned from the historical data).
+ */
+class KnownPayloadHashes extends AbstractSet<byte[]> {
+    private final List<Map<P2PDataStorage.ByteArray, ?>> maps;
+
+    KnownPayloadHashes(List<Map<P2PDataStorage.ByteArray, ?>> maps) {
+        this.maps = Collections.unmodifiableList(maps);
+    }
+
+    @Override
+    public Iterator<byte[]> iterator() {
+        Iterator<Map<P2PDataStorage.ByteArray, ?>> mapsIterator = maps.iterator();
+        return new Iterator<>() {
+            private Iterator<P2PDataStorage.ByteArray> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && mapsIterator.hasNext()) {
+                    current = mapsIterator.next().keySet().iterator();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public byte[] next() {
+                hasNext();
+                return current.next().bytes;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return maps.stream().mapToInt(Map::size).sum();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof byte[]) || ((byte[]) o).length == 0) {
+            return false;
+        }
+        P2PDataStorage.ByteArray hash = new P2PDataStorage.ByteArray((byte[]) o);
+        return maps.stream().anyMatch(map -> map.containsKey(hash));
+    }
+}
@@ -28,6 +28,7 @@ import bisq.network.p2p.peers.Broadcaster;
 import bisq.network.p2p.peers.getdata.messages.GetDataRequest;
 import bisq.network.p2p.peers.getdata.messages.GetDataResponse;
 import bisq.network.p2p.peers.getdata.messages.GetUpdatedDataRequest;
+import bisq.network.p2p.peers.getdata.messages.PayloadHashFilter;
 import bisq.network.p2p.peers.getdata.messages.PreliminaryGetDataRequest;
 import bisq.network.p2p.storage.messages.AddDataMessage;
 import bisq.network.p2p.storage.messages.AddOncePayload;
@@ -36,9 +37,8 @@ import bisq.network.p2p.storage.messages.BroadcastMessage;
 import bisq.network.p2p.storage.messages.RefreshOfferMessage;
 import bisq.network.p2p.storage.messages.RemoveDataMessage;
 import bisq.network.p2p.storage.messages.RemoveMailboxDataMessage;
-import bisq.network.p2p.storage.payload.CapabilityRequiringPayload;
-import bisq.network.p2p.storage.payload.DateSortedTruncatablePayload;
 import bisq.network.p2p.storage.payload.DateTolerantPayload;
+import bisq.network.p2p.storage.payload.HashCachingPayload;
 import bisq.network.p2p.storage.payload.MailboxStoragePayload;
 import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
 import bisq.network.p2p.storage.payload.ProcessOncePersistableNetworkPayload;
@@ -58,6 +58,7 @@ import bisq.network.p2p.storage.persistence.SequenceNumberMap;
 import bisq.common.Timer;
 import bisq.common.UserThread;
 import bisq.common.app.Capabilities;
+import bisq.common.config.Config;
 import bisq.common.crypto.CryptoException;
 import bisq.common.crypto.Hash;
 import bisq.common.crypto.Sig;
@@ -72,12 +73,16 @@ import bisq.common.util.Tuple2;
 import bisq.common.util.Utilities;
 
 import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
 
 import com.google.inject.name.Named;
 
 import javax.inject.Inject;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import org.fxmisc.easybind.EasyBind;
@@ -89,6 +94,8 @@ import javafx.beans.property.SimpleBooleanProperty;
 import java.security.KeyPair;
 import java.security.PublicKey;
 
+import java.io.IOException;
+
 import java.time.Clock;
 
 import java.util.ArrayList;
@@ -99,15 +106,17 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -131,7 +140,15 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
     @VisibleForTesting
     public static final int CHECK_TTL_INTERVAL_SEC = 60;
 
+    // GetDataResponses with fewer entries are verified at the user thread while being applied.
+    private static final int MIN_ENTRIES_FOR_PARALLEL_VERIFICATION = 100;
+    private static final int NUM_SIGNATURE_VERIFICATION_THREADS =
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static final long MAX_VERIFIED_SIGNATURES_CACHE_SIZE = 20_000;
+
     private boolean initialRequestApplied = false;
+    // If we have sent a PayloadHashFilter we might have missed some items due false positives of the filter.
+    private boolean payloadHashFilterRequested = false;
 
     private final Broadcaster broadcaster;
     @VisibleForTesting
@@ -163,6 +180,31 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
     @Setter
     private Predicate<ProtectedStoragePayload> filterPredicate; //Set from FilterManager
 
+    // Used for building the GetDataResponse. They cache the serialized size of the items subject to the size limit.
+    private final GetDataResponseItemsCollector<PersistableNetworkPayload> persistableNetworkPayloadsCollector =
+            new GetDataResponseItemsCollector<>(Function.identity(), "PersistableNetworkPayload");
+    private final GetDataResponseItemsCollector<ProtectedStorageEntry> protectedStorageEntriesCollector =
+            new GetDataResponseItemsCollector<>(ProtectedStorageEntry::getProtectedStoragePayload, "ProtectedStorageEntry");
+    private final ExecutorService signatureVerificationExecutor = Utilities.getThreadPoolExecutor("verifySignatures",
+            NUM_SIGNATURE_VERIFICATION_THREADS,
+            NUM_SIGNATURE_VERIFICATION_THREADS,
+            60);
+    // The same entries are received repeatedly as new instances (from several seed nodes at the initial data requests
+    // or re-broadcast by peers), so we keep the successful verifications of the most recently used signatures.
+    // Thread safe, as it is used by the signatureVerificationExecutor as well.
+    private final Cache<ByteArray, Boolean> verifiedSignatures = CacheBuilder.newBuilder()
+            .maximumSize(MAX_VERIFIED_SIGNATURES_CACHE_SIZE)
+            .build();
+
+    // While a notification batch is open or the notification delay is running we collect the changes for the
+    // hashMapChangedListeners and deliver them with one onRemoved and one onAdded call.
+    private final long notificationDelayMs;
+    private int numOpenNotificationBatches;
+    private final Map<ByteArray, ProtectedStorageEntry> pendingAddedEntries = new LinkedHashMap<>();
+    private final Map<ByteArray, ProtectedStorageEntry> pendingRemovedEntries = new LinkedHashMap<>();
+    @Nullable
+    private Timer notificationTimer;
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Constructor
@@ -177,7 +219,8 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
                           PersistenceManager<SequenceNumberMap> persistenceManager,
                           RemovedPayloadsService removedPayloadsService,
                           Clock clock,
-                          @Named("MAX_SEQUENCE_NUMBER_MAP_SIZE_BEFORE_PURGE") int maxSequenceNumberBeforePurge) {
+                          @Named("MAX_SEQUENCE_NUMBER_MAP_SIZE_BEFORE_PURGE") int maxSequenceNumberBeforePurge,
+                          @Named(Config.P2P_DATA_NOTIFICATION_DELAY) int notificationDelayMs) {
         this.broadcaster = broadcaster;
         this.appendOnlyDataStoreService = appendOnlyDataStoreService;
         this.protectedDataStoreService = protectedDataStoreService;
@@ -186,6 +229,7 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         this.removedPayloadsService = removedPayloadsService;
         this.clock = clock;
         this.maxSequenceNumberMapSizeBeforePurge = maxSequenceNumberBeforePurge;
+        this.notificationDelayMs = notificationDelayMs;
 
         networkNode.addMessageListener(this);
         networkNode.addConnectionListener(this);
@@ -256,6 +300,7 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         ProtectedStoragePayload protectedStoragePayload = protectedStorageEntry.getProtectedStoragePayload();
         ByteArray hashOfPayload = get32ByteHashAsByteArray(protectedStoragePayload);
         map.put(hashOfPayload, protectedStorageEntry);
+        protectedStorageEntriesCollector.invalidate(hashOfPayload);
         //log.trace("## addProtectedMailboxStorageEntryToMap hashOfPayload={}, map={}", hashOfPayload, printMap());
     }
 
@@ -268,6 +313,20 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
      * Returns a PreliminaryGetDataRequest that can be sent to a peer node to request missing Payload data.
      */
     public PreliminaryGetDataRequest buildPreliminaryGetDataRequest(int nonce) {
+        return buildPreliminaryGetDataRequest(nonce, false);
+    }
+
+    /**
+     * Returns a PreliminaryGetDataRequest that can be sent to a peer node to request missing Payload data. If
+     * usePayloadHashFilter is set the PersistableNetworkPayload hashes are sent as PayloadHashFilter. Must only be
+     * used if the peer has the PAYLOAD_HASH_FILTER capability.
+     */
+    public PreliminaryGetDataRequest buildPreliminaryGetDataRequest(int nonce, boolean usePayloadHashFilter) {
+        if (usePayloadHashFilter) {
+            return new PreliminaryGetDataRequest(nonce,
+                    getKnownProtectedStorageEntryHashes(),
+                    buildPersistableNetworkPayloadFilter());
+        }
         return new PreliminaryGetDataRequest(nonce, getKnownPayloadHashes());
     }
 
@@ -275,6 +334,23 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
      * Returns a GetUpdatedDataRequest that can be sent to a peer node to request missing Payload data.
      */
     public GetUpdatedDataRequest buildGetUpdatedDataRequest(NodeAddress senderNodeAddress, int nonce) {
+        return buildGetUpdatedDataRequest(senderNodeAddress, nonce, false);
+    }
+
+    /**
+     * Returns a GetUpdatedDataRequest that can be sent to a peer node to request missing Payload data. If
+     * usePayloadHashFilter is set the PersistableNetworkPayload hashes are sent as PayloadHashFilter. Must only be
+     * used if the peer has the PAYLOAD_HASH_FILTER capability.
+     */
+    public GetUpdatedDataRequest buildGetUpdatedDataRequest(NodeAddress senderNodeAddress,
+                                                            int nonce,
+                                                            boolean usePayloadHashFilter) {
+        if (usePayloadHashFilter) {
+            return new GetUpdatedDataRequest(senderNodeAddress,
+                    nonce,
+                    getKnownProtectedStorageEntryHashes(),
+                    buildPersistableNetworkPayloadFilter());
+        }
         return new GetUpdatedDataRequest(senderNodeAddress, nonce, getKnownPayloadHashes());
     }
 
@@ -286,11 +362,27 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         // PersistedStoragePayload items don't get removed, so we don't have an issue with the case that
         // an object gets removed in between PreliminaryGetDataRequest and the GetUpdatedDataRequest and we would
         // miss that event if we do not load the full set or use some delta handling.
-        Map<ByteArray, PersistableNetworkPayload> mapForDataRequest = getMapForDataRequest();
-        Set<byte[]> excludedKeys = getKeysAsByteSet(mapForDataRequest);
-        Set<byte[]> excludedKeysFromProtectedStorageEntryMap = getKeysAsByteSet(map);
-        excludedKeys.addAll(excludedKeysFromProtectedStorageEntryMap);
-        return excludedKeys;
+        // We do not copy the keys but use a read-only view on the maps of our stores and our ProtectedStorageEntry map.
+        List<Map<ByteArray, ?>> maps = new ArrayList<>(getMapsForDataRequest());
+        maps.add(Collections.unmodifiableMap(map));
+        return new KnownPayloadHashes(maps);
+    }
+
+    private Set<byte[]> getKnownProtectedStorageEntryHashes() {
+        return new KnownPayloadHashes(Collections.singletonList(Collections.unmodifiableMap(map)));
+    }
+
+    private PayloadHashFilter buildPersistableNetworkPayloadFilter() {
+        long ts = System.currentTimeMillis();
+        Set<byte[]> knownHashes = new KnownPayloadHashes(new ArrayList<>(getMapsForDataRequest()));
+        PayloadHashFilter filter = PayloadHashFilter.fromHashes(knownHashes);
+        // As the filter can have false positives we might miss some data. We use a random tweak at each filter, so
+        // a later request will deliver those items. We must not skip the ProcessOncePersistableNetworkPayload items
+        // in the later responses in that case.
+        payloadHashFilterRequested = true;
+        log.info("Creating PayloadHashFilter for {} PersistableNetworkPayload hashes with {} kB took {} ms",
+                knownHashes.size(), filter.getBits().length / 1000d, System.currentTimeMillis() - ts);
+        return filter;
     }
 
     /**
@@ -306,11 +398,19 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         Set<P2PDataStorage.ByteArray> excludedKeysAsByteArray =
                 P2PDataStorage.ByteArray.convertBytesSetToByteArraySet(getDataRequest.getExcludedKeys());
 
+        // If the requester sent a PayloadHashFilter the excludedKeys contain only the ProtectedStorageEntry hashes.
+        PayloadHashFilter persistableNetworkPayloadFilter = getDataRequest.getPersistableNetworkPayloadFilter();
+        Predicate<ByteArray> isKnownPersistableNetworkPayload = persistableNetworkPayloadFilter != null ?
+                hash -> excludedKeysAsByteArray.contains(hash) || persistableNetworkPayloadFilter.mightContain(hash.bytes) :
+                excludedKeysAsByteArray::contains;
+        log.info("Filter data based on {} excluded keys. Requester uses PayloadHashFilter: {}",
+                excludedKeysAsByteArray.size(), persistableNetworkPayloadFilter != null);
+
         // Pre v 1.4.0 requests do not have set the requesters version field so it is null.
         // The methods in HistoricalDataStoreService will return all historical data in that case.
-        // mapForDataResponse contains the filtered by version data from HistoricalDataStoreService as well as all other
+        // mapsForDataResponse contains the filtered by version data from HistoricalDataStoreService as well as all other
         // maps of the remaining appendOnlyDataStoreServices.
-        Map<ByteArray, PersistableNetworkPayload> mapForDataResponse = getMapForDataResponse(getDataRequest.getVersion());
+        List<Map<ByteArray, PersistableNetworkPayload>> mapsForDataResponse = getMapsForDataResponse(getDataRequest.getVersion());
 
         // Give a bit of tolerance for message overhead
         double maxSize = Connection.getMaxPermittedMessageSize() * 0.6;
@@ -318,42 +418,42 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         // 25% of space is allocated for PersistableNetworkPayloads
         long limit = Math.round(maxSize * 0.25);
         Set<PersistableNetworkPayload> filteredPersistableNetworkPayloads =
-                filterKnownHashes(
-                        mapForDataResponse,
-                        Function.identity(),
-                        excludedKeysAsByteArray,
+                persistableNetworkPayloadsCollector.collect(
+                        mapsForDataResponse,
+                        isKnownPersistableNetworkPayload,
                         peerCapabilities,
                         maxEntriesPerType,
                         limit,
-                        wasPersistableNetworkPayloadsTruncated,
-                        true);
+                        wasPersistableNetworkPayloadsTruncated);
         log.info("{} PersistableNetworkPayload entries remained after filtered by excluded keys. " +
                         "Original map had {} entries.",
-                filteredPersistableNetworkPayloads.size(), mapForDataResponse.size());
-        log.trace("## buildGetDataResponse filteredPersistableNetworkPayloadHashes={}",
-                filteredPersistableNetworkPayloads.stream()
-                        .map(e -> Utilities.encodeToHex(e.getHash()))
-                        .toArray());
+                filteredPersistableNetworkPayloads.size(), mapsForDataResponse.stream().mapToInt(Map::size).sum());
+        if (log.isTraceEnabled()) {
+            log.trace("## buildGetDataResponse filteredPersistableNetworkPayloadHashes={}",
+                    filteredPersistableNetworkPayloads.stream()
+                            .map(e -> Utilities.encodeToHex(e.getHash()))
+                            .toArray());
+        }
 
         // We give 75% space to ProtectedStorageEntries as they contain MailBoxMessages and those can be larger.
         limit = Math.round(maxSize * 0.75);
         Set<ProtectedStorageEntry> filteredProtectedStorageEntries =
-                filterKnownHashes(
+                protectedStorageEntriesCollector.collect(
                         map,
-                        ProtectedStorageEntry::getProtectedStoragePayload,
-                        excludedKeysAsByteArray,
+                        excludedKeysAsByteArray::contains,
                         peerCapabilities,
                         maxEntriesPerType,
                         limit,
-                        wasProtectedStorageEntriesTruncated,
-                        false);
+                        wasProtectedStorageEntriesTruncated);
         log.info("{} ProtectedStorageEntry entries remained after filtered by excluded keys. " +
                         "Original map had {} entries.",
                 filteredProtectedStorageEntries.size(), map.size());
-        log.trace("## buildGetDataResponse filteredProtectedStorageEntryHashes={}",
-                filteredProtectedStorageEntries.stream()
-                        .map(e -> get32ByteHashAsByteArray((e.getProtectedStoragePayload())))
-                        .toArray());
+        if (log.isTraceEnabled()) {
+            log.trace("## buildGetDataResponse filteredProtectedStorageEntryHashes={}",
+                    filteredProtectedStorageEntries.stream()
+                            .map(e -> get32ByteHashAsByteArray((e.getProtectedStoragePayload())))
+                            .toArray());
+        }
 
         boolean wasTruncated = wasPersistableNetworkPayloadsTruncated.get() || wasProtectedStorageEntriesTruncated.get();
         return new GetDataResponse(
@@ -371,6 +471,12 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
 
     private Map<ByteArray, PersistableNetworkPayload> getMapForDataRequest() {
         Map<ByteArray, PersistableNetworkPayload> map = new HashMap<>();
+        getMapsForDataRequest().forEach(map::putAll);
+        return map;
+    }
+
+    private List<Map<ByteArray, PersistableNetworkPayload>> getMapsForDataRequest() {
+        List<Map<ByteArray, PersistableNetworkPayload>> maps = new ArrayList<>();
         appendOnlyDataStoreService.getServices()
                 .forEach(service -> {
                     Map<ByteArray, PersistableNetworkPayload> serviceMap;
@@ -382,218 +488,68 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
                     } else {
                         serviceMap = service.getMap();
                     }
-                    map.putAll(serviceMap);
+                    maps.add(Collections.unmodifiableMap(serviceMap));
                     log.debug("We added {} entries from {} to the excluded key set of our request",
                             serviceMap.size(), service.getClass().getSimpleName());
                 });
-        return map;
+        return maps;
     }
 
     public Map<ByteArray, PersistableNetworkPayload> getMapForDataResponse(String requestersVersion) {
         Map<ByteArray, PersistableNetworkPayload> map = new HashMap<>();
+        getMapsForDataResponse(requestersVersion).forEach(map::putAll);
+        return map;
+    }
+
+    private List<Map<ByteArray, PersistableNetworkPayload>> getMapsForDataResponse(String requestersVersion) {
+        List<Map<ByteArray, PersistableNetworkPayload>> maps = new ArrayList<>();
         appendOnlyDataStoreService.getServices()
                 .forEach(service -> {
-                    Map<ByteArray, PersistableNetworkPayload> serviceMap;
+                    List<Map<ByteArray, PersistableNetworkPayload>> serviceMaps;
                     if (service instanceof HistoricalDataStoreService) {
                         var historicalDataStoreService = (HistoricalDataStoreService<? extends PersistableNetworkPayloadStore>) service;
-                        serviceMap = historicalDataStoreService.getMapSinceVersion(requestersVersion);
+                        serviceMaps = historicalDataStoreService.getMapsSinceVersion(requestersVersion);
                     } else {
-                        serviceMap = service.getMap();
+                        serviceMaps = Collections.singletonList(Collections.unmodifiableMap(service.getMap()));
                     }
-                    map.putAll(serviceMap);
+                    maps.addAll(serviceMaps);
                     log.info("We added {} entries from {} to be filtered by excluded keys",
-                            serviceMap.size(), service.getClass().getSimpleName());
+                            serviceMaps.stream().mapToInt(Map::size).sum(), service.getClass().getSimpleName());
                 });
-        return map;
-    }
-
-    /**
-     * Generic function that can be used to filter a Map<ByteArray, ProtectedStorageEntry || PersistableNetworkPayload>
-     * by a given set of keys and peer capabilities.
-     */
-    static private <T extends NetworkPayload> Set<T> filterKnownHashes(
-            Map<ByteArray, T> toFilter,
-            Function<T, ? extends NetworkPayload> asPayload,
-            Set<ByteArray> knownHashes,
-            Capabilities peerCapabilities,
-            int maxEntries,
-            long limit,
-            AtomicBoolean outTruncated,
-            boolean isPersistableNetworkPayload) {
-        log.info("Filter {} data based on {} knownHashes",
-                isPersistableNetworkPayload ? "PersistableNetworkPayload" : "ProtectedStorageEntry",
-                knownHashes.size());
-
-        AtomicLong totalSize = new AtomicLong();
-        AtomicBoolean exceededSizeLimit = new AtomicBoolean();
-
-        Set<Map.Entry<ByteArray, T>> entries = toFilter.entrySet();
-        Map<String, AtomicInteger> numItemsByClassName = new HashMap<>();
-        entries.forEach(entry -> {
-            String name = asPayload.apply(entry.getValue()).getClass().getSimpleName();
-            numItemsByClassName.putIfAbsent(name, new AtomicInteger());
-            numItemsByClassName.get(name).incrementAndGet();
-        });
-        log.info("numItemsByClassName: {}", numItemsByClassName);
-
-        // Map.Entry.value can be ProtectedStorageEntry or PersistableNetworkPayload. We call it item in the steam iterations.
-        List<T> filteredItems = entries.stream()
-                .filter(entry -> !knownHashes.contains(entry.getKey()))
-                .map(Map.Entry::getValue)
-                .filter(item -> shouldTransmitPayloadToPeer(peerCapabilities, asPayload.apply(item)))
-                .collect(Collectors.toList());
-        List<T> resultItems = new ArrayList<>();
-
-        // Truncation follows this rules
-        // 1. Add all payloads with GetDataResponsePriority.MID
-        // 2. Add all payloads with GetDataResponsePriority.LOW && !DateSortedTruncatablePayload until exceededSizeLimit is reached
-        // 3. if(!exceededSizeLimit) Add all payloads with GetDataResponsePriority.LOW && DateSortedTruncatablePayload until
-        //    exceededSizeLimit is reached and truncate by maxItems (sorted by date). We add the sublist to our resultItems in
-        //    reverse order so in case we cut off at next step we cut off oldest items.
-        // 4. We truncate list if resultList size > maxEntries
-        // 5. Add all payloads with GetDataResponsePriority.HIGH
-
-
-        // 1. Add all payloads with GetDataResponsePriority.MID
-        List<T> midPrioItems = filteredItems.stream()
-                .filter(item -> item.getGetDataResponsePriority() == GetDataResponsePriority.MID)
-                .collect(Collectors.toList());
-        resultItems.addAll(midPrioItems);
-        log.info("Number of items with GetDataResponsePriority.MID: {}", midPrioItems.size());
-
-        // 2. Add all payloads with GetDataResponsePriority.LOW && !DateSortedTruncatablePayload until exceededSizeLimit is reached
-        List<T> lowPrioItems = filteredItems.stream()
-                .filter(item -> item.getGetDataResponsePriority() == GetDataResponsePriority.LOW)
-                .filter(item -> !(asPayload.apply(item) instanceof DateSortedTruncatablePayload))
-                .filter(item -> {
-                    if (exceededSizeLimit.get()) {
-                        return false;
-                    }
-                    if (totalSize.addAndGet(item.toProtoMessage().getSerializedSize()) > limit) {
-                        exceededSizeLimit.set(true);
-                        return false;
-                    }
-                    return true;
-                })
-                .collect(Collectors.toList());
-        resultItems.addAll(lowPrioItems);
-        log.info("Number of items with GetDataResponsePriority.LOW and !DateSortedTruncatablePayload: {}. Exceeded size limit: {}", lowPrioItems.size(), exceededSizeLimit.get());
-
-        // 3. if(!exceededSizeLimit) Add all payloads with GetDataResponsePriority.LOW && DateSortedTruncatablePayload until
-        //    exceededSizeLimit is reached and truncate by maxItems (sorted by date). We add the sublist to our resultItems in
-        //    reverse order so in case we cut off at next step we cut off oldest items.
-        if (!exceededSizeLimit.get()) {
-            List<T> dateSortedItems = filteredItems.stream()
-                    .filter(item -> item.getGetDataResponsePriority() == GetDataResponsePriority.LOW)
-                    .filter(item -> asPayload.apply(item) instanceof DateSortedTruncatablePayload)
-                    .filter(item -> {
-                        if (exceededSizeLimit.get()) {
-                            return false;
-                        }
-                        if (totalSize.addAndGet(item.toProtoMessage().getSerializedSize()) > limit) {
-                            exceededSizeLimit.set(true);
-                            return false;
-                        }
-                        return true;
-                    })
-                    .sorted(Comparator.comparing(item -> ((DateSortedTruncatablePayload) asPayload.apply(item)).getDate()))
-                    .collect(Collectors.toList());
-            if (!dateSortedItems.isEmpty()) {
-                int maxItems = ((DateSortedTruncatablePayload) asPayload.apply(dateSortedItems.get(0))).maxItems();
-                int size = dateSortedItems.size();
-                if (size > maxItems) {
-                    int fromIndex = size - maxItems;
-                    dateSortedItems = dateSortedItems.subList(fromIndex, size);
-                    outTruncated.set(true);
-                    log.info("Num truncated dateSortedItems {}", size);
-                    log.info("Removed oldest {} dateSortedItems as we exceeded {}", fromIndex, maxItems);
-                }
-            }
-            log.info("Number of items with GetDataResponsePriority.LOW and DateSortedTruncatablePayload: {}. Was truncated: {}", dateSortedItems.size(), outTruncated.get());
-
-            // We reverse sorting so in case we get truncated we cut off the older items
-            Comparator<T> comparator = Comparator.comparing(item -> ((DateSortedTruncatablePayload) asPayload.apply(item)).getDate());
-            dateSortedItems.sort(comparator.reversed());
-            resultItems.addAll(dateSortedItems);
-        } else {
-            log.info("No dateSortedItems added as we exceeded already the exceededSizeLimit of {}", limit);
-        }
-
-        // 4. We truncate list if resultList size > maxEntries
-        int size = resultItems.size();
-        if (size > maxEntries) {
-            resultItems = resultItems.subList(0, maxEntries);
-            outTruncated.set(true);
-            log.info("Removed last {} items as we exceeded {}", size - maxEntries, maxEntries);
-        }
-
-        outTruncated.set(outTruncated.get() || exceededSizeLimit.get());
-
-        // 5. Add all payloads with GetDataResponsePriority.HIGH
-        List<T> highPrioItems = filteredItems.stream()
-                .filter(item -> item.getGetDataResponsePriority() == GetDataResponsePriority.HIGH)
-                .collect(Collectors.toList());
-        resultItems.addAll(highPrioItems);
-        log.info("Number of items with GetDataResponsePriority.HIGH: {}", highPrioItems.size());
-        log.info("Number of result items we send to requester: {}", resultItems.size());
-        return new HashSet<>(resultItems);
+        return maps;
     }
 
     public Collection<PersistableNetworkPayload> getPersistableNetworkPayloadCollection() {
         return getMapForDataRequest().values();
     }
 
-    private Set<byte[]> getKeysAsByteSet(Map<ByteArray, ? extends PersistablePayload> map) {
-        return map.keySet().stream()
-                .map(e -> e.bytes)
-                .collect(Collectors.toSet());
-    }
-
-    /**
-     * Returns true if a Payload should be transmit to a peer given the peer's supported capabilities.
-     */
-    private static boolean shouldTransmitPayloadToPeer(Capabilities peerCapabilities, NetworkPayload payload) {
-
-        // Sanity check to ensure this isn't used outside P2PDataStorage
-        if (!(payload instanceof ProtectedStoragePayload || payload instanceof PersistableNetworkPayload))
-            return false;
-
-        // If the payload doesn't have a required capability, we should transmit it
-        if (!(payload instanceof CapabilityRequiringPayload))
-            return true;
-
-        // Otherwise, only transmit the Payload if the peer supports all capabilities required by the payload
-        boolean shouldTransmit = peerCapabilities.containsAll(((CapabilityRequiringPayload) payload).getRequiredCapabilities());
-
-        if (!shouldTransmit) {
-            log.debug("We do not send the message to the peer because they do not support the required capability for that message type.\n" +
-                    "storagePayload is: " + Utilities.toTruncatedString(payload));
-        }
-
-        return shouldTransmit;
-    }
-
     /**
-     * Processes a GetDataResponse message and updates internal state. Does not broadcast updates to the P2P network
-     * or domain listeners.
+     * Processes a GetDataResponse message and updates internal state. Does not broadcast updates to the P2P network.
+     * The domain listeners get notified once about all added ProtectedStorageEntries after the response is applied.
      */
     public void processGetDataResponse(GetDataResponse getDataResponse, NodeAddress sender) {
         Set<ProtectedStorageEntry> protectedStorageEntries = getDataResponse.getDataSet();
         Set<PersistableNetworkPayload> persistableNetworkPayloadSet = getDataResponse.getPersistableNetworkPayloadSet();
+
         long ts = System.currentTimeMillis();
-        protectedStorageEntries.forEach(protectedStorageEntry -> {
-            // We rebroadcast high priority data after a delay for better resilience
-            if (protectedStorageEntry.getProtectedStoragePayload().getGetDataResponsePriority() == GetDataResponsePriority.HIGH) {
-                UserThread.runAfter(() -> {
-                    log.info("Rebroadcast {}", protectedStorageEntry.getProtectedStoragePayload().getClass().getSimpleName());
-                    broadcaster.broadcast(new AddDataMessage(protectedStorageEntry), sender, null);
-                }, 60);
-            }
+        startNotificationBatch();
+        try {
+            protectedStorageEntries.forEach(protectedStorageEntry -> {
+                // We rebroadcast high priority data after a delay for better resilience
+                if (protectedStorageEntry.getProtectedStoragePayload().getGetDataResponsePriority() == GetDataResponsePriority.HIGH) {
+                    UserThread.runAfter(() -> {
+                        log.info("Rebroadcast {}", protectedStorageEntry.getProtectedStoragePayload().getClass().getSimpleName());
+                        broadcaster.broadcast(new AddDataMessage(protectedStorageEntry), sender, null);
+                    }, 60);
+                }
 
-            // We don't broadcast here (last param) as we are only connected to the seed node and would be pointless
-            addProtectedStorageEntry(protectedStorageEntry, sender, null, false);
+                // We don't broadcast here (last param) as we are only connected to the seed node and would be pointless
+                addProtectedStorageEntry(protectedStorageEntry, sender, null, false);
 
-        });
+            });
+        } finally {
+            endNotificationBatch();
+        }
         log.info("Processing {} protectedStorageEntries took {} ms.", protectedStorageEntries.size(), this.clock.millis() - ts);
 
         ts = this.clock.millis();
@@ -606,7 +562,7 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
                 // trade stats and all account age witness data.
 
                 // We only apply it once from first response
-                if (!initialRequestApplied || getDataResponse.isWasTruncated()) {
+                if (!initialRequestApplied || getDataResponse.isWasTruncated() || payloadHashFilterRequested) {
                     addPersistableNetworkPayloadFromInitialRequest(e);
                 }
             } else {
@@ -627,9 +583,42 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
     // API
     ///////////////////////////////////////////////////////////////////////////////////////////
 
+    /**
+     * Verifies the signatures of the ProtectedStorageEntries of a large GetDataResponse in parallel at worker threads
+     * and calls the resultHandler at the user thread once done. The results are memoized at the entries, so
+     * processGetDataResponse does not verify them again at the user thread. Smaller responses and partitions which
+     * could not be verified here are left to processGetDataResponse. The resultHandler is called in any case.
+     */
+    public void verifySignatures(GetDataResponse getDataResponse, Runnable resultHandler) {
+        Set<ProtectedStorageEntry> protectedStorageEntries = getDataResponse.getDataSet();
+        if (protectedStorageEntries.size() < MIN_ENTRIES_FOR_PARALLEL_VERIFICATION) {
+            resultHandler.run();
+            return;
+        }
+
+        long ts = System.currentTimeMillis();
+        List<ProtectedStorageEntry> entries = new ArrayList<>(protectedStorageEntries);
+        int partitionSize = (entries.size() + NUM_SIGNATURE_VERIFICATION_THREADS - 1) / NUM_SIGNATURE_VERIFICATION_THREADS;
+        CompletableFuture<?>[] futures = Lists.partition(entries, partitionSize).stream()
+                .map(this::verifySignaturesAsync)
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                log.warn("Parallel signature verification failed. {}", throwable.toString());
+            } else {
+                log.info("Verifying signatures of {} protectedStorageEntries in parallel took {} ms.",
+                        entries.size(), System.currentTimeMillis() - ts);
+            }
+            UserThread.execute(resultHandler);
+        });
+    }
+
     public void shutDown() {
         if (removeExpiredEntriesTimer != null)
             removeExpiredEntriesTimer.stop();
+        if (notificationTimer != null)
+            notificationTimer.stop();
+        signatureVerificationExecutor.shutdownNow();
     }
 
     @VisibleForTesting
@@ -768,7 +757,7 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         }
 
         ByteArray hashAsByteArray = new ByteArray(payload.getHash());
-        boolean payloadHashAlreadyInStore = appendOnlyDataStoreService.getMap(payload).containsKey(hashAsByteArray);
+        boolean payloadHashAlreadyInStore = appendOnlyDataStoreService.containsKey(hashAsByteArray, payload);
 
         // Store already knows about this payload. Ignore it unless the caller specifically requests a republish.
         if (payloadHashAlreadyInStore && !reBroadcast) {
@@ -870,7 +859,10 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
             return false;
         }
 
-        // Verify the ProtectedStorageEntry is well formed and valid for the add operation
+        // Verify the ProtectedStorageEntry is well formed and valid for the add operation. We verify the signature
+        // first with our cache of verified signatures. The result is memoized at the entry and used by
+        // isValidForAddOperation.
+        protectedStorageEntry.isSignatureValid(verifiedSignatures);
         if (!protectedStorageEntry.isValidForAddOperation()) {
             log.trace("## !isValidForAddOperation hash={}", hashOfPayload);
             return false;
@@ -891,11 +883,12 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
 
         // This is an updated entry. Record it and signal listeners.
         map.put(hashOfPayload, protectedStorageEntry);
-        hashMapChangedListeners.forEach(e -> e.onAdded(Collections.singletonList(protectedStorageEntry)));
+        protectedStorageEntriesCollector.invalidate(hashOfPayload);
+        notifyAdded(hashOfPayload, protectedStorageEntry);
 
         // Record the updated sequence number and persist it. Higher delay so we can batch more items.
         sequenceNumberMap.put(hashOfPayload, new MapValue(protectedStorageEntry.getSequenceNumber(), this.clock.millis()));
-        requestPersistence();
+        requestPersistence(hashOfPayload);
 
         //log.trace("## ProtectedStorageEntry added to map. hash={}, map={}", hashOfPayload, printMap());
 
@@ -981,10 +974,11 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
 
             // Update the hash map with the updated entry
             map.put(hashOfPayload, updatedEntry);
+            protectedStorageEntriesCollector.invalidate(hashOfPayload);
 
             // Record the latest sequence number and persist it
             sequenceNumberMap.put(hashOfPayload, new MapValue(updatedEntry.getSequenceNumber(), this.clock.millis()));
-            requestPersistence();
+            requestPersistence(hashOfPayload);
 
             // Always broadcast refreshes
             broadcaster.broadcast(refreshTTLMessage, sender);
@@ -1014,7 +1008,9 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         if (!hasSequenceNrIncreased(protectedStorageEntry.getSequenceNumber(), hashOfPayload))
             return false;
 
-        // Verify the ProtectedStorageEntry is well formed and valid for the remove operation
+        // Verify the ProtectedStorageEntry is well formed and valid for the remove operation. As at add, the
+        // signature gets verified first with our cache of verified signatures.
+        protectedStorageEntry.isSignatureValid(verifiedSignatures);
         if (!protectedStorageEntry.isValidForRemoveOperation())
             return false;
 
@@ -1025,7 +1021,7 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
 
         // Record the latest sequence number and persist it
         sequenceNumberMap.put(hashOfPayload, new MapValue(protectedStorageEntry.getSequenceNumber(), this.clock.millis()));
-        requestPersistence();
+        requestPersistence(hashOfPayload);
 
         // Update that we have seen this AddOncePayload so the next time it is seen it fails verification
         if (protectedStoragePayload instanceof AddOncePayload) {
@@ -1118,6 +1114,17 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
     // Private
     ///////////////////////////////////////////////////////////////////////////////////////////
 
+    // If the executor is busy we leave the partition to the verification at the user thread
+    private CompletableFuture<Void> verifySignaturesAsync(List<ProtectedStorageEntry> entries) {
+        try {
+            return CompletableFuture.runAsync(() ->
+                            entries.forEach(entry -> entry.isSignatureValid(verifiedSignatures)),
+                    signatureVerificationExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
     private void removeFromMapAndDataStore(ProtectedStorageEntry protectedStorageEntry, ByteArray hashOfPayload) {
         removeFromMapAndDataStore(Collections.singletonList(Maps.immutableEntry(hashOfPayload, protectedStorageEntry)));
     }
@@ -1126,18 +1133,15 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         if (entriesToRemove.isEmpty())
             return;
 
-        List<ProtectedStorageEntry> removedProtectedStorageEntries = new ArrayList<>(entriesToRemove.size());
         entriesToRemove.forEach(entry -> {
             ByteArray hashOfPayload = entry.getKey();
             ProtectedStorageEntry protectedStorageEntry = entry.getValue();
 
             //log.trace("## removeFromMapAndDataStore: hashOfPayload={}, map before remove={}", hashOfPayload, printMap());
             map.remove(hashOfPayload);
+            protectedStorageEntriesCollector.invalidate(hashOfPayload);
             //log.trace("## removeFromMapAndDataStore: map after remove={}", printMap());
 
-            // We inform listeners even the entry was not found in our map
-            removedProtectedStorageEntries.add(protectedStorageEntry);
-
             ProtectedStoragePayload protectedStoragePayload = protectedStorageEntry.getProtectedStoragePayload();
             if (protectedStoragePayload instanceof PersistablePayload) {
                 ProtectedStorageEntry previous = protectedDataStoreService.remove(hashOfPayload, protectedStorageEntry);
@@ -1146,7 +1150,82 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
             }
         });
 
-        hashMapChangedListeners.forEach(e -> e.onRemoved(removedProtectedStorageEntries));
+        // We inform listeners even the entry was not found in our map
+        notifyRemoved(entriesToRemove);
+    }
+
+    // Notifications are collected until the outermost batch ends
+    private void startNotificationBatch() {
+        numOpenNotificationBatches++;
+    }
+
+    private void endNotificationBatch() {
+        numOpenNotificationBatches--;
+        if (numOpenNotificationBatches == 0) {
+            deliverPendingNotifications();
+        }
+    }
+
+    private boolean isCollectingNotifications() {
+        return numOpenNotificationBatches > 0 || notificationDelayMs > 0;
+    }
+
+    private void notifyAdded(ByteArray hashOfPayload, ProtectedStorageEntry protectedStorageEntry) {
+        if (!isCollectingNotifications()) {
+            hashMapChangedListeners.forEach(e -> e.onAdded(Collections.singletonList(protectedStorageEntry)));
+            return;
+        }
+
+        // An updated entry replaces the pending one, listeners only need to see the latest
+        pendingAddedEntries.put(hashOfPayload, protectedStorageEntry);
+        scheduleNotifications();
+    }
+
+    private void notifyRemoved(Collection<Map.Entry<ByteArray, ProtectedStorageEntry>> removedEntries) {
+        if (!isCollectingNotifications()) {
+            List<ProtectedStorageEntry> removedProtectedStorageEntries = removedEntries.stream()
+                    .map(Map.Entry::getValue)
+                    .collect(Collectors.toList());
+            hashMapChangedListeners.forEach(e -> e.onRemoved(removedProtectedStorageEntries));
+            return;
+        }
+
+        removedEntries.forEach(entry -> {
+            // If the add is still pending the listeners never see that entry
+            pendingAddedEntries.remove(entry.getKey());
+            pendingRemovedEntries.put(entry.getKey(), entry.getValue());
+        });
+        scheduleNotifications();
+    }
+
+    private void scheduleNotifications() {
+        if (numOpenNotificationBatches == 0 && notificationTimer == null) {
+            notificationTimer = UserThread.runAfter(() -> {
+                notificationTimer = null;
+                if (numOpenNotificationBatches == 0) {
+                    deliverPendingNotifications();
+                }
+            }, notificationDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Removes are delivered first, so a payload which got removed and added again within the batch stays added
+    private void deliverPendingNotifications() {
+        if (notificationTimer != null) {
+            notificationTimer.stop();
+            notificationTimer = null;
+        }
+
+        if (!pendingRemovedEntries.isEmpty()) {
+            List<ProtectedStorageEntry> removedEntries = new ArrayList<>(pendingRemovedEntries.values());
+            pendingRemovedEntries.clear();
+            hashMapChangedListeners.forEach(e -> e.onRemoved(removedEntries));
+        }
+        if (!pendingAddedEntries.isEmpty()) {
+            List<ProtectedStorageEntry> addedEntries = new ArrayList<>(pendingAddedEntries.values());
+            pendingAddedEntries.clear();
+            hashMapChangedListeners.forEach(e -> e.onAdded(addedEntries));
+        }
     }
 
     private boolean hasSequenceNrIncreased(int newSequenceNumber, ByteArray hashOfData) {
@@ -1180,6 +1259,11 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         persistenceManager.requestPersistence();
     }
 
+    // Only the entry for that hash has changed, so it can be appended to the log of the SequenceNumberMap.
+    private void requestPersistence(ByteArray hashOfPayload) {
+        persistenceManager.requestPersistence(hashOfPayload.bytes);
+    }
+
     public static ByteArray get32ByteHashAsByteArray(NetworkPayload data) {
         return new ByteArray(P2PDataStorage.get32ByteHash(data));
     }
@@ -1245,6 +1329,14 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
      * @return Hash of data
      */
     public static byte[] get32ByteHash(NetworkPayload data) {
+        if (data instanceof HashCachingPayload) {
+            byte[] hash = ((HashCachingPayload) data).get32ByteHash();
+            if (hash != null) {
+                return hash;
+            }
+        } else if (data instanceof DataAndSeqNrPair) {
+            return Hash.getSha256Hash(((DataAndSeqNrPair) data).toByteArray());
+        }
         return Hash.getSha256Hash(data.toProtoMessage().toByteArray());
     }
 
@@ -1276,6 +1368,37 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
                     .setSequenceNumber(sequenceNumber)
                     .build();
         }
+
+        // Same bytes as toProtoMessage().toByteArray(). If the payload keeps its serialized form we write it directly
+        // as the embedded message field instead of serializing the payload again.
+        byte[] toByteArray() {
+            byte[] payloadBytes = protectedStoragePayload instanceof HashCachingPayload ?
+                    ((HashCachingPayload) protectedStoragePayload).getSerializedBytes() :
+                    null;
+            if (payloadBytes == null) {
+                return toProtoMessage().toByteArray();
+            }
+
+            // Default values are not serialized in proto3
+            boolean hasSequenceNumber = sequenceNumber != 0;
+            int size = CodedOutputStream.computeByteArraySize(protobuf.DataAndSeqNrPair.PAYLOAD_FIELD_NUMBER, payloadBytes) +
+                    (hasSequenceNumber ?
+                            CodedOutputStream.computeInt32Size(protobuf.DataAndSeqNrPair.SEQUENCE_NUMBER_FIELD_NUMBER, sequenceNumber) :
+                            0);
+            byte[] bytes = new byte[size];
+            CodedOutputStream outputStream = CodedOutputStream.newInstance(bytes);
+            try {
+                outputStream.writeByteArray(protobuf.DataAndSeqNrPair.PAYLOAD_FIELD_NUMBER, payloadBytes);
+                if (hasSequenceNumber) {
+                    outputStream.writeInt32(protobuf.DataAndSeqNrPair.SEQUENCE_NUMBER_FIELD_NUMBER, sequenceNumber);
+                }
+                outputStream.checkNoSpaceLeft();
+            } catch (IOException e) {
+                // Cannot happen when writing to a byte array of the computed size
+                throw new IllegalStateException(e);
+            }
+            return bytes;
+        }
     }
 
 
@@ -0,0 +1,41 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage.payload;
+
+import javax.annotation.Nullable;
+
+/**
+ * Interface for ProtectedStoragePayloads which do not change once they got published. They serialize themselves and
+ * calculate their hash only once instead of at each lookup in P2PDataStorage.
+ * Used for OfferPayloadBase and MailboxStoragePayload.
+ */
+public interface HashCachingPayload extends ProtectedStoragePayload {
+    /**
+     * @return The bytes of toProtoMessage(), or null if the implementation does not keep them or the payload cannot
+     * be serialized yet. Must not be modified by the caller.
+     */
+    @Nullable
+    byte[] getSerializedBytes();
+
+    /**
+     * @return The SHA-256 hash of the serialized payload, identical to P2PDataStorage.get32ByteHash, or null if the
+     * payload cannot be serialized yet.
+     */
+    @Nullable
+    byte[] get32ByteHash();
+}
@@ -20,6 +20,7 @@ package bisq.network.p2p.storage.payload;
 import bisq.network.p2p.PrefixedSealedAndSignedMessage;
 import bisq.network.p2p.storage.messages.AddOncePayload;
 
+import bisq.common.crypto.Hash;
 import bisq.common.crypto.Sig;
 import bisq.common.util.CollectionUtils;
 import bisq.common.util.ExtraDataMapValidator;
@@ -33,6 +34,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -51,9 +53,9 @@ import javax.annotation.Nullable;
  * Size depends on payload but typical size is 2000-3000 bytes
  */
 @Getter
-@EqualsAndHashCode
+@EqualsAndHashCode(exclude = {"hash"})
 @Slf4j
-public final class MailboxStoragePayload implements ProtectedStoragePayload, ExpirablePayload, AddOncePayload {
+public final class MailboxStoragePayload implements HashCachingPayload, ExpirablePayload, AddOncePayload {
     public static final long TTL = TimeUnit.DAYS.toMillis(15);
 
     // Added in 1.5.5
@@ -72,6 +74,11 @@ public final class MailboxStoragePayload implements ProtectedStoragePayload, Exp
     @Nullable
     private Map<String, String> extraDataMap;
 
+    // Mailbox payloads are large and short-lived, so we only keep the hash and not the serialized bytes
+    @Getter(AccessLevel.NONE)
+    @Nullable
+    private transient byte[] hash;
+
     public MailboxStoragePayload(PrefixedSealedAndSignedMessage prefixedSealedAndSignedMessage,
                                  @NotNull PublicKey senderPubKeyForAddOperation,
                                  PublicKey ownerPubKey,
@@ -145,4 +152,18 @@ public final class MailboxStoragePayload implements ProtectedStoragePayload, Exp
         // If not set in extraDataMap or value is invalid or too large we return default TTL
         return TTL;
     }
+
+    @Nullable
+    @Override
+    public byte[] getSerializedBytes() {
+        return null;
+    }
+
+    @Override
+    public byte[] get32ByteHash() {
+        if (hash == null) {
+            hash = Hash.getSha256Hash(toProtoMessage().toByteArray());
+        }
+        return hash;
+    }
 }
@@ -20,6 +20,7 @@ package bisq.network.p2p.storage.payload;
 import bisq.network.p2p.storage.P2PDataStorage;
 
 import bisq.common.crypto.CryptoException;
+import bisq.common.crypto.Hash;
 import bisq.common.crypto.Sig;
 import bisq.common.proto.network.GetDataResponsePriority;
 import bisq.common.proto.network.NetworkPayload;
@@ -31,17 +32,23 @@ import com.google.protobuf.ByteString;
 import com.google.protobuf.Message;
 
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.primitives.Bytes;
+import com.google.common.primitives.Ints;
 
 import java.security.PublicKey;
 
 import java.time.Clock;
 
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import org.jetbrains.annotations.NotNull;
 
+import javax.annotation.Nullable;
+
 @Getter
 @EqualsAndHashCode
 @Slf4j
@@ -52,6 +59,11 @@ public class ProtectedStorageEntry implements NetworkPayload, PersistablePayload
     private final int sequenceNumber;
     private final byte[] signature;
     private long creationTimeStamp;
+    // The signature only depends on final fields, so we verify it only once. It might get verified first at a worker
+    // thread of the MessageDispatcher.
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    transient private volatile Boolean signatureValid;
 
     public ProtectedStorageEntry(@NotNull ProtectedStoragePayload protectedStoragePayload,
                                  @NotNull PublicKey ownerPubKey,
@@ -207,14 +219,43 @@ public class ProtectedStorageEntry implements NetworkPayload, PersistablePayload
     /*
      * Returns true if the signature for the Entry is valid for the payload, sequence number, and ownerPubKey
      */
-    boolean isSignatureValid() {
+    public boolean isSignatureValid() {
+        return isSignatureValid(null);
+    }
+
+    /*
+     * Same as isSignatureValid() but reuses the successful verifications of other instances of the same entry (same
+     * owner pubKey, payload, sequence number and signature) from the given cache. Successful verifications are added
+     * to the cache, failed ones are not.
+     */
+    public boolean isSignatureValid(@Nullable Cache<P2PDataStorage.ByteArray, Boolean> verifiedSignatures) {
+        if (signatureValid == null) {
+            signatureValid = verifySignature(verifiedSignatures);
+        }
+        return signatureValid;
+    }
+
+    private boolean verifySignature(@Nullable Cache<P2PDataStorage.ByteArray, Boolean> verifiedSignatures) {
         try {
             byte[] hashOfDataAndSeqNr = P2PDataStorage.get32ByteHash(
                     new P2PDataStorage.DataAndSeqNrPair(this.protectedStoragePayload, this.sequenceNumber));
 
+            P2PDataStorage.ByteArray cacheKey = null;
+            if (verifiedSignatures != null) {
+                cacheKey = new P2PDataStorage.ByteArray(Hash.getSha256Hash(Bytes.concat(
+                        Ints.toByteArray(this.ownerPubKeyBytes.length),
+                        this.ownerPubKeyBytes,
+                        hashOfDataAndSeqNr,
+                        this.signature)));
+                if (verifiedSignatures.getIfPresent(cacheKey) != null)
+                    return true;
+            }
+
             boolean result = Sig.verify(this.ownerPubKey, hashOfDataAndSeqNr, this.signature);
 
-            if (!result)
+            if (result && verifiedSignatures != null)
+                verifiedSignatures.put(cacheKey, true);
+            else if (!result)
                 log.warn("ProtectedStorageEntry::isSignatureValid() failed.\n{}}", this);
 
             return result;
@@ -0,0 +1,115 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage.persistence;
+
+import bisq.network.p2p.storage.P2PDataStorage;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only view of a list of maps with disjoint key sets, so we do not need to copy the entries into a new map.
+ */
+class CombinedPayloadMap extends AbstractMap<P2PDataStorage.ByteArray, PersistableNetworkPayload> {
+    private final List<Map<P2PDataStorage.ByteArray, PersistableNetworkPayload>> maps;
+
+    CombinedPayloadMap(List<Map<P2PDataStorage.ByteArray, PersistableNetworkPayload>> maps) {
+        this.maps = Collections.unmodifiableList(maps);
+    }
+
+    @Override
+    public int size() {
+        return maps.stream().mapToInt(Map::size).sum();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return maps.stream().anyMatch(map -> map.containsKey(key));
+    }
+
+    @Override
+    public PersistableNetworkPayload get(Object key) {
+        for (Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> map : maps) {
+            PersistableNetworkPayload payload = map.get(key);
+            if (payload != null) {
+                return payload;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Set<Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload>> iterator() {
+                Iterator<Map<P2PDataStorage.ByteArray, PersistableNetworkPayload>> mapsIterator = maps.iterator();
+                return new Iterator<>() {
+                    private Iterator<Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload>> current =
+                            Collections.emptyIterator();
+
+                    @Override
+                    public boolean hasNext() {
+                        while (!current.hasNext() && mapsIterator.hasNext()) {
+                            current = Collections.unmodifiableMap(mapsIterator.next()).entrySet().iterator();
+                        }
+                        return current.hasNext();
+                    }
+
+                    @Override
+                    public Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload> next() {
+                        hasNext();
+                        return current.next();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return CombinedPayloadMap.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Set<P2PDataStorage.ByteArray> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<P2PDataStorage.ByteArray> iterator() {
+                // We do not decode the payloads of the mapped historical stores if only the keys are requested.
+                return maps.stream().flatMap(map -> map.keySet().stream()).iterator();
+            }
+
+            @Override
+            public int size() {
+                return CombinedPayloadMap.this.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+        };
+    }
+}
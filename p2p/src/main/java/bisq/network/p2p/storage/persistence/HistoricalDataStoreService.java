@@ -20,31 +20,44 @@ package bisq.network.p2p.storage.persistence;
 import bisq.network.p2p.storage.P2PDataStorage;
 import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
 
+import bisq.common.UserThread;
 import bisq.common.app.DevEnv;
 import bisq.common.app.Version;
 import bisq.common.persistence.PersistenceManager;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
 import java.io.File;
+import java.io.IOException;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Nullable;
+
 /**
  * Manages historical data stores tagged with the release versions.
  * New data is added to the default map in the store (live data). Historical data is created from resource files.
  * For initial data requests we only use the live data as the users version is sent with the
  * request so the responding (seed)node can figure out if we miss any of the historical data.
+ *
+ * The historical data is not changed after release, so at the first start we convert each historical resource file
+ * into an indexed file which we use memory mapped at later starts (see {@link MappedPayloadStore}). So we do not parse
+ * the resource files at each startup and requests filtering by key do not decode the historical payloads. A payload
+ * is decoded at its first access and kept, so all readers share the same instance.
  */
 @Slf4j
 public abstract class HistoricalDataStoreService<T extends PersistableNetworkPayloadStore<? extends PersistableNetworkPayload>> extends MapStoreService<T, PersistableNetworkPayload> {
-    private ImmutableMap<String, PersistableNetworkPayloadStore<? extends PersistableNetworkPayload>> storesByVersion;
-    // Cache to avoid that we have to recreate the historical data at each request
-    private ImmutableMap<P2PDataStorage.ByteArray, PersistableNetworkPayload> allHistoricalPayloads;
+    private ImmutableMap<String, Map<P2PDataStorage.ByteArray, PersistableNetworkPayload>> storesByVersion = ImmutableMap.of();
+    // The read-only maps of all historical stores. Their key sets are disjoint.
+    private ImmutableList<Map<P2PDataStorage.ByteArray, PersistableNetworkPayload>> historicalMaps = ImmutableList.of();
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -63,8 +76,20 @@ public abstract class HistoricalDataStoreService<T extends PersistableNetworkPay
     // We give back a map of our live map and all historical maps newer than the requested version.
     // If requestersVersion is null we return all historical data.
     public Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> getMapSinceVersion(String requestersVersion) {
+        Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> result = new HashMap<>();
+        getMapsSinceVersion(requestersVersion).forEach(result::putAll);
+        log.info("We found {} entries since requesters version {}",
+                result.size(), requestersVersion);
+        return result;
+    }
+
+    // Same as getMapSinceVersion but we give back read-only views of our live map and the historical maps instead of
+    // copying all entries into a new map. The key sets of the returned maps are disjoint as we prune the live data
+    // from entries contained in the historical data.
+    public List<Map<P2PDataStorage.ByteArray, PersistableNetworkPayload>> getMapsSinceVersion(String requestersVersion) {
+        List<Map<P2PDataStorage.ByteArray, PersistableNetworkPayload>> result = new ArrayList<>();
         // We add all our live data
-        Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> result = new HashMap<>(store.getMap());
+        result.add(Collections.unmodifiableMap(getMapOfLiveData()));
 
         // If we have a store with a newer version than the requesters version we will add those as well.
         storesByVersion.entrySet().stream()
@@ -87,11 +112,8 @@ public abstract class HistoricalDataStoreService<T extends PersistableNetworkPay
                             requestersVersion, storeVersion, details);
                     return newVersion;
                 })
-                .map(e -> e.getValue().getMap())
-                .forEach(result::putAll);
-
-        log.info("We found {} entries since requesters version {}",
-                result.size(), requestersVersion);
+                .map(Map.Entry::getValue)
+                .forEach(result::add);
         return result;
     }
 
@@ -99,10 +121,12 @@ public abstract class HistoricalDataStoreService<T extends PersistableNetworkPay
         return store.getMap();
     }
 
+    // Read-only view of the live data and all historical data.
     public Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> getMapOfAllData() {
-        Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> result = new HashMap<>(getMapOfLiveData());
-        result.putAll(allHistoricalPayloads);
-        return result;
+        List<Map<P2PDataStorage.ByteArray, PersistableNetworkPayload>> maps = new ArrayList<>();
+        maps.add(getMapOfLiveData());
+        maps.addAll(historicalMaps);
+        return new CombinedPayloadMap(maps);
     }
 
 
@@ -117,6 +141,11 @@ public abstract class HistoricalDataStoreService<T extends PersistableNetworkPay
         return getMapOfAllData();
     }
 
+    @Override
+    boolean containsKey(P2PDataStorage.ByteArray hash) {
+        return anyMapContainsKey(hash);
+    }
+
     @Override
     protected void put(P2PDataStorage.ByteArray hash, PersistableNetworkPayload payload) {
         if (anyMapContainsKey(hash)) {
@@ -124,7 +153,7 @@ public abstract class HistoricalDataStoreService<T extends PersistableNetworkPay
         }
 
         getMapOfLiveData().put(hash, payload);
-        requestPersistence();
+        requestPersistence(hash);
     }
 
     @Override
@@ -137,7 +166,7 @@ public abstract class HistoricalDataStoreService<T extends PersistableNetworkPay
         // So it will be always null. We still keep the return type as we override the method from MapStoreService which
         // follow the Map.putIfAbsent signature.
         getMapOfLiveData().put(hash, payload);
-        requestPersistence();
+        requestPersistence(hash);
         return null;
     }
 
@@ -149,24 +178,27 @@ public abstract class HistoricalDataStoreService<T extends PersistableNetworkPay
                     getFileName(), getMapOfLiveData().size());
 
             // Now we add our historical data stores.
-            Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> allHistoricalPayloads = new HashMap<>();
-            Map<String, PersistableNetworkPayloadStore<? extends PersistableNetworkPayload>> storesByVersion = new HashMap<>();
+            Map<String, Map<P2PDataStorage.ByteArray, PersistableNetworkPayload>> storesByVersion = new HashMap<>();
             AtomicInteger numFiles = new AtomicInteger(Version.HISTORICAL_RESOURCE_FILE_VERSION_TAGS.size());
             Version.HISTORICAL_RESOURCE_FILE_VERSION_TAGS.forEach(version -> readHistoricalStoreFromResources(version,
                     postFix,
-                    allHistoricalPayloads,
                     storesByVersion,
                     () -> {
                         if (numFiles.decrementAndGet() == 0) {
-                            // At last iteration we set the immutable map
-                            this.allHistoricalPayloads = ImmutableMap.copyOf(allHistoricalPayloads);
+                            // At last iteration we set the immutable maps
                             this.storesByVersion = ImmutableMap.copyOf(storesByVersion);
+                            this.historicalMaps = ImmutableList.copyOf(storesByVersion.values());
                             completeHandler.run();
                         }
                     }));
         });
     }
 
+    /**
+     * Decodes a payload of the historical data stores.
+     */
+    protected abstract PersistableNetworkPayload fromProto(protobuf.PersistableNetworkPayload proto);
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Private
@@ -174,29 +206,69 @@ public abstract class HistoricalDataStoreService<T extends PersistableNetworkPay
 
     private void readHistoricalStoreFromResources(String version,
                                                   String postFix,
-                                                  Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> allHistoricalPayloads,
-                                                  Map<String, PersistableNetworkPayloadStore<? extends PersistableNetworkPayload>> storesByVersion,
+                                                  Map<String, Map<P2PDataStorage.ByteArray, PersistableNetworkPayload>> storesByVersion,
                                                   Runnable completeHandler) {
-
         String fileName = getFileName() + "_" + version;
-        boolean wasCreatedFromResources = makeFileFromResourceFile(fileName, postFix);
-
-        // If resource file does not exist we do not create a new store as it would never get filled.
-        persistenceManager.readPersisted(fileName, persisted -> {
-                    storesByVersion.put(version, persisted);
-                    allHistoricalPayloads.putAll(persisted.getMap());
-                    log.info("We have read from {} {} historical items.", fileName, persisted.getMap().size());
-                    pruneStore(persisted, version);
-                    completeHandler.run();
-                },
-                completeHandler::run);
+        PersistenceManager.getReadExecutor().execute(() -> {
+            Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> historicalMap = readHistoricalMap(fileName, postFix);
+            UserThread.execute(() -> {
+                // If resource file does not exist we do not create a new store as it would never get filled.
+                if (historicalMap != null) {
+                    storesByVersion.put(version, historicalMap);
+                    log.info("We have read from {} {} historical items.", fileName, historicalMap.size());
+                    pruneStore(historicalMap, version);
+                }
+                completeHandler.run();
+            });
+        });
+    }
+
+    // Called from a read thread
+    @Nullable
+    private Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> readHistoricalMap(String fileName, String postFix) {
+        File indexFile = new File(absolutePathOfStorageDir, fileName + MappedPayloadStore.FILE_POSTFIX);
+        // The copy of the resource file is only needed to create the index file. Older versions kept those copies
+        // in the data directory, so we delete them as well if the index file exists already.
+        File copiedResourceFile = new File(absolutePathOfStorageDir, fileName);
+        if (indexFile.exists()) {
+            try {
+                MappedPayloadStore mappedPayloadStore = MappedPayloadStore.open(indexFile, this::fromProto);
+                deleteCopiedResourceFile(copiedResourceFile);
+                return mappedPayloadStore;
+            } catch (IOException e) {
+                log.warn("Could not open {}. We create it again from the resource file. {}", indexFile, e.toString());
+            }
+        }
+
+        makeFileFromResourceFile(fileName, postFix);
+        T persisted = persistenceManager.getPersisted(fileName);
+        if (persisted == null) {
+            return null;
+        }
+
+        try {
+            long ts = System.currentTimeMillis();
+            MappedPayloadStore.write(indexFile, persisted.getMap());
+            log.info("Creating {} took {} ms", indexFile.getName(), System.currentTimeMillis() - ts);
+            MappedPayloadStore mappedPayloadStore = MappedPayloadStore.open(indexFile, this::fromProto);
+            deleteCopiedResourceFile(copiedResourceFile);
+            return mappedPayloadStore;
+        } catch (IOException e) {
+            log.error("Could not create {}. We keep the historical data on the heap.", indexFile, e);
+            return Collections.unmodifiableMap(persisted.getMap());
+        }
+    }
+
+    private void deleteCopiedResourceFile(File copiedResourceFile) {
+        if (copiedResourceFile.exists() && !copiedResourceFile.delete()) {
+            log.warn("Could not delete {}", copiedResourceFile);
+        }
     }
 
-    private void pruneStore(PersistableNetworkPayloadStore<? extends PersistableNetworkPayload> historicalStore,
-                            String version) {
+    private void pruneStore(Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> historicalMap, String version) {
         Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> mapOfLiveData = getMapOfLiveData();
         int preLive = mapOfLiveData.size();
-        mapOfLiveData.keySet().removeAll(historicalStore.getMap().keySet());
+        mapOfLiveData.keySet().removeIf(historicalMap::containsKey);
         int postLive = mapOfLiveData.size();
         if (preLive > postLive) {
             log.info("We pruned data from our live data store which are already contained in the historical data store with version {}. " +
@@ -209,6 +281,7 @@ public abstract class HistoricalDataStoreService<T extends PersistableNetworkPay
     }
 
     private boolean anyMapContainsKey(P2PDataStorage.ByteArray hash) {
-        return getMapOfLiveData().containsKey(hash) || allHistoricalPayloads.containsKey(hash);
+        return getMapOfLiveData().containsKey(hash) ||
+                historicalMaps.stream().anyMatch(historicalMap -> historicalMap.containsKey(hash));
     }
 }
@@ -58,21 +58,26 @@ public abstract class MapStoreService<T extends PersistableEnvelope, R extends P
 
     void put(P2PDataStorage.ByteArray hash, R payload) {
         getMap().put(hash, payload);
-        requestPersistence();
+        requestPersistence(hash);
     }
 
     protected R putIfAbsent(P2PDataStorage.ByteArray hash, R payload) {
         R previous = getMap().putIfAbsent(hash, payload);
-        requestPersistence();
+        requestPersistence(hash);
         return previous;
     }
 
     R remove(P2PDataStorage.ByteArray hash) {
         R result = getMap().remove(hash);
-        requestPersistence();
+        requestPersistence(hash);
         return result;
     }
 
+    // Stores implementing AppendLogPersistableEnvelope only write the entry for that hash.
+    protected void requestPersistence(P2PDataStorage.ByteArray hash) {
+        persistenceManager.requestPersistence(hash.bytes);
+    }
+
     boolean containsKey(P2PDataStorage.ByteArray hash) {
         return getMap().containsKey(hash);
     }
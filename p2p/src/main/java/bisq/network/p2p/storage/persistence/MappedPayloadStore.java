@@ -0,0 +1,388 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage.persistence;
+
+import bisq.network.p2p.storage.P2PDataStorage;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+
+import bisq.common.file.FileUtil;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import com.google.common.primitives.UnsignedBytes;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Read-only map of PersistableNetworkPayloads backed by a memory mapped file. Used for the historical data stores, so
+ * we do not need to parse the whole resource file at each startup.
+ * The payloads are decoded at their first access and kept, so the services iterating all values at startup (e.g.
+ * AccountAgeWitnessService and TradeStatisticsManager) share the decoded instances with later readers and no payload
+ * gets decoded twice. Keys are read from the mapped file and entries returned by the entry set iterator decode their
+ * payload only if getValue is called, so filtering by key does not decode any payload.
+ *
+ * File format (big endian):
+ * <pre>
+ * int      MAGIC
+ * int      FORMAT_VERSION
+ * int      number of entries
+ * int      length of the hashes
+ * long     size of the payload section
+ * entries  hash, long offset of the payload in the payload section, int size of the payload. Sorted by hash.
+ * payloads serialized protobuf.PersistableNetworkPayload messages
+ * </pre>
+ */
+@Slf4j
+class MappedPayloadStore extends AbstractMap<P2PDataStorage.ByteArray, PersistableNetworkPayload> {
+    static final String FILE_POSTFIX = ".index";
+
+    private static final int MAGIC = 0x42535148;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 8;
+    private static final Comparator<byte[]> HASH_COMPARATOR = UnsignedBytes.lexicographicalComparator();
+
+    private final MappedByteBuffer buffer;
+    private final Function<protobuf.PersistableNetworkPayload, PersistableNetworkPayload> fromProto;
+    private final int numEntries;
+    private final int hashLength;
+    private final int entrySize;
+    private final int payloadsStart;
+    private final AtomicReferenceArray<PersistableNetworkPayload> decodedPayloads;
+    private final Set<P2PDataStorage.ByteArray> keySet = new KeySet();
+    private final Set<Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload>> entrySet = new EntrySet();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Static
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    static void write(File file, Map<P2PDataStorage.ByteArray, ? extends PersistableNetworkPayload> map)
+            throws IOException {
+        List<Map.Entry<P2PDataStorage.ByteArray, ? extends PersistableNetworkPayload>> entries = new ArrayList<>(map.entrySet());
+        entries.sort((o1, o2) -> HASH_COMPARATOR.compare(o1.getKey().bytes, o2.getKey().bytes));
+        int hashLength = entries.isEmpty() ? 0 : entries.get(0).getKey().bytes.length;
+
+        List<byte[]> payloads = new ArrayList<>(entries.size());
+        long payloadsSize = 0;
+        for (Map.Entry<P2PDataStorage.ByteArray, ? extends PersistableNetworkPayload> entry : entries) {
+            if (entry.getKey().bytes.length != hashLength) {
+                throw new IOException("Hashes of different length are not supported");
+            }
+            byte[] payload = entry.getValue().toProtoMessage().toByteArray();
+            payloads.add(payload);
+            payloadsSize += payload.length;
+        }
+        if (HEADER_SIZE + (long) entries.size() * (hashLength + 12) + payloadsSize > Integer.MAX_VALUE) {
+            throw new IOException("Data exceeds max. size of a mapped file");
+        }
+
+        File tempFile = File.createTempFile("temp_" + file.getName(), null, file.getParentFile());
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(entries.size());
+                out.writeInt(hashLength);
+                out.writeLong(payloadsSize);
+                long offset = 0;
+                for (int i = 0; i < entries.size(); i++) {
+                    out.write(entries.get(i).getKey().bytes);
+                    out.writeLong(offset);
+                    out.writeInt(payloads.get(i).length);
+                    offset += payloads.get(i).length;
+                }
+                for (byte[] payload : payloads) {
+                    out.write(payload);
+                }
+            }
+            FileUtil.renameFile(tempFile, file);
+        } finally {
+            if (tempFile.exists() && !tempFile.delete()) {
+                log.warn("Could not delete temp file {}", tempFile);
+            }
+        }
+    }
+
+    static MappedPayloadStore open(File file,
+                                   Function<protobuf.PersistableNetworkPayload, PersistableNetworkPayload> fromProto)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid size of " + file + ": " + size);
+            }
+            // The mapping stays valid after the channel got closed.
+            return new MappedPayloadStore(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), fromProto, file);
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private MappedPayloadStore(MappedByteBuffer buffer,
+                               Function<protobuf.PersistableNetworkPayload, PersistableNetworkPayload> fromProto,
+                               File file) throws IOException {
+        this.buffer = buffer;
+        this.fromProto = fromProto;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported format of " + file);
+        }
+        numEntries = buffer.getInt(8);
+        hashLength = buffer.getInt(12);
+        long payloadsSize = buffer.getLong(16);
+        entrySize = hashLength + 8 + 4;
+        long expectedSize = HEADER_SIZE + (long) numEntries * entrySize + payloadsSize;
+        if (numEntries < 0 || hashLength < 0 || payloadsSize < 0 || expectedSize != buffer.capacity()) {
+            throw new IOException("Inconsistent size of " + file);
+        }
+        payloadsStart = HEADER_SIZE + numEntries * entrySize;
+        decodedPayloads = new AtomicReferenceArray<>(numEntries);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Map implementation
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public int size() {
+        return numEntries;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof P2PDataStorage.ByteArray && indexOf(((P2PDataStorage.ByteArray) key).bytes) >= 0;
+    }
+
+    @Override
+    public PersistableNetworkPayload get(Object key) {
+        if (!(key instanceof P2PDataStorage.ByteArray)) {
+            return null;
+        }
+        int index = indexOf(((P2PDataStorage.ByteArray) key).bytes);
+        return index >= 0 ? getPayload(index) : null;
+    }
+
+    @Override
+    public Set<P2PDataStorage.ByteArray> keySet() {
+        return keySet;
+    }
+
+    @Override
+    public Set<Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload>> entrySet() {
+        return entrySet;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // We only use absolute reads on the shared buffer, so concurrent reads are safe.
+    private int indexOf(byte[] hash) {
+        if (hash.length != hashLength) {
+            return -1;
+        }
+        int low = 0;
+        int high = numEntries - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int result = compareHash(mid, hash);
+            if (result < 0) {
+                low = mid + 1;
+            } else if (result > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private int compareHash(int index, byte[] hash) {
+        int position = HEADER_SIZE + index * entrySize;
+        for (int i = 0; i < hashLength; i++) {
+            int result = Integer.compare(buffer.get(position + i) & 0xff, hash[i] & 0xff);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    private P2PDataStorage.ByteArray getHash(int index) {
+        int position = HEADER_SIZE + index * entrySize;
+        byte[] hash = new byte[hashLength];
+        for (int i = 0; i < hashLength; i++) {
+            hash[i] = buffer.get(position + i);
+        }
+        return new P2PDataStorage.ByteArray(hash);
+    }
+
+    private PersistableNetworkPayload getPayload(int index) {
+        PersistableNetworkPayload payload = decodedPayloads.get(index);
+        if (payload != null) {
+            return payload;
+        }
+        // If another thread decoded the payload in the meantime we use its instance.
+        decodedPayloads.compareAndSet(index, null, decodePayload(index));
+        return decodedPayloads.get(index);
+    }
+
+    private PersistableNetworkPayload decodePayload(int index) {
+        int position = HEADER_SIZE + index * entrySize + hashLength;
+        int offset = (int) buffer.getLong(position);
+        int length = buffer.getInt(position + 8);
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(payloadsStart + offset);
+        payload.limit(payloadsStart + offset + length);
+        try {
+            return fromProto.apply(protobuf.PersistableNetworkPayload.parseFrom(payload));
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalStateException("Could not parse payload at index " + index, e);
+        }
+    }
+
+    private abstract class IndexIterator<E> implements Iterator<E> {
+        private int index;
+
+        @Override
+        public boolean hasNext() {
+            return index < numEntries;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return getElement(index++);
+        }
+
+        abstract E getElement(int index);
+    }
+
+    private class KeySet extends AbstractSet<P2PDataStorage.ByteArray> {
+        @Override
+        public Iterator<P2PDataStorage.ByteArray> iterator() {
+            return new IndexIterator<>() {
+                @Override
+                P2PDataStorage.ByteArray getElement(int index) {
+                    return getHash(index);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return numEntries;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return containsKey(o);
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload>> {
+        @Override
+        public Iterator<Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload>> iterator() {
+            return new IndexIterator<>() {
+                @Override
+                Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload> getElement(int index) {
+                    return new LazyEntry(index);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return numEntries;
+        }
+    }
+
+    // Decodes the payload only at the first getValue call, so iterating the entries for filtering by key is cheap.
+    private class LazyEntry implements Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload> {
+        private final int index;
+        private final P2PDataStorage.ByteArray hash;
+
+        LazyEntry(int index) {
+            this.index = index;
+            this.hash = getHash(index);
+        }
+
+        @Override
+        public P2PDataStorage.ByteArray getKey() {
+            return hash;
+        }
+
+        @Override
+        public PersistableNetworkPayload getValue() {
+            return getPayload(index);
+        }
+
+        @Override
+        public PersistableNetworkPayload setValue(PersistableNetworkPayload value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> entry = (Entry<?, ?>) o;
+            return hash.equals(entry.getKey()) && getValue().equals(entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return hash.hashCode() ^ getValue().hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return hash + "=" + getValue();
+        }
+    }
+}
@@ -24,11 +24,15 @@ import bisq.common.proto.persistable.PersistableEnvelope;
 
 import java.util.Collection;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Nullable;
+
 
 /**
  * Store for PersistableNetworkPayload map entries with it's data hash as key.
@@ -45,7 +49,37 @@ public abstract class PersistableNetworkPayloadStore<T extends PersistableNetwor
         collection.forEach(item -> map.put(new P2PDataStorage.ByteArray(item.getHash()), item));
     }
 
+    // Used by subclasses for creating a snapshot. The payloads are immutable, so a copy of the map is sufficient.
+    protected PersistableNetworkPayloadStore(Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> map) {
+        this.map.putAll(map);
+    }
+
     public boolean containsKey(P2PDataStorage.ByteArray hash) {
         return map.containsKey(hash);
     }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Support for subclasses implementing AppendLogPersistableEnvelope
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public boolean containsLogKey(byte[] key) {
+        return map.containsKey(new P2PDataStorage.ByteArray(key));
+    }
+
+    public void applyLogRecord(@Nullable PersistableEnvelope added, Collection<byte[]> removedKeys) {
+        if (added != null) {
+            map.putAll(((PersistableNetworkPayloadStore<?>) added).getMap());
+        }
+        removedKeys.stream()
+                .map(P2PDataStorage.ByteArray::new)
+                .forEach(map::remove);
+    }
+
+    protected Collection<PersistableNetworkPayload> getPayloads(Collection<byte[]> keys) {
+        return keys.stream()
+                .map(key -> map.get(new P2PDataStorage.ByteArray(key)))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
 }
@@ -19,8 +19,10 @@ package bisq.network.p2p.storage.persistence;
 
 import bisq.network.p2p.storage.P2PDataStorage;
 
+import bisq.common.proto.persistable.AppendLogPersistableEnvelope;
 import bisq.common.proto.persistable.PersistableEnvelope;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -29,12 +31,14 @@ import java.util.stream.Collectors;
 import lombok.Getter;
 import lombok.Setter;
 
+import javax.annotation.Nullable;
+
 /**
  * This class was not generalized to HashMapPersistable (like we did with #ListPersistable) because
  * in protobuffer the map construct can't be anything, so the straightforward mapping was not possible.
  * Hence this Persistable class.
  */
-public class SequenceNumberMap implements PersistableEnvelope {
+public class SequenceNumberMap implements AppendLogPersistableEnvelope {
     @Getter
     @Setter
     private Map<P2PDataStorage.ByteArray, P2PDataStorage.MapValue> map = new ConcurrentHashMap<>();
@@ -53,6 +57,24 @@ public class SequenceNumberMap implements PersistableEnvelope {
 
     @Override
     public protobuf.PersistableEnvelope toProtoMessage() {
+        return toProtoMessage(map);
+    }
+
+    @Override
+    public protobuf.PersistableEnvelope toPersistableMessage(Collection<byte[]> keys) {
+        Map<P2PDataStorage.ByteArray, P2PDataStorage.MapValue> entries = new HashMap<>();
+        keys.stream()
+                .map(P2PDataStorage.ByteArray::new)
+                .forEach(key -> {
+                    P2PDataStorage.MapValue value = map.get(key);
+                    if (value != null) {
+                        entries.put(key, value);
+                    }
+                });
+        return toProtoMessage(entries);
+    }
+
+    private static protobuf.PersistableEnvelope toProtoMessage(Map<P2PDataStorage.ByteArray, P2PDataStorage.MapValue> map) {
         return protobuf.PersistableEnvelope.newBuilder()
                 .setSequenceNumberMap(protobuf.SequenceNumberMap.newBuilder()
                         .addAllSequenceNumberEntries(map.entrySet().stream()
@@ -64,6 +86,12 @@ public class SequenceNumberMap implements PersistableEnvelope {
                 .build();
     }
 
+    // Keys and values are immutable, so a copy of the map is sufficient.
+    @Override
+    public SequenceNumberMap toPersistableSnapshot() {
+        return new SequenceNumberMap(map);
+    }
+
     public static SequenceNumberMap fromProto(protobuf.SequenceNumberMap proto) {
         HashMap<P2PDataStorage.ByteArray, P2PDataStorage.MapValue> map = new HashMap<>();
         proto.getSequenceNumberEntriesList()
@@ -72,6 +100,26 @@ public class SequenceNumberMap implements PersistableEnvelope {
     }
 
 
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // AppendLogPersistableEnvelope implementation
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public boolean containsLogKey(byte[] key) {
+        return map.containsKey(new P2PDataStorage.ByteArray(key));
+    }
+
+    @Override
+    public void applyLogRecord(@Nullable PersistableEnvelope added, Collection<byte[]> removedKeys) {
+        if (added != null) {
+            map.putAll(((SequenceNumberMap) added).getMap());
+        }
+        removedKeys.stream()
+                .map(P2PDataStorage.ByteArray::new)
+                .forEach(map::remove);
+    }
+
+
     ///////////////////////////////////////////////////////////////////////////////////////////
     // API
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -0,0 +1,201 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.mailbox;
+
+import bisq.network.crypto.EncryptionService;
+import bisq.network.p2p.DecryptedMessageWithPubKey;
+import bisq.network.p2p.NodeAddress;
+import bisq.network.p2p.PrefixedSealedAndSignedMessage;
+import bisq.network.p2p.TestUtils;
+import bisq.network.p2p.mocks.MockMailboxPayload;
+import bisq.network.p2p.network.NetworkNode;
+import bisq.network.p2p.peers.PeerManager;
+import bisq.network.p2p.storage.P2PDataStorage;
+import bisq.network.p2p.storage.payload.MailboxStoragePayload;
+import bisq.network.p2p.storage.payload.ProtectedMailboxStorageEntry;
+import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
+
+import bisq.common.UserThread;
+import bisq.common.crypto.CryptoException;
+import bisq.common.crypto.KeyRing;
+import bisq.common.crypto.PubKeyRing;
+import bisq.common.crypto.SealedAndSigned;
+import bisq.common.persistence.PersistenceManager;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.security.PublicKey;
+
+import java.time.Clock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MailboxMessageServiceTest {
+    private static final String USER_THREAD_NAME = "UserThread";
+    private static final byte[] MY_SIGNATURE_PUB_KEY_BYTES = {1, 2, 3};
+    private static final byte[] FOREIGN_SIGNATURE_PUB_KEY_BYTES = {4, 5, 6};
+
+    private final NodeAddress senderNodeAddress = new NodeAddress("sender", 9999);
+    private PublicKey senderPubKey;
+    private EncryptionService encryptionService;
+    private IgnoredMailboxService ignoredMailboxService;
+    private MailboxMessageService mailboxMessageService;
+    private ExecutorService userThreadExecutor;
+    private final List<String> receivedMessages = Collections.synchronizedList(new ArrayList<>());
+    private CountDownLatch messagesReceived;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        senderPubKey = TestUtils.generateKeyPair().getPublic();
+        userThreadExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, USER_THREAD_NAME));
+        UserThread.setExecutor(userThreadExecutor);
+
+        NetworkNode networkNode = mock(NetworkNode.class);
+        when(networkNode.getNodeAddress()).thenReturn(new NodeAddress("localhost", 8888));
+        PubKeyRing pubKeyRing = mock(PubKeyRing.class);
+        when(pubKeyRing.getSignaturePubKeyBytes()).thenReturn(MY_SIGNATURE_PUB_KEY_BYTES);
+        KeyRing keyRing = mock(KeyRing.class);
+        when(keyRing.getPubKeyRing()).thenReturn(pubKeyRing);
+        encryptionService = mock(EncryptionService.class);
+        ignoredMailboxService = mock(IgnoredMailboxService.class);
+
+        mailboxMessageService = new MailboxMessageService(networkNode,
+                mock(PeerManager.class),
+                mock(P2PDataStorage.class),
+                encryptionService,
+                ignoredMailboxService,
+                mock(PersistenceManager.class),
+                keyRing,
+                Clock.systemDefaultZone(),
+                false);
+        mailboxMessageService.addDecryptedMailboxListener((decryptedMessageWithPubKey, sender) -> {
+            receivedMessages.add(((MockMailboxPayload) decryptedMessageWithPubKey.getNetworkEnvelope()).msg);
+            messagesReceived.countDown();
+        });
+    }
+
+    @After
+    public void tearDown() {
+        UserThread.setExecutor(MoreExecutors.directExecutor());
+        userThreadExecutor.shutdownNow();
+    }
+
+    // TESTCASE: An entry with a foreign receiver key is neither decrypted nor added to the ignored mailbox entries
+    @Test
+    public void onAdded_foreignReceiverKeyIsNotDecrypted() throws Exception {
+        ProtectedMailboxStorageEntry foreignEntry = buildEntry("foreign", FOREIGN_SIGNATURE_PUB_KEY_BYTES, 1000);
+        ProtectedMailboxStorageEntry myEntry = buildDecryptableEntry("mine", 2000);
+
+        processBatch(1, foreignEntry, myEntry);
+
+        Assert.assertEquals(List.of("mine"), receivedMessages);
+        verify(encryptionService, never()).decryptAndVerify(getSealedAndSigned(foreignEntry));
+        verify(ignoredMailboxService, never()).ignore(eq("foreign"), anyLong());
+    }
+
+    // TESTCASE: A candidate which fails decryption is added to the ignored mailbox entries at the user thread
+    @Test
+    public void onAdded_failedDecryptionIsIgnoredAtUserThread() throws Exception {
+        ProtectedMailboxStorageEntry failingEntry = buildEntry("failing", MY_SIGNATURE_PUB_KEY_BYTES, 1000);
+        when(encryptionService.decryptAndVerify(getSealedAndSigned(failingEntry))).thenThrow(new CryptoException("test"));
+        ProtectedMailboxStorageEntry myEntry = buildDecryptableEntry("mine", 2000);
+        AtomicReference<String> ignoringThreadName = new AtomicReference<>();
+        doAnswer(invocation -> {
+            ignoringThreadName.set(Thread.currentThread().getName());
+            return null;
+        }).when(ignoredMailboxService).ignore(any(), anyLong());
+
+        processBatch(1, failingEntry, myEntry);
+
+        verify(ignoredMailboxService).ignore("failing", 1000);
+        verify(ignoredMailboxService, never()).ignore(eq("mine"), anyLong());
+        Assert.assertEquals(USER_THREAD_NAME, ignoringThreadName.get());
+    }
+
+    // TESTCASE: The decrypted messages are delivered sorted by the creation date of the entries
+    @Test
+    public void onAdded_resultsDeliveredSortedByCreationDate() throws Exception {
+        processBatch(3,
+                buildDecryptableEntry("third", 3000),
+                buildDecryptableEntry("first", 1000),
+                buildDecryptableEntry("second", 2000));
+
+        Assert.assertEquals(List.of("first", "second", "third"), receivedMessages);
+    }
+
+    private void processBatch(int numExpectedMessages, ProtectedMailboxStorageEntry... entries) throws Exception {
+        messagesReceived = new CountDownLatch(numExpectedMessages);
+        List<ProtectedStorageEntry> protectedStorageEntries = new ArrayList<>(List.of(entries));
+
+        mailboxMessageService.onAdded(protectedStorageEntries);
+
+        Assert.assertTrue(messagesReceived.await(10, TimeUnit.SECONDS));
+        // All results are handled in one task at the user thread, so after that one we are done
+        userThreadExecutor.submit(() -> {
+        }).get(10, TimeUnit.SECONDS);
+    }
+
+    private ProtectedMailboxStorageEntry buildDecryptableEntry(String msg, long creationTimeStamp) throws Exception {
+        ProtectedMailboxStorageEntry entry = buildEntry(msg, MY_SIGNATURE_PUB_KEY_BYTES, creationTimeStamp);
+        when(encryptionService.decryptAndVerify(getSealedAndSigned(entry))).thenReturn(
+                new DecryptedMessageWithPubKey(new MockMailboxPayload(msg, senderNodeAddress), senderPubKey));
+        return entry;
+    }
+
+    private static ProtectedMailboxStorageEntry buildEntry(String uid, byte[] receiversPubKeyBytes, long creationTimeStamp) {
+        PrefixedSealedAndSignedMessage prefixedSealedAndSignedMessage = mock(PrefixedSealedAndSignedMessage.class);
+        when(prefixedSealedAndSignedMessage.getUid()).thenReturn(uid);
+        when(prefixedSealedAndSignedMessage.getSealedAndSigned()).thenReturn(mock(SealedAndSigned.class));
+        MailboxStoragePayload mailboxStoragePayload = mock(MailboxStoragePayload.class);
+        when(mailboxStoragePayload.getPrefixedSealedAndSignedMessage()).thenReturn(prefixedSealedAndSignedMessage);
+        when(mailboxStoragePayload.get32ByteHash()).thenReturn(new byte[32]);
+
+        ProtectedMailboxStorageEntry entry = mock(ProtectedMailboxStorageEntry.class);
+        when(entry.getMailboxStoragePayload()).thenReturn(mailboxStoragePayload);
+        when(entry.getProtectedStoragePayload()).thenReturn(mailboxStoragePayload);
+        when(entry.getReceiversPubKeyBytes()).thenReturn(receiversPubKeyBytes);
+        when(entry.getCreationTimeStamp()).thenReturn(creationTimeStamp);
+        return entry;
+    }
+
+    private static SealedAndSigned getSealedAndSigned(ProtectedMailboxStorageEntry entry) {
+        return entry.getMailboxStoragePayload().getPrefixedSealedAndSignedMessage().getSealedAndSigned();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import bisq.network.p2p.BundleOfEnvelopes;
+import bisq.network.p2p.CloseConnectionMessage;
+
+import bisq.common.proto.network.NetworkEnvelope;
+
+import com.google.common.base.Strings;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.lang.management.ManagementFactory;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+@Slf4j
+public class EncodedEnvelopeTest {
+    private static final int NUM_PEERS = 12;
+
+    @Test
+    public void frame_matchesWriteDelimitedTo() throws IOException {
+        NetworkEnvelope envelope = createBundle(3, 100);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        envelope.toProtoNetworkEnvelope().writeDelimitedTo(expected);
+
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        EncodedEnvelope.of(envelope).writeTo(actual);
+
+        Assert.assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+    }
+
+    @Test
+    public void readEnvelope_readsAllFramesUntilEof() throws IOException {
+        EncodedEnvelope small = EncodedEnvelope.of(new CloseConnectionMessage("small"));
+        // Larger than the initial buffer so the buffer has to grow
+        EncodedEnvelope large = EncodedEnvelope.of(createBundle(10, 10_000));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        small.writeTo(outputStream);
+        large.writeTo(outputStream);
+        small.writeTo(outputStream);
+
+        ProtoInputStream protoInputStream = new ProtoInputStream(new ByteArrayInputStream(outputStream.toByteArray()),
+                Connection.getMaxPermittedMessageSize());
+        Assert.assertEquals(small.getNetworkEnvelope().toProtoNetworkEnvelope(), protoInputStream.readEnvelope());
+        Assert.assertEquals(small.getSerializedSize(), protoInputStream.getLastMessageSize());
+        Assert.assertEquals(large.getNetworkEnvelope().toProtoNetworkEnvelope(), protoInputStream.readEnvelope());
+        Assert.assertEquals(large.getSerializedSize(), protoInputStream.getLastMessageSize());
+        Assert.assertEquals(small.getNetworkEnvelope().toProtoNetworkEnvelope(), protoInputStream.readEnvelope());
+        Assert.assertNull(protoInputStream.readEnvelope());
+    }
+
+    @Test(expected = ProtoInputStream.MessageSizeExceededException.class)
+    public void readEnvelope_rejectsOversizedMessageBeforeReadingIt() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        EncodedEnvelope.of(createBundle(1, 2_000)).writeTo(outputStream);
+        // Only the length prefix is needed to reject the message
+        byte[] lengthPrefix = new byte[2];
+        System.arraycopy(outputStream.toByteArray(), 0, lengthPrefix, 0, 2);
+
+        new ProtoInputStream(new ByteArrayInputStream(lengthPrefix), 1_000).readEnvelope();
+    }
+
+    // Compares the allocated bytes of a broadcast to NUM_PEERS peers if we encode the message for each peer or
+    // only once.
+    @Test
+    public void broadcastFanOut_allocationBenchmark() throws IOException {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled());
+        long threadId = Thread.currentThread().getId();
+        OutputStream outputStream = OutputStream.nullOutputStream();
+
+        // Warm up
+        for (int i = 0; i < 20; i++) {
+            encodePerPeer(createBundle(20, 1_000), outputStream);
+            encodeOnce(createBundle(20, 1_000), outputStream);
+        }
+
+        NetworkEnvelope envelope = createBundle(20, 1_000);
+        long ts = threadMXBean.getThreadAllocatedBytes(threadId);
+        encodePerPeer(envelope, outputStream);
+        long allocatedPerPeer = threadMXBean.getThreadAllocatedBytes(threadId) - ts;
+
+        envelope = createBundle(20, 1_000);
+        ts = threadMXBean.getThreadAllocatedBytes(threadId);
+        encodeOnce(envelope, outputStream);
+        long allocatedOnce = threadMXBean.getThreadAllocatedBytes(threadId) - ts;
+
+        log.info("Broadcast to {} peers allocated {} bytes if encoded per peer and {} bytes if encoded once",
+                NUM_PEERS, allocatedPerPeer, allocatedOnce);
+        Assert.assertTrue(allocatedOnce < allocatedPerPeer);
+    }
+
+    private static void encodePerPeer(NetworkEnvelope envelope, OutputStream outputStream) throws IOException {
+        // As it was done before: size computation and writeDelimitedTo with a new proto for each peer
+        for (int i = 0; i < NUM_PEERS; i++) {
+            envelope.toProtoNetworkEnvelope().getSerializedSize();
+            envelope.toProtoNetworkEnvelope().writeDelimitedTo(outputStream);
+        }
+    }
+
+    private static void encodeOnce(NetworkEnvelope envelope, OutputStream outputStream) throws IOException {
+        EncodedEnvelope encodedEnvelope = EncodedEnvelope.of(envelope);
+        for (int i = 0; i < NUM_PEERS; i++) {
+            encodedEnvelope.writeTo(outputStream);
+        }
+    }
+
+    private static BundleOfEnvelopes createBundle(int numMessages, int messageSize) {
+        List<NetworkEnvelope> envelopes = new ArrayList<>();
+        for (int i = 0; i < numMessages; i++) {
+            envelopes.add(new CloseConnectionMessage(i + Strings.repeat("x", messageSize)));
+        }
+        return new BundleOfEnvelopes(envelopes);
+    }
+}
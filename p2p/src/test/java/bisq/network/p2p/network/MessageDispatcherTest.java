@@ -0,0 +1,97 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import bisq.common.proto.network.NetworkEnvelope;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MessageDispatcherTest {
+
+    @Test
+    public void dispatch_keepsOrderPerConnection() throws InterruptedException {
+        MessageDispatcher messageDispatcher = new MessageDispatcher(true, 4);
+        Connection connection = mockConnection("uid");
+        int numMessages = 1000;
+        List<Integer> handled = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(numMessages);
+
+        for (int i = 0; i < numMessages; i++) {
+            int index = i;
+            messageDispatcher.dispatch(mock(NetworkEnvelope.class), connection, () -> {
+                handled.add(index);
+                latch.countDown();
+            });
+        }
+
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < numMessages; i++) {
+            Assert.assertEquals(i, (int) handled.get(i));
+        }
+        Assert.assertEquals(numMessages, messageDispatcher.getNumDispatched());
+        Assert.assertEquals(0, messageDispatcher.getQueueDepth());
+    }
+
+    @Test
+    public void dispatch_disabledCallsHandlerDirectly() {
+        MessageDispatcher messageDispatcher = new MessageDispatcher(false, 4);
+        List<Integer> handled = new ArrayList<>();
+
+        messageDispatcher.dispatch(mock(NetworkEnvelope.class), mockConnection("uid"), () -> handled.add(1));
+
+        Assert.assertEquals(List.of(1), handled);
+        Assert.assertEquals(0, messageDispatcher.getNumDispatched());
+    }
+
+    @Test
+    public void execute_callsErrorHandlerIfTaskFails() throws InterruptedException {
+        MessageDispatcher messageDispatcher = new MessageDispatcher(true, 2);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        messageDispatcher.execute(mockConnection("uid"),
+                () -> {
+                    throw new IllegalStateException("test");
+                },
+                result -> Assert.fail("resultHandler must not be called"),
+                throwable -> {
+                    error.set(throwable);
+                    latch.countDown();
+                });
+
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(error.get() instanceof IllegalStateException);
+    }
+
+    private Connection mockConnection(String uid) {
+        Connection connection = mock(Connection.class);
+        when(connection.getUid()).thenReturn(uid);
+        return connection;
+    }
+}
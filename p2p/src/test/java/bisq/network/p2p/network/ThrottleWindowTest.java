@@ -0,0 +1,75 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ThrottleWindowTest {
+    private AtomicLong now;
+    private ThrottleWindow throttleWindow;
+
+    @Before
+    public void setUp() {
+        now = new AtomicLong(TimeUnit.DAYS.toMillis(1));
+        // 5 messages per sec
+        throttleWindow = new ThrottleWindow(5, 1000, now::get);
+    }
+
+    @Test
+    public void addAndCheckLimitExceeded_passesMessagesBelowTheLimit() {
+        for (int i = 0; i < 4; i++) {
+            Assert.assertFalse(throttleWindow.addAndCheckLimitExceeded());
+        }
+        Assert.assertTrue(throttleWindow.addAndCheckLimitExceeded());
+    }
+
+    @Test
+    public void addAndCheckLimitExceeded_idlePeriodDoesNotAllowALargerBurst() {
+        now.addAndGet(TimeUnit.MINUTES.toMillis(1));
+
+        int numPassed = 0;
+        while (!throttleWindow.addAndCheckLimitExceeded()) {
+            numPassed++;
+        }
+        Assert.assertEquals(4, numPassed);
+    }
+
+    @Test
+    public void addAndCheckLimitExceeded_burstAtWindowBoundaryIsDetected() {
+        // 4 messages at the end of one second and 1 at the start of the next one are still within one window
+        for (int i = 0; i < 4; i++) {
+            Assert.assertFalse(throttleWindow.addAndCheckLimitExceeded());
+        }
+        now.addAndGet(999);
+        Assert.assertTrue(throttleWindow.addAndCheckLimitExceeded());
+    }
+
+    @Test
+    public void addAndCheckLimitExceeded_passesAfterTheWindow() {
+        for (int i = 0; i < 4; i++) {
+            throttleWindow.addAndCheckLimitExceeded();
+        }
+        now.addAndGet(1000);
+        Assert.assertFalse(throttleWindow.addAndCheckLimitExceeded());
+    }
+}
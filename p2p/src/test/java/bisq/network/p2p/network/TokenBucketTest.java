@@ -0,0 +1,69 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TokenBucketTest {
+    private AtomicLong now;
+    private TokenBucket tokenBucket;
+
+    @Before
+    public void setUp() {
+        now = new AtomicLong();
+        // 10 tokens per sec, burst of 5
+        tokenBucket = new TokenBucket(10, 5, now::get);
+    }
+
+    @Test
+    public void reserve_burstPassesWithoutDelay() {
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(0, tokenBucket.reserve());
+        }
+        Assert.assertEquals(0, tokenBucket.getNumDelayed());
+    }
+
+    @Test
+    public void reserve_queuesRequestsExceedingTheBurst() {
+        for (int i = 0; i < 5; i++) {
+            tokenBucket.reserve();
+        }
+        Assert.assertEquals(100, tokenBucket.reserve());
+        Assert.assertEquals(200, tokenBucket.reserve());
+        Assert.assertEquals(2, tokenBucket.getNumDelayed());
+        Assert.assertEquals(300, tokenBucket.getTotalDelay());
+
+        advance(200);
+        Assert.assertEquals(100, tokenBucket.reserve());
+    }
+
+    @Test
+    public void refill_isLimitedByCapacity() {
+        advance(TimeUnit.MINUTES.toMillis(1));
+        Assert.assertEquals(5, tokenBucket.getAvailableTokens(), 0.001);
+    }
+
+    private void advance(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
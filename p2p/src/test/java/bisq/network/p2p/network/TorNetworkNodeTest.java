@@ -56,7 +56,7 @@ public class TorNetworkNodeTest {
         latch = new CountDownLatch(1);
         int port = 9001;
         TorNetworkNode node1 = new TorNetworkNode(port, TestUtils.getNetworkProtoResolver(), false,
-                new NewTor(new File("torNode_" + port), null, "", this::getBridgeAddresses), null, 12);
+                new NewTor(new File("torNode_" + port), null, "", this::getBridgeAddresses), null, 12, 1000);
         node1.start(new SetupListener() {
             @Override
             public void onTorNodeReady() {
@@ -83,7 +83,7 @@ public class TorNetworkNodeTest {
         latch = new CountDownLatch(1);
         int port2 = 9002;
         TorNetworkNode node2 = new TorNetworkNode(port2, TestUtils.getNetworkProtoResolver(), false,
-                new NewTor(new File("torNode_" + port), null, "", this::getBridgeAddresses), null, 12);
+                new NewTor(new File("torNode_" + port), null, "", this::getBridgeAddresses), null, 12, 1000);
         node2.start(new SetupListener() {
             @Override
             public void onTorNodeReady() {
@@ -141,7 +141,7 @@ public class TorNetworkNodeTest {
         latch = new CountDownLatch(2);
         int port = 9001;
         TorNetworkNode node1 = new TorNetworkNode(port, TestUtils.getNetworkProtoResolver(), false,
-                new NewTor(new File("torNode_" + port), null, "", this::getBridgeAddresses), null, 12);
+                new NewTor(new File("torNode_" + port), null, "", this::getBridgeAddresses), null, 12, 1000);
         node1.start(new SetupListener() {
             @Override
             public void onTorNodeReady() {
@@ -167,7 +167,7 @@ public class TorNetworkNodeTest {
 
         int port2 = 9002;
         TorNetworkNode node2 = new TorNetworkNode(port2, TestUtils.getNetworkProtoResolver(), false,
-                new NewTor(new File("torNode_" + port), null, "", this::getBridgeAddresses), null, 12);
+                new NewTor(new File("torNode_" + port), null, "", this::getBridgeAddresses), null, 12, 1000);
         node2.start(new SetupListener() {
             @Override
             public void onTorNodeReady() {
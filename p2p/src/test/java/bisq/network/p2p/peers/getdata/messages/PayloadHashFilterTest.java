@@ -0,0 +1,102 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.peers.getdata.messages;
+
+import com.google.protobuf.ByteString;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PayloadHashFilterTest {
+    private final Random random = new Random(1);
+
+    @Test
+    public void mightContain_noFalseNegatives() {
+        List<byte[]> hashes = createHashes(10000, 20);
+        PayloadHashFilter filter = PayloadHashFilter.fromHashes(hashes, 42);
+
+        hashes.forEach(hash -> Assert.assertTrue(filter.mightContain(hash)));
+    }
+
+    @Test
+    public void mightContain_falsePositiveRate() {
+        PayloadHashFilter filter = PayloadHashFilter.fromHashes(createHashes(10000, 32), 42);
+
+        long numFalsePositives = createHashes(100000, 32).stream()
+                .filter(filter::mightContain)
+                .count();
+        // Expected are 0.1 false positives with the used rate of 1e-6
+        Assert.assertTrue(numFalsePositives <= 2);
+    }
+
+    @Test
+    public void tweak_changesFalsePositives() {
+        List<byte[]> hashes = createHashes(100, 20);
+        PayloadHashFilter filter1 = PayloadHashFilter.fromHashes(hashes, 1);
+        PayloadHashFilter filter2 = PayloadHashFilter.fromHashes(hashes, 2);
+
+        Assert.assertNotEquals(ByteString.copyFrom(filter1.getBits()), ByteString.copyFrom(filter2.getBits()));
+    }
+
+    @Test
+    public void emptyFilter() {
+        PayloadHashFilter filter = PayloadHashFilter.fromHashes(Collections.emptyList(), 42);
+
+        Assert.assertFalse(filter.mightContain(new byte[]{1, 2, 3}));
+    }
+
+    @Test
+    public void protoRoundTrip() {
+        List<byte[]> hashes = createHashes(1000, 20);
+        PayloadHashFilter filter = PayloadHashFilter.fromHashes(hashes, 42);
+        PayloadHashFilter fromProto = PayloadHashFilter.fromProto(filter.toProtoMessage());
+
+        Assert.assertEquals(filter, fromProto);
+        hashes.forEach(hash -> Assert.assertTrue(fromProto.mightContain(hash)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromProto_invalidNumHashFunctions() {
+        PayloadHashFilter.fromProto(protobuf.PayloadHashFilter.newBuilder()
+                .setBits(ByteString.copyFrom(new byte[8]))
+                .setNumHashFunctions(0)
+                .build());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromProto_emptyBits() {
+        PayloadHashFilter.fromProto(protobuf.PayloadHashFilter.newBuilder()
+                .setNumHashFunctions(1)
+                .build());
+    }
+
+    private List<byte[]> createHashes(int numHashes, int hashSize) {
+        List<byte[]> hashes = new ArrayList<>();
+        for (int i = 0; i < numHashes; i++) {
+            byte[] hash = new byte[hashSize];
+            random.nextBytes(hash);
+            hashes.add(hash);
+        }
+        return hashes;
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import bisq.network.p2p.storage.payload.DateSortedTruncatablePayload;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+
+import bisq.common.app.Capabilities;
+import bisq.common.proto.network.GetDataResponsePriority;
+
+import java.util.AbstractMap;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GetDataResponseItemsCollectorTest {
+    private static final int ITEM_SIZE = 10;
+
+    private GetDataResponseItemsCollector<PersistableNetworkPayload> collector;
+    private Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> map;
+    private AtomicBoolean outTruncated;
+
+    @Before
+    public void setUp() {
+        collector = new GetDataResponseItemsCollector<>(Function.identity(), "PersistableNetworkPayload");
+        map = new HashMap<>();
+        outTruncated = new AtomicBoolean();
+    }
+
+    @Test
+    public void collect_excludesKnownHashes() {
+        PayloadStub known = add(new PayloadStub(1, GetDataResponsePriority.LOW));
+        PayloadStub unknown = add(new PayloadStub(2, GetDataResponsePriority.LOW));
+
+        Set<PersistableNetworkPayload> result = collect(Set.of(new P2PDataStorage.ByteArray(known.getHash())), 100, 1000);
+
+        Assert.assertEquals(Set.of(unknown), result);
+        Assert.assertFalse(outTruncated.get());
+    }
+
+    @Test
+    public void collect_sizeLimitAppliesOnlyToLowPriority() {
+        PayloadStub mid = add(new PayloadStub(1, GetDataResponsePriority.MID));
+        PayloadStub high = add(new PayloadStub(2, GetDataResponsePriority.HIGH));
+        add(new PayloadStub(3, GetDataResponsePriority.LOW));
+        add(new PayloadStub(4, GetDataResponsePriority.LOW));
+
+        Set<PersistableNetworkPayload> result = collect(new HashSet<>(), 100, ITEM_SIZE);
+
+        Assert.assertEquals(3, result.size());
+        Assert.assertTrue(result.contains(mid));
+        Assert.assertTrue(result.contains(high));
+        Assert.assertTrue(outTruncated.get());
+    }
+
+    @Test
+    public void collect_dateSortedKeepsMostRecent() {
+        DateSortedPayloadStub oldest = add(new DateSortedPayloadStub(1, 1000, 2));
+        DateSortedPayloadStub middle = add(new DateSortedPayloadStub(2, 2000, 2));
+        DateSortedPayloadStub newest = add(new DateSortedPayloadStub(3, 3000, 2));
+
+        Set<PersistableNetworkPayload> result = collect(new HashSet<>(), 100, 1000);
+
+        Assert.assertEquals(Set.of(middle, newest), result);
+        Assert.assertFalse(result.contains(oldest));
+        Assert.assertTrue(outTruncated.get());
+    }
+
+    @Test
+    public void collect_dateSortedSizeLimitCutsOffOldest() {
+        add(new DateSortedPayloadStub(1, 1000, 100));
+        add(new DateSortedPayloadStub(2, 2000, 100));
+        DateSortedPayloadStub newest = add(new DateSortedPayloadStub(3, 3000, 100));
+
+        Set<PersistableNetworkPayload> result = collect(new HashSet<>(), 100, ITEM_SIZE);
+
+        Assert.assertEquals(Set.of(newest), result);
+        Assert.assertTrue(outTruncated.get());
+    }
+
+    @Test
+    public void collect_serializedSizeIsCached() {
+        PayloadStub payload = add(new PayloadStub(1, GetDataResponsePriority.LOW));
+
+        collect(new HashSet<>(), 100, 1000);
+        collect(new HashSet<>(), 100, 1000);
+        Assert.assertEquals(1, payload.numSerializations.get());
+
+        collector.invalidate(new P2PDataStorage.ByteArray(payload.getHash()));
+        collect(new HashSet<>(), 100, 1000);
+        Assert.assertEquals(2, payload.numSerializations.get());
+    }
+
+    @Test
+    public void collect_doesNotDecodeValuesOfKnownHashes() {
+        for (int i = 0; i < 10; i++) {
+            add(new PayloadStub(i, GetDataResponsePriority.LOW));
+        }
+        // Like the entries of a MappedPayloadStore, the values of that map are only decoded on access.
+        DecodingMap decodingMap = new DecodingMap(map);
+        PayloadStub unknown = new PayloadStub(10, GetDataResponsePriority.LOW);
+        Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> liveMap = new HashMap<>();
+        liveMap.put(new P2PDataStorage.ByteArray(unknown.getHash()), unknown);
+
+        Set<PersistableNetworkPayload> result = collector.collect(List.of(liveMap, decodingMap),
+                new HashSet<>(map.keySet())::contains,
+                new Capabilities(),
+                100,
+                1000,
+                outTruncated);
+
+        Assert.assertEquals(Set.of(unknown), result);
+        Assert.assertEquals(0, decodingMap.numDecodes.get());
+    }
+
+    private Set<PersistableNetworkPayload> collect(Set<P2PDataStorage.ByteArray> knownHashes,
+                                                   int maxEntries,
+                                                   long limit) {
+        return collector.collect(map, knownHashes::contains, new Capabilities(), maxEntries, limit, outTruncated);
+    }
+
+    private <T extends PayloadStub> T add(T payload) {
+        map.put(new P2PDataStorage.ByteArray(payload.getHash()), payload);
+        return payload;
+    }
+
+    private static class DecodingMap extends AbstractMap<P2PDataStorage.ByteArray, PersistableNetworkPayload> {
+        private final Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> map;
+        final AtomicInteger numDecodes = new AtomicInteger();
+
+        DecodingMap(Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> map) {
+            this.map = map;
+        }
+
+        @Override
+        public Set<Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload>> entrySet() {
+            return map.keySet().stream()
+                    .map(DecodingEntry::new)
+                    .collect(Collectors.toSet());
+        }
+
+        private class DecodingEntry extends SimpleImmutableEntry<P2PDataStorage.ByteArray, PersistableNetworkPayload> {
+            DecodingEntry(P2PDataStorage.ByteArray hash) {
+                super(hash, null);
+            }
+
+            @Override
+            public PersistableNetworkPayload getValue() {
+                numDecodes.incrementAndGet();
+                return map.get(getKey());
+            }
+        }
+    }
+
+    private static class PayloadStub implements PersistableNetworkPayload {
+        private final byte[] hash;
+        private final GetDataResponsePriority priority;
+        private final protobuf.PersistableNetworkPayload proto;
+        final AtomicInteger numSerializations = new AtomicInteger();
+
+        PayloadStub(int id, GetDataResponsePriority priority) {
+            this.hash = new byte[]{(byte) id};
+            this.priority = priority;
+            proto = mock(protobuf.PersistableNetworkPayload.class);
+            when(proto.getSerializedSize()).thenReturn(ITEM_SIZE);
+        }
+
+        @Override
+        public protobuf.PersistableNetworkPayload toProtoMessage() {
+            numSerializations.incrementAndGet();
+            return proto;
+        }
+
+        @Override
+        public byte[] getHash() {
+            return hash;
+        }
+
+        @Override
+        public boolean verifyHashSize() {
+            return true;
+        }
+
+        @Override
+        public GetDataResponsePriority getGetDataResponsePriority() {
+            return priority;
+        }
+    }
+
+    private static class DateSortedPayloadStub extends PayloadStub implements DateSortedTruncatablePayload {
+        private final Date date;
+        private final int maxItems;
+
+        DateSortedPayloadStub(int id, long date, int maxItems) {
+            super(id, GetDataResponsePriority.LOW);
+            this.date = new Date(date);
+            this.maxItems = maxItems;
+        }
+
+        @Override
+        public Date getDate() {
+            return date;
+        }
+
+        @Override
+        public int maxItems() {
+            return maxItems;
+        }
+    }
+}
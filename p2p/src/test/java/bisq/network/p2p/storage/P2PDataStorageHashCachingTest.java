@@ -0,0 +1,145 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+package bisq.network.p2p.storage;
+
+import bisq.network.p2p.NodeAddress;
+import bisq.network.p2p.PrefixedSealedAndSignedMessage;
+import bisq.network.p2p.TestUtils;
+import bisq.network.p2p.storage.payload.HashCachingPayload;
+import bisq.network.p2p.storage.payload.MailboxStoragePayload;
+
+import bisq.common.crypto.Hash;
+import bisq.common.crypto.SealedAndSigned;
+
+import com.google.protobuf.Message;
+
+import org.apache.commons.lang3.RandomUtils;
+
+import java.security.KeyPair;
+import java.security.PublicKey;
+
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class P2PDataStorageHashCachingTest {
+    private MailboxStoragePayload mailboxStoragePayload;
+
+    @Before
+    public void setUp() throws Exception {
+        KeyPair senderKeys = TestUtils.generateKeyPair();
+        KeyPair receiverKeys = TestUtils.generateKeyPair();
+        SealedAndSigned sealedAndSigned = new SealedAndSigned(RandomUtils.nextBytes(10),
+                RandomUtils.nextBytes(10),
+                RandomUtils.nextBytes(10),
+                senderKeys.getPublic());
+        PrefixedSealedAndSignedMessage prefixedSealedAndSignedMessage =
+                new PrefixedSealedAndSignedMessage(new NodeAddress("host", 1000), sealedAndSigned);
+        mailboxStoragePayload = new MailboxStoragePayload(prefixedSealedAndSignedMessage,
+                senderKeys.getPublic(),
+                receiverKeys.getPublic(),
+                MailboxStoragePayload.TTL / 2);
+    }
+
+    // MailboxStoragePayload only caches its hash
+    @Test
+    public void get32ByteHash_mailboxStoragePayload() {
+        byte[] expected = Hash.getSha256Hash(mailboxStoragePayload.toProtoMessage().toByteArray());
+
+        assertNull(mailboxStoragePayload.getSerializedBytes());
+        assertArrayEquals(expected, P2PDataStorage.get32ByteHash(mailboxStoragePayload));
+        assertSame(mailboxStoragePayload.get32ByteHash(), P2PDataStorage.get32ByteHash(mailboxStoragePayload));
+    }
+
+    @Test
+    public void dataAndSeqNrPair_withoutSerializedBytes() {
+        P2PDataStorage.DataAndSeqNrPair pair = new P2PDataStorage.DataAndSeqNrPair(mailboxStoragePayload, 5);
+
+        assertArrayEquals(pair.toProtoMessage().toByteArray(), pair.toByteArray());
+    }
+
+    // The hand written encoding of the DataAndSeqNrPair must match the protobuf encoding, otherwise signatures
+    // would not verify anymore
+    @Test
+    public void dataAndSeqNrPair_withSerializedBytes() {
+        HashCachingPayloadStub payload = new HashCachingPayloadStub(mailboxStoragePayload);
+
+        for (int sequenceNumber : new int[]{0, 1, 127, 128, 300, Integer.MAX_VALUE, -1, Integer.MIN_VALUE}) {
+            P2PDataStorage.DataAndSeqNrPair pair = new P2PDataStorage.DataAndSeqNrPair(payload, sequenceNumber);
+            byte[] expected = pair.toProtoMessage().toByteArray();
+
+            assertArrayEquals(expected, pair.toByteArray());
+            assertArrayEquals(Hash.getSha256Hash(expected), P2PDataStorage.get32ByteHash(pair));
+        }
+    }
+
+    @Test
+    public void equalsAndHashCode_notAffectedByCachedHash() {
+        MailboxStoragePayload copy = MailboxStoragePayload.fromProto(
+                mailboxStoragePayload.toProtoMessage().getMailboxStoragePayload());
+        int hashCodeBefore = mailboxStoragePayload.hashCode();
+
+        mailboxStoragePayload.get32ByteHash();
+
+        assertEquals(copy, mailboxStoragePayload);
+        assertEquals(hashCodeBefore, mailboxStoragePayload.hashCode());
+    }
+
+    private static class HashCachingPayloadStub implements HashCachingPayload {
+        private final MailboxStoragePayload payload;
+        private final byte[] serializedBytes;
+
+        HashCachingPayloadStub(MailboxStoragePayload payload) {
+            this.payload = payload;
+            this.serializedBytes = payload.toProtoMessage().toByteArray();
+        }
+
+        @Override
+        public byte[] getSerializedBytes() {
+            return serializedBytes;
+        }
+
+        @Override
+        public byte[] get32ByteHash() {
+            return Hash.getSha256Hash(serializedBytes);
+        }
+
+        @Override
+        public PublicKey getOwnerPubKey() {
+            return payload.getOwnerPubKey();
+        }
+
+        @Nullable
+        @Override
+        public Map<String, String> getExtraDataMap() {
+            return null;
+        }
+
+        @Override
+        public Message toProtoMessage() {
+            return payload.toProtoMessage();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import bisq.network.p2p.TestUtils;
+import bisq.network.p2p.storage.mocks.ProtectedStoragePayloadStub;
+import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
+import bisq.network.p2p.storage.payload.ProtectedStoragePayload;
+
+import bisq.common.FrameRateTimer;
+import bisq.common.Timer;
+import bisq.common.UserThread;
+import bisq.common.crypto.CryptoException;
+
+import java.security.KeyPair;
+
+import java.time.Duration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.mockito.InOrder;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the collecting of the HashMapChangedListener notifications while the notification delay is running.
+ */
+public class P2PDataStorageNotificationTest {
+    private static final int NOTIFICATION_DELAY_MS = 100;
+
+    private P2PDataStorage p2PDataStorage;
+    private HashMapChangedListener listener;
+    private ProtectedStoragePayload payloadA;
+    private KeyPair ownerKeysA;
+    private ProtectedStoragePayload payloadB;
+    private KeyPair ownerKeysB;
+
+    @Before
+    public void setUp() throws Exception {
+        UserThread.setTimerClass(ManualTimer.class);
+        ManualTimer.scheduledTimers.clear();
+        p2PDataStorage = new TestState(NOTIFICATION_DELAY_MS).mockedStorage;
+        listener = mock(HashMapChangedListener.class);
+        p2PDataStorage.addHashMapChangedListener(listener);
+
+        ownerKeysA = TestUtils.generateKeyPair();
+        payloadA = new ProtectedStoragePayloadStub(ownerKeysA.getPublic());
+        ownerKeysB = TestUtils.generateKeyPair();
+        payloadB = new ProtectedStoragePayloadStub(ownerKeysB.getPublic());
+    }
+
+    @After
+    public void tearDown() {
+        UserThread.setTimerClass(FrameRateTimer.class);
+    }
+
+    // TESTCASE: Adds within the delay are delivered with one call after the delay
+    @Test
+    public void addsDeliveredOnceAfterDelay() throws CryptoException {
+        ProtectedStorageEntry entryA = add(payloadA, ownerKeysA);
+        ProtectedStorageEntry entryB = add(payloadB, ownerKeysB);
+        verify(listener, never()).onAdded(any());
+        Assert.assertEquals(1, ManualTimer.getNumPending());
+
+        ManualTimer.runPending();
+
+        verify(listener).onAdded(List.of(entryA, entryB));
+        verify(listener, never()).onRemoved(any());
+    }
+
+    // TESTCASE: A remove within the delay cancels the pending add of the same payload
+    @Test
+    public void removeCancelsPendingAdd() throws CryptoException {
+        add(payloadA, ownerKeysA);
+        ProtectedStorageEntry removeEntryA = remove(payloadA, ownerKeysA);
+
+        ManualTimer.runPending();
+
+        verify(listener, never()).onAdded(any());
+        verify(listener).onRemoved(List.of(removeEntryA));
+    }
+
+    // TESTCASE: Removes are delivered before the adds
+    @Test
+    public void removesDeliveredBeforeAdds() throws CryptoException {
+        ProtectedStorageEntry entryA = add(payloadA, ownerKeysA);
+        ManualTimer.runPending();
+
+        ProtectedStorageEntry entryB = add(payloadB, ownerKeysB);
+        ProtectedStorageEntry removeEntryA = remove(payloadA, ownerKeysA);
+        ManualTimer.runPending();
+
+        InOrder inOrder = inOrder(listener);
+        inOrder.verify(listener).onAdded(List.of(entryA));
+        inOrder.verify(listener).onRemoved(List.of(removeEntryA));
+        inOrder.verify(listener).onAdded(List.of(entryB));
+    }
+
+    // TESTCASE: add -> remove -> add of the same payload within one delay leaves the payload added at the listener
+    @Test
+    public void addRemoveAddWithinDelayEndsAdded() throws CryptoException {
+        add(payloadA, ownerKeysA);
+        ProtectedStorageEntry removeEntryA = remove(payloadA, ownerKeysA);
+        ProtectedStorageEntry readdedEntryA = add(payloadA, ownerKeysA);
+        Assert.assertEquals(1, ManualTimer.getNumPending());
+
+        ManualTimer.runPending();
+
+        InOrder inOrder = inOrder(listener);
+        inOrder.verify(listener).onRemoved(List.of(removeEntryA));
+        inOrder.verify(listener).onAdded(List.of(readdedEntryA));
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    private ProtectedStorageEntry add(ProtectedStoragePayload payload, KeyPair ownerKeys) throws CryptoException {
+        ProtectedStorageEntry entry = p2PDataStorage.getProtectedStorageEntry(payload, ownerKeys);
+        Assert.assertTrue(p2PDataStorage.addProtectedStorageEntry(entry, null, null));
+        return entry;
+    }
+
+    private ProtectedStorageEntry remove(ProtectedStoragePayload payload, KeyPair ownerKeys) throws CryptoException {
+        ProtectedStorageEntry entry = p2PDataStorage.getProtectedStorageEntry(payload, ownerKeys);
+        Assert.assertTrue(p2PDataStorage.remove(entry, null));
+        return entry;
+    }
+
+    // Runs the delayed actions only when the test asks for it. Periodic actions are never run.
+    public static class ManualTimer implements Timer {
+        static final List<ManualTimer> scheduledTimers = new ArrayList<>();
+
+        private Runnable action;
+        private boolean stopped;
+
+        static int getNumPending() {
+            return (int) scheduledTimers.stream().filter(timer -> timer.action != null && !timer.stopped).count();
+        }
+
+        static void runPending() {
+            List<ManualTimer> timers = new ArrayList<>(scheduledTimers);
+            scheduledTimers.clear();
+            timers.stream()
+                    .filter(timer -> timer.action != null && !timer.stopped)
+                    .forEach(timer -> timer.action.run());
+        }
+
+        @Override
+        public Timer runLater(Duration delay, Runnable action) {
+            this.action = action;
+            scheduledTimers.add(this);
+            return this;
+        }
+
+        @Override
+        public Timer runPeriodically(Duration interval, Runnable runnable) {
+            return this;
+        }
+
+        @Override
+        public void stop() {
+            stopped = true;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+package bisq.network.p2p.storage;
+
+import bisq.network.p2p.TestUtils;
+import bisq.network.p2p.storage.messages.RefreshOfferMessage;
+import bisq.network.p2p.storage.payload.ExpirablePayload;
+import bisq.network.p2p.storage.payload.HashCachingPayload;
+import bisq.network.p2p.storage.payload.ProtectedStoragePayload;
+import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
+
+import bisq.common.crypto.CryptoException;
+import bisq.common.crypto.Hash;
+import bisq.common.crypto.Sig;
+
+import com.google.protobuf.ByteString;
+
+import com.google.common.base.Stopwatch;
+
+import org.apache.commons.lang3.RandomUtils;
+
+import java.security.KeyPair;
+import java.security.PublicKey;
+
+import java.time.Clock;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Measures the add, refresh and remove path of P2PDataStorage with payloads which serialize and hash themselves at
+ * each lookup compared to payloads which cache their serialized bytes and hash.
+ * The first round warms up the JIT and the signature verification cache, so the later rounds mainly show the
+ * hashing and map overhead.
+ */
+@Ignore
+@Slf4j
+public class P2PDataStoragePayloadHashBenchmark {
+    private static final int NUM_PAYLOADS = 2000;
+    private static final int PAYLOAD_SIZE = 1000;
+    private static final int NUM_EXTRA_DATA_ENTRIES = 30;
+    private static final int NUM_ROUNDS = 5;
+
+    @Test
+    public void benchmarkAddRefreshRemove() throws Exception {
+        KeyPair ownerKeys = TestUtils.generateKeyPair();
+        run("Without cached hashes", ownerKeys, PayloadStub::new);
+        run("With cached hashes", ownerKeys, HashCachingPayloadStub::new);
+    }
+
+    private static void run(String description,
+                            KeyPair ownerKeys,
+                            BiFunction<PublicKey, byte[], PayloadStub> payloadFactory) throws CryptoException {
+        List<Operations> operations = new ArrayList<>();
+        for (int i = 0; i < NUM_PAYLOADS; i++) {
+            PayloadStub payload = payloadFactory.apply(ownerKeys.getPublic(), RandomUtils.nextBytes(PAYLOAD_SIZE));
+            operations.add(new Operations(payload, ownerKeys));
+        }
+
+        for (int round = 0; round < NUM_ROUNDS; round++) {
+            P2PDataStorage storage = new TestState().mockedStorage;
+            Stopwatch stopwatch = Stopwatch.createStarted();
+            for (Operations operation : operations) {
+                storage.addProtectedStorageEntry(operation.addEntry, null, null);
+                storage.refreshTTL(operation.refreshMessage, null);
+                storage.remove(operation.removeEntry, null);
+            }
+            log.info("{}, round {}: add, refresh and remove of {} payloads took {} ms",
+                    description, round, NUM_PAYLOADS, stopwatch.elapsed().toMillis());
+        }
+    }
+
+    private static class Operations {
+        private final ProtectedStorageEntry addEntry;
+        private final RefreshOfferMessage refreshMessage;
+        private final ProtectedStorageEntry removeEntry;
+
+        Operations(ProtectedStoragePayload payload, KeyPair ownerKeys) throws CryptoException {
+            addEntry = new ProtectedStorageEntry(payload, ownerKeys.getPublic(), 1,
+                    sign(payload, 1, ownerKeys), Clock.systemDefaultZone());
+            refreshMessage = new RefreshOfferMessage(getHashOfDataAndSeqNr(payload, 2),
+                    sign(payload, 2, ownerKeys),
+                    P2PDataStorage.get32ByteHash(payload),
+                    2);
+            removeEntry = new ProtectedStorageEntry(payload, ownerKeys.getPublic(), 3,
+                    sign(payload, 3, ownerKeys), Clock.systemDefaultZone());
+        }
+
+        private static byte[] getHashOfDataAndSeqNr(ProtectedStoragePayload payload, int sequenceNumber) {
+            return P2PDataStorage.get32ByteHash(new P2PDataStorage.DataAndSeqNrPair(payload, sequenceNumber));
+        }
+
+        private static byte[] sign(ProtectedStoragePayload payload,
+                                   int sequenceNumber,
+                                   KeyPair ownerKeys) throws CryptoException {
+            return Sig.sign(ownerKeys.getPrivate(), getHashOfDataAndSeqNr(payload, sequenceNumber));
+        }
+    }
+
+    // Builds its proto message at each call like the real payloads do
+    private static class PayloadStub implements ProtectedStoragePayload, ExpirablePayload {
+        @Getter
+        private final PublicKey ownerPubKey;
+        private final byte[] ownerPubKeyBytes;
+        private final byte[] data;
+        @Getter
+        private final Map<String, String> extraDataMap = new LinkedHashMap<>();
+
+        PayloadStub(PublicKey ownerPubKey, byte[] data) {
+            this.ownerPubKey = ownerPubKey;
+            this.ownerPubKeyBytes = Sig.getPublicKeyBytes(ownerPubKey);
+            this.data = data;
+            for (int i = 0; i < NUM_EXTRA_DATA_ENTRIES; i++) {
+                extraDataMap.put("key" + i, "value" + i);
+            }
+        }
+
+        @Override
+        public protobuf.StoragePayload toProtoMessage() {
+            protobuf.SealedAndSigned sealedAndSigned = protobuf.SealedAndSigned.newBuilder()
+                    .setEncryptedPayloadWithHmac(ByteString.copyFrom(data))
+                    .setSigPublicKeyBytes(ByteString.copyFrom(ownerPubKeyBytes))
+                    .build();
+            protobuf.MailboxStoragePayload.Builder builder = protobuf.MailboxStoragePayload.newBuilder()
+                    .setPrefixedSealedAndSignedMessage(protobuf.PrefixedSealedAndSignedMessage.newBuilder()
+                            .setSealedAndSigned(sealedAndSigned))
+                    .setOwnerPubKeyBytes(ByteString.copyFrom(ownerPubKeyBytes))
+                    .putAllExtraData(extraDataMap);
+            return protobuf.StoragePayload.newBuilder().setMailboxStoragePayload(builder).build();
+        }
+
+        @Override
+        public long getTTL() {
+            return TimeUnit.DAYS.toMillis(1);
+        }
+    }
+
+    private static class HashCachingPayloadStub extends PayloadStub implements HashCachingPayload {
+        @Nullable
+        private byte[] serializedBytes;
+        @Nullable
+        private byte[] hash;
+
+        HashCachingPayloadStub(PublicKey ownerPubKey, byte[] data) {
+            super(ownerPubKey, data);
+        }
+
+        @Override
+        public byte[] getSerializedBytes() {
+            if (serializedBytes == null) {
+                serializedBytes = toProtoMessage().toByteArray();
+            }
+            return serializedBytes;
+        }
+
+        @Override
+        public byte[] get32ByteHash() {
+            if (hash == null) {
+                hash = Hash.getSha256Hash(getSerializedBytes());
+            }
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import bisq.network.p2p.peers.getdata.messages.GetDataRequest;
+import bisq.network.p2p.peers.getdata.messages.GetDataResponse;
+import bisq.network.p2p.peers.getdata.messages.PayloadHashFilter;
+import bisq.network.p2p.storage.mocks.PersistableNetworkPayloadStub;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+
+import bisq.common.app.Capabilities;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Syncs a client node with a seed node using the exclude list and the PayloadHashFilter and compares the size of the
+ * requests and the time for building the request and the response.
+ */
+@Slf4j
+public class P2PDataStoragePayloadHashFilterSyncTest {
+    private static final int NUM_SHARED_PAYLOADS = 20000;
+    private static final int NUM_MISSING_PAYLOADS = 100;
+
+    private final Random random = new Random(1);
+    private final List<PersistableNetworkPayload> missingPayloads = new ArrayList<>();
+    private TestState seedNodeTestState;
+    private TestState clientNodeTestState;
+
+    @Before
+    public void setUp() {
+        seedNodeTestState = new TestState();
+        clientNodeTestState = new TestState();
+        for (int i = 0; i < NUM_SHARED_PAYLOADS; i++) {
+            PersistableNetworkPayload payload = createPayload();
+            seedNodeTestState.mockedStorage.addPersistableNetworkPayload(payload, null, false);
+            clientNodeTestState.mockedStorage.addPersistableNetworkPayload(payload, null, false);
+        }
+        for (int i = 0; i < NUM_MISSING_PAYLOADS; i++) {
+            PersistableNetworkPayload payload = createPayload();
+            seedNodeTestState.mockedStorage.addPersistableNetworkPayload(payload, null, false);
+            missingPayloads.add(payload);
+        }
+    }
+
+    @Test
+    public void sync_excludedKeys() {
+        int requestSize = sync(false);
+
+        Assert.assertTrue(requestSize > NUM_SHARED_PAYLOADS * 20);
+    }
+
+    @Test
+    public void sync_payloadHashFilter() {
+        int requestSize = sync(true);
+
+        // About 29 bits per hash instead of 20 bytes plus protobuf overhead
+        Assert.assertTrue(requestSize < NUM_SHARED_PAYLOADS * 5);
+    }
+
+    private int sync(boolean usePayloadHashFilter) {
+        P2PDataStorage seedNode = seedNodeTestState.mockedStorage;
+        P2PDataStorage clientNode = clientNodeTestState.mockedStorage;
+
+        long ts = System.currentTimeMillis();
+        GetDataRequest getDataRequest = clientNode.buildPreliminaryGetDataRequest(1, usePayloadHashFilter);
+        int requestSize = getDataRequest.toProtoNetworkEnvelope().getSerializedSize();
+        long requestDuration = System.currentTimeMillis() - ts;
+
+        ts = System.currentTimeMillis();
+        GetDataResponse getDataResponse = seedNode.buildGetDataResponse(
+                getDataRequest, 5000, new AtomicBoolean(), new AtomicBoolean(), new Capabilities());
+        long responseDuration = System.currentTimeMillis() - ts;
+
+        log.info("Sync with usePayloadHashFilter={}: request size {} bytes, building request took {} ms, " +
+                        "building response took {} ms",
+                usePayloadHashFilter, requestSize, requestDuration, responseDuration);
+
+        // The filter uses a random tweak. A missing payload which is a false positive of the filter is not sent, so we
+        // expect the missing payloads the filter does not match.
+        PayloadHashFilter filter = getDataRequest.getPersistableNetworkPayloadFilter();
+        Set<PersistableNetworkPayload> expectedPayloads = missingPayloads.stream()
+                .filter(payload -> filter == null || !filter.mightContain(payload.getHash()))
+                .collect(Collectors.toSet());
+        Assert.assertEquals(expectedPayloads, new HashSet<>(getDataResponse.getPersistableNetworkPayloadSet()));
+
+        clientNode.processGetDataResponse(getDataResponse, null);
+        expectedPayloads.forEach(payload -> Assert.assertTrue(clientNode.appendOnlyDataStoreService.getMap(payload)
+                .containsKey(new P2PDataStorage.ByteArray(payload.getHash()))));
+        return requestSize;
+    }
+
+    private PersistableNetworkPayload createPayload() {
+        byte[] hash = new byte[20];
+        random.nextBytes(hash);
+        return new PersistableNetworkPayloadStub(hash);
+    }
+}
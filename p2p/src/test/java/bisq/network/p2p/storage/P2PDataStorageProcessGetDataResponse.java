@@ -27,20 +27,35 @@ import bisq.network.p2p.storage.payload.ProcessOncePersistableNetworkPayload;
 import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
 import bisq.network.p2p.storage.payload.ProtectedStoragePayload;
 
+import bisq.common.crypto.Sig;
+
 import java.security.KeyPair;
 import java.security.NoSuchAlgorithmException;
 
+import java.time.Clock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import org.mockito.ArgumentCaptor;
 import org.mockito.MockitoAnnotations;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class P2PDataStorageProcessGetDataResponse {
@@ -261,4 +276,58 @@ public class P2PDataStorageProcessGetDataResponse {
         this.testState.verifyProtectedStorageAdd(
                 beforeState, protectedStorageEntry, true, true, false, true);
     }
+
+    // TESTCASE: All PSEs of a GetDataResponse are signaled to the listeners with one call
+    @Test
+    @SuppressWarnings("unchecked")
+    public void processGetDataResponse_multiplePSEsSignaledOnce() throws NoSuchAlgorithmException {
+        HashMapChangedListener listener = mock(HashMapChangedListener.class);
+        this.testState.mockedStorage.addHashMapChangedListener(listener);
+        List<ProtectedStorageEntry> protectedStorageEntries = Arrays.asList(getProtectedStorageEntryForAdd(),
+                getProtectedStorageEntryForAdd(),
+                getProtectedStorageEntryForAdd());
+        GetDataResponse getDataResponse = buildGetDataResponse(protectedStorageEntries, Collections.emptyList());
+
+        this.testState.mockedStorage.processGetDataResponse(getDataResponse, this.peerNodeAddress);
+
+        ArgumentCaptor<Collection<ProtectedStorageEntry>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(listener).onAdded(captor.capture());
+        assertEquals(new HashSet<>(protectedStorageEntries), new HashSet<>(captor.getValue()));
+        verify(listener, never()).onRemoved(any());
+    }
+
+    // TESTCASE: The signatures of a large GetDataResponse are verified at worker threads before the resultHandler is
+    // called, so processGetDataResponse gets the memoized results
+    @Test
+    public void verifySignatures_largeResponseVerifiedBeforeResultHandler() throws Exception {
+        KeyPair ownerKeys = TestUtils.generateKeyPair();
+        ProtectedStoragePayload protectedStoragePayload = new ProtectedStoragePayloadStub(ownerKeys.getPublic());
+        List<ProtectedStorageEntry> protectedStorageEntries = new ArrayList<>();
+        for (int sequenceNumber = 1; sequenceNumber <= 100; sequenceNumber++) {
+            byte[] hashOfDataAndSeqNr = P2PDataStorage.get32ByteHash(
+                    new P2PDataStorage.DataAndSeqNrPair(protectedStoragePayload, sequenceNumber));
+            protectedStorageEntries.add(spy(new ProtectedStorageEntry(protectedStoragePayload, ownerKeys.getPublic(),
+                    sequenceNumber, Sig.sign(ownerKeys.getPrivate(), hashOfDataAndSeqNr), Clock.systemDefaultZone())));
+        }
+        CountDownLatch resultHandlerCalled = new CountDownLatch(1);
+
+        this.testState.mockedStorage.verifySignatures(
+                buildGetDataResponse(protectedStorageEntries, Collections.emptyList()),
+                resultHandlerCalled::countDown);
+
+        assertTrue(resultHandlerCalled.await(10, TimeUnit.SECONDS));
+        protectedStorageEntries.forEach(entry -> verify(entry).isSignatureValid(any()));
+    }
+
+    // TESTCASE: The signatures of a small GetDataResponse are left to processGetDataResponse
+    @Test
+    public void verifySignatures_smallResponseCallsResultHandlerDirectly() throws NoSuchAlgorithmException {
+        ProtectedStorageEntry protectedStorageEntry = getProtectedStorageEntryForAdd();
+        Runnable resultHandler = mock(Runnable.class);
+
+        this.testState.mockedStorage.verifySignatures(buildGetDataResponse(protectedStorageEntry), resultHandler);
+
+        verify(resultHandler).run();
+        verify(protectedStorageEntry, never()).isSignatureValid(any());
+    }
 }
@@ -0,0 +1,121 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import bisq.network.p2p.NodeAddress;
+import bisq.network.p2p.TestUtils;
+import bisq.network.p2p.peers.getdata.messages.GetDataResponse;
+import bisq.network.p2p.storage.mocks.ExpirableProtectedStoragePayloadStub;
+import bisq.network.p2p.storage.payload.ProtectedMailboxStorageEntry;
+import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
+
+import com.google.common.base.Stopwatch;
+
+import java.security.KeyPair;
+
+import java.time.Clock;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Measures the signature verification at the initial data sync with several thousand offers and mailbox entries:
+ * sequential verification, parallel verification of a GetDataResponse and the same entries arriving again from
+ * another seed node.
+ */
+@Ignore
+@Slf4j
+public class P2PDataStorageSignatureVerificationBenchmark {
+    private static final int NUM_OFFERS = 3000;
+    private static final int NUM_MAILBOX_ENTRIES = 3000;
+
+    @Test
+    public void benchmarkInitialSync() throws Exception {
+        TestState testState = new TestState();
+        List<ProtectedStorageEntry> entries = new ArrayList<>();
+        for (int i = 0; i < NUM_OFFERS; i++) {
+            KeyPair ownerKeys = TestUtils.generateKeyPair();
+            entries.add(testState.mockedStorage.getProtectedStorageEntry(
+                    new ExpirableProtectedStoragePayloadStub(ownerKeys.getPublic()), ownerKeys));
+        }
+        for (int i = 0; i < NUM_MAILBOX_ENTRIES; i++) {
+            KeyPair senderKeys = TestUtils.generateKeyPair();
+            KeyPair receiverKeys = TestUtils.generateKeyPair();
+            entries.add(testState.mockedStorage.getMailboxDataWithSignedSeqNr(
+                    TestState.buildMailboxStoragePayload(senderKeys.getPublic(), receiverKeys.getPublic()),
+                    senderKeys,
+                    receiverKeys.getPublic()));
+        }
+
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        copy(entries).forEach(ProtectedStorageEntry::isSignatureValid);
+        log.info("Sequential verification of {} entries: {} ms", entries.size(), stopwatch.elapsed().toMillis());
+
+        P2PDataStorage p2PDataStorage = new TestState().mockedStorage;
+        GetDataResponse firstResponse = buildGetDataResponse(copy(entries));
+        stopwatch.reset().start();
+        verifySignatures(p2PDataStorage, firstResponse);
+        p2PDataStorage.processGetDataResponse(firstResponse, new NodeAddress("seed1", 8000));
+        log.info("Parallel verification and processing of a GetDataResponse with {} entries: {} ms",
+                entries.size(), stopwatch.elapsed().toMillis());
+
+        // The same entries from another seed node are verified with the cache of the P2PDataStorage
+        GetDataResponse secondResponse = buildGetDataResponse(copy(entries));
+        stopwatch.reset().start();
+        verifySignatures(p2PDataStorage, secondResponse);
+        log.info("Verification of a GetDataResponse with {} already verified entries: {} ms",
+                entries.size(), stopwatch.elapsed().toMillis());
+    }
+
+    private static void verifySignatures(P2PDataStorage p2PDataStorage, GetDataResponse getDataResponse)
+            throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        p2PDataStorage.verifySignatures(getDataResponse, latch::countDown);
+        latch.await();
+    }
+
+    // New instances as if received from another peer, so the result memoized at the instance is not used.
+    private static List<ProtectedStorageEntry> copy(List<ProtectedStorageEntry> entries) {
+        return entries.stream()
+                .map(entry -> entry instanceof ProtectedMailboxStorageEntry ?
+                        new ProtectedMailboxStorageEntry(((ProtectedMailboxStorageEntry) entry).getMailboxStoragePayload(),
+                                entry.getOwnerPubKey(),
+                                entry.getSequenceNumber(),
+                                entry.getSignature(),
+                                ((ProtectedMailboxStorageEntry) entry).getReceiversPubKey(),
+                                Clock.systemDefaultZone()) :
+                        new ProtectedStorageEntry(entry.getProtectedStoragePayload(),
+                                entry.getOwnerPubKey(),
+                                entry.getSequenceNumber(),
+                                entry.getSignature(),
+                                Clock.systemDefaultZone()))
+                .collect(Collectors.toList());
+    }
+
+    private static GetDataResponse buildGetDataResponse(List<ProtectedStorageEntry> entries) {
+        return new GetDataResponse(new HashSet<>(entries), new HashSet<>(), 1, false, false);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import bisq.network.p2p.storage.persistence.SequenceNumberMap;
+
+import bisq.common.file.CorruptedStorageFileHandler;
+import bisq.common.persistence.PersistenceManager;
+import bisq.common.proto.persistable.PersistenceProtoResolver;
+
+import java.nio.file.Files;
+
+import java.io.File;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Mutates the SequenceNumberMap at the calling thread (which takes the role of the user thread) while the
+ * PersistenceManager serializes and writes the snapshot or the log record at its write thread. The persisted data
+ * must match the state at the time persistNow was called.
+ */
+public class PersistenceManagerConcurrentMutationTest {
+    private static final int NUM_ROUNDS = 50;
+    private static final int NUM_KEYS = 5000;
+
+    private File storageDir;
+    private PersistenceProtoResolver persistenceProtoResolver;
+    private PersistenceManager<SequenceNumberMap> persistenceManager;
+    private SequenceNumberMap sequenceNumberMap;
+    private String fileName;
+    private Random random;
+    private List<P2PDataStorage.ByteArray> keys;
+
+    @Before
+    public void setUp() throws Exception {
+        storageDir = Files.createTempDirectory("storage").toFile();
+        persistenceProtoResolver = mock(PersistenceProtoResolver.class);
+        when(persistenceProtoResolver.fromProto(any(protobuf.PersistableEnvelope.class)))
+                .thenAnswer(invocation -> SequenceNumberMap.fromProto(
+                        ((protobuf.PersistableEnvelope) invocation.getArgument(0)).getSequenceNumberMap()));
+        PersistenceManager.onAllServicesInitialized();
+
+        persistenceManager = new PersistenceManager<>(storageDir, persistenceProtoResolver,
+                mock(CorruptedStorageFileHandler.class));
+        sequenceNumberMap = new SequenceNumberMap();
+        fileName = "SequenceNumberMap_" + System.nanoTime();
+        persistenceManager.initialize(sequenceNumberMap, fileName, PersistenceManager.Source.PRIVATE_LOW_PRIO);
+
+        random = new Random(1);
+        keys = new ArrayList<>();
+        for (int i = 0; i < NUM_KEYS; i++) {
+            byte[] bytes = new byte[20];
+            random.nextBytes(bytes);
+            keys.add(new P2PDataStorage.ByteArray(bytes));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        persistenceManager.shutdown();
+        PersistenceManager.resetAllServicesInitialized();
+    }
+
+    @Test
+    public void persistedDataMatchesStateAtPersistCall() throws Exception {
+        for (int round = 0; round < NUM_ROUNDS; round++) {
+            mutate(1000);
+            if (round % 5 == 0) {
+                // Forces a snapshot, otherwise we append to the log until it gets compacted.
+                persistenceManager.requestPersistence();
+            }
+            Map<P2PDataStorage.ByteArray, P2PDataStorage.MapValue> expected = new HashMap<>(sequenceNumberMap.getMap());
+
+            CountDownLatch latch = new CountDownLatch(1);
+            persistenceManager.persistNow(latch::countDown);
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+            while (latch.getCount() > 0 && System.currentTimeMillis() < deadline) {
+                mutate(10);
+            }
+            Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+            SequenceNumberMap persisted = new PersistenceManager<SequenceNumberMap>(storageDir,
+                    persistenceProtoResolver, mock(CorruptedStorageFileHandler.class)).getPersisted(fileName);
+            Assert.assertNotNull(persisted);
+            Assert.assertEquals("Round " + round, expected, persisted.getMap());
+        }
+    }
+
+    private void mutate(int numMutations) {
+        for (int i = 0; i < numMutations; i++) {
+            P2PDataStorage.ByteArray key = keys.get(random.nextInt(keys.size()));
+            if (random.nextInt(4) == 0) {
+                sequenceNumberMap.getMap().remove(key);
+            } else {
+                sequenceNumberMap.put(key, new P2PDataStorage.MapValue(random.nextInt(), random.nextLong()));
+            }
+            persistenceManager.requestPersistence(key.bytes);
+        }
+    }
+}
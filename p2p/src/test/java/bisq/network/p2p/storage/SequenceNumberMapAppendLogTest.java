@@ -0,0 +1,179 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import bisq.network.p2p.storage.persistence.SequenceNumberMap;
+
+import bisq.common.file.CorruptedStorageFileHandler;
+import bisq.common.persistence.PersistenceManager;
+import bisq.common.proto.persistable.PersistenceProtoResolver;
+
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SequenceNumberMapAppendLogTest {
+    private static final P2PDataStorage.ByteArray KEY_1 = new P2PDataStorage.ByteArray(new byte[]{1});
+    private static final P2PDataStorage.ByteArray KEY_2 = new P2PDataStorage.ByteArray(new byte[]{2});
+    private static final P2PDataStorage.ByteArray KEY_3 = new P2PDataStorage.ByteArray(new byte[]{3});
+
+    private File storageDir;
+    private PersistenceProtoResolver persistenceProtoResolver;
+    private PersistenceManager<SequenceNumberMap> persistenceManager;
+    private SequenceNumberMap sequenceNumberMap;
+    private String fileName;
+
+    @Before
+    public void setUp() throws Exception {
+        storageDir = Files.createTempDirectory("storage").toFile();
+        persistenceProtoResolver = mock(PersistenceProtoResolver.class);
+        when(persistenceProtoResolver.fromProto(any(protobuf.PersistableEnvelope.class)))
+                .thenAnswer(invocation -> SequenceNumberMap.fromProto(
+                        ((protobuf.PersistableEnvelope) invocation.getArgument(0)).getSequenceNumberMap()));
+        PersistenceManager.onAllServicesInitialized();
+
+        persistenceManager = newPersistenceManager();
+        sequenceNumberMap = new SequenceNumberMap();
+        // Each test needs its own file name as the PersistenceManager instances are registered by file name.
+        fileName = "SequenceNumberMap_" + System.nanoTime();
+        persistenceManager.initialize(sequenceNumberMap, fileName, PersistenceManager.Source.PRIVATE_LOW_PRIO);
+    }
+
+    @After
+    public void tearDown() {
+        persistenceManager.shutdown();
+        PersistenceManager.resetAllServicesInitialized();
+    }
+
+    @Test
+    public void changesAreAppendedToLogAndReplayed() throws Exception {
+        put(KEY_1, 1);
+        persistNow();
+        Assert.assertFalse(getLogFile().exists());
+        long snapshotSize = getStorageFile().length();
+
+        put(KEY_2, 2);
+        put(KEY_1, 3);
+        persistNow();
+        sequenceNumberMap.getMap().remove(KEY_2);
+        persistenceManager.requestPersistence(KEY_2.bytes);
+        put(KEY_3, 4);
+        persistNow();
+
+        Assert.assertTrue(getLogFile().exists());
+        Assert.assertEquals(snapshotSize, getStorageFile().length());
+        Assert.assertEquals(sequenceNumberMap.getMap(), readPersisted().getMap());
+    }
+
+    @Test
+    public void requestPersistenceWithoutKeyWritesSnapshot() throws Exception {
+        put(KEY_1, 1);
+        persistNow();
+        put(KEY_2, 2);
+        persistNow();
+        Assert.assertTrue(getLogFile().exists());
+
+        persistenceManager.requestPersistence();
+        persistNow();
+
+        Assert.assertFalse(getLogFile().exists());
+        Assert.assertEquals(sequenceNumberMap.getMap(), readPersisted().getMap());
+    }
+
+    @Test
+    public void outdatedLogIsNotReplayed() throws Exception {
+        put(KEY_1, 1);
+        persistNow();
+        put(KEY_2, 2);
+        persistNow();
+        File outdatedLog = new File(storageDir, "outdated.log");
+        Files.copy(getLogFile().toPath(), outdatedLog.toPath());
+
+        sequenceNumberMap.getMap().remove(KEY_2);
+        persistenceManager.requestPersistence();
+        persistNow();
+
+        // Simulates a crash after the new snapshot was written but before the log got deleted.
+        Files.copy(outdatedLog.toPath(), getLogFile().toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        SequenceNumberMap persisted = readPersisted();
+        Assert.assertFalse(persisted.containsKey(KEY_2));
+        Assert.assertEquals(sequenceNumberMap.getMap(), persisted.getMap());
+    }
+
+    @Test
+    public void incompleteRecordAtEndOfLogIsIgnored() throws Exception {
+        put(KEY_1, 1);
+        persistNow();
+        put(KEY_2, 2);
+        persistNow();
+        put(KEY_3, 3);
+        persistNow();
+
+        // Simulates a crash while the last record was appended.
+        try (RandomAccessFile logFile = new RandomAccessFile(getLogFile(), "rw")) {
+            logFile.setLength(logFile.length() - 2);
+        }
+
+        SequenceNumberMap persisted = readPersisted();
+        Assert.assertTrue(persisted.containsKey(KEY_1));
+        Assert.assertTrue(persisted.containsKey(KEY_2));
+        Assert.assertFalse(persisted.containsKey(KEY_3));
+    }
+
+    private void put(P2PDataStorage.ByteArray key, int sequenceNr) {
+        sequenceNumberMap.put(key, new P2PDataStorage.MapValue(sequenceNr, sequenceNr * 1000L));
+        persistenceManager.requestPersistence(key.bytes);
+    }
+
+    private void persistNow() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        persistenceManager.persistNow(latch::countDown);
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+    }
+
+    private SequenceNumberMap readPersisted() {
+        return newPersistenceManager().getPersisted(fileName);
+    }
+
+    private PersistenceManager<SequenceNumberMap> newPersistenceManager() {
+        return new PersistenceManager<>(storageDir, persistenceProtoResolver, mock(CorruptedStorageFileHandler.class));
+    }
+
+    private File getStorageFile() {
+        return new File(storageDir, fileName);
+    }
+
+    private File getLogFile() {
+        return new File(storageDir, fileName + PersistenceManager.LOG_FILE_POSTFIX);
+    }
+}
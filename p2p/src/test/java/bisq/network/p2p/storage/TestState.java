@@ -74,8 +74,14 @@ public class TestState {
     private final ProtectedDataStoreService protectedDataStoreService;
     final ClockFake clockFake;
     private RemovedPayloadsService removedPayloadsService;
+    private final int notificationDelayMs;
 
     TestState() {
+        this(0);
+    }
+
+    TestState(int notificationDelayMs) {
+        this.notificationDelayMs = notificationDelayMs;
         this.mockBroadcaster = mock(Broadcaster.class);
         this.mockSeqNrPersistenceManager = mock(PersistenceManager.class);
         this.removedPayloadsService = mock(RemovedPayloadsService.class);
@@ -89,7 +95,8 @@ public class TestState {
                 this.mockSeqNrPersistenceManager,
                 removedPayloadsService,
                 this.clockFake,
-                MAX_SEQUENCE_NUMBER_MAP_SIZE_BEFORE_PURGE);
+                MAX_SEQUENCE_NUMBER_MAP_SIZE_BEFORE_PURGE,
+                notificationDelayMs);
 
         this.appendOnlyDataStoreListener = mock(AppendOnlyDataStoreListener.class);
         this.hashMapChangedListener = mock(HashMapChangedListener.class);
@@ -102,7 +109,8 @@ public class TestState {
                 this.clockFake,
                 this.hashMapChangedListener,
                 this.appendOnlyDataStoreListener,
-                removedPayloadsService);
+                removedPayloadsService,
+                notificationDelayMs);
 
         when(this.mockSeqNrPersistenceManager.getPersisted())
                 .thenReturn(this.mockedStorage.sequenceNumberMap);
@@ -123,7 +131,8 @@ public class TestState {
                 this.clockFake,
                 this.hashMapChangedListener,
                 this.appendOnlyDataStoreListener,
-                removedPayloadsService);
+                removedPayloadsService,
+                notificationDelayMs);
 
         when(this.mockSeqNrPersistenceManager.getPersisted())
                 .thenReturn(this.mockedStorage.sequenceNumberMap);
@@ -136,7 +145,8 @@ public class TestState {
             ClockFake clock,
             HashMapChangedListener hashMapChangedListener,
             AppendOnlyDataStoreListener appendOnlyDataStoreListener,
-            RemovedPayloadsService removedPayloadsService) {
+            RemovedPayloadsService removedPayloadsService,
+            int notificationDelayMs) {
 
         P2PDataStorage p2PDataStorage = new P2PDataStorage(mock(NetworkNode.class),
                 broadcaster,
@@ -146,7 +156,8 @@ public class TestState {
                 sequenceNrMapPersistenceManager,
                 removedPayloadsService,
                 clock,
-                MAX_SEQUENCE_NUMBER_MAP_SIZE_BEFORE_PURGE);
+                MAX_SEQUENCE_NUMBER_MAP_SIZE_BEFORE_PURGE,
+                notificationDelayMs);
 
         // Currently TestState only supports reading ProtectedStorageEntries off disk.
         p2PDataStorage.readFromResourcesSync("unused");
@@ -26,6 +26,9 @@ import bisq.common.app.Version;
 import bisq.common.crypto.CryptoException;
 import bisq.common.crypto.Sig;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import java.security.KeyPair;
 import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
@@ -89,6 +92,35 @@ public class ProtectedStorageEntryTest {
         Assert.assertTrue(protectedStorageEntry.isValidForAddOperation());
     }
 
+    // TESTCASE: A successful signature verification is reused by other instances of the same entry, but not by entries
+    // with another signature or sequence number
+    @Test
+    public void isSignatureValid_cachedAcrossInstances() throws NoSuchAlgorithmException, CryptoException {
+        Cache<P2PDataStorage.ByteArray, Boolean> verifiedSignatures = CacheBuilder.newBuilder().build();
+        KeyPair ownerKeys = TestUtils.generateKeyPair();
+        ProtectedStoragePayload protectedStoragePayload = new ProtectedStoragePayloadStub(ownerKeys.getPublic());
+        ProtectedStorageEntry protectedStorageEntry = buildProtectedStorageEntry(protectedStoragePayload, ownerKeys, 1);
+
+        Assert.assertTrue(protectedStorageEntry.isSignatureValid(verifiedSignatures));
+        Assert.assertEquals(1, verifiedSignatures.size());
+
+        ProtectedStorageEntry sameEntry = new ProtectedStorageEntry(protectedStoragePayload, ownerKeys.getPublic(), 1,
+                protectedStorageEntry.getSignature(), Clock.systemDefaultZone());
+        Assert.assertTrue(sameEntry.isSignatureValid(verifiedSignatures));
+        Assert.assertEquals(1, verifiedSignatures.size());
+
+        ProtectedStorageEntry otherSequenceNumber = new ProtectedStorageEntry(protectedStoragePayload,
+                ownerKeys.getPublic(), 2, protectedStorageEntry.getSignature(), Clock.systemDefaultZone());
+        Assert.assertFalse(otherSequenceNumber.isSignatureValid(verifiedSignatures));
+
+        KeyPair otherKeys = TestUtils.generateKeyPair();
+        ProtectedStorageEntry otherSignature = new ProtectedStorageEntry(protectedStoragePayload, ownerKeys.getPublic(),
+                1, buildProtectedStorageEntry(protectedStoragePayload, otherKeys, 1).getSignature(),
+                Clock.systemDefaultZone());
+        Assert.assertFalse(otherSignature.isSignatureValid(verifiedSignatures));
+        Assert.assertEquals(1, verifiedSignatures.size());
+    }
+
     // TESTCASE: validForAddOperation() should return false if the Entry owner and payload owner don't match
     @Test
     public void isValidForAddOperation_Mismatch() throws NoSuchAlgorithmException, CryptoException {
@@ -0,0 +1,204 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage.persistence;
+
+import bisq.network.p2p.storage.P2PDataStorage;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+
+import com.google.protobuf.ByteString;
+
+import java.nio.file.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MappedPayloadStoreTest {
+    private File file;
+    private Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> map;
+
+    @Before
+    public void setUp() throws Exception {
+        file = new File(Files.createTempDirectory("storage").toFile(), "Store" + MappedPayloadStore.FILE_POSTFIX);
+        map = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            PayloadStub payload = new PayloadStub(new byte[]{(byte) (i * 7), (byte) i}, i * 1000L);
+            map.put(new P2PDataStorage.ByteArray(payload.getHash()), payload);
+        }
+    }
+
+    @Test
+    public void open_containsAllEntries() throws IOException {
+        MappedPayloadStore.write(file, map);
+        MappedPayloadStore store = MappedPayloadStore.open(file, PayloadStub::fromProto);
+
+        Assert.assertEquals(map.size(), store.size());
+        map.forEach((hash, payload) -> {
+            Assert.assertTrue(store.containsKey(hash));
+            Assert.assertEquals(payload, store.get(hash));
+        });
+        Assert.assertFalse(store.containsKey(new P2PDataStorage.ByteArray(new byte[]{1, 2})));
+        Assert.assertFalse(store.containsKey(new P2PDataStorage.ByteArray(new byte[]{1})));
+        Assert.assertNull(store.get(new P2PDataStorage.ByteArray(new byte[]{1, 2})));
+    }
+
+    @Test
+    public void open_iteratesAllEntries() throws IOException {
+        MappedPayloadStore.write(file, map);
+        MappedPayloadStore store = MappedPayloadStore.open(file, PayloadStub::fromProto);
+
+        Assert.assertEquals(map.keySet(), new HashSet<>(store.keySet()));
+        Assert.assertEquals(map, new HashMap<>(store));
+        Assert.assertEquals(map, store);
+    }
+
+    @Test
+    public void entrySet_decodesPayloadsOnlyOnAccess() throws IOException {
+        MappedPayloadStore.write(file, map);
+        AtomicInteger numDecodes = new AtomicInteger();
+        MappedPayloadStore store = MappedPayloadStore.open(file, proto -> {
+            numDecodes.incrementAndGet();
+            return PayloadStub.fromProto(proto);
+        });
+
+        // A GetDataRequest excluding all our keys only reads the keys of the entries
+        Set<P2PDataStorage.ByteArray> excludedKeys = new HashSet<>(map.keySet());
+        store.entrySet().forEach(entry -> Assert.assertTrue(excludedKeys.contains(entry.getKey())));
+        Assert.assertEquals(0, numDecodes.get());
+
+        Map.Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload> entry = store.entrySet().iterator().next();
+        Assert.assertEquals(map.get(entry.getKey()), entry.getValue());
+        Assert.assertEquals(map.get(entry.getKey()), entry.getValue());
+        Assert.assertEquals(1, numDecodes.get());
+    }
+
+    @Test
+    public void get_decodesEachPayloadOnlyOnce() throws IOException {
+        MappedPayloadStore.write(file, map);
+        AtomicInteger numDecodes = new AtomicInteger();
+        MappedPayloadStore store = MappedPayloadStore.open(file, proto -> {
+            numDecodes.incrementAndGet();
+            return PayloadStub.fromProto(proto);
+        });
+
+        // Startup consumers iterate all values, later readers get the same instances
+        Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> values = new HashMap<>(store);
+        Assert.assertEquals(map.size(), numDecodes.get());
+
+        values.forEach((hash, payload) -> Assert.assertSame(payload, store.get(hash)));
+        store.values().forEach(payload ->
+                Assert.assertSame(values.get(new P2PDataStorage.ByteArray(payload.getHash())), payload));
+        Assert.assertEquals(map.size(), numDecodes.get());
+    }
+
+    @Test
+    public void open_emptyMap() throws IOException {
+        MappedPayloadStore.write(file, new HashMap<>());
+        MappedPayloadStore store = MappedPayloadStore.open(file, PayloadStub::fromProto);
+
+        Assert.assertTrue(store.isEmpty());
+        Assert.assertFalse(store.containsKey(new P2PDataStorage.ByteArray(new byte[]{1, 2})));
+    }
+
+    @Test(expected = IOException.class)
+    public void open_truncatedFile() throws IOException {
+        MappedPayloadStore.write(file, map);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+        MappedPayloadStore.open(file, PayloadStub::fromProto);
+    }
+
+    @Test(expected = IOException.class)
+    public void open_invalidFile() throws IOException {
+        Files.write(file.toPath(), new byte[64]);
+        MappedPayloadStore.open(file, PayloadStub::fromProto);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void combinedPayloadMap_isReadOnly() throws IOException {
+        MappedPayloadStore.write(file, map);
+        Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> live = new HashMap<>();
+        PayloadStub payload = new PayloadStub(new byte[]{1, 2, 3}, 1);
+        live.put(new P2PDataStorage.ByteArray(payload.getHash()), payload);
+        CombinedPayloadMap combined = new CombinedPayloadMap(Arrays.asList(live,
+                MappedPayloadStore.open(file, PayloadStub::fromProto)));
+
+        Assert.assertEquals(map.size() + 1, combined.size());
+        Set<P2PDataStorage.ByteArray> keys = new HashSet<>(combined.keySet());
+        Assert.assertEquals(map.size() + 1, keys.size());
+        Assert.assertEquals(payload, combined.get(new P2PDataStorage.ByteArray(payload.getHash())));
+
+        combined.entrySet().iterator().remove();
+    }
+
+    private static class PayloadStub implements PersistableNetworkPayload {
+        private final byte[] hash;
+        private final long date;
+
+        PayloadStub(byte[] hash, long date) {
+            this.hash = hash;
+            this.date = date;
+        }
+
+        static PayloadStub fromProto(protobuf.PersistableNetworkPayload proto) {
+            return new PayloadStub(proto.getAccountAgeWitness().getHash().toByteArray(),
+                    proto.getAccountAgeWitness().getDate());
+        }
+
+        @Override
+        public protobuf.PersistableNetworkPayload toProtoMessage() {
+            return protobuf.PersistableNetworkPayload.newBuilder()
+                    .setAccountAgeWitness(protobuf.AccountAgeWitness.newBuilder()
+                            .setHash(ByteString.copyFrom(hash))
+                            .setDate(date))
+                    .build();
+        }
+
+        @Override
+        public byte[] getHash() {
+            return hash;
+        }
+
+        @Override
+        public boolean verifyHashSize() {
+            return true;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof PayloadStub && Arrays.equals(hash, ((PayloadStub) o).hash) && date == ((PayloadStub) o).date;
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(hash);
+        }
+    }
+}